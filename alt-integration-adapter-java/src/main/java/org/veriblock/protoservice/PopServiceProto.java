@@ -68,7 +68,7 @@ public class PopServiceProto {
             }
 
             PoPTransactionData popTx = new PoPTransactionData(popData.getPopTxHash(), altPublication, veriBlockPublications);
-            security.getContext().getPopTxStore().addPoPTransaction(popTx, containingBlock, endorsedBlock);
+            security.addPoPTransaction(popTx, containingBlock, endorsedBlock);
         }
 
         return VeriBlockMessages.EmptyReply.newBuilder().build();
@@ -21,14 +21,20 @@ import org.veriblock.sdk.VeriBlockSecurity;
 import org.veriblock.sdk.auditor.store.AuditorChangesStore;
 import org.veriblock.sdk.blockchain.BitcoinBlockchainBootstrapConfig;
 import org.veriblock.sdk.blockchain.VeriBlockBlockchainBootstrapConfig;
-import org.veriblock.sdk.blockchain.store.BitcoinStore;
+import org.veriblock.sdk.blockchain.store.BlockStore;
+import org.veriblock.sdk.blockchain.store.BlockStoreType;
 import org.veriblock.sdk.blockchain.store.PoPTransactionsDBStore;
-import org.veriblock.sdk.blockchain.store.VeriBlockStore;
+import org.veriblock.sdk.blockchain.store.StoredBitcoinBlock;
+import org.veriblock.sdk.blockchain.store.StoredVeriBlockBlock;
 import org.veriblock.sdk.forkresolution.ForkresolutionComparator;
 import org.veriblock.sdk.forkresolution.ForkresolutionConfig;
+import org.veriblock.sdk.models.Sha256Hash;
+import org.veriblock.sdk.models.VBlakeHash;
+import org.veriblock.sdk.retention.RetentionConfig;
+import org.veriblock.sdk.retention.RetentionPruner;
 import org.veriblock.sdk.rewards.PopRewardCalculator;
 import org.veriblock.sdk.rewards.PopRewardCalculatorConfig;
-import org.veriblock.sdk.sqlite.ConnectionSelector;
+import org.veriblock.sdk.sqlite.Database;
 
 import java.io.IOException;
 import java.nio.file.Paths;
@@ -68,10 +74,13 @@ public final class Application {
         try {
             config = new ConfigurationParser(appConfiguration.getProperties());
             
-            VeriBlockStore veriBlockStore = new VeriBlockStore(ConnectionSelector.setConnectionDefault());
-            BitcoinStore bitcoinStore = new BitcoinStore(ConnectionSelector.setConnectionDefault());
-            AuditorChangesStore auditStore = new AuditorChangesStore(ConnectionSelector.setConnectionDefault());
-            PoPTransactionsDBStore popTxDBStore = new PoPTransactionsDBStore(ConnectionSelector.setConnectionDefault());
+            // the stores share the writer connection so that payloads are written in a single transaction
+            Database database = Database.openDefault();
+            BlockStoreType blockStoreType = config.getBlockStoreType();
+            BlockStore<StoredVeriBlockBlock, VBlakeHash> veriBlockStore = blockStoreType.openVeriBlockStore(database);
+            BlockStore<StoredBitcoinBlock, Sha256Hash> bitcoinStore = blockStoreType.openBitcoinStore(database);
+            AuditorChangesStore auditStore = new AuditorChangesStore(database.getConnection());
+            PoPTransactionsDBStore popTxDBStore = new PoPTransactionsDBStore(database);
 
             Context context = new Context(config.getVeriblockNetworkParameters(),
                                           config.getBitcoinNetworkParameters(),
@@ -109,6 +118,13 @@ public final class Application {
 
             ForkresolutionComparator.setSecurity(security);
             PopRewardCalculator.setSecurity(security);
+
+            // the retention depth follows the fork resolution and reward configs set above
+            RetentionConfig retentionConfig = config.getRetentionConfig();
+            if (retentionConfig != null) {
+                security.setRetentionPruner(new RetentionPruner(security, retentionConfig));
+                log.info("Pruning the PoP data deeper than {} blocks", security.getRetentionPruner().getRetentionDepth());
+            }
         } catch (Exception e) {
             log.debug("Could not initialize VeriBlock security", e);
             return;
@@ -17,6 +17,7 @@ import java.util.Properties;
 import org.veriblock.sdk.AltChainParametersConfig;
 import org.veriblock.sdk.blockchain.BitcoinBlockchainBootstrapConfig;
 import org.veriblock.sdk.blockchain.VeriBlockBlockchainBootstrapConfig;
+import org.veriblock.sdk.blockchain.store.BlockStoreType;
 import org.veriblock.sdk.conf.AlphaNetParameters;
 import org.veriblock.sdk.conf.BitcoinMainNetParameters;
 import org.veriblock.sdk.conf.BitcoinNetworkParameters;
@@ -27,6 +28,7 @@ import org.veriblock.sdk.conf.RegTestParameters;
 import org.veriblock.sdk.conf.TestNetParameters;
 import org.veriblock.sdk.conf.VeriBlockNetworkParameters;
 import org.veriblock.sdk.forkresolution.ForkresolutionConfig;
+import org.veriblock.sdk.retention.RetentionConfig;
 import org.veriblock.sdk.rewards.PopRewardCalculatorConfig;
 import org.veriblock.sdk.rewards.PopRewardCurveConfig;
 import org.veriblock.sdk.util.ParseBlocks;
@@ -63,6 +65,17 @@ public class ConfigurationParser {
         return validation;
     }
 
+    public BlockStoreType getBlockStoreType() {
+        String type = properties.getProperty("blockchain.store");
+        if (type == null || type.equalsIgnoreCase("sqlite")) {
+            return BlockStoreType.SQLITE;
+        } else if (type.equalsIgnoreCase("mapped")) {
+            return BlockStoreType.MAPPED;
+        }
+
+        throw new AltConfigurationException("Unknown block store type");
+    }
+
     public VeriBlockNetworkParameters getVeriblockNetworkParameters() {
         String preset = properties.getProperty("veriblock.blockchain.network");
         if (preset.equalsIgnoreCase("main")) {
@@ -214,6 +227,36 @@ public class ConfigurationParser {
         return config;
     }
 
+    // null if the pruning is disabled; the values not set keep their defaults
+    public RetentionConfig getRetentionConfig() {
+        if (!Boolean.parseBoolean(properties.getProperty("retention.enabled"))) {
+            return null;
+        }
+
+        String safetyMargin = properties.getProperty("retention.safetyMargin");
+        String batchSize = properties.getProperty("retention.batchSize");
+        String batchPauseMillis = properties.getProperty("retention.batchPauseMillis");
+
+        RetentionConfig config = new RetentionConfig();
+        try {
+            if (safetyMargin != null) config.safetyMargin = Integer.parseInt(safetyMargin);
+            if (batchSize != null) config.batchSize = Integer.parseInt(batchSize);
+            if (batchPauseMillis != null) config.batchPauseMillis = Long.parseLong(batchPauseMillis);
+        } catch (NumberFormatException e) {
+            throw new AltConfigurationException(String.format("Failed to parse the retention config: %s", e.getMessage()));
+        }
+
+        if (config.safetyMargin < 0) {
+            throw new AltConfigurationException("retention.safetyMargin cannot be negative");
+        }
+
+        if (config.batchSize <= 0) {
+            throw new AltConfigurationException("retention.batchSize must be positive");
+        }
+
+        return config;
+    }
+
     public PopRewardCurveConfig getPopRewardCurveConfig() {
         String startOfDecreasingLine = properties.getProperty("popReward.curve.startOfDecreasingLine");
         String widthOfDecreasingLineNormal = properties.getProperty("popReward.curve.widthOfDecreasingLineNormal");
@@ -10,13 +10,12 @@ package org.veriblock.sdk;
 
 import org.veriblock.sdk.auditor.store.AuditorChangesStore;
 import org.veriblock.sdk.auditor.store.ChangeStore;
-import org.veriblock.sdk.blockchain.store.BitcoinStore;
 import org.veriblock.sdk.blockchain.store.BlockStore;
+import org.veriblock.sdk.blockchain.store.BlockStoreType;
 import org.veriblock.sdk.blockchain.store.PoPTransactionsDBStore;
 import org.veriblock.sdk.blockchain.store.PoPTransactionStore;
 import org.veriblock.sdk.blockchain.store.StoredBitcoinBlock;
 import org.veriblock.sdk.blockchain.store.StoredVeriBlockBlock;
-import org.veriblock.sdk.blockchain.store.VeriBlockStore;
 import org.veriblock.sdk.conf.BitcoinMainNetParameters;
 import org.veriblock.sdk.conf.BitcoinNetworkParameters;
 import org.veriblock.sdk.conf.MainNetParameters;
@@ -24,7 +23,7 @@ import org.veriblock.sdk.conf.VeriBlockNetworkParameters;
 import org.veriblock.sdk.models.BlockStoreException;
 import org.veriblock.sdk.models.Sha256Hash;
 import org.veriblock.sdk.models.VBlakeHash;
-import org.veriblock.sdk.sqlite.ConnectionSelector;
+import org.veriblock.sdk.sqlite.Database;
 import org.veriblock.sdk.util.Preconditions;
 
 import java.sql.SQLException;
@@ -89,10 +88,16 @@ public class Context {
     }
 
     public static Context init() throws BlockStoreException, SQLException {
+       return init(BlockStoreType.SQLITE);
+    }
+
+    public static Context init(BlockStoreType blockStoreType) throws BlockStoreException, SQLException {
+       // the stores share the writer connection so that payloads are written in a single transaction
+       Database database = Database.openDefault();
        return new Context(new MainNetParameters(), new BitcoinMainNetParameters(),
-                          new VeriBlockStore(ConnectionSelector.setConnectionDefault()),
-                          new BitcoinStore(ConnectionSelector.setConnectionDefault()),
-                          new AuditorChangesStore(ConnectionSelector.setConnectionDefault()),
-                          new PoPTransactionsDBStore(ConnectionSelector.setConnectionDefault()));
+                          blockStoreType.openVeriBlockStore(database),
+                          blockStoreType.openBitcoinStore(database),
+                          new AuditorChangesStore(database.getConnection()),
+                          new PoPTransactionsDBStore(database));
     }
 }
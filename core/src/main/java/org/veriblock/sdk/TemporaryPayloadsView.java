@@ -0,0 +1,50 @@
+// VeriBlock Blockchain Project
+// Copyright 2017-2018 VeriBlock, Inc
+// Copyright 2018-2019 Xenios SEZC
+// All rights reserved.
+// https://www.veriblock.org
+// Distributed under the MIT software license, see the accompanying
+// file LICENSE or http://www.opensource.org/licenses/mit-license.php.
+
+package org.veriblock.sdk;
+
+import org.veriblock.sdk.blockchain.TemporalView;
+import org.veriblock.sdk.blockchain.store.StoredBitcoinBlock;
+import org.veriblock.sdk.blockchain.store.StoredVeriBlockBlock;
+import org.veriblock.sdk.models.Sha256Hash;
+import org.veriblock.sdk.models.VBlakeHash;
+
+/**
+ * A handle to the temporary payloads of both the VeriBlock and Bitcoin blockchains.
+ */
+public class TemporaryPayloadsView {
+    private final TemporalView<StoredVeriBlockBlock, VBlakeHash> veriBlockView;
+    private final TemporalView<StoredBitcoinBlock, Sha256Hash> bitcoinView;
+
+    public TemporaryPayloadsView() {
+        this(new TemporalView<>(), new TemporalView<>());
+    }
+
+    TemporaryPayloadsView(TemporalView<StoredVeriBlockBlock, VBlakeHash> veriBlockView,
+                          TemporalView<StoredBitcoinBlock, Sha256Hash> bitcoinView) {
+        this.veriBlockView = veriBlockView;
+        this.bitcoinView = bitcoinView;
+    }
+
+    TemporalView<StoredVeriBlockBlock, VBlakeHash> getVeriBlockView() {
+        return veriBlockView;
+    }
+
+    TemporalView<StoredBitcoinBlock, Sha256Hash> getBitcoinView() {
+        return bitcoinView;
+    }
+
+    /**
+     * Create a view with the same temporary payloads; the payloads added to either view
+     * after the fork are not visible in the other one
+     * @return the new view
+     */
+    public TemporaryPayloadsView fork() {
+        return new TemporaryPayloadsView(veriBlockView.fork(), bitcoinView.fork());
+    }
+}
@@ -16,7 +16,11 @@ import org.veriblock.sdk.blockchain.BitcoinBlockchain;
 import org.veriblock.sdk.blockchain.VeriBlockBlockchain;
 import org.veriblock.sdk.blockchain.VeriBlockPublicationUtilities;
 import org.veriblock.sdk.models.*;
+import org.veriblock.sdk.retention.RetentionPruner;
+import org.veriblock.sdk.services.PublicationVerifier;
 import org.veriblock.sdk.services.ValidationService;
+import org.veriblock.sdk.sqlite.tables.PoPTransactionData;
+import org.veriblock.sdk.util.Preconditions;
 import org.veriblock.sdk.util.Utils;
 
 import java.sql.SQLException;
@@ -24,6 +28,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.FutureTask;
 
 public class VeriBlockSecurity {
 
@@ -32,6 +37,9 @@ public class VeriBlockSecurity {
     private final AuditJournal journal;
     private final Context context;
     private AltChainParametersConfig altChainParametersConfig;
+    private RetentionPruner retentionPruner;
+    // serializes the store writes with the background pruning
+    private final Object writeLock = new Object();
 
     public VeriBlockSecurity(Context context) {
         this.context = context;
@@ -42,6 +50,7 @@ public class VeriBlockSecurity {
     }
     
     public void shutdown() {
+        if (retentionPruner != null) retentionPruner.shutdown();
         context.getBitcoinStore().shutdown();
         context.getVeriblockStore().shutdown();
         context.getChangeStore().shutdown();
@@ -64,6 +73,14 @@ public class VeriBlockSecurity {
 
     public AltChainParametersConfig getAltChainParametersConfig() { return this.altChainParametersConfig; }
 
+    // the pruner is scheduled with the height of each block the payloads are added for; null disables the pruning
+    public void setRetentionPruner(RetentionPruner pruner) { this.retentionPruner = pruner; }
+
+    public RetentionPruner getRetentionPruner() { return this.retentionPruner; }
+
+    // held while the payloads are written to the stores; the pruner deletes under it
+    public Object getWriteLock() { return this.writeLock; }
+
     public ValidationResult checkATVInternally(AltPublication publication) {
         try {
             ValidationService.verify(publication);
@@ -88,51 +105,104 @@ public class VeriBlockSecurity {
     public void addPayloads(BlockIndex blockIndex, List<VeriBlockPublication> veriblockPublications, List<AltPublication> altPublications) throws VerificationException, BlockStoreException, SQLException {
         Changeset changeset = new Changeset(BlockIdentifier.wrap(Utils.decodeHex(blockIndex.getHash())));
 
-        try {
-            if (veriblockPublications != null && veriblockPublications.size() > 0) {
-                for (VeriBlockPublication publication : veriblockPublications) {
-                    ValidationService.verify(publication);
-                    verifyPublicationContextually(publication);
-
-                    changeset.addChanges(bitcoinBlockchain.addAll(publication.getTransaction().getBlocks()));
-
-                    List<VeriBlockBlock> veriBlockBlocks = publication.getBlocks();
-                    if (veriBlockBlocks.contains(publication.getTransaction().getPublishedBlock())) {
-                        // The published block is part of this publication's supplied context, add the blocks individually
-                        for (VeriBlockBlock block : veriBlockBlocks) {
-                            if (block.equals(publication.getTransaction().getPublishedBlock())) {
-                                changeset.addChanges(veriblockBlockchain.addWithProof(block, publication.getTransaction().getBlockOfProof().getHash()));
-                            } else {
-                                changeset.addChanges(veriblockBlockchain.add(block));
+        // verify the publications in the background while they are being applied in order
+        List<FutureTask<Void>> veriBlockVerifications = PublicationVerifier.verifyAll(veriblockPublications, ValidationService::verify);
+        List<FutureTask<Void>> altVerifications = PublicationVerifier.verifyAll(altPublications, ValidationService::verify);
+
+        // the background pruning deletes on the same connection, so it is kept out of the transaction
+        synchronized (writeLock) {
+            // write the whole changeset in a single transaction
+            // and roll it back if any of the publications is rejected
+            beginTransaction();
+            try {
+                if (veriblockPublications != null && veriblockPublications.size() > 0) {
+                    for (int i = 0; i < veriblockPublications.size(); i++) {
+                        VeriBlockPublication publication = veriblockPublications.get(i);
+                        PublicationVerifier.await(veriBlockVerifications.get(i));
+                        verifyPublicationContextually(publication);
+
+                        changeset.addChanges(bitcoinBlockchain.addAll(publication.getTransaction().getBlocks()));
+
+                        List<VeriBlockBlock> veriBlockBlocks = publication.getBlocks();
+                        if (veriBlockBlocks.contains(publication.getTransaction().getPublishedBlock())) {
+                            // The published block is part of this publication's supplied context, add the blocks individually
+                            for (VeriBlockBlock block : veriBlockBlocks) {
+                                if (block.equals(publication.getTransaction().getPublishedBlock())) {
+                                    changeset.addChanges(veriblockBlockchain.addWithProof(block, publication.getTransaction().getBlockOfProof().getHash()));
+                                } else {
+                                    changeset.addChanges(veriblockBlockchain.add(block));
+                                }
                             }
+                        } else {
+                            // The published block is pre-existing, therefore set its block of proof and add these new blocks
+                            changeset.addChanges(veriblockBlockchain.setBlockOfProof(
+                                    publication.getTransaction().getPublishedBlock(),
+                                    publication.getTransaction().getBlockOfProof().getHash()));
+                            changeset.addChanges(veriblockBlockchain.addAll(publication.getBlocks()));
                         }
-                    } else {
-                        // The published block is pre-existing, therefore set its block of proof and add these new blocks
-                        changeset.addChanges(veriblockBlockchain.setBlockOfProof(
-                                publication.getTransaction().getPublishedBlock(),
-                                publication.getTransaction().getBlockOfProof().getHash()));
-                        changeset.addChanges(veriblockBlockchain.addAll(publication.getBlocks()));
                     }
                 }
-            }
 
-            if (altPublications != null && altPublications.size() > 0) {
-                for (AltPublication publication : altPublications) {
-                    ValidationService.verify(publication);
-                    verifyPublicationContextually(publication);
+                if (altPublications != null && altPublications.size() > 0) {
+                    for (int i = 0; i < altPublications.size(); i++) {
+                        AltPublication publication = altPublications.get(i);
+                        PublicationVerifier.await(altVerifications.get(i));
+                        verifyPublicationContextually(publication);
 
-                    changeset.addChanges(veriblockBlockchain.addAll(publication.getBlocks()));
+                        changeset.addChanges(veriblockBlockchain.addAll(publication.getBlocks()));
+                    }
                 }
+
+                journal.record(changeset, blockIndex.getHeight());
+
+                commitTransaction();
+            } catch (SQLException | RuntimeException e) {
+                rollbackTransaction();
+                throw e;
+            } finally {
+                PublicationVerifier.cancelAll(veriBlockVerifications);
+                PublicationVerifier.cancelAll(altVerifications);
             }
+        }
 
-            journal.record(changeset);
+        if (retentionPruner != null) {
+            retentionPruner.schedule(blockIndex.getHeight());
+        }
+    }
 
-        } catch (VerificationException e) {
-            rewind(changeset);
-            throw e;
+    /**
+     * Store the PoP transaction data of an altchain block.
+     * The data is written on the connection the payloads are written on,
+     * so it is kept out of the payload transactions and the pruning batches
+     * @param popTx the PoP transaction data
+     * @param containingBlock the altchain block containing the transaction
+     * @param endorsedBlock the altchain block the transaction endorses
+     * @throws SQLException
+     */
+    public void addPoPTransaction(PoPTransactionData popTx, AltChainBlock containingBlock, AltChainBlock endorsedBlock) throws SQLException {
+        synchronized (writeLock) {
+            context.getPopTxStore().addPoPTransaction(popTx, containingBlock, endorsedBlock);
         }
     }
 
+    private void beginTransaction() throws SQLException {
+        context.getBitcoinStore().beginTransaction();
+        context.getVeriblockStore().beginTransaction();
+        context.getChangeStore().beginTransaction();
+    }
+
+    private void commitTransaction() throws SQLException {
+        context.getBitcoinStore().commitTransaction();
+        context.getVeriblockStore().commitTransaction();
+        context.getChangeStore().commitTransaction();
+    }
+
+    private void rollbackTransaction() throws SQLException {
+        context.getBitcoinStore().rollbackTransaction();
+        context.getVeriblockStore().rollbackTransaction();
+        context.getChangeStore().rollbackTransaction();
+    }
+
     private void rewind(Changeset changeset) throws SQLException {
         Iterator<Change> changeIterator = changeset.reverseIterator();
         while (changeIterator.hasNext()) {
@@ -145,15 +215,21 @@ public class VeriBlockSecurity {
     public void removePayloads(BlockIndex blockIndex) throws SQLException {
         BlockIdentifier blockIdentifier = BlockIdentifier.wrap(Utils.decodeHex(blockIndex.getHash()));
 
-        Changeset changeset = journal.get(blockIdentifier);
-        rewind(changeset);
+        synchronized (writeLock) {
+            Changeset changeset = journal.get(blockIdentifier);
+            rewind(changeset);
+        }
     }
 
     public void addTemporaryPayloads(List<VeriBlockPublication> veriblockPublications, List<AltPublication> altPublications) throws VerificationException, BlockStoreException, SQLException {
+        List<FutureTask<Void>> veriBlockVerifications = PublicationVerifier.verifyAll(veriblockPublications, ValidationService::verify);
+        List<FutureTask<Void>> altVerifications = PublicationVerifier.verifyAll(altPublications, ValidationService::verify);
+
         try {
             if (veriblockPublications != null && veriblockPublications.size() > 0) {
-                for (VeriBlockPublication publication : veriblockPublications) {
-                    ValidationService.verify(publication);
+                for (int i = 0; i < veriblockPublications.size(); i++) {
+                    VeriBlockPublication publication = veriblockPublications.get(i);
+                    PublicationVerifier.await(veriBlockVerifications.get(i));
                     verifyPublicationContextually(publication);
 
                     // Temporarily add Bitcoin blocks
@@ -180,8 +256,9 @@ public class VeriBlockSecurity {
             }
 
             if (altPublications != null && altPublications.size() > 0) {
-                for (AltPublication publication : altPublications) {
-                    ValidationService.verify(publication);
+                for (int i = 0; i < altPublications.size(); i++) {
+                    AltPublication publication = altPublications.get(i);
+                    PublicationVerifier.await(altVerifications.get(i));
                     verifyPublicationContextually(publication);
 
                     veriblockBlockchain.addAllTemporarily(publication.getBlocks());
@@ -191,6 +268,9 @@ public class VeriBlockSecurity {
         } catch (VerificationException e) {
             clearTemporaryPayloads();
             throw e;
+        } finally {
+            PublicationVerifier.cancelAll(veriBlockVerifications);
+            PublicationVerifier.cancelAll(altVerifications);
         }
     }
 
@@ -199,6 +279,32 @@ public class VeriBlockSecurity {
         bitcoinBlockchain.clearTemporaryModifications();
     }
 
+    // the view that holds the temporary payloads
+    public TemporaryPayloadsView getTemporaryPayloadsView() {
+        return new TemporaryPayloadsView(veriblockBlockchain.getTemporalView(), bitcoinBlockchain.getTemporalView());
+    }
+
+    // switch to another view; the temporary payloads go to that view from now on
+    public void setTemporaryPayloadsView(TemporaryPayloadsView view) {
+        veriblockBlockchain.setTemporalView(view.getVeriBlockView());
+        bitcoinBlockchain.setTemporalView(view.getBitcoinView());
+    }
+
+    // use the given view in the current thread only, so that several threads
+    // can add and check temporary payloads at the same time
+    public void attachTemporaryPayloadsView(TemporaryPayloadsView view) {
+        Preconditions.notNull(view, "View cannot be null");
+
+        veriblockBlockchain.attachTemporalView(view.getVeriBlockView());
+        bitcoinBlockchain.attachTemporalView(view.getBitcoinView());
+    }
+
+    // switch the current thread back to the shared view
+    public void detachTemporaryPayloadsView() {
+        veriblockBlockchain.detachTemporalView();
+        bitcoinBlockchain.detachTemporalView();
+    }
+
     public List<VeriBlockPublication> simplifyVTBs(List<VeriBlockPublication> publications) throws BlockStoreException, SQLException {
         return VeriBlockPublicationUtilities.simplifyVeriBlockPublications(
                     publications, context.getBitcoinStore());
@@ -297,7 +403,7 @@ public class VeriBlockSecurity {
     {
         List<Change> changes = new ArrayList<Change>();
         try {
-            changes.addAll(bitcoinBlockchain.addAll(bitcoinBlocks));
+            changes.addAll(bitcoinBlockchain.bulkAdd(bitcoinBlocks));
             changes.addAll(veriblockBlockchain.addAll(veriBlockBlocks));
         }
         catch (VerificationException e)
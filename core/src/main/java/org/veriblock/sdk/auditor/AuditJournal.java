@@ -9,14 +9,9 @@
 package org.veriblock.sdk.auditor;
 
 import org.veriblock.sdk.auditor.store.ChangeStore;
-import org.veriblock.sdk.auditor.store.StoredChange;
 import org.veriblock.sdk.util.Preconditions;
 
 import java.sql.SQLException;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
-import java.util.stream.Collectors;
 
 public class AuditJournal {
 
@@ -29,25 +24,15 @@ public class AuditJournal {
     }
 
     public void record(Changeset changeset) throws SQLException {
-        BlockIdentifier identifier = changeset.getBlockIdentifier();
-        List<Change> changes = changeset.getChanges();
+        store.put(changeset);
+    }
 
-        for (int i = 0; i < changes.size(); i++) {
-            StoredChange storedChange = new StoredChange(identifier, i, changes.get(i));
-            store.put(storedChange);
-        }
+    // record the changeset along with the height of its block, so it can be pruned by height
+    public void record(Changeset changeset, long height) throws SQLException {
+        store.put(changeset, height);
     }
 
     public Changeset get(BlockIdentifier blockIdentifier) throws SQLException {
-        List<StoredChange> storedChanges = store.get(blockIdentifier);
-
-        List<Change> changes = new ArrayList<Change>(Collections.nCopies(storedChanges.size(), (Change) null));
-        for (StoredChange change : storedChanges) {
-            changes.set(change.getSequenceNumber(), change.getChange());
-        }
-
-        Changeset changeset = new Changeset(blockIdentifier);
-        changeset.addChanges(changes);
-        return changeset;
+        return store.getChangeset(blockIdentifier);
     }
 }
@@ -8,6 +8,7 @@
 
 package org.veriblock.sdk.auditor;
 
+import org.veriblock.sdk.blockchain.store.StoredBitcoinBlock;
 import org.veriblock.sdk.blockchain.store.StoredVeriBlockBlock;
 import org.veriblock.sdk.util.Preconditions;
 
@@ -18,9 +19,9 @@ import java.util.Optional;
 
 public abstract class Change {
     //StoredVeriBlockBlock.SIZE = 132
-    //StoredBitcoinBlock.SIZE = 128
-    public static final int MAX_SIZE = 4 + 2 + 2 + 132 + 132;
-    public static final int MAX_HASH_SIZE = StoredVeriBlockBlock.SIZE;
+    //StoredBitcoinBlock.SIZE = 152
+    public static final int MAX_HASH_SIZE = Math.max(StoredVeriBlockBlock.SIZE, StoredBitcoinBlock.SIZE);
+    public static final int MAX_SIZE = 4 + 2 + 2 + MAX_HASH_SIZE + MAX_HASH_SIZE;
 
     private byte[] oldValue;
     private byte[] newValue;
@@ -10,6 +10,9 @@ package org.veriblock.sdk.auditor;
 
 import org.veriblock.sdk.util.Preconditions;
 
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
@@ -17,6 +20,9 @@ import java.util.LinkedList;
 import java.util.List;
 
 public class Changeset {
+    private static final byte FORMAT_VERSION = 1;
+    private static final int CHAIN_IDENTIFIER_LENGTH = 4;
+
     private final BlockIdentifier blockIdentifier;
     private final List<Change> changes;
 
@@ -47,4 +53,107 @@ public class Changeset {
 
         return local.iterator();
     }
+
+    /**
+     * Serialize the changes into a compact binary form. The new value of each change
+     * is delta encoded against its old value: only the bytes between their common
+     * prefix and suffix are stored, so a SET_PROOF change keeps just the proof hash
+     * @return the serialized changes
+     */
+    public byte[] serialize() {
+        int size = 1 + 4;
+        int[] prefixes = new int[changes.size()];
+        int[] suffixes = new int[changes.size()];
+
+        int i = 0;
+        for (Change change : changes) {
+            byte[] oldValue = change.getOldValue();
+            byte[] newValue = change.getNewValue();
+            int common = Math.min(oldValue.length, newValue.length);
+
+            int prefix = 0;
+            while (prefix < common && oldValue[prefix] == newValue[prefix]) prefix++;
+            int suffix = 0;
+            while (suffix < common - prefix
+                    && oldValue[oldValue.length - 1 - suffix] == newValue[newValue.length - 1 - suffix]) suffix++;
+
+            prefixes[i] = prefix;
+            suffixes[i] = suffix;
+            size += CHAIN_IDENTIFIER_LENGTH + 1 + 1 + oldValue.length + 3 + newValue.length - prefix - suffix;
+            i++;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.put(FORMAT_VERSION);
+        buffer.putInt(changes.size());
+
+        i = 0;
+        for (Change change : changes) {
+            byte[] chainIdentifier = change.getChainIdentifier().getBytes(StandardCharsets.US_ASCII);
+            Preconditions.state(chainIdentifier.length == CHAIN_IDENTIFIER_LENGTH, "Invalid chain identifier");
+
+            byte[] oldValue = change.getOldValue();
+            byte[] newValue = change.getNewValue();
+
+            // the values are at most Change.MAX_HASH_SIZE long, so the lengths fit in a byte
+            buffer.put(chainIdentifier);
+            buffer.put((byte) change.getOperation().getValue());
+            buffer.put((byte) oldValue.length);
+            buffer.put(oldValue);
+            buffer.put((byte) newValue.length);
+            buffer.put((byte) prefixes[i]);
+            buffer.put((byte) suffixes[i]);
+            buffer.put(newValue, prefixes[i], newValue.length - prefixes[i] - suffixes[i]);
+            i++;
+        }
+
+        return buffer.array();
+    }
+
+    /**
+     * Deserialize the changes serialized by serialize()
+     * @param blockIdentifier the block identifier of the changeset
+     * @param data the serialized changes
+     * @return the changeset
+     */
+    public static Changeset deserialize(BlockIdentifier blockIdentifier, byte[] data) {
+        Preconditions.notNull(data, "Changeset data cannot be null");
+
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        Changeset changeset = new Changeset(blockIdentifier);
+        try {
+            byte version = buffer.get();
+            Preconditions.argument(version == FORMAT_VERSION, "Unsupported changeset format version " + version);
+
+            int count = buffer.getInt();
+            for (int i = 0; i < count; i++) {
+                byte[] chainIdentifier = new byte[CHAIN_IDENTIFIER_LENGTH];
+                buffer.get(chainIdentifier);
+
+                short operationValue = buffer.get();
+                Operation operation = Operation.valueOf(operationValue)
+                        .orElseThrow(() -> new IllegalArgumentException("Unknown operation " + operationValue));
+
+                byte[] oldValue = new byte[buffer.get() & 0xFF];
+                buffer.get(oldValue);
+
+                byte[] newValue = new byte[buffer.get() & 0xFF];
+                int prefix = buffer.get() & 0xFF;
+                int suffix = buffer.get() & 0xFF;
+                Preconditions.argument(prefix + suffix <= Math.min(oldValue.length, newValue.length), "Invalid change delta");
+
+                System.arraycopy(oldValue, 0, newValue, 0, prefix);
+                buffer.get(newValue, prefix, newValue.length - prefix - suffix);
+                System.arraycopy(oldValue, oldValue.length - suffix, newValue, newValue.length - suffix, suffix);
+
+                changeset.changes.add(new ReadOnlyChange(new String(chainIdentifier, StandardCharsets.US_ASCII),
+                        operation, oldValue, newValue));
+            }
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated changeset data", e);
+        }
+        Preconditions.argument(!buffer.hasRemaining(), "Unexpected data after the changeset");
+
+        return changeset;
+    }
 }
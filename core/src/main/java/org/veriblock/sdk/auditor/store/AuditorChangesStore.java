@@ -12,16 +12,20 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.veriblock.sdk.auditor.BlockIdentifier;
 import org.veriblock.sdk.auditor.Change;
+import org.veriblock.sdk.auditor.Changeset;
 import org.veriblock.sdk.auditor.Operation;
 import org.veriblock.sdk.auditor.ReadOnlyChange;
+import org.veriblock.sdk.sqlite.Transactions;
 import org.veriblock.sdk.sqlite.tables.AuditorChangeData;
 import org.veriblock.sdk.sqlite.tables.AuditorChangesRepository;
+import org.veriblock.sdk.util.Preconditions;
 import org.veriblock.sdk.util.Utils;
 
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 public class AuditorChangesStore implements ChangeStore {
     //private static final int DEFAULT_NUM_HEADERS = 90000;
@@ -34,6 +38,10 @@ public class AuditorChangesStore implements ChangeStore {
     public AuditorChangesStore(Connection databaseConnection) throws SQLException {
         this.databaseConnection = databaseConnection;
         changesRepository = new AuditorChangesRepository(databaseConnection);
+
+        if (changesRepository.hasLegacyChanges()) {
+            migrateLegacyChanges();
+        }
     }
 
     public void shutdown() {
@@ -48,34 +56,108 @@ public class AuditorChangesStore implements ChangeStore {
         changesRepository.clear();
     }
 
+    public void beginTransaction() throws SQLException {
+        Transactions.begin(databaseConnection);
+    }
+
+    public void commitTransaction() throws SQLException {
+        Transactions.commit(databaseConnection);
+    }
+
+    public void rollbackTransaction() throws SQLException {
+        Transactions.rollback(databaseConnection);
+    }
+
+    public Changeset getChangeset(BlockIdentifier blockIdentifier) throws SQLException {
+        byte[] data = changesRepository.get(blockIdentifier.getBytes());
+        if (data == null) return new Changeset(blockIdentifier);
+
+        return Changeset.deserialize(blockIdentifier, data);
+    }
+
+    public void put(Changeset changeset) throws SQLException {
+        changesRepository.save(changeset.getBlockIdentifier().getBytes(), changeset.serialize());
+    }
+
+    public void put(Changeset changeset, long height) throws SQLException {
+        changesRepository.save(changeset.getBlockIdentifier().getBytes(), height, changeset.serialize());
+    }
+
+    // rewrites the changeset of the block with the given change at its sequence number
     public void put(StoredChange storedChange) throws SQLException {
-        AuditorChangeData data = new AuditorChangeData();
-        
-        data.blockId = Utils.encodeHex(storedChange.getId().getBytes());
-        data.sequenceNum = storedChange.getSequenceNumber();
-        
-        Change change = storedChange.getChange();
-        data.networkId = change.getChainIdentifier();
-        data.operation = change.getOperation().getValue();
-        data.oldValue = change.getOldValue();
-        data.newValue = change.getNewValue();
-        changesRepository.save(data);
+        List<Change> changes = getChangeset(storedChange.getId()).getChanges();
+        int sequenceNumber = storedChange.getSequenceNumber();
+        Preconditions.argument(sequenceNumber <= changes.size(), "The changes must be put in the sequence order");
+
+        if (sequenceNumber < changes.size()) {
+            changes.set(sequenceNumber, storedChange.getChange());
+        } else {
+            changes.add(storedChange.getChange());
+        }
+
+        Changeset changeset = new Changeset(storedChange.getId());
+        changeset.addChanges(changes);
+        put(changeset);
     }
 
     public List<StoredChange> get(BlockIdentifier blockIdentifier) throws SQLException {
-        List<AuditorChangeData> rows = changesRepository.getWithBlockId(Utils.encodeHex(blockIdentifier.getBytes()));
-        List<StoredChange> changes = new ArrayList<>();
-        
-        for(AuditorChangeData row : rows) {
-            Operation operation = Operation.valueOf(row.operation).get(); 
-            Change change = new ReadOnlyChange(row.networkId, operation, row.oldValue, row.newValue);
-            
-            BlockIdentifier blockId = BlockIdentifier.wrap(Utils.decodeHex(row.blockId));
-            int sequenceNum = row.sequenceNum;
-            StoredChange storedChange = new StoredChange(blockId, sequenceNum, change);
-            changes.add(storedChange);
+        List<Change> changes = getChangeset(blockIdentifier).getChanges();
+        List<StoredChange> storedChanges = new ArrayList<>(changes.size());
+
+        for (int i = 0; i < changes.size(); i++) {
+            storedChanges.add(new StoredChange(blockIdentifier, i, changes.get(i)));
+        }
+        return storedChanges;
+    }
+
+    public void putBlockHeight(BlockIdentifier blockIdentifier, long height) throws SQLException {
+        changesRepository.saveBlockHeight(blockIdentifier.getBytes(), height);
+    }
+
+    public int prune(long height, int limit) throws SQLException {
+        List<byte[]> blockIds = changesRepository.getBlockIdsBelowHeight(height, limit);
+        changesRepository.deleteBlocks(blockIds);
+        return blockIds.size();
+    }
+
+    // convert the changes stored one per row into the changesets in a single transaction
+    private void migrateLegacyChanges() throws SQLException {
+        List<AuditorChangeData> rows = changesRepository.getLegacyChanges();
+        Map<String, Long> heights = changesRepository.getLegacyBlockHeights();
+        log.info("Migrating {} audit journal changes to the changeset format", rows.size());
+
+        beginTransaction();
+        try {
+            int start = 0;
+            while (start < rows.size()) {
+                String blockId = rows.get(start).blockId;
+                int end = start;
+                while (end < rows.size() && rows.get(end).blockId.equals(blockId)) end++;
+
+                BlockIdentifier blockIdentifier = BlockIdentifier.wrap(Utils.decodeHex(blockId));
+                Changeset changeset = new Changeset(blockIdentifier);
+                List<Change> changes = new ArrayList<>();
+                for (AuditorChangeData row : rows.subList(start, end)) {
+                    Operation operation = Operation.valueOf(row.operation).get();
+                    Change change = new ReadOnlyChange(row.networkId, operation, row.oldValue, row.newValue);
+                    // the rows are ordered by the sequence number, a repeated one replaces the previous change
+                    if (row.sequenceNum < changes.size()) {
+                        changes.set(row.sequenceNum, change);
+                    } else {
+                        changes.add(change);
+                    }
+                }
+                changeset.addChanges(changes);
+
+                changesRepository.save(blockIdentifier.getBytes(), heights.get(blockId), changeset.serialize());
+                start = end;
+            }
+
+            changesRepository.dropLegacyTables();
+            commitTransaction();
+        } catch (SQLException | RuntimeException e) {
+            rollbackTransaction();
+            throw e;
         }
-        
-        return changes;
     }
 }
@@ -9,6 +9,7 @@
 package org.veriblock.sdk.auditor.store;
 
 import org.veriblock.sdk.auditor.BlockIdentifier;
+import org.veriblock.sdk.auditor.Changeset;
 
 import java.sql.SQLException;
 import java.util.List;
@@ -26,6 +27,50 @@ public interface ChangeStore {
      */
     void clear() throws SQLException;
 
+    /**
+     * Start a transaction; the following changes are applied atomically
+     * once commitTransaction() is called or discarded by rollbackTransaction().
+     * Stores that share the underlying database connection share the transaction
+     * @throws SQLException
+     */
+    void beginTransaction() throws SQLException;
+
+    /**
+     * Commit the changes made since beginTransaction()
+     * @throws SQLException
+     */
+    void commitTransaction() throws SQLException;
+
+    /**
+     * Discard the changes made since beginTransaction()
+     * @throws SQLException
+     */
+    void rollbackTransaction() throws SQLException;
+
+    /**
+     * Retrieve the changeset of the given block identifier
+     * @param blockIdentifier the block identifier
+     * @return the changeset, empty if no changes were recorded for the block
+     * @throws SQLException
+     */
+    Changeset getChangeset(BlockIdentifier blockIdentifier) throws SQLException;
+
+    /**
+     * Put the given changeset into the store, replacing the changes recorded for its block
+     * @param changeset the changeset
+     * @throws SQLException
+     */
+    void put(Changeset changeset) throws SQLException;
+
+    /**
+     * Put the given changeset into the store along with the height of its block,
+     * replacing the changes recorded for the block
+     * @param changeset the changeset
+     * @param height the block height
+     * @throws SQLException
+     */
+    void put(Changeset changeset, long height) throws SQLException;
+
     /**
      * Retrieve the list of changes that correspond to the given block identifier
      * @param blockIdentifier the block identifier
@@ -41,4 +86,22 @@ public interface ChangeStore {
      */
     void put(StoredChange change) throws SQLException;
 
+    /**
+     * Record the height of the block the changes recorded for the given block identifier belong to
+     * @param blockIdentifier the block identifier
+     * @param height the block height
+     * @throws SQLException
+     */
+    void putBlockHeight(BlockIdentifier blockIdentifier, long height) throws SQLException;
+
+    /**
+     * Delete the changes of the blocks below the given height, at most the given number of blocks at a time.
+     * The changes of the blocks without a recorded height are kept
+     * @param height the block height
+     * @param limit the maximum number of blocks to delete
+     * @return the number of blocks deleted
+     * @throws SQLException
+     */
+    int prune(long height, int limit) throws SQLException;
+
 }
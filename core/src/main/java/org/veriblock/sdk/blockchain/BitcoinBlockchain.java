@@ -29,11 +29,8 @@ import java.math.BigInteger;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Comparator;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.Optional;
+import java.util.stream.Collectors;
 
 public class BitcoinBlockchain {
     private static final Logger log = LoggerFactory.getLogger(BitcoinBlockchain.class);
@@ -42,20 +39,23 @@ public class BitcoinBlockchain {
 
     private final BlockStore<StoredBitcoinBlock, Sha256Hash> store;
     private final BitcoinNetworkParameters networkParameters;
-    private final Map<Sha256Hash, StoredBitcoinBlock> temporalStore;
-    private StoredBitcoinBlock temporaryChainHead = null;
+    // the trackers follow the chain of the thread's view, so each thread has its own
+    private final ThreadLocal<MedianTimePast<Sha256Hash>> medianTimePastTracker =
+            ThreadLocal.withInitial(() -> new MedianTimePast<>(MINIMUM_TIMESTAMP_BLOCK_COUNT));
+    private TemporalView<StoredBitcoinBlock, Sha256Hash> temporalView = new TemporalView<>();
+    // overrides the shared view in the threads that have attached a view
+    private final ThreadLocal<TemporalView<StoredBitcoinBlock, Sha256Hash>> threadTemporalView = new ThreadLocal<>();
     
     private boolean skipValidateBlocksDifficulty = false; 
 
     private boolean hasTemporaryModifications() {
-        return temporaryChainHead != null || temporalStore.size() > 0;
+        return !getTemporalView().isEmpty();
     }
 
     public BitcoinBlockchain(BitcoinNetworkParameters networkParameters, BlockStore<StoredBitcoinBlock, Sha256Hash> store) {
         Preconditions.notNull(store, "Store cannot be null");
 
         this.store = store;
-        this.temporalStore = new HashMap<>();
         this.networkParameters = networkParameters;
     }
     
@@ -79,8 +79,8 @@ public class BitcoinBlockchain {
     public BitcoinBlock searchBestChain(Sha256Hash hash) throws BlockStoreException, SQLException {
         // Look at the temporal store first
         StoredBitcoinBlock storedBlock;
-        if (temporaryChainHead != null) {
-            storedBlock = temporalStore.get(hash);
+        if (getTemporalView().getChainHead() != null) {
+            storedBlock = getTemporalView().get(hash);
         } else {
             storedBlock = store.scanBestChain(hash);
         }
@@ -145,6 +145,79 @@ public class BitcoinBlockchain {
         return changes;
     }
 
+    /**
+     * Add a run of headers in one pass and in one store transaction
+     *
+     * The blocks are validated like in addAll, but the median time context
+     * slides along the run instead of being read from the store for every
+     * block, and the chain head is updated once after all blocks are written.
+     * If any block is rejected, none of the blocks are added.
+     * Must not be called while the store has an open transaction.
+     *
+     * @param blocks the blocks ordered so that every block follows its previous block
+     * @return the changes made to the store
+     */
+    public List<Change> bulkAdd(List<BitcoinBlock> blocks) throws VerificationException, BlockStoreException, SQLException {
+        Preconditions.state(!hasTemporaryModifications(), "Cannot add blocks while having temporary modifications");
+
+        StoredBitcoinBlock chainHead = store.getChainHead();
+        if (chainHead == null) {
+            // the first block is the origin of the blockchain
+            return addAll(blocks);
+        }
+
+        store.beginTransaction();
+        try {
+            List<Change> changes = bulkAdd(blocks, chainHead);
+            store.commitTransaction();
+            return changes;
+        } catch (SQLException | RuntimeException e) {
+            store.rollbackTransaction();
+            throw e;
+        }
+    }
+
+    private List<Change> bulkAdd(List<BitcoinBlock> blocks, StoredBitcoinBlock chainHead) throws VerificationException, BlockStoreException, SQLException {
+        List<Change> changes = new ArrayList<>();
+
+        StoredBitcoinBlock tip = null;
+        StoredBitcoinBlock bestBlock = chainHead;
+
+        for (BitcoinBlock block : blocks) {
+            // Lightweight verification of the header
+            ValidationService.verify(block);
+
+            StoredBitcoinBlock previous = tip != null && tip.getHash().equals(block.getPreviousBlock())
+                                        ? tip
+                                        : checkConnectivity(block);
+            if (!checkDuplicate(block)) continue;
+
+            checkTimestamp(block, previous);
+            checkDifficulty(block, previous);
+
+            StoredBitcoinBlock storedBlock = new StoredBitcoinBlock(
+                    block,
+                    previous.getWork().add(BitcoinUtils.decodeCompactBits(block.getBits())),
+                    previous.getHeight() + 1);
+
+            store.put(storedBlock);
+            changes.add(new AddBitcoinBlockChange(null, storedBlock));
+
+            if (storedBlock.getWork().compareTo(bestBlock.getWork()) > 0) {
+                bestBlock = storedBlock;
+            }
+
+            tip = storedBlock;
+        }
+
+        if (bestBlock != chainHead) {
+            StoredBitcoinBlock priorHead = store.setChainHead(bestBlock);
+            changes.add(new SetBitcoinHeadChange(priorHead, bestBlock));
+        }
+
+        return changes;
+    }
+
     public void addTemporarily(BitcoinBlock block) throws VerificationException, BlockStoreException, SQLException {
         // Lightweight verification of the header
         ValidationService.verify(block);
@@ -160,11 +233,11 @@ public class BitcoinBlockchain {
                 previous.getWork().add(BitcoinUtils.decodeCompactBits(block.getBits())),
                 previous.getHeight() + 1);
 
-        temporalStore.put(block.getHash(), storedBlock);
+        getTemporalView().put(block.getHash(), storedBlock);
 
         StoredBitcoinBlock chainHead = getChainHeadInternal();
         if (storedBlock.getWork().compareTo(chainHead.getWork()) > 0) {
-            temporaryChainHead = storedBlock;
+            getTemporalView().setChainHead(storedBlock);
         }
     }
 
@@ -179,8 +252,35 @@ public class BitcoinBlockchain {
     }
 
     public void clearTemporaryModifications() {
-        temporaryChainHead = null;
-        temporalStore.clear();
+        setTemporalView(new TemporalView<>());
+    }
+
+    // the view that holds the temporary modifications made by the current thread
+    public TemporalView<StoredBitcoinBlock, Sha256Hash> getTemporalView() {
+        TemporalView<StoredBitcoinBlock, Sha256Hash> view = threadTemporalView.get();
+        return view != null ? view : temporalView;
+    }
+
+    // switch to another view; the temporary modifications go to that view from now on
+    public void setTemporalView(TemporalView<StoredBitcoinBlock, Sha256Hash> temporalView) {
+        Preconditions.notNull(temporalView, "Temporal view cannot be null");
+
+        if (threadTemporalView.get() != null) {
+            threadTemporalView.set(temporalView);
+        } else {
+            this.temporalView = temporalView;
+        }
+    }
+
+    // use the given view in the current thread only; the other threads keep using the shared view
+    public void attachTemporalView(TemporalView<StoredBitcoinBlock, Sha256Hash> temporalView) {
+        Preconditions.notNull(temporalView, "Temporal view cannot be null");
+        threadTemporalView.set(temporalView);
+    }
+
+    // switch the current thread back to the shared view
+    public void detachTemporalView() {
+        threadTemporalView.remove();
     }
 
     public void rewind(List<Change> changes) throws BlockStoreException, SQLException {
@@ -214,15 +314,16 @@ public class BitcoinBlockchain {
     }
 
     private StoredBitcoinBlock getInternal(Sha256Hash hash) throws BlockStoreException, SQLException {
-        if (temporalStore.containsKey(hash)) {
-            return temporalStore.get(hash);
+        StoredBitcoinBlock temporalBlock = getTemporalView().get(hash);
+        if (temporalBlock != null) {
+            return temporalBlock;
         }
 
         return store.get(hash);
     }
 
     private StoredBitcoinBlock getChainHeadInternal() throws BlockStoreException, SQLException {
-        if (temporaryChainHead != null) return temporaryChainHead;
+        if (getTemporalView().getChainHead() != null) return getTemporalView().getChainHead();
 
         return store.getChainHead();
     }
@@ -231,13 +332,14 @@ public class BitcoinBlockchain {
         List<StoredBitcoinBlock> blocks = new ArrayList<>();
 
         Sha256Hash cursor = Sha256Hash.wrap(hash.getBytes());
-        while (temporalStore.containsKey(cursor)) {
-            StoredBitcoinBlock tempBlock = temporalStore.get(cursor);
+        StoredBitcoinBlock tempBlock = getTemporalView().get(cursor);
+        while (tempBlock != null) {
             blocks.add(tempBlock);
 
             if (blocks.size() >= count) break;
 
             cursor = tempBlock.getBlock().getPreviousBlock();
+            tempBlock = getTemporalView().get(cursor);
         }
 
         return blocks;
@@ -247,7 +349,7 @@ public class BitcoinBlockchain {
     private boolean verifyBlock(BitcoinBlock block, StoredBitcoinBlock previous) throws VerificationException, BlockStoreException, SQLException {
         if (!checkDuplicate(block)) return false;
 
-        checkTimestamp(block);
+        checkTimestamp(block, previous);
         checkDifficulty(block, previous);
 
         return true;
@@ -278,29 +380,31 @@ public class BitcoinBlockchain {
         return previous;
     }
 
-    private void checkTimestamp(BitcoinBlock block) throws VerificationException, BlockStoreException, SQLException {
-        // Checks the temporary blocks first
-        List<StoredBitcoinBlock> context = getTemporaryBlocks(block.getPreviousBlock(), MINIMUM_TIMESTAMP_BLOCK_COUNT);
-        if (context.size() > 0) {
-            StoredBitcoinBlock last = context.get(context.size() - 1);
-            context.addAll(store.get(last.getBlock().getPreviousBlock(), MINIMUM_TIMESTAMP_BLOCK_COUNT - context.size()));
-        } else {
-            context.addAll(store.get(block.getPreviousBlock(), MINIMUM_TIMESTAMP_BLOCK_COUNT));
+    private void checkTimestamp(BitcoinBlock block, StoredBitcoinBlock previous) throws VerificationException, BlockStoreException, SQLException {
+        // slide the median time window if the previous block extends its tip,
+        // otherwise rebuild it from the chain of the previous block
+        MedianTimePast<Sha256Hash> medianTimePast = medianTimePastTracker.get();
+        if (!medianTimePast.advance(previous.getBlock().getPreviousBlock(), previous.getHash(), previous.getBlock().getTimestamp())) {
+            // Checks the temporary blocks first
+            List<StoredBitcoinBlock> context = getTemporaryBlocks(previous.getHash(), MINIMUM_TIMESTAMP_BLOCK_COUNT);
+            if (context.size() > 0) {
+                StoredBitcoinBlock last = context.get(context.size() - 1);
+                context.addAll(store.get(last.getBlock().getPreviousBlock(), MINIMUM_TIMESTAMP_BLOCK_COUNT - context.size()));
+            } else {
+                context.addAll(store.get(previous.getHash(), MINIMUM_TIMESTAMP_BLOCK_COUNT));
+            }
+
+            medianTimePast.reset(previous.getHash(), context.stream()
+                    .map(b -> b.getBlock().getTimestamp())
+                    .collect(Collectors.toList()));
         }
 
-        if (context.size() < MINIMUM_TIMESTAMP_BLOCK_COUNT) {
+        if (!medianTimePast.isFull()) {
             log.warn("Not enough context blocks to check timestamp");
             return;
         }
 
-        Optional<Integer> median = context.stream().sorted(Comparator.comparingInt(StoredBitcoinBlock::getHeight).reversed())
-                .limit(MINIMUM_TIMESTAMP_BLOCK_COUNT)
-                .map(b -> b.getBlock().getTimestamp())
-                .sorted()
-                .skip(MINIMUM_TIMESTAMP_BLOCK_COUNT / 2)
-                .findFirst();
-
-        if (!median.isPresent() || block.getTimestamp() <= median.get()) {
+        if (block.getTimestamp() <= medianTimePast.getMedian()) {
             throw new VerificationException("Block is too far in the past");
         }
     }
@@ -0,0 +1,138 @@
+// VeriBlock Blockchain Project
+// Copyright 2017-2018 VeriBlock, Inc
+// Copyright 2018-2019 Xenios SEZC
+// All rights reserved.
+// https://www.veriblock.org
+// Distributed under the MIT software license, see the accompanying
+// file LICENSE or http://www.opensource.org/licenses/mit-license.php.
+
+package org.veriblock.sdk.blockchain;
+
+import org.veriblock.sdk.conf.VeriBlockNetworkParameters;
+import org.veriblock.sdk.models.VeriBlockBlock;
+import org.veriblock.sdk.util.BitcoinUtils;
+import org.veriblock.sdk.util.Preconditions;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * VeriBlock difficulty calculator that keeps the retarget window of the chain tip.
+ *
+ * The calculator holds the last RETARGET_PERIOD blocks of a chain together
+ * with the running sums that VeriBlockDifficultyCalculator computes from them:
+ * the sum of the targets, the sum of the solve times and the sum of the solve
+ * times weighted by their recency. Extending the tip by one block slides
+ * the window and updates the sums in constant time; moving to any other
+ * block requires a reset from the full context. The sums are exact, so the
+ * result is the same as the result of VeriBlockDifficultyCalculator.
+ */
+public strictfp class IncrementalVeriBlockDifficultyCalculator {
+    private static final int N = VeriBlockDifficultyCalculator.RETARGET_PERIOD;
+
+    private final VeriBlockNetworkParameters networkParameters;
+
+    // the window blocks, the oldest first
+    private final Deque<VeriBlockBlock> window = new ArrayDeque<>(N);
+    // the sum of the targets of all window blocks but the tip
+    private BigInteger sumTarget = BigInteger.ZERO;
+    // the sum of the solve times and the sum weighted by the block position
+    private long sumSolveTime = 0;
+    private long weightedSolveTime = 0;
+
+    public IncrementalVeriBlockDifficultyCalculator(VeriBlockNetworkParameters networkParameters) {
+        Preconditions.notNull(networkParameters, "Network parameters cannot be null");
+        this.networkParameters = networkParameters;
+    }
+
+    // the last block of the window or null if the window is empty
+    public VeriBlockBlock getTip() {
+        return window.peekLast();
+    }
+
+    // check whether the window holds enough blocks to calculate the difficulty
+    public boolean isFull() {
+        return window.size() == N;
+    }
+
+    public void clear() {
+        window.clear();
+        sumTarget = BigInteger.ZERO;
+        sumSolveTime = 0;
+        weightedSolveTime = 0;
+    }
+
+    /**
+     * Recompute the window from the chain that ends at the new tip
+     * @param context the tip followed by its previous blocks, the newest first;
+     *                only the first RETARGET_PERIOD blocks are used
+     */
+    public void reset(List<VeriBlockBlock> context) {
+        Preconditions.notNull(context, "Context cannot be null");
+
+        clear();
+        for (int i = Math.min(context.size(), N) - 1; i >= 0; i--) {
+            append(context.get(i));
+        }
+    }
+
+    /**
+     * Move the window to the given block if it is the tip or extends the tip
+     * @param block the new tip
+     * @return true if the window ends at the given block, false if it needs a reset
+     */
+    public boolean advance(VeriBlockBlock block) {
+        Preconditions.notNull(block, "Block cannot be null");
+
+        VeriBlockBlock tip = getTip();
+        if (tip == null) return false;
+        if (tip.getHash().equals(block.getHash())) return true;
+
+        if (!isFull() || !block.getPreviousBlock().equals(tip.getHash().trimToPreviousBlockSize())) {
+            return false;
+        }
+
+        // drop the oldest block and its solve time; the weight of every other
+        // solve time decreases by one
+        VeriBlockBlock oldest = window.pollFirst();
+        VeriBlockBlock second = window.peekFirst();
+
+        weightedSolveTime -= sumSolveTime;
+        sumSolveTime -= VeriBlockDifficultyCalculator.getSolveTime(oldest.getTimestamp(), second.getTimestamp());
+        sumTarget = sumTarget.subtract(BitcoinUtils.decodeCompactBits(oldest.getDifficulty()));
+
+        append(block);
+        return true;
+    }
+
+    /**
+     * Calculate the difficulty of the block that follows the tip
+     * @return the target of the next block
+     */
+    public BigInteger calculate() {
+        VeriBlockBlock tip = getTip();
+        Preconditions.state(tip != null, "The calculator has no blocks");
+
+        if (tip.getHeight() < N || networkParameters.getPowNoRetargeting()) {
+            return BitcoinUtils.decodeCompactBits(tip.getDifficulty());
+        }
+
+        Preconditions.state(isFull(), "Not enough blocks to calculate the difficulty");
+        return VeriBlockDifficultyCalculator.getNextTarget(networkParameters, new BigDecimal(sumTarget), weightedSolveTime);
+    }
+
+    // append the new tip; the previous tip gets the highest weight
+    private void append(VeriBlockBlock block) {
+        VeriBlockBlock tip = getTip();
+        window.addLast(block);
+        if (tip == null) return;
+
+        int solveTime = VeriBlockDifficultyCalculator.getSolveTime(tip.getTimestamp(), block.getTimestamp());
+        sumSolveTime += solveTime;
+        weightedSolveTime += (long) solveTime * (window.size() - 1);
+        sumTarget = sumTarget.add(BitcoinUtils.decodeCompactBits(tip.getDifficulty()));
+    }
+}
@@ -0,0 +1,128 @@
+// VeriBlock Blockchain Project
+// Copyright 2017-2018 VeriBlock, Inc
+// Copyright 2018-2019 Xenios SEZC
+// All rights reserved.
+// https://www.veriblock.org
+// Distributed under the MIT software license, see the accompanying
+// file LICENSE or http://www.opensource.org/licenses/mit-license.php.
+
+package org.veriblock.sdk.blockchain;
+
+import org.veriblock.sdk.util.Preconditions;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The median timestamp of the last blocks of a chain.
+ *
+ * The tracker keeps the timestamps of up to the given number of blocks
+ * that end at the tip, both in the chain order and sorted. Extending
+ * the tip by one block replaces the oldest timestamp without allocating,
+ * and the median is read from the sorted timestamps directly. Moving
+ * the tip to any other block requires a reset from the chain of that block.
+ */
+public class MedianTimePast<Id> {
+    private final int capacity;
+
+    // the timestamps in the chain order as a ring buffer, the oldest at start
+    private final int[] timestamps;
+    private final int[] sorted;
+    private int start = 0;
+    private int size = 0;
+    private Id tip = null;
+
+    public MedianTimePast(int capacity) {
+        Preconditions.argument(capacity > 0, "Capacity must be positive");
+
+        this.capacity = capacity;
+        this.timestamps = new int[capacity];
+        this.sorted = new int[capacity];
+    }
+
+    // the id of the last block or null if the tracker is empty
+    public Id getTip() {
+        return tip;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // check whether the tracker holds the timestamps of capacity blocks
+    public boolean isFull() {
+        return size == capacity;
+    }
+
+    public void clear() {
+        start = 0;
+        size = 0;
+        tip = null;
+    }
+
+    /**
+     * Recompute the tracker from the chain that ends at the new tip
+     * @param tip the id of the new tip
+     * @param context the timestamps of the tip and its previous blocks, the newest first;
+     *                only the first capacity timestamps are used
+     */
+    public void reset(Id tip, List<Integer> context) {
+        Preconditions.notNull(tip, "Tip cannot be null");
+        Preconditions.notNull(context, "Context cannot be null");
+
+        clear();
+        for (int i = Math.min(context.size(), capacity) - 1; i >= 0; i--) {
+            push(context.get(i));
+        }
+        this.tip = tip;
+    }
+
+    /**
+     * Move the tracker to the given block if it is the tip or extends the tip
+     * @param previousId the id of the previous block of the block
+     * @param id the block id
+     * @param timestamp the block timestamp
+     * @return true if the tracker ends at the given block, false if it needs a reset
+     */
+    public boolean advance(Id previousId, Id id, int timestamp) {
+        Preconditions.notNull(id, "Id cannot be null");
+
+        if (tip == null) return false;
+        if (tip.equals(id)) return true;
+        if (!tip.equals(previousId)) return false;
+
+        push(timestamp);
+        tip = id;
+        return true;
+    }
+
+    /**
+     * Get the median timestamp; the lower one of the two middle values if the size is even
+     * @return the median timestamp
+     */
+    public int getMedian() {
+        Preconditions.state(size > 0, "The tracker has no timestamps");
+        return sorted[(size - 1) / 2];
+    }
+
+    private void push(int timestamp) {
+        if (size == capacity) {
+            // drop the oldest timestamp
+            int position = Arrays.binarySearch(sorted, 0, size, timestamps[start]);
+            System.arraycopy(sorted, position + 1, sorted, position, size - position - 1);
+            timestamps[start] = timestamp;
+            start = (start + 1) % capacity;
+            size--;
+        } else {
+            timestamps[(start + size) % capacity] = timestamp;
+        }
+
+        int position = Arrays.binarySearch(sorted, 0, size, timestamp);
+        if (position < 0) {
+            position = -position - 1;
+        }
+        System.arraycopy(sorted, position, sorted, position + 1, size - position);
+        sorted[position] = timestamp;
+        size++;
+    }
+}
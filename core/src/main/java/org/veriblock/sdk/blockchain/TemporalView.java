@@ -0,0 +1,94 @@
+// VeriBlock Blockchain Project
+// Copyright 2017-2018 VeriBlock, Inc
+// Copyright 2018-2019 Xenios SEZC
+// All rights reserved.
+// https://www.veriblock.org
+// Distributed under the MIT software license, see the accompanying
+// file LICENSE or http://www.opensource.org/licenses/mit-license.php.
+
+package org.veriblock.sdk.blockchain;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Speculative blocks and chain head layered over the block store.
+ *
+ * The view is a stack of layers; the lookups go from the top layer down
+ * and the changes go to the top layer only. Forking a view freezes its top
+ * layer and puts a new empty layer on top of it in both the view and the
+ * fork, so the frozen layers are shared and never modified again and the
+ * views do not see each other's later changes. The block store is never
+ * modified. The blocks put into a view must not be modified afterwards;
+ * a changed block is put again as a new instance.
+ */
+public class TemporalView<Block, Id> {
+    private static class Layer<Block, Id> {
+        private final Layer<Block, Id> parent;
+        private final Map<Id, Block> blocks = new HashMap<>();
+
+        private Layer(Layer<Block, Id> parent) {
+            this.parent = parent;
+        }
+    }
+
+    private Layer<Block, Id> top;
+    private Block chainHead;
+
+    public TemporalView() {
+        this(null, null);
+    }
+
+    private TemporalView(Layer<Block, Id> parent, Block chainHead) {
+        this.top = new Layer<>(parent);
+        this.chainHead = chainHead;
+    }
+
+    // the speculative chain head or null if the chain head has not been changed
+    public Block getChainHead() {
+        return chainHead;
+    }
+
+    public void setChainHead(Block chainHead) {
+        this.chainHead = chainHead;
+    }
+
+    public Block get(Id id) {
+        for (Layer<Block, Id> layer = top; layer != null; layer = layer.parent) {
+            Block block = layer.blocks.get(id);
+            if (block != null) return block;
+        }
+        return null;
+    }
+
+    public boolean contains(Id id) {
+        return get(id) != null;
+    }
+
+    public void put(Id id, Block block) {
+        top.blocks.put(id, block);
+    }
+
+    // check whether the view has no speculative changes
+    public boolean isEmpty() {
+        if (chainHead != null) return false;
+
+        for (Layer<Block, Id> layer = top; layer != null; layer = layer.parent) {
+            if (!layer.blocks.isEmpty()) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Create a view with the same changes; the changes made to either view
+     * after the fork are not visible in the other one
+     * @return the new view
+     */
+    public TemporalView<Block, Id> fork() {
+        // an empty top layer does not need to be shared
+        Layer<Block, Id> frozen = top.blocks.isEmpty() ? top.parent : top;
+
+        top = new Layer<>(frozen);
+        return new TemporalView<>(frozen, chainHead);
+    }
+}
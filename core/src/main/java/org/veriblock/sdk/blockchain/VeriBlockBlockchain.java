@@ -33,10 +33,7 @@ import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.Optional;
 import java.util.stream.Collectors;
 
 public class VeriBlockBlockchain {
@@ -49,14 +46,20 @@ public class VeriBlockBlockchain {
 
     private final BlockStore<StoredVeriBlockBlock, VBlakeHash> store;
     private final BlockStore<StoredBitcoinBlock, Sha256Hash> bitcoinStore;
-    private final Map<VBlakeHash, StoredVeriBlockBlock> temporalStore;
     private final VeriBlockNetworkParameters networkParameters;
-    private StoredVeriBlockBlock temporaryChainHead = null;
+    // the trackers follow the chain of the thread's view, so each thread has its own
+    private final ThreadLocal<IncrementalVeriBlockDifficultyCalculator> difficultyCalculatorTracker;
+    private final ThreadLocal<MedianTimePast<VBlakeHash>> medianTimePastTracker =
+            ThreadLocal.withInitial(() -> new MedianTimePast<>(MINIMUM_TIMESTAMP_BLOCK_COUNT));
+    // the keys are the hashes trimmed to the keystone size
+    private TemporalView<StoredVeriBlockBlock, VBlakeHash> temporalView = new TemporalView<>();
+    // overrides the shared view in the threads that have attached a view
+    private final ThreadLocal<TemporalView<StoredVeriBlockBlock, VBlakeHash>> threadTemporalView = new ThreadLocal<>();
     
     private boolean skipValidateBlocksDifficulty = false; 
 
     private boolean hasTemporaryModifications() {
-        return temporaryChainHead != null || temporalStore.size() > 0;
+        return !getTemporalView().isEmpty();
     }
 
     public VeriBlockBlockchain(VeriBlockNetworkParameters networkParameters,
@@ -69,7 +72,8 @@ public class VeriBlockBlockchain {
         this.store = store;
         this.bitcoinStore = bitcoinStore;
         this.networkParameters = networkParameters;
-        this.temporalStore = new HashMap<>();
+        this.difficultyCalculatorTracker =
+                ThreadLocal.withInitial(() -> new IncrementalVeriBlockDifficultyCalculator(networkParameters));
     }
 
     public VeriBlockNetworkParameters getNetworkParameters() {
@@ -96,7 +100,7 @@ public class VeriBlockBlockchain {
     public VeriBlockBlock searchBestChain(VBlakeHash hash) throws BlockStoreException, SQLException {
         // Look at the temporal store first
         StoredVeriBlockBlock storedBlock;
-        if (temporaryChainHead != null) {
+        if (getTemporalView().getChainHead() != null) {
             storedBlock = getInternal(hash);
         } else {
             storedBlock = store.scanBestChain(hash);
@@ -223,7 +227,7 @@ public class VeriBlockBlockchain {
                 blockOfProof);
 
         ///HACK: we always cut the hash for a key to the keystone size
-        temporalStore.put(block.getHash().trimToPreviousKeystoneSize(), storedBlock);
+        getTemporalView().put(block.getHash().trimToPreviousKeystoneSize(), storedBlock);
 
         // Try to update the prior keystone's proof
         trySetBlockProofTemporarily(block.getEffectivePreviousKeystone(), blockOfProof);
@@ -235,7 +239,7 @@ public class VeriBlockBlockchain {
 
         StoredVeriBlockBlock chainHead = getChainHeadInternal();
         if (chainHead.getHash().equals(previous.getHash()) || resolveToFork(chainHead, storedBlock)) {
-            temporaryChainHead = storedBlock;
+            getTemporalView().setChainHead(storedBlock);
         }
     }
 
@@ -261,8 +265,35 @@ public class VeriBlockBlockchain {
     }
 
     public void clearTemporaryModifications() {
-        temporaryChainHead = null;
-        temporalStore.clear();
+        setTemporalView(new TemporalView<>());
+    }
+
+    // the view that holds the temporary modifications made by the current thread
+    public TemporalView<StoredVeriBlockBlock, VBlakeHash> getTemporalView() {
+        TemporalView<StoredVeriBlockBlock, VBlakeHash> view = threadTemporalView.get();
+        return view != null ? view : temporalView;
+    }
+
+    // switch to another view; the temporary modifications go to that view from now on
+    public void setTemporalView(TemporalView<StoredVeriBlockBlock, VBlakeHash> temporalView) {
+        Preconditions.notNull(temporalView, "Temporal view cannot be null");
+
+        if (threadTemporalView.get() != null) {
+            threadTemporalView.set(temporalView);
+        } else {
+            this.temporalView = temporalView;
+        }
+    }
+
+    // use the given view in the current thread only; the other threads keep using the shared view
+    public void attachTemporalView(TemporalView<StoredVeriBlockBlock, VBlakeHash> temporalView) {
+        Preconditions.notNull(temporalView, "Temporal view cannot be null");
+        threadTemporalView.set(temporalView);
+    }
+
+    // switch the current thread back to the shared view
+    public void detachTemporalView() {
+        threadTemporalView.remove();
     }
 
     public void rewind(List<Change> changes) throws BlockStoreException, SQLException {
@@ -297,17 +328,24 @@ public class VeriBlockBlockchain {
         return chainHead == null ? null : chainHead.getBlock();
     }
 
+    // the chain head including the temporary modifications of the current view
+    public VeriBlockBlock getTemporaryChainHead() throws SQLException {
+        StoredVeriBlockBlock chainHead = getChainHeadInternal();
+
+        return chainHead == null ? null : chainHead.getBlock();
+    }
+
     private StoredVeriBlockBlock getInternal(VBlakeHash hash) throws BlockStoreException, SQLException {
-        VBlakeHash trimmed = hash.trimToPreviousKeystoneSize();
-        if (temporalStore.containsKey(trimmed)) {
-            return temporalStore.get(trimmed);
+        StoredVeriBlockBlock temporalBlock = getTemporalView().get(hash.trimToPreviousKeystoneSize());
+        if (temporalBlock != null) {
+            return temporalBlock;
         }
 
         return store.get(hash);
     }
 
     private StoredVeriBlockBlock getChainHeadInternal() throws BlockStoreException, SQLException {
-        if (temporaryChainHead != null) return temporaryChainHead;
+        if (getTemporalView().getChainHead() != null) return getTemporalView().getChainHead();
 
         return store.getChainHead();
     }
@@ -316,13 +354,14 @@ public class VeriBlockBlockchain {
         List<StoredVeriBlockBlock> blocks = new ArrayList<>();
 
         VBlakeHash cursor = head.trimToPreviousKeystoneSize();
-        while (temporalStore.containsKey(cursor)) {
-            StoredVeriBlockBlock tempBlock = temporalStore.get(cursor);
+        StoredVeriBlockBlock tempBlock = getTemporalView().get(cursor);
+        while (tempBlock != null) {
             blocks.add(tempBlock);
 
             if (blocks.size() == count) break;
 
             cursor = tempBlock.getBlock().getPreviousBlock().trimToPreviousKeystoneSize();
+            tempBlock = getTemporalView().get(cursor);
         }
 
         if (blocks.size() > 0) {
@@ -370,9 +409,12 @@ public class VeriBlockBlockchain {
             return;
         }
 
+        // the view blocks may be shared with the forks of the view, change a copy
+        storedBlock = new StoredVeriBlockBlock(storedBlock.getBlock(), storedBlock.getWork(), storedBlock.getBlockOfProof());
+
         if (storedBlock.getBlockOfProof().equals(Sha256Hash.ZERO_HASH)) {
             storedBlock.setBlockOfProof(blockOfProof);
-            temporalStore.put(hash.trimToPreviousKeystoneSize(), storedBlock);
+            putTemporarily(storedBlock);
             return;
         }
 
@@ -382,7 +424,17 @@ public class VeriBlockBlockchain {
 
         if (incumbent == null || incumbent.getHeight() > candidate.getHeight()) {
             storedBlock.setBlockOfProof(candidate.getHash());
-            temporalStore.put(hash.trimToPreviousKeystoneSize(), storedBlock);
+            putTemporarily(storedBlock);
+        }
+    }
+
+    // put the changed block into the view, replacing the chain head if it is the same block
+    private void putTemporarily(StoredVeriBlockBlock storedBlock) {
+        getTemporalView().put(storedBlock.getHash().trimToPreviousKeystoneSize(), storedBlock);
+
+        StoredVeriBlockBlock chainHead = getTemporalView().getChainHead();
+        if (chainHead != null && chainHead.getHash().equals(storedBlock.getHash())) {
+            getTemporalView().setChainHead(storedBlock);
         }
     }
 
@@ -496,10 +548,8 @@ public class VeriBlockBlockchain {
     private boolean verifyBlock(VeriBlockBlock block, StoredVeriBlockBlock previous) throws VerificationException, BlockStoreException, SQLException {
         if (!checkDuplicate(block)) return false;
 
-        List<StoredVeriBlockBlock> context = getChainInternal(block.getPreviousBlock(), DIFFICULTY_ADJUST_BLOCK_COUNT);
-
-        checkTimestamp(block, context);
-        checkDifficulty(block, previous, context);
+        checkTimestamp(block, previous);
+        checkDifficulty(block, previous);
 
         return true;
     }
@@ -538,8 +588,7 @@ public class VeriBlockBlockchain {
                     keystoneBlocksAgo = 21;
 
             }
-            List<StoredVeriBlockBlock> context = store.get(block.getPreviousBlock(), keystoneBlocksAgo);
-            if (context.size() == keystoneBlocksAgo) {
+            if (store.getFromChain(block.getPreviousBlock(), keystoneBlocksAgo - 1) != null) {
                 throw new VerificationException("Block's previous keystone is not found");
             }
             // If the context chain can't reach to this height, we just don't have enough blocks yet
@@ -560,8 +609,7 @@ public class VeriBlockBlockchain {
                     keystoneBlocksAgo += 20;
 
             }
-            List<StoredVeriBlockBlock> context = store.get(block.getPreviousBlock(), keystoneBlocksAgo);
-            if (context.size() == keystoneBlocksAgo) {
+            if (store.getFromChain(block.getPreviousBlock(), keystoneBlocksAgo - 1) != null) {
                 throw new VerificationException("Block's second previous keystone is not found");
             }
         }
@@ -569,37 +617,53 @@ public class VeriBlockBlockchain {
         return previous;
     }
 
-    private void checkTimestamp(VeriBlockBlock block, List<StoredVeriBlockBlock> context) throws VerificationException {
-        if (context.size() < MINIMUM_TIMESTAMP_BLOCK_COUNT) {
+    private void checkTimestamp(VeriBlockBlock block, StoredVeriBlockBlock previous) throws VerificationException, BlockStoreException, SQLException {
+        // slide the median time window if the previous block extends its tip,
+        // otherwise rebuild it from the chain of the previous block
+        MedianTimePast<VBlakeHash> medianTimePast = medianTimePastTracker.get();
+        if (previous == null) {
+            medianTimePast.clear();
+        } else if (!medianTimePast.advance(previous.getBlock().getPreviousBlock(),
+                                           previous.getHash().trimToPreviousBlockSize(),
+                                           previous.getBlock().getTimestamp())) {
+            List<StoredVeriBlockBlock> context = getChainInternal(previous.getHash(), MINIMUM_TIMESTAMP_BLOCK_COUNT);
+            medianTimePast.reset(previous.getHash().trimToPreviousBlockSize(), context.stream()
+                    .map(b -> b.getBlock().getTimestamp())
+                    .collect(Collectors.toList()));
+        }
+
+        if (!medianTimePast.isFull()) {
             log.warn("Not enough context blocks to check timestamp");
             return;
         }
 
-        Optional<Integer> median = context.stream()
-                .sorted(Comparator.comparingInt(StoredVeriBlockBlock::getHeight).reversed())
-                .limit(MINIMUM_TIMESTAMP_BLOCK_COUNT)
-                .map(b -> b.getBlock().getTimestamp())
-                .sorted()
-                .skip((MINIMUM_TIMESTAMP_BLOCK_COUNT / 2) - 1)
-                .findFirst();
-
-        if (!median.isPresent() || block.getTimestamp() <= median.get()) {
+        if (block.getTimestamp() <= medianTimePast.getMedian()) {
             throw new VerificationException("Block is too far in the past");
         }
     }
 
-    private void checkDifficulty(VeriBlockBlock block, StoredVeriBlockBlock previous, List<StoredVeriBlockBlock> context) throws VerificationException {
+    private void checkDifficulty(VeriBlockBlock block, StoredVeriBlockBlock previous) throws VerificationException, BlockStoreException, SQLException {
         if(!isValidateBlocksDifficulty()){
             return;
         }
 
-        if (context.size() < DIFFICULTY_ADJUST_BLOCK_COUNT) {
-            log.warn("Not enough context blocks to check difficulty");
-            return;
+        // slide the difficulty window if the block extends its tip,
+        // otherwise rebuild it from the chain of the previous block
+        IncrementalVeriBlockDifficultyCalculator difficultyCalculator = difficultyCalculatorTracker.get();
+        if (previous == null || !difficultyCalculator.advance(previous.getBlock())) {
+            List<StoredVeriBlockBlock> context = previous == null
+                    ? Collections.emptyList()
+                    : getChainInternal(previous.getHash(), DIFFICULTY_ADJUST_BLOCK_COUNT);
+
+            if (context.size() < DIFFICULTY_ADJUST_BLOCK_COUNT) {
+                log.warn("Not enough context blocks to check difficulty");
+                return;
+            }
+
+            difficultyCalculator.reset(context.stream().map(StoredVeriBlockBlock::getBlock).collect(Collectors.toList()));
         }
 
-        List<VeriBlockBlock> contextBlocks = context.stream().map(StoredVeriBlockBlock::getBlock).collect(Collectors.toList());
-        BigInteger calculated = VeriBlockDifficultyCalculator.calculate(networkParameters, previous.getBlock(), contextBlocks);
+        BigInteger calculated = difficultyCalculator.calculate();
 
         if (block.getDifficulty() != (int)BitcoinUtils.encodeCompactBits(calculated)) {
             throw new VerificationException("Block does not conform to expected difficulty");
@@ -614,6 +678,8 @@ public class VeriBlockBlockchain {
         boolean bootstrapped = store.getChainHead() != null;
 
         if (!bootstrapped) {
+            VeriBlockBlock.computeHashes(blocks);
+
             VBlakeHash prevHash = null;
             for (VeriBlockBlock block : blocks) {
                 if (prevHash != null && !block.getPreviousBlock().equals(prevHash) )
@@ -43,18 +43,30 @@ public strictfp class VeriBlockDifficultyCalculator {
         }
 
         for (int i = context.size() - 1; i > 0; i--) {
-            int solveTime = context.get(i - 1).getTimestamp() - context.get(i).getTimestamp();
-            if (solveTime > (T * 6)) {
-                solveTime = T * 6;
-            } else if (solveTime < -6 * T) {
-                solveTime = -6 * T;
-            }
+            int solveTime = getSolveTime(context.get(i).getTimestamp(), context.get(i - 1).getTimestamp());
 
             j++;
             t += solveTime * j;
             sumTarget = sumTarget.add(new BigDecimal(BitcoinUtils.decodeCompactBits(context.get(i).getDifficulty())));
         }
 
+        return getNextTarget(networkParameters, sumTarget, t);
+    }
+
+    // the time between two consecutive blocks clamped to six target block times
+    static int getSolveTime(int previousTimestamp, int timestamp) {
+        int solveTime = timestamp - previousTimestamp;
+        if (solveTime > (T * 6)) {
+            return T * 6;
+        } else if (solveTime < -6 * T) {
+            return -6 * T;
+        }
+        return solveTime;
+    }
+
+    // the next target from the sum of the context block targets
+    // and the sum of the solve times weighted by their recency
+    static BigInteger getNextTarget(VeriBlockNetworkParameters networkParameters, BigDecimal sumTarget, long t) {
         sumTarget = sumTarget.divide(BigDecimal.valueOf(N - 1), 8, RoundingMode.HALF_UP);
 
         if (t < K.divide(BigInteger.valueOf(10)).intValue()) {
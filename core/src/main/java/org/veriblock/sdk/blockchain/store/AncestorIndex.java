@@ -0,0 +1,170 @@
+// VeriBlock Blockchain Project
+// Copyright 2017-2018 VeriBlock, Inc
+// Copyright 2018-2019 Xenios SEZC
+// All rights reserved.
+// https://www.veriblock.org
+// Distributed under the MIT software license, see the accompanying
+// file LICENSE or http://www.opensource.org/licenses/mit-license.php.
+
+package org.veriblock.sdk.blockchain.store;
+
+import org.veriblock.sdk.util.Preconditions;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory tree of the stored blocks with skip pointers to distant ancestors.
+ *
+ * Every indexed block links to its previous block and to one ancestor
+ * further down the chain, chosen like the Bitcoin Core skip list,
+ * so the ancestor at any depth is found in O(log n) steps without
+ * reading the intermediate blocks from the store.
+ * The blocks are indexed as they are put into the store if their previous
+ * block is already indexed; other blocks are indexed on first use by
+ * walking the store down to an indexed block or to the start of the chain.
+ * The heights are counted from the first indexed block of each chain.
+ */
+public abstract class AncestorIndex<Block, Id> {
+    private static class Node<Id> {
+        private final Id id;
+        private final int height;
+        private final Node<Id> previous;
+        private final Node<Id> skip;
+
+        private Node(Id id, Node<Id> previous) {
+            this.id = id;
+            this.height = previous == null ? 0 : previous.height + 1;
+            this.previous = previous;
+            this.skip = previous == null ? null : previous.getAncestor(getSkipHeight(height));
+        }
+
+        private Node<Id> getAncestor(int targetHeight) {
+            if (targetHeight > height || targetHeight < 0) return null;
+
+            Node<Id> walk = this;
+            while (walk.height > targetHeight) {
+                int heightSkip = getSkipHeight(walk.height);
+                int heightSkipPrevious = getSkipHeight(walk.height - 1);
+                if (walk.skip != null &&
+                    (heightSkip == targetHeight ||
+                     (heightSkip > targetHeight && !(heightSkipPrevious < heightSkip - 2 &&
+                                                     heightSkipPrevious >= targetHeight)))) {
+                    walk = walk.skip;
+                } else {
+                    walk = walk.previous;
+                }
+            }
+            return walk;
+        }
+
+        // clear the lowest set bit
+        private static int invertLowestOne(int n) {
+            return n & (n - 1);
+        }
+
+        // the height of the skip pointer target; any height below the block
+        // would do, this choice keeps the ancestor search logarithmic
+        private static int getSkipHeight(int height) {
+            if (height < 2) return 0;
+
+            return (height & 1) != 0 ? invertLowestOne(invertLowestOne(height - 1)) + 1
+                                     : invertLowestOne(height);
+        }
+    }
+
+    private final BlockStore<Block, Id> store;
+    private final Map<Id, Node<Id>> nodes = new HashMap<>();
+
+    protected AncestorIndex(BlockStore<Block, Id> store) {
+        this.store = store;
+    }
+
+    protected abstract Id getId(Block block);
+
+    protected abstract Id getPreviousId(Block block);
+
+    // resolve a full or partial id to the full id of a stored block or null
+    protected Id resolve(Id id) {
+        return id;
+    }
+
+    public synchronized void clear() {
+        nodes.clear();
+    }
+
+    // index the block that has been put into the store if its previous block is indexed
+    public synchronized void add(Block block) {
+        Id previousId = resolve(getPreviousId(block));
+        Node<Id> previous = previousId == null ? null : nodes.get(previousId);
+        if (previous != null && !nodes.containsKey(getId(block))) {
+            nodes.put(getId(block), new Node<>(getId(block), previous));
+        }
+    }
+
+    // drop the block that has been erased from the store
+    public synchronized void remove(Id id) {
+        nodes.remove(id);
+    }
+
+    /**
+     * Find the block that is the given number of blocks before the given block
+     * @param id the block id(hash)
+     * @param blocksAgo the number of blocks to skip
+     * @return the full id of the ancestor block or null if the chain is shorter
+     *         or the given block is not in the store
+     * @throws SQLException
+     */
+    public synchronized Id getAncestor(Id id, int blocksAgo) throws SQLException {
+        Preconditions.argument(blocksAgo >= 0, "The number of blocks cannot be negative");
+
+        Node<Id> node = getNode(id);
+        while (node != null) {
+            if (blocksAgo <= node.height) {
+                return node.getAncestor(node.height - blocksAgo).id;
+            }
+
+            // the previous blocks may have been put after the first indexed block
+            blocksAgo -= node.height + 1;
+            Block first = store.get(node.getAncestor(0).id);
+            node = first == null ? null : getNode(getPreviousId(first));
+        }
+        return null;
+    }
+
+    private Node<Id> getNode(Id id) throws SQLException {
+        Id fullId = resolve(id);
+        if (fullId == null) return null;
+
+        Node<Id> node = nodes.get(fullId);
+        if (node != null) return node;
+
+        Block block = store.get(fullId);
+        if (block == null) return null;
+
+        // walk down to an indexed block or to the start of the chain
+        List<Id> pending = new ArrayList<>();
+        pending.add(getId(block));
+        Node<Id> previous = null;
+
+        while (true) {
+            Block previousBlock = store.get(getPreviousId(block));
+            if (previousBlock == null) break;
+
+            previous = nodes.get(getId(previousBlock));
+            if (previous != null) break;
+
+            pending.add(getId(previousBlock));
+            block = previousBlock;
+        }
+
+        for (int i = pending.size() - 1; i >= 0; i--) {
+            previous = new Node<>(pending.get(i), previous);
+            nodes.put(previous.id, previous);
+        }
+        return previous;
+    }
+}
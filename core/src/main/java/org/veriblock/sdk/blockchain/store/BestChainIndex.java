@@ -0,0 +1,213 @@
+// VeriBlock Blockchain Project
+// Copyright 2017-2018 VeriBlock, Inc
+// Copyright 2018-2019 Xenios SEZC
+// All rights reserved.
+// https://www.veriblock.org
+// Distributed under the MIT software license, see the accompanying
+// file LICENSE or http://www.opensource.org/licenses/mit-license.php.
+
+package org.veriblock.sdk.blockchain.store;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * In-memory index of the best chain, the chain that ends at the chain head.
+ *
+ * The index keeps the block ids of the best chain ordered by height and
+ * maps every id back to its height, so the membership and the position
+ * of a block in the best chain are found without walking the chain.
+ * It is built lazily from the chain head and updated when the chain head
+ * moves: extending the chain appends the new blocks, switching to a fork
+ * drops the blocks above the fork point first. The heights are counted
+ * from the first block of the chain, so they match the block heights
+ * as long as the stored chain is consistent.
+ */
+public abstract class BestChainIndex<Block, Id> {
+    private final BlockStore<Block, Id> store;
+
+    // ids of the best chain blocks, the first one is at firstHeight
+    private final List<Id> chain = new ArrayList<>();
+    // lookup key -> height
+    private final Map<Id, Integer> heights = new HashMap<>();
+    // keys shared by several blocks of the chain, resolved by scanning the chain
+    private final Set<Id> ambiguousKeys = new HashSet<>();
+    private int firstHeight = 0;
+    private boolean loaded = false;
+
+    protected BestChainIndex(BlockStore<Block, Id> store) {
+        this.store = store;
+    }
+
+    protected abstract Id getId(Block block);
+
+    protected abstract Id getPreviousId(Block block);
+
+    protected abstract int getBlockHeight(Block block);
+
+    // the key under which the block id is indexed; the lookups use the same key
+    protected abstract Id getKey(Id id);
+
+    // check whether the query matches the id of a best chain block
+    protected abstract boolean matches(Id id, Id query);
+
+    // check whether the query is long enough to compute its key
+    protected boolean isIndexable(Id query) {
+        return true;
+    }
+
+    public synchronized boolean isLoaded() {
+        return loaded;
+    }
+
+    // drop the index; it is rebuilt from the chain head on the next use
+    public synchronized void invalidate() {
+        chain.clear();
+        heights.clear();
+        ambiguousKeys.clear();
+        firstHeight = 0;
+        loaded = false;
+    }
+
+    /**
+     * Find the block with the given id in the best chain
+     * @param query the block id; the id may be partial if the store supports it
+     * @return the full id of the matching best chain block or null
+     * @throws SQLException
+     */
+    public synchronized Id find(Id query) throws SQLException {
+        Integer height = getHeight(query);
+        return height == null ? null : chain.get(height - firstHeight);
+    }
+
+    /**
+     * Get the height of the block with the given id in the best chain
+     * @param query the block id; the id may be partial if the store supports it
+     * @return the height of the matching best chain block or null
+     * @throws SQLException
+     */
+    public synchronized Integer getHeight(Id query) throws SQLException {
+        load();
+
+        if (!isIndexable(query) || ambiguousKeys.contains(getKey(query))) {
+            return scan(query);
+        }
+
+        Integer height = heights.get(getKey(query));
+        return height != null && matches(chain.get(height - firstHeight), query) ? height : null;
+    }
+
+    /**
+     * Get the id of the best chain block at the given height
+     * @param height the block height
+     * @return the block id or null if the best chain has no block at this height
+     * @throws SQLException
+     */
+    public synchronized Id get(int height) throws SQLException {
+        load();
+
+        int position = height - firstHeight;
+        return position >= 0 && position < chain.size() ? chain.get(position) : null;
+    }
+
+    /**
+     * Move the index to the new chain head; a no-op if the index is not loaded yet
+     * @param chainHead the new chain head block
+     * @throws SQLException
+     */
+    public synchronized void setChainHead(Block chainHead) throws SQLException {
+        if (!loaded) return;
+
+        // collect the new blocks down to the fork point
+        List<Block> branch = new ArrayList<>();
+        Block current = chainHead;
+        Integer forkHeight = null;
+
+        while (current != null) {
+            forkHeight = getIndexedHeight(getId(current));
+            if (forkHeight != null) break;
+
+            branch.add(current);
+            current = getPrevious(current);
+        }
+
+        if (forkHeight == null) {
+            // the new chain does not share any blocks with the old one
+            invalidate();
+            reset(branch);
+            return;
+        }
+
+        truncate(forkHeight);
+        for (int i = branch.size() - 1; i >= 0; i--) {
+            append(getId(branch.get(i)));
+        }
+    }
+
+    private void load() throws SQLException {
+        if (loaded) return;
+
+        List<Block> blocks = new ArrayList<>();
+        Block current = store.getChainHead();
+        while (current != null) {
+            blocks.add(current);
+            current = getPrevious(current);
+        }
+        reset(blocks);
+    }
+
+    // rebuild the index from the blocks ordered from the tip down
+    private void reset(List<Block> blocks) {
+        firstHeight = blocks.isEmpty() ? 0 : getBlockHeight(blocks.get(blocks.size() - 1));
+        for (int i = blocks.size() - 1; i >= 0; i--) {
+            append(getId(blocks.get(i)));
+        }
+        loaded = true;
+    }
+
+    private Block getPrevious(Block block) throws SQLException {
+        // the chain starts at the genesis or bootstrap block
+        if (getBlockHeight(block) == 0) return null;
+        return store.get(getPreviousId(block));
+    }
+
+    private Integer getIndexedHeight(Id id) {
+        Integer height = heights.get(getKey(id));
+        if (height != null && chain.get(height - firstHeight).equals(id)) return height;
+        return ambiguousKeys.contains(getKey(id)) ? scan(id) : null;
+    }
+
+    private Integer scan(Id query) {
+        for (int position = chain.size() - 1; position >= 0; position--) {
+            if (matches(chain.get(position), query)) return firstHeight + position;
+        }
+        return null;
+    }
+
+    private void append(Id id) {
+        Id key = getKey(id);
+        int height = firstHeight + chain.size();
+        chain.add(id);
+
+        Integer existing = heights.put(key, height);
+        if (existing != null) {
+            ambiguousKeys.add(key);
+        }
+    }
+
+    // drop the blocks above the given height
+    private void truncate(int height) {
+        while (firstHeight + chain.size() - 1 > height) {
+            int position = chain.size() - 1;
+            Id key = getKey(chain.remove(position));
+            if (Integer.valueOf(firstHeight + position).equals(heights.get(key))) {
+                heights.remove(key);
+            }
+        }
+    }
+}
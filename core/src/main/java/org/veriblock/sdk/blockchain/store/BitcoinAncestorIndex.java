@@ -0,0 +1,28 @@
+// VeriBlock Blockchain Project
+// Copyright 2017-2018 VeriBlock, Inc
+// Copyright 2018-2019 Xenios SEZC
+// All rights reserved.
+// https://www.veriblock.org
+// Distributed under the MIT software license, see the accompanying
+// file LICENSE or http://www.opensource.org/licenses/mit-license.php.
+
+package org.veriblock.sdk.blockchain.store;
+
+import org.veriblock.sdk.models.Sha256Hash;
+
+public class BitcoinAncestorIndex extends AncestorIndex<StoredBitcoinBlock, Sha256Hash> {
+
+    public BitcoinAncestorIndex(BlockStore<StoredBitcoinBlock, Sha256Hash> store) {
+        super(store);
+    }
+
+    @Override
+    protected Sha256Hash getId(StoredBitcoinBlock block) {
+        return block.getHash();
+    }
+
+    @Override
+    protected Sha256Hash getPreviousId(StoredBitcoinBlock block) {
+        return block.getBlock().getPreviousBlock();
+    }
+}
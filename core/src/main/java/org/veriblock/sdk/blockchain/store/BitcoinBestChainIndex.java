@@ -0,0 +1,43 @@
+// VeriBlock Blockchain Project
+// Copyright 2017-2018 VeriBlock, Inc
+// Copyright 2018-2019 Xenios SEZC
+// All rights reserved.
+// https://www.veriblock.org
+// Distributed under the MIT software license, see the accompanying
+// file LICENSE or http://www.opensource.org/licenses/mit-license.php.
+
+package org.veriblock.sdk.blockchain.store;
+
+import org.veriblock.sdk.models.Sha256Hash;
+
+public class BitcoinBestChainIndex extends BestChainIndex<StoredBitcoinBlock, Sha256Hash> {
+
+    public BitcoinBestChainIndex(BlockStore<StoredBitcoinBlock, Sha256Hash> store) {
+        super(store);
+    }
+
+    @Override
+    protected Sha256Hash getId(StoredBitcoinBlock block) {
+        return block.getHash();
+    }
+
+    @Override
+    protected Sha256Hash getPreviousId(StoredBitcoinBlock block) {
+        return block.getBlock().getPreviousBlock();
+    }
+
+    @Override
+    protected int getBlockHeight(StoredBitcoinBlock block) {
+        return block.getHeight();
+    }
+
+    @Override
+    protected Sha256Hash getKey(Sha256Hash hash) {
+        return hash;
+    }
+
+    @Override
+    protected boolean matches(Sha256Hash hash, Sha256Hash query) {
+        return hash.compareTo(query) == 0;
+    }
+}
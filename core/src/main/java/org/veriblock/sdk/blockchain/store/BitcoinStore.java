@@ -12,6 +12,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.veriblock.sdk.models.BlockStoreException;
 import org.veriblock.sdk.models.Sha256Hash;
+import org.veriblock.sdk.sqlite.Transactions;
 import org.veriblock.sdk.sqlite.tables.BitcoinBlockRepository;
 import org.veriblock.sdk.sqlite.tables.KeyValueData;
 import org.veriblock.sdk.sqlite.tables.KeyValueRepository;
@@ -33,6 +34,11 @@ public class BitcoinStore implements BlockStore<StoredBitcoinBlock, Sha256Hash>
     private final KeyValueRepository keyValueRepository;
     
     private final String chainHeadRepositoryName = "chainHead";
+
+    // the blocks of the chain that ends at the chain head
+    private final BitcoinBestChainIndex bestChain = new BitcoinBestChainIndex(this);
+    // skip pointers for the ancestor lookups
+    private final BitcoinAncestorIndex ancestors = new BitcoinAncestorIndex(this);
     
     public BitcoinStore(Connection databaseConnection) throws SQLException {
         this.databaseConnection = databaseConnection;
@@ -51,6 +57,22 @@ public class BitcoinStore implements BlockStore<StoredBitcoinBlock, Sha256Hash>
     public void clear() throws SQLException {
         bitcoinRepository.clear();
         keyValueRepository.clear();
+        bestChain.invalidate();
+        ancestors.clear();
+    }
+
+    public void beginTransaction() throws SQLException {
+        Transactions.begin(databaseConnection);
+    }
+
+    public void commitTransaction() throws SQLException {
+        Transactions.commit(databaseConnection);
+    }
+
+    public void rollbackTransaction() throws SQLException {
+        Transactions.rollback(databaseConnection);
+        bestChain.invalidate();
+        ancestors.clear();
     }
     
     public StoredBitcoinBlock getChainHead() throws BlockStoreException, SQLException {
@@ -74,6 +96,7 @@ public class BitcoinStore implements BlockStore<StoredBitcoinBlock, Sha256Hash>
         data.key = chainHeadRepositoryName;
         data.value = headEncoded;
         keyValueRepository.save(data.key, data.value);
+        bestChain.setChainHead(existingBlock);
         
         return previousBlock;
     }
@@ -84,6 +107,7 @@ public class BitcoinStore implements BlockStore<StoredBitcoinBlock, Sha256Hash>
         }
 
         bitcoinRepository.save(storedBlock);
+        ancestors.add(storedBlock);
     }
     
     public StoredBitcoinBlock get(Sha256Hash hash) throws BlockStoreException, SQLException {
@@ -104,6 +128,7 @@ public class BitcoinStore implements BlockStore<StoredBitcoinBlock, Sha256Hash>
         }
 
         bitcoinRepository.delete(hash);
+        ancestors.remove(hash);
         return erased;
     }
 
@@ -113,6 +138,7 @@ public class BitcoinStore implements BlockStore<StoredBitcoinBlock, Sha256Hash>
         }
         StoredBitcoinBlock replaced = get(hash);
         bitcoinRepository.save(storedBlock);
+        ancestors.add(storedBlock);
         return replaced;
     }
 
@@ -138,30 +164,14 @@ public class BitcoinStore implements BlockStore<StoredBitcoinBlock, Sha256Hash>
 
     // search for a block 'blocksAgo' blocks before the block with 'hash'
     public StoredBitcoinBlock getFromChain(Sha256Hash hash, int blocksAgo) throws BlockStoreException, SQLException {
-        List<StoredBitcoinBlock> blocks = get(hash, blocksAgo + 1);
+        Sha256Hash ancestorHash = ancestors.getAncestor(hash, blocksAgo);
         // check if the branch is long enough
-        if(blocks.size() < (blocksAgo + 1)) {
-            return null;
-        }
-        return blocks.get(blocksAgo);
+        return ancestorHash == null ? null : get(ancestorHash);
     }
 
-    // start from the chainHead and search for a block with hash
+    // search the chain that ends at the chainHead for a block with hash
     public StoredBitcoinBlock scanBestChain(Sha256Hash hash) throws BlockStoreException, SQLException {
-        StoredBitcoinBlock current = getChainHead();
-        if(current == null) return null;
-        
-        Sha256Hash currentHash = current.getHash();
-        while(true) {
-            if(currentHash.compareTo(hash) == 0) return current;
-            // check if the block exists
-            if(current == null)
-                return null;
-            // check if we found the Genesis block
-            if(current.getHeight() == 0) return null;
-            
-            currentHash = current.getBlock().getPreviousBlock();
-            current = get(currentHash);
-        }
+        Sha256Hash bestHash = bestChain.find(hash);
+        return bestHash == null ? null : get(bestHash);
     }
 }
@@ -24,6 +24,26 @@ public interface BlockStore<Block, Id> {
      * @throws SQLException
      */
     void clear() throws SQLException;
+
+    /**
+     * Start a transaction; the following changes are applied atomically
+     * once commitTransaction() is called or discarded by rollbackTransaction().
+     * Stores that share the underlying database connection share the transaction
+     * @throws SQLException
+     */
+    void beginTransaction() throws SQLException;
+
+    /**
+     * Commit the changes made since beginTransaction()
+     * @throws SQLException
+     */
+    void commitTransaction() throws SQLException;
+
+    /**
+     * Discard the changes made since beginTransaction()
+     * @throws SQLException
+     */
+    void rollbackTransaction() throws SQLException;
     
     /**
      * Get the chain head(the tip of the current best chain)
@@ -0,0 +1,61 @@
+// VeriBlock Blockchain Project
+// Copyright 2017-2018 VeriBlock, Inc
+// Copyright 2018-2019 Xenios SEZC
+// All rights reserved.
+// https://www.veriblock.org
+// Distributed under the MIT software license, see the accompanying
+// file LICENSE or http://www.opensource.org/licenses/mit-license.php.
+
+package org.veriblock.sdk.blockchain.store;
+
+import org.veriblock.sdk.models.BlockStoreException;
+import org.veriblock.sdk.models.Sha256Hash;
+import org.veriblock.sdk.models.VBlakeHash;
+import org.veriblock.sdk.sqlite.Database;
+import org.veriblock.sdk.sqlite.FileManager;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.sql.SQLException;
+
+/**
+ * The storage backend of the VeriBlock and Bitcoin block stores
+ */
+public enum BlockStoreType {
+    // the blocks are kept in the SQLite database with the other stores
+    SQLITE,
+    // the blocks are kept in memory-mapped files in the data directory
+    MAPPED;
+
+    private static final String MAPPED_BLOCKS_FOLDER = "blocks";
+
+    // the stores are wrapped in a cache of the recently used blocks
+    public BlockStore<StoredVeriBlockBlock, VBlakeHash> openVeriBlockStore(Database database) throws SQLException {
+        if (this == SQLITE) {
+            return new CachingVeriBlockStore(new VeriBlockStore(database.getConnection()));
+        }
+
+        try {
+            return new CachingVeriBlockStore(new MappedVeriBlockStore(getMappedBlocksDirectory()));
+        } catch (IOException e) {
+            throw new BlockStoreException("Unable to open the VeriBlock block files: " + e.getMessage());
+        }
+    }
+
+    public BlockStore<StoredBitcoinBlock, Sha256Hash> openBitcoinStore(Database database) throws SQLException {
+        if (this == SQLITE) {
+            return new CachingBitcoinStore(new BitcoinStore(database.getConnection()));
+        }
+
+        try {
+            return new CachingBitcoinStore(new MappedBitcoinStore(getMappedBlocksDirectory()));
+        } catch (IOException e) {
+            throw new BlockStoreException("Unable to open the Bitcoin block files: " + e.getMessage());
+        }
+    }
+
+    private static File getMappedBlocksDirectory() {
+        return Paths.get(FileManager.getDataDirectory(), MAPPED_BLOCKS_FOLDER).toFile();
+    }
+}
@@ -0,0 +1,38 @@
+// VeriBlock Blockchain Project
+// Copyright 2017-2018 VeriBlock, Inc
+// Copyright 2018-2019 Xenios SEZC
+// All rights reserved.
+// https://www.veriblock.org
+// Distributed under the MIT software license, see the accompanying
+// file LICENSE or http://www.opensource.org/licenses/mit-license.php.
+
+package org.veriblock.sdk.blockchain.store;
+
+import org.veriblock.sdk.models.Sha256Hash;
+
+public class CachingBitcoinStore extends CachingBlockStore<StoredBitcoinBlock, Sha256Hash> {
+
+    public CachingBitcoinStore(BlockStore<StoredBitcoinBlock, Sha256Hash> store) {
+        this(store, DEFAULT_CAPACITY);
+    }
+
+    public CachingBitcoinStore(BlockStore<StoredBitcoinBlock, Sha256Hash> store, int capacity) {
+        super(store, capacity);
+    }
+
+    @Override
+    protected Sha256Hash getId(StoredBitcoinBlock block) {
+        return block.getHash();
+    }
+
+    @Override
+    protected Sha256Hash getPreviousId(StoredBitcoinBlock block) {
+        return block.getBlock().getPreviousBlock();
+    }
+
+    @Override
+    protected StoredBitcoinBlock copy(StoredBitcoinBlock block) {
+        // the stored Bitcoin blocks are immutable
+        return block;
+    }
+}
@@ -0,0 +1,216 @@
+// VeriBlock Blockchain Project
+// Copyright 2017-2018 VeriBlock, Inc
+// Copyright 2018-2019 Xenios SEZC
+// All rights reserved.
+// https://www.veriblock.org
+// Distributed under the MIT software license, see the accompanying
+// file LICENSE or http://www.opensource.org/licenses/mit-license.php.
+
+package org.veriblock.sdk.blockchain.store;
+
+import org.veriblock.sdk.models.BlockStoreException;
+import org.veriblock.sdk.util.Preconditions;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Block store wrapper that keeps the recently used blocks in memory.
+ *
+ * The cache holds up to the given number of deserialized blocks and
+ * evicts the least recently used ones. The blocks are cached under the
+ * ids they were requested with, so partial ids are cached as well;
+ * replacing or erasing a block drops all of its entries, which are
+ * indexed by the full block id, and rolling back a transaction drops
+ * the whole cache. The stored blocks are mutable,
+ * so the callers always get a copy of the cached block.
+ */
+public abstract class CachingBlockStore<Block, Id> implements BlockStore<Block, Id> {
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    private final BlockStore<Block, Id> store;
+    private final Map<Id, Block> cache;
+    // full block id -> the ids the block is cached under
+    private final Map<Id, Set<Id>> keys = new HashMap<>();
+    private Block chainHead = null;
+
+    private long hitCount = 0;
+    private long missCount = 0;
+
+    protected CachingBlockStore(BlockStore<Block, Id> store, int capacity) {
+        Preconditions.notNull(store, "Store cannot be null");
+        Preconditions.argument(capacity > 0, "Capacity must be positive");
+
+        this.store = store;
+        this.cache = new LinkedHashMap<Id, Block>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Id, Block> eldest) {
+                if (size() <= capacity) return false;
+
+                unindex(eldest.getKey(), eldest.getValue());
+                return true;
+            }
+        };
+    }
+
+    protected abstract Id getId(Block block);
+
+    protected abstract Id getPreviousId(Block block);
+
+    protected abstract Block copy(Block block);
+
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    public synchronized int size() {
+        return cache.size();
+    }
+
+    public void shutdown() {
+        store.shutdown();
+    }
+
+    public synchronized void clear() throws SQLException {
+        store.clear();
+        invalidateAll();
+    }
+
+    public void beginTransaction() throws SQLException {
+        store.beginTransaction();
+    }
+
+    public void commitTransaction() throws SQLException {
+        store.commitTransaction();
+    }
+
+    public synchronized void rollbackTransaction() throws SQLException {
+        store.rollbackTransaction();
+        invalidateAll();
+    }
+
+    public synchronized Block getChainHead() throws BlockStoreException, SQLException {
+        if (chainHead == null) {
+            chainHead = store.getChainHead();
+        }
+        return chainHead == null ? null : copy(chainHead);
+    }
+
+    public synchronized Block setChainHead(Block chainHead) throws BlockStoreException, SQLException {
+        Block previousBlock = store.setChainHead(chainHead);
+        this.chainHead = getCached(getId(chainHead));
+        return previousBlock;
+    }
+
+    public synchronized void put(Block block) throws BlockStoreException, SQLException {
+        store.put(block);
+        cache(getId(block), copy(block));
+    }
+
+    public synchronized Block get(Id id) throws BlockStoreException, SQLException {
+        Block block = getCached(id);
+        return block == null ? null : copy(block);
+    }
+
+    public synchronized Block erase(Id id) throws BlockStoreException, SQLException {
+        Block erased = store.erase(id);
+        if (erased != null) {
+            invalidate(getId(erased));
+        }
+        return erased;
+    }
+
+    public synchronized Block replace(Id id, Block block) throws BlockStoreException, SQLException {
+        Block replaced = store.replace(id, block);
+        if (block != null) {
+            invalidate(getId(block));
+            cache(getId(block), copy(block));
+        }
+        return replaced;
+    }
+
+    public synchronized List<Block> get(Id id, int count) throws BlockStoreException, SQLException {
+        List<Block> blocks = new ArrayList<>();
+        Id currentId = id;
+
+        while (blocks.size() < count) {
+            Block current = getCached(currentId);
+            // check if the block exists
+            if (current == null) break;
+
+            blocks.add(copy(current));
+            currentId = getPreviousId(current);
+        }
+        return blocks;
+    }
+
+    public synchronized Block getFromChain(Id id, int blocksAgo) throws BlockStoreException, SQLException {
+        return store.getFromChain(id, blocksAgo);
+    }
+
+    public synchronized Block scanBestChain(Id id) throws BlockStoreException, SQLException {
+        return store.scanBestChain(id);
+    }
+
+    // get the cached instance, loading it from the store on a miss
+    private Block getCached(Id id) throws SQLException {
+        Block block = cache.get(id);
+        if (block != null) {
+            hitCount++;
+            return block;
+        }
+
+        missCount++;
+        block = store.get(id);
+        if (block != null) {
+            cache(id, block);
+        }
+        return block;
+    }
+
+    private void cache(Id key, Block block) {
+        Block previous = cache.put(key, block);
+        if (previous != null) {
+            unindex(key, previous);
+        }
+        keys.computeIfAbsent(getId(block), id -> new HashSet<>()).add(key);
+    }
+
+    private void unindex(Id key, Block block) {
+        Id id = getId(block);
+        Set<Id> blockKeys = keys.get(id);
+        if (blockKeys != null && blockKeys.remove(key) && blockKeys.isEmpty()) {
+            keys.remove(id);
+        }
+    }
+
+    // drop all entries of the block with the given id
+    private void invalidate(Id id) {
+        Set<Id> blockKeys = keys.remove(id);
+        if (blockKeys != null) {
+            for (Id key : blockKeys) {
+                cache.remove(key);
+            }
+        }
+
+        if (chainHead != null && getId(chainHead).equals(id)) {
+            chainHead = null;
+        }
+    }
+
+    private void invalidateAll() {
+        cache.clear();
+        keys.clear();
+        chainHead = null;
+    }
+}
@@ -0,0 +1,38 @@
+// VeriBlock Blockchain Project
+// Copyright 2017-2018 VeriBlock, Inc
+// Copyright 2018-2019 Xenios SEZC
+// All rights reserved.
+// https://www.veriblock.org
+// Distributed under the MIT software license, see the accompanying
+// file LICENSE or http://www.opensource.org/licenses/mit-license.php.
+
+package org.veriblock.sdk.blockchain.store;
+
+import org.veriblock.sdk.models.VBlakeHash;
+
+public class CachingVeriBlockStore extends CachingBlockStore<StoredVeriBlockBlock, VBlakeHash> {
+
+    public CachingVeriBlockStore(BlockStore<StoredVeriBlockBlock, VBlakeHash> store) {
+        this(store, DEFAULT_CAPACITY);
+    }
+
+    public CachingVeriBlockStore(BlockStore<StoredVeriBlockBlock, VBlakeHash> store, int capacity) {
+        super(store, capacity);
+    }
+
+    @Override
+    protected VBlakeHash getId(StoredVeriBlockBlock block) {
+        return block.getHash();
+    }
+
+    @Override
+    protected VBlakeHash getPreviousId(StoredVeriBlockBlock block) {
+        return block.getBlock().getPreviousBlock();
+    }
+
+    @Override
+    protected StoredVeriBlockBlock copy(StoredVeriBlockBlock block) {
+        // the block of proof is the only mutable field
+        return new StoredVeriBlockBlock(block.getBlock(), block.getWork(), block.getBlockOfProof());
+    }
+}
@@ -0,0 +1,178 @@
+// VeriBlock Blockchain Project
+// Copyright 2017-2018 VeriBlock, Inc
+// Copyright 2018-2019 Xenios SEZC
+// All rights reserved.
+// https://www.veriblock.org
+// Distributed under the MIT software license, see the accompanying
+// file LICENSE or http://www.opensource.org/licenses/mit-license.php.
+
+package org.veriblock.sdk.blockchain.store;
+
+import org.veriblock.sdk.models.BlockStoreException;
+import org.veriblock.sdk.models.Sha256Hash;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class MappedBitcoinStore extends MappedBlockStore<StoredBitcoinBlock, Sha256Hash> {
+    // hash(32) | height(4) | work(36) | version(4) | previousBlock(32) | ...
+    private static final int PREVIOUS_BLOCK_OFFSET = Sha256Hash.BITCOIN_LENGTH + 4
+                                                   + StoredBitcoinBlock.CHAIN_WORK_BYTES + 4;
+
+    // block hash -> number of blocks referencing it as the previous block
+    private final Map<Sha256Hash, Integer> references = new HashMap<>();
+    // the blocks of the chain that ends at the chain head
+    private final BitcoinBestChainIndex bestChain = new BitcoinBestChainIndex(this);
+    // skip pointers for the ancestor lookups
+    private final BitcoinAncestorIndex ancestors = new BitcoinAncestorIndex(this);
+
+    public MappedBitcoinStore(File directory) throws IOException {
+        // the segments of the 128-byte records are named "bitcoin" and are not reused
+        super(new MappedBlockFile(directory, "bitcoin2", StoredBitcoinBlock.SIZE));
+        load();
+    }
+
+    @Override
+    protected byte[] serialize(StoredBitcoinBlock storedBlock) {
+        return storedBlock.serialize();
+    }
+
+    @Override
+    protected StoredBitcoinBlock deserialize(ByteBuffer record) {
+        return StoredBitcoinBlock.deserializeWithHash(record);
+    }
+
+    @Override
+    protected Sha256Hash getId(StoredBitcoinBlock storedBlock) {
+        return storedBlock.getHash();
+    }
+
+    @Override
+    protected Sha256Hash readId(ByteBuffer record) {
+        byte[] hash = new byte[Sha256Hash.BITCOIN_LENGTH];
+        record.get(hash);
+        return Sha256Hash.wrap(hash);
+    }
+
+    @Override
+    protected Sha256Hash readPreviousId(ByteBuffer record) {
+        record.position(PREVIOUS_BLOCK_OFFSET);
+        return Sha256Hash.extract(record);
+    }
+
+    @Override
+    protected Sha256Hash resolve(Sha256Hash hash) {
+        return contains(hash) ? hash : null;
+    }
+
+    @Override
+    protected void index(Sha256Hash hash, Sha256Hash previousBlock) {
+        references.merge(previousBlock, 1, Integer::sum);
+    }
+
+    @Override
+    protected void unindex(Sha256Hash hash, Sha256Hash previousBlock) {
+        references.computeIfPresent(previousBlock, (k, count) -> count > 1 ? count - 1 : null);
+    }
+
+    @Override
+    protected void clearIndex() {
+        references.clear();
+    }
+
+    @Override
+    protected boolean isReferenced(Sha256Hash hash) {
+        return references.containsKey(hash);
+    }
+
+    @Override
+    public synchronized void clear() {
+        super.clear();
+        bestChain.invalidate();
+        ancestors.clear();
+    }
+
+    @Override
+    public synchronized void rollbackTransaction() {
+        super.rollbackTransaction();
+        bestChain.invalidate();
+        ancestors.clear();
+    }
+
+    @Override
+    public synchronized void put(StoredBitcoinBlock storedBlock) throws BlockStoreException {
+        super.put(storedBlock);
+        ancestors.add(storedBlock);
+    }
+
+    @Override
+    public synchronized StoredBitcoinBlock erase(Sha256Hash hash) throws BlockStoreException {
+        StoredBitcoinBlock erased = super.erase(hash);
+        if (erased != null) {
+            ancestors.remove(erased.getHash());
+        }
+        return erased;
+    }
+
+    @Override
+    public synchronized StoredBitcoinBlock setChainHead(StoredBitcoinBlock chainHead) throws BlockStoreException {
+        StoredBitcoinBlock previousBlock = super.setChainHead(chainHead);
+        try {
+            bestChain.setChainHead(get(chainHead.getHash()));
+        } catch (SQLException e) {
+            // the mapped store does not use SQL
+            throw new BlockStoreException(e.getMessage());
+        }
+        return previousBlock;
+    }
+
+    public synchronized List<StoredBitcoinBlock> get(Sha256Hash hash, int count) throws BlockStoreException {
+        List<StoredBitcoinBlock> blocks = new ArrayList<>();
+        Sha256Hash currentHash = hash;
+
+        while(true) {
+            // check if we got the needed blocks
+            if(blocks.size() >= count) break;
+            StoredBitcoinBlock current = get(currentHash);
+            // check if the block exists
+            if(current == null) break;
+            blocks.add(current);
+
+            // check if we found the Genesis block
+            if(currentHash.toBigInteger().compareTo(BigInteger.ZERO) == 0) break;
+            currentHash = current.getBlock().getPreviousBlock();
+        }
+
+        return blocks;
+    }
+
+    // search for a block 'blocksAgo' blocks before the block with 'hash'
+    public synchronized StoredBitcoinBlock getFromChain(Sha256Hash hash, int blocksAgo) throws BlockStoreException {
+        try {
+            Sha256Hash ancestorHash = ancestors.getAncestor(hash, blocksAgo);
+            // check if the branch is long enough
+            return ancestorHash == null ? null : get(ancestorHash);
+        } catch (SQLException e) {
+            // the mapped store does not use SQL
+            throw new BlockStoreException(e.getMessage());
+        }
+    }
+
+    // search the chain that ends at the chainHead for a block with hash
+    public synchronized StoredBitcoinBlock scanBestChain(Sha256Hash hash) throws BlockStoreException {
+        try {
+            Sha256Hash bestHash = bestChain.find(hash);
+            return bestHash == null ? null : get(bestHash);
+        } catch (SQLException e) {
+            // the mapped store does not use SQL
+            throw new BlockStoreException(e.getMessage());
+        }
+    }
+}
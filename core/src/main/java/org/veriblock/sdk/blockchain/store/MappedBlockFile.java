@@ -0,0 +1,204 @@
+// VeriBlock Blockchain Project
+// Copyright 2017-2018 VeriBlock, Inc
+// Copyright 2018-2019 Xenios SEZC
+// All rights reserved.
+// https://www.veriblock.org
+// Distributed under the MIT software license, see the accompanying
+// file LICENSE or http://www.opensource.org/licenses/mit-license.php.
+
+package org.veriblock.sdk.blockchain.store;
+
+import org.veriblock.sdk.util.Preconditions;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An append-only file of fixed-size records split into memory-mapped segments.
+ *
+ * Every record occupies a slot that starts with a state byte followed by
+ * the record bytes. The state byte is written after the record, so a slot
+ * that was not completely written is seen as empty after a crash. Slots
+ * are never reused: erased records keep their slot, and only the last
+ * records can be dropped by truncating the file. A separate small file
+ * keeps the slot of the chain head.
+ */
+public class MappedBlockFile {
+    public static final int DEFAULT_SEGMENT_SLOTS = 1 << 16;
+
+    private static final byte EMPTY = 0;
+    private static final byte LIVE = 1;
+    private static final byte ERASED = 2;
+
+    private static final int HEAD_FILE_SIZE = 8;
+
+    private final File directory;
+    private final String name;
+    private final int recordSize;
+    private final int slotSize;
+    private final int segmentSlots;
+
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+    private final MappedByteBuffer head;
+    private long size = 0;
+
+    public MappedBlockFile(File directory, String name, int recordSize) throws IOException {
+        this(directory, name, recordSize, DEFAULT_SEGMENT_SLOTS);
+    }
+
+    public MappedBlockFile(File directory, String name, int recordSize, int segmentSlots) throws IOException {
+        Preconditions.notNull(directory, "Directory cannot be null");
+        Preconditions.argument(recordSize > 0, "Record size must be positive");
+        Preconditions.argument(segmentSlots > 0, "Segment size must be positive");
+
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Unable to create directory " + directory);
+        }
+
+        this.directory = directory;
+        this.name = name;
+        this.recordSize = recordSize;
+        this.slotSize = recordSize + 1;
+        this.segmentSlots = segmentSlots;
+
+        this.head = map(new File(directory, name + ".head"), HEAD_FILE_SIZE);
+
+        for (int i = 0; getSegmentFile(i).exists(); i++) {
+            segments.add(map(getSegmentFile(i), (long) slotSize * segmentSlots));
+        }
+
+        // the slots are filled in order, so the first empty slot ends the file
+        long capacity = (long) segments.size() * segmentSlots;
+        while (size < capacity && getState(size) != EMPTY) {
+            size++;
+        }
+    }
+
+    public int getRecordSize() {
+        return recordSize;
+    }
+
+    // the number of used slots, including the erased ones
+    public long size() {
+        return size;
+    }
+
+    public boolean isLive(long slot) {
+        return slot < size && getState(slot) == LIVE;
+    }
+
+    /**
+     * Get a zero-copy view of the record in the given slot
+     * @param slot the slot
+     * @return a read-only buffer that holds exactly the record bytes
+     */
+    public ByteBuffer read(long slot) {
+        Preconditions.argument(slot >= 0 && slot < size, "Invalid slot");
+
+        ByteBuffer buffer = segments.get(getSegment(slot)).asReadOnlyBuffer();
+        int offset = getOffset(slot) + 1;
+        buffer.limit(offset + recordSize);
+        buffer.position(offset);
+        return buffer.slice();
+    }
+
+    public long append(byte[] record) throws IOException {
+        Preconditions.argument(record != null && record.length == recordSize, "Invalid record");
+
+        long slot = size;
+        int segment = getSegment(slot);
+        while (segments.size() <= segment) {
+            segments.add(map(getSegmentFile(segments.size()), (long) slotSize * segmentSlots));
+        }
+
+        writeRecord(slot, record);
+        setState(slot, LIVE);
+        size++;
+        return slot;
+    }
+
+    // overwrite the record in the given slot
+    public void write(long slot, byte[] record) {
+        Preconditions.argument(slot >= 0 && slot < size, "Invalid slot");
+        Preconditions.argument(record != null && record.length == recordSize, "Invalid record");
+
+        writeRecord(slot, record);
+    }
+
+    public void erase(long slot) {
+        Preconditions.argument(slot >= 0 && slot < size, "Invalid slot");
+        setState(slot, ERASED);
+    }
+
+    public void restore(long slot) {
+        Preconditions.argument(slot >= 0 && slot < size, "Invalid slot");
+        setState(slot, LIVE);
+    }
+
+    // drop the slots past the given size
+    public void truncate(long newSize) {
+        Preconditions.argument(newSize >= 0 && newSize <= size, "Invalid size");
+
+        for (long slot = size - 1; slot >= newSize; slot--) {
+            setState(slot, EMPTY);
+        }
+        size = newSize;
+    }
+
+    // the slot of the chain head or -1 if not set
+    public long getHead() {
+        return head.getLong(0) - 1;
+    }
+
+    public void setHead(long slot) {
+        head.putLong(0, slot + 1);
+    }
+
+    // write the modified pages to the disk
+    public void flush() {
+        for (MappedByteBuffer segment : segments) {
+            segment.force();
+        }
+        head.force();
+    }
+
+    private byte getState(long slot) {
+        return segments.get(getSegment(slot)).get(getOffset(slot));
+    }
+
+    private void setState(long slot, byte state) {
+        segments.get(getSegment(slot)).put(getOffset(slot), state);
+    }
+
+    private void writeRecord(long slot, byte[] record) {
+        ByteBuffer buffer = segments.get(getSegment(slot)).duplicate();
+        buffer.position(getOffset(slot) + 1);
+        buffer.put(record);
+    }
+
+    private int getSegment(long slot) {
+        return (int) (slot / segmentSlots);
+    }
+
+    private int getOffset(long slot) {
+        return (int) (slot % segmentSlots) * slotSize;
+    }
+
+    private File getSegmentFile(int segment) {
+        return new File(directory, String.format("%s-%05d.dat", name, segment));
+    }
+
+    private static MappedByteBuffer map(File file, long length) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw");
+             FileChannel channel = raf.getChannel()) {
+            // the mapping stays valid after the channel is closed
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, length);
+        }
+    }
+}
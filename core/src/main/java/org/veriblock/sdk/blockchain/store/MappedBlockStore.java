@@ -0,0 +1,236 @@
+// VeriBlock Blockchain Project
+// Copyright 2017-2018 VeriBlock, Inc
+// Copyright 2018-2019 Xenios SEZC
+// All rights reserved.
+// https://www.veriblock.org
+// Distributed under the MIT software license, see the accompanying
+// file LICENSE or http://www.opensource.org/licenses/mit-license.php.
+
+package org.veriblock.sdk.blockchain.store;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.veriblock.sdk.models.BlockStoreException;
+import org.veriblock.sdk.util.Preconditions;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Block store backed by a memory-mapped file of fixed-size block records.
+ *
+ * The slots of the stored blocks are kept in an in-memory map that is
+ * rebuilt from the file on startup, so lookups read the block straight
+ * from the mapped file without any SQL. Changes are visible immediately
+ * and are written to the disk on commit and on shutdown.
+ * A transaction keeps an undo log of its changes in memory; it does not
+ * share the SQLite transaction of the other stores.
+ */
+public abstract class MappedBlockStore<Block, Id> implements BlockStore<Block, Id> {
+    private static final Logger log = LoggerFactory.getLogger(MappedBlockStore.class);
+
+    private final MappedBlockFile file;
+    private final Map<Id, Long> slots = new HashMap<>();
+
+    // changes made by the open transaction, undone on rollback
+    private final Deque<Runnable> undo = new ArrayDeque<>();
+    private boolean inTransaction = false;
+
+    protected MappedBlockStore(MappedBlockFile file) {
+        this.file = file;
+    }
+
+    protected abstract byte[] serialize(Block block);
+
+    protected abstract Block deserialize(ByteBuffer record);
+
+    protected abstract Id getId(Block block);
+
+    // read the block id and the previous block id without deserializing the record
+    protected abstract Id readId(ByteBuffer record);
+
+    protected abstract Id readPreviousId(ByteBuffer record);
+
+    // resolve a full or partial id to the full id of a stored block or null
+    protected abstract Id resolve(Id id);
+
+    protected abstract void index(Id id, Id previousId);
+
+    protected abstract void unindex(Id id, Id previousId);
+
+    protected abstract void clearIndex();
+
+    // check whether any stored block references the given block as its previous block
+    protected abstract boolean isReferenced(Id id);
+
+    protected boolean contains(Id id) {
+        return slots.containsKey(id);
+    }
+
+    // rebuild the slot map and the index from the file;
+    // called by the subclasses once their index is initialized
+    protected void load() {
+        for (long slot = 0; slot < file.size(); slot++) {
+            if (!file.isLive(slot)) continue;
+
+            ByteBuffer record = file.read(slot);
+            Id id = readId(record.duplicate());
+            slots.put(id, slot);
+            index(id, readPreviousId(record));
+        }
+        log.debug("Loaded {} blocks from the mapped store", slots.size());
+    }
+
+    public synchronized void shutdown() {
+        file.flush();
+    }
+
+    public synchronized void clear() {
+        Preconditions.state(!inTransaction, "Cannot clear the store inside a transaction");
+
+        file.truncate(0);
+        file.setHead(-1);
+        file.flush();
+        slots.clear();
+        clearIndex();
+    }
+
+    public synchronized void beginTransaction() {
+        inTransaction = true;
+    }
+
+    public synchronized void commitTransaction() {
+        file.flush();
+        undo.clear();
+        inTransaction = false;
+    }
+
+    public synchronized void rollbackTransaction() {
+        while (!undo.isEmpty()) {
+            undo.pop().run();
+        }
+        inTransaction = false;
+    }
+
+    public synchronized Block getChainHead() throws BlockStoreException {
+        long slot = file.getHead();
+        return slot < 0 ? null : deserialize(file.read(slot));
+    }
+
+    public synchronized Block setChainHead(Block chainHead) throws BlockStoreException {
+        Long slot = slots.get(resolve(getId(chainHead)));
+        if (slot == null) {
+            throw new BlockStoreException("Chain head should reference existing block");
+        }
+
+        Block previousBlock = getChainHead();
+
+        long previousSlot = file.getHead();
+        file.setHead(slot);
+        record(() -> file.setHead(previousSlot));
+
+        return previousBlock;
+    }
+
+    public synchronized void put(Block block) throws BlockStoreException {
+        if (resolve(getId(block)) != null) {
+            throw new BlockStoreException("A block with the same hash is already in the store");
+        }
+
+        append(block);
+    }
+
+    public synchronized Block get(Id id) throws BlockStoreException {
+        Id fullId = resolve(id);
+        return fullId == null ? null : deserialize(file.read(slots.get(fullId)));
+    }
+
+    public synchronized Block erase(Id id) throws BlockStoreException {
+        long headSlot = file.getHead();
+        if (headSlot >= 0 && readId(file.read(headSlot)).equals(id)) {
+            throw new BlockStoreException("Cannot erase the chain head block");
+        }
+
+        Id fullId = resolve(id);
+        if (fullId == null) return null;
+
+        if (isReferenced(fullId)) {
+            throw new BlockStoreException("Cannot erase a block referenced by another block");
+        }
+
+        long slot = slots.get(fullId);
+        ByteBuffer record = file.read(slot);
+        Block erased = deserialize(record.duplicate());
+        Id previousId = readPreviousId(record);
+
+        file.erase(slot);
+        slots.remove(fullId);
+        unindex(fullId, previousId);
+
+        record(() -> {
+            file.restore(slot);
+            slots.put(fullId, slot);
+            index(fullId, previousId);
+        });
+
+        return erased;
+    }
+
+    public synchronized Block replace(Id id, Block block) throws BlockStoreException {
+        if (block == null) {
+            throw new BlockStoreException("The replacement block cannot be null");
+        }
+        if (id != null && !id.equals(getId(block))) {
+            throw new BlockStoreException("The original and replacement block hashes must match");
+        }
+
+        Long slot = slots.get(getId(block));
+        if (slot == null) {
+            append(block);
+            return null;
+        }
+
+        ByteBuffer record = file.read(slot);
+        Block replaced = deserialize(record.duplicate());
+
+        byte[] previousRecord = new byte[file.getRecordSize()];
+        record.get(previousRecord);
+
+        file.write(slot, serialize(block));
+        record(() -> file.write(slot, previousRecord));
+
+        return replaced;
+    }
+
+    private void append(Block block) {
+        Id id = getId(block);
+        byte[] record = serialize(block);
+
+        long slot;
+        try {
+            slot = file.append(record);
+        } catch (IOException e) {
+            throw new BlockStoreException("Unable to write the block: " + e.getMessage());
+        }
+
+        Id previousId = readPreviousId(ByteBuffer.wrap(record));
+        slots.put(id, slot);
+        index(id, previousId);
+
+        record(() -> {
+            slots.remove(id);
+            unindex(id, previousId);
+            file.truncate(slot);
+        });
+    }
+
+    private void record(Runnable undoAction) {
+        if (inTransaction) {
+            undo.push(undoAction);
+        }
+    }
+}
@@ -0,0 +1,175 @@
+// VeriBlock Blockchain Project
+// Copyright 2017-2018 VeriBlock, Inc
+// Copyright 2018-2019 Xenios SEZC
+// All rights reserved.
+// https://www.veriblock.org
+// Distributed under the MIT software license, see the accompanying
+// file LICENSE or http://www.opensource.org/licenses/mit-license.php.
+
+package org.veriblock.sdk.blockchain.store;
+
+import org.veriblock.sdk.models.BlockStoreException;
+import org.veriblock.sdk.models.VBlakeHash;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+public class MappedVeriBlockStore extends MappedBlockStore<StoredVeriBlockBlock, VBlakeHash> {
+    // hash(24) | work(12) | blockOfProof(32) | height(4) | version(2) | previousBlock(12) | ...
+    private static final int PREVIOUS_BLOCK_OFFSET = VBlakeHash.VERIBLOCK_LENGTH
+                                                   + StoredVeriBlockBlock.CHAIN_WORK_BYTES
+                                                   + 32 + 4 + 2;
+
+    private final VeriBlockHashIndex hashIndex = new VeriBlockHashIndex();
+    // the blocks of the chain that ends at the chain head
+    private final VeriBlockBestChainIndex bestChain = new VeriBlockBestChainIndex(this);
+    // skip pointers for the ancestor lookups
+    private final VeriBlockAncestorIndex ancestors = new VeriBlockAncestorIndex(this, hashIndex);
+
+    public MappedVeriBlockStore(File directory) throws IOException {
+        super(new MappedBlockFile(directory, "veriblock", StoredVeriBlockBlock.SIZE));
+        load();
+    }
+
+    @Override
+    protected byte[] serialize(StoredVeriBlockBlock storedBlock) {
+        return storedBlock.serialize();
+    }
+
+    @Override
+    protected StoredVeriBlockBlock deserialize(ByteBuffer record) {
+        return StoredVeriBlockBlock.deserializeWithHash(record);
+    }
+
+    @Override
+    protected VBlakeHash getId(StoredVeriBlockBlock storedBlock) {
+        return storedBlock.getHash();
+    }
+
+    @Override
+    protected VBlakeHash readId(ByteBuffer record) {
+        return VBlakeHash.extract(record, VBlakeHash.VERIBLOCK_LENGTH);
+    }
+
+    @Override
+    protected VBlakeHash readPreviousId(ByteBuffer record) {
+        record.position(PREVIOUS_BLOCK_OFFSET);
+        return VBlakeHash.extract(record, VBlakeHash.PREVIOUS_BLOCK_LENGTH);
+    }
+
+    @Override
+    protected VBlakeHash resolve(VBlakeHash hash) {
+        return hashIndex.find(hash);
+    }
+
+    @Override
+    protected void index(VBlakeHash hash, VBlakeHash previousBlock) {
+        hashIndex.add(hash, previousBlock);
+    }
+
+    @Override
+    protected void unindex(VBlakeHash hash, VBlakeHash previousBlock) {
+        hashIndex.remove(hash, previousBlock);
+    }
+
+    @Override
+    protected void clearIndex() {
+        hashIndex.clear();
+    }
+
+    @Override
+    protected boolean isReferenced(VBlakeHash hash) {
+        return hashIndex.isReferenced(hash);
+    }
+
+    @Override
+    public synchronized void clear() {
+        super.clear();
+        bestChain.invalidate();
+        ancestors.clear();
+    }
+
+    @Override
+    public synchronized void rollbackTransaction() {
+        super.rollbackTransaction();
+        bestChain.invalidate();
+        ancestors.clear();
+    }
+
+    @Override
+    public synchronized void put(StoredVeriBlockBlock storedBlock) throws BlockStoreException {
+        super.put(storedBlock);
+        ancestors.add(storedBlock);
+    }
+
+    @Override
+    public synchronized StoredVeriBlockBlock erase(VBlakeHash hash) throws BlockStoreException {
+        StoredVeriBlockBlock erased = super.erase(hash);
+        if (erased != null) {
+            ancestors.remove(erased.getHash());
+        }
+        return erased;
+    }
+
+    @Override
+    public synchronized StoredVeriBlockBlock setChainHead(StoredVeriBlockBlock chainHead) throws BlockStoreException {
+        StoredVeriBlockBlock previousBlock = super.setChainHead(chainHead);
+        try {
+            bestChain.setChainHead(get(chainHead.getHash()));
+        } catch (SQLException e) {
+            // the mapped store does not use SQL
+            throw new BlockStoreException(e.getMessage());
+        }
+        return previousBlock;
+    }
+
+    public synchronized List<StoredVeriBlockBlock> get(VBlakeHash hash, int count) throws BlockStoreException {
+        List<StoredVeriBlockBlock> blocks = new ArrayList<>();
+        VBlakeHash currentHash = hash;
+
+        while(true) {
+            // check if we got the needed blocks
+            if(blocks.size() >= count) break;
+
+            StoredVeriBlockBlock current = get(currentHash);
+
+            // check if the block exists
+            if(current == null) break;
+            blocks.add(current);
+
+            // check if we found the Genesis block
+            if(currentHash.toBigInteger().compareTo(BigInteger.ZERO) == 0) break;
+            currentHash = current.getBlock().getPreviousBlock();
+        }
+
+        return blocks;
+    }
+
+    // search for a block 'blocksAgo' blocks before the block with 'hash'
+    public synchronized StoredVeriBlockBlock getFromChain(VBlakeHash hash, int blocksAgo) throws BlockStoreException {
+        try {
+            VBlakeHash ancestorHash = ancestors.getAncestor(hash, blocksAgo);
+            // check if the branch is long enough
+            return ancestorHash == null ? null : get(ancestorHash);
+        } catch (SQLException e) {
+            // the mapped store does not use SQL
+            throw new BlockStoreException(e.getMessage());
+        }
+    }
+
+    // search the chain that ends at the chainHead for a block with hash
+    public synchronized StoredVeriBlockBlock scanBestChain(VBlakeHash hash) throws BlockStoreException {
+        try {
+            VBlakeHash bestHash = bestChain.find(hash);
+            return bestHash == null ? null : get(bestHash);
+        } catch (SQLException e) {
+            // the mapped store does not use SQL
+            throw new BlockStoreException(e.getMessage());
+        }
+    }
+}
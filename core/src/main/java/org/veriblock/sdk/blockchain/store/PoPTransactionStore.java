@@ -15,6 +15,7 @@ import org.veriblock.sdk.sqlite.tables.PoPTransactionData;
 
 import java.sql.SQLException;
 import java.util.List;
+import java.util.Map;
 
 public interface PoPTransactionStore {
 
@@ -47,6 +48,14 @@ public interface PoPTransactionStore {
      */
     List<AltPublication> getAltPublicationsEndorse(AltChainBlock endorsedBlock, List<AltChainBlock> containingBlocks) throws SQLException;
 
+    /**
+     * Retrieve AltPublications(ATVs) that endorse each of the given endorsed blocks in a single lookup
+     * @param containingBlocksByEndorsedBlock the blocks to search for ATVs, by the endorsed altchain block
+     * @return the lists of AltPublications by the endorsed block hash, in the order of the endorsed blocks
+     * @throws SQLException
+     */
+    Map<String, List<AltPublication>> getAltPublicationsEndorse(Map<AltChainBlock, List<AltChainBlock>> containingBlocksByEndorsedBlock) throws SQLException;
+
     /**
      * Retrieve AltPublications(ATVs) from the given containing block
      * @param block the block to retrieve ATVs from
@@ -55,6 +64,14 @@ public interface PoPTransactionStore {
      */
     List<AltPublication> getAltPublicationsFromBlock(AltChainBlock block) throws SQLException;
 
+    /**
+     * Retrieve AltPublications(ATVs) from each of the given containing blocks in a single lookup
+     * @param blocks the blocks to retrieve ATVs from
+     * @return the lists of AltPublications by the block hash, in the order of the blocks
+     * @throws SQLException
+     */
+    Map<String, List<AltPublication>> getAltPublicationsFromBlocks(List<AltChainBlock> blocks) throws SQLException;
+
     /**
      * Retrieve VeriBlockPublications(VTBs) from the given containing block
      * @param block the block to retrieve VTBs from
@@ -63,6 +80,14 @@ public interface PoPTransactionStore {
      */
     List<VeriBlockPublication> getVeriBlockPublicationsFromBlock(AltChainBlock block) throws SQLException;
 
+    /**
+     * Retrieve VeriBlockPublications(VTBs) from each of the given containing blocks in a single lookup
+     * @param blocks the blocks to retrieve VTBs from
+     * @return the lists of VeriBlockPublications by the block hash, in the order of the blocks
+     * @throws SQLException
+     */
+    Map<String, List<VeriBlockPublication>> getVeriBlockPublicationsFromBlocks(List<AltChainBlock> blocks) throws SQLException;
+
     /**
      * Retrieve AltPublications(ATVs) from the given block height
      * @param height the block height to retrieve ATVs from
@@ -78,4 +103,15 @@ public interface PoPTransactionStore {
      * @throws SQLException
      */
     AltChainBlock findFirstCommonKeystone(List<AltChainBlock> keyStones);
+
+    /**
+     * Delete the PoP transactions contained in the blocks below the given height, along with the publications
+     * no other PoP transaction refers to. At most the given number of transactions is deleted at a time,
+     * so the pruning can proceed incrementally
+     * @param height the block height
+     * @param limit the maximum number of contained transactions to delete
+     * @return the number of contained transactions deleted
+     * @throws SQLException
+     */
+    int prune(long height, int limit) throws SQLException;
 }
@@ -12,8 +12,12 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.veriblock.sdk.models.AltChainBlock;
 import org.veriblock.sdk.models.AltPublication;
+import org.veriblock.sdk.models.Pair;
+import org.veriblock.sdk.models.Sha256Hash;
 import org.veriblock.sdk.models.VeriBlockPublication;
 import org.veriblock.sdk.services.SerializeDeserializeService;
+import org.veriblock.sdk.sqlite.Database;
+import org.veriblock.sdk.sqlite.Transactions;
 import org.veriblock.sdk.sqlite.tables.AltPublicationRepository;
 import org.veriblock.sdk.sqlite.tables.ContainRepository;
 import org.veriblock.sdk.sqlite.tables.PoPTransactionData;
@@ -27,13 +31,75 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 public class PoPTransactionsDBStore implements PoPTransactionStore {
     private static final Logger log = LoggerFactory.getLogger(PoPTransactionsDBStore.class);
 
-    private Connection connectionResource;
+    private Database database;
+
+    // the joins start from the indexed block hash columns, so the lookups
+    // only visit the rows of the requested blocks
+    private static final String altPublicationsJoin =
+            " FROM " + ContainRepository.tableName + " JOIN " + PoPTransactionsRepository.tableName +
+            " ON " + ContainRepository.tableName + "." + ContainRepository.txHashColumnName +
+            " = " + PoPTransactionsRepository.tableName + "." + PoPTransactionsRepository.txHashColumnName +
+            " JOIN " + AltPublicationRepository.tableName +
+            " ON " + PoPTransactionsRepository.tableName + "." + PoPTransactionsRepository.altPublicationHashColumnName +
+            " = " + AltPublicationRepository.tableName + "." + AltPublicationRepository.altPublicationHash;
+
+    private static final String veriBlockPublicationsJoin =
+            " FROM " + ContainRepository.tableName + " JOIN " + PoPTransactionsVeriblockPublicationRefRepository.tableName +
+            " ON " + ContainRepository.tableName + "." + ContainRepository.txHashColumnName +
+            " = " + PoPTransactionsVeriblockPublicationRefRepository.tableName + "." + PoPTransactionsVeriblockPublicationRefRepository.txHashColumnName +
+            " JOIN " + VeriBlockPublicationRepository.tableName +
+            " ON " + PoPTransactionsVeriblockPublicationRefRepository.tableName + "." + PoPTransactionsVeriblockPublicationRefRepository.veriBlockPublicationHashColumnName +
+            " = " + VeriBlockPublicationRepository.tableName + "." + VeriBlockPublicationRepository.veriBlockPublicationHashColumnName;
+
+    private static final String altPublicationsEndorseStatement = "SELECT DISTINCT " + AltPublicationRepository.tableName + "." + AltPublicationRepository.altPublicationDataColumnName +
+            altPublicationsJoin +
+            " WHERE " + PoPTransactionsRepository.tableName + "." + PoPTransactionsRepository.endorsedBlockHashColumnName + " = ?" +
+            " AND " + ContainRepository.tableName + "." + ContainRepository.blockHashColumnName + " IN (";
+
+    private static final String altPublicationsFromBlockStatement = " SELECT DISTINCT " + AltPublicationRepository.tableName + "." + AltPublicationRepository.altPublicationDataColumnName +
+            altPublicationsJoin +
+            " WHERE " + ContainRepository.tableName + "." + ContainRepository.blockHashColumnName + " = ?";
+
+    private static final String veriBlockPublicationsFromBlockStatement = " SELECT DISTINCT " + VeriBlockPublicationRepository.tableName + "." + VeriBlockPublicationRepository.veriBlockPublicationDataColumnName +
+            veriBlockPublicationsJoin +
+            " WHERE " + ContainRepository.tableName + "." + ContainRepository.blockHashColumnName + " = ?";
+
+    // the batch statements select the block hash and the publication hash along with the data,
+    // so the rows can be grouped by block and each distinct publication parsed once
+    private static final String altPublicationsEndorseBatchStatement = "SELECT DISTINCT " +
+            PoPTransactionsRepository.tableName + "." + PoPTransactionsRepository.endorsedBlockHashColumnName + ", " +
+            ContainRepository.tableName + "." + ContainRepository.blockHashColumnName + ", " +
+            AltPublicationRepository.tableName + "." + AltPublicationRepository.altPublicationHash + ", " +
+            AltPublicationRepository.tableName + "." + AltPublicationRepository.altPublicationDataColumnName +
+            altPublicationsJoin +
+            " WHERE " + PoPTransactionsRepository.tableName + "." + PoPTransactionsRepository.endorsedBlockHashColumnName + " IN (%s)" +
+            " AND " + ContainRepository.tableName + "." + ContainRepository.blockHashColumnName + " IN (%s)";
+
+    private static final String altPublicationsFromBlocksStatement = "SELECT DISTINCT " +
+            ContainRepository.tableName + "." + ContainRepository.blockHashColumnName + ", " +
+            AltPublicationRepository.tableName + "." + AltPublicationRepository.altPublicationHash + ", " +
+            AltPublicationRepository.tableName + "." + AltPublicationRepository.altPublicationDataColumnName +
+            altPublicationsJoin +
+            " WHERE " + ContainRepository.tableName + "." + ContainRepository.blockHashColumnName + " IN (%s)";
+
+    private static final String veriBlockPublicationsFromBlocksStatement = "SELECT DISTINCT " +
+            ContainRepository.tableName + "." + ContainRepository.blockHashColumnName + ", " +
+            VeriBlockPublicationRepository.tableName + "." + VeriBlockPublicationRepository.veriBlockPublicationHashColumnName + ", " +
+            VeriBlockPublicationRepository.tableName + "." + VeriBlockPublicationRepository.veriBlockPublicationDataColumnName +
+            veriBlockPublicationsJoin +
+            " WHERE " + ContainRepository.tableName + "." + ContainRepository.blockHashColumnName + " IN (%s)";
 
     private PoPTransactionsRepository popTxRepo;
     private ContainRepository containRepo;
@@ -42,13 +108,19 @@ public class PoPTransactionsDBStore implements PoPTransactionStore {
     private PoPTransactionsVeriblockPublicationRefRepository popTxVeriBlockPublicationRefRepo;
 
     public PoPTransactionsDBStore(Connection connection) throws SQLException {
-        this.connectionResource = connection;
+        this(new Database(connection));
+    }
+
+    // the publication queries run on the read-only connections of the database
+    public PoPTransactionsDBStore(Database database) throws SQLException {
+        this.database = database;
 
-        popTxRepo = new PoPTransactionsRepository(connectionResource);
-        containRepo = new ContainRepository(connectionResource);
-        altPublicationRepo = new AltPublicationRepository(connectionResource);
-        veriBlockPublicationRepo = new VeriBlockPublicationRepository(connectionResource);
-        popTxVeriBlockPublicationRefRepo = new PoPTransactionsVeriblockPublicationRefRepository(connectionResource);
+        Connection connection = database.getConnection();
+        popTxRepo = new PoPTransactionsRepository(connection);
+        containRepo = new ContainRepository(connection);
+        altPublicationRepo = new AltPublicationRepository(connection);
+        veriBlockPublicationRepo = new VeriBlockPublicationRepository(connection);
+        popTxVeriBlockPublicationRefRepo = new PoPTransactionsVeriblockPublicationRefRepository(connection);
     }
 
     public void clear() throws SQLException {
@@ -60,11 +132,7 @@ public class PoPTransactionsDBStore implements PoPTransactionStore {
     }
 
     public void shutdown() {
-        try {
-            if (connectionResource != null) connectionResource.close();
-        } catch (SQLException e) {
-            log.debug("Error closing database connection", e);
-        }
+        database.close();
     }
 
     public AltChainBlock findFirstCommonKeystone(List<AltChainBlock> keyStones){
@@ -97,39 +165,71 @@ public class PoPTransactionsDBStore implements PoPTransactionStore {
         return null;
     }
 
-    public void addPoPTransaction(PoPTransactionData popTx, AltChainBlock containingBlock, AltChainBlock endorsedBlock) throws SQLException {
-        String altPublicationHash = altPublicationRepo.save(popTx.altPublication);
+    // the writer connection is shared with the other stores, so the callers
+    // must not run this while one of them has a transaction open
+    public synchronized void addPoPTransaction(PoPTransactionData popTx, AltChainBlock containingBlock, AltChainBlock endorsedBlock) throws SQLException {
+        Connection connection = database.getConnection();
+        Transactions.begin(connection);
+        try {
+            byte[] altPublicationHash = altPublicationRepo.save(popTx.altPublication);
+
+            popTxRepo.save(popTx.txHash, endorsedBlock.getHash(), altPublicationHash);
+            containRepo.save(popTx.txHash, containingBlock);
+
+            for (VeriBlockPublication publication : popTx.veriBlockPublications) {
+                byte[] veriBlockPublicationHash = veriBlockPublicationRepo.save(publication);
+                popTxVeriBlockPublicationRefRepo.save(popTx.txHash, veriBlockPublicationHash);
+            }
+
+            Transactions.commit(connection);
+        } catch (SQLException | RuntimeException e) {
+            Transactions.rollback(connection);
+            throw e;
+        }
+    }
+
+    public synchronized int prune(long height, int limit) throws SQLException {
+        List<Pair<String, String>> rows = containRepo.getBelowHeight(height, limit);
+        if (rows.isEmpty()) return 0;
 
-        popTxRepo.save(popTx.txHash, endorsedBlock.getHash(), altPublicationHash);
-        containRepo.save(popTx.txHash, containingBlock);
+        Set<String> txHashes = new LinkedHashSet<>();
+        for (Pair<String, String> row : rows) {
+            txHashes.add(row.getFirst());
+        }
+        // the transactions also contained in a block above the height are kept
+        txHashes.removeAll(containRepo.getTxHashesFromHeight(txHashes, height));
 
-        for (VeriBlockPublication publication : popTx.veriBlockPublications) {
-            String veriBlockPublicationHash = veriBlockPublicationRepo.save(publication);
-            popTxVeriBlockPublicationRefRepo.save(popTx.txHash, veriBlockPublicationHash);
+        // the publications go first and the contain rows last, so the pruning
+        // interrupted halfway is completed by the next call from the contain rows left
+        if (!txHashes.isEmpty()) {
+            altPublicationRepo.deleteUnreferenced(popTxRepo.getAltPublicationHashes(txHashes), txHashes);
+            veriBlockPublicationRepo.deleteUnreferenced(popTxVeriBlockPublicationRefRepo.getVeriBlockPublicationHashes(txHashes), txHashes);
+            popTxVeriBlockPublicationRefRepo.delete(txHashes);
+            popTxRepo.delete(txHashes);
         }
+        containRepo.delete(rows);
+
+        return rows.size();
     }
 
     public List<AltPublication> getAltPublicationsEndorse(AltChainBlock endorsedBlock, List<AltChainBlock> containBlocks) throws SQLException {
-        List<AltPublication> resultData = new ArrayList<AltPublication>();
-
-        StringBuilder sql = new StringBuilder("SELECT DISTINCT " + AltPublicationRepository.tableName + "." + AltPublicationRepository.altPublicationDataColumnName +
-                " FROM " + PoPTransactionsRepository.tableName + " LEFT JOIN " + AltPublicationRepository.tableName +
-                " ON " + PoPTransactionsRepository.tableName + "." + PoPTransactionsRepository.altPublicationHashColumnName +
-                " = " + AltPublicationRepository.tableName + "." + AltPublicationRepository.altPublicationHash +
-                " LEFT JOIN " + ContainRepository.tableName +
-                " ON " + PoPTransactionsRepository.tableName + "." + PoPTransactionsRepository.txHashColumnName +
-                " = " + ContainRepository.tableName + "." + ContainRepository.txHashColumnName +
-                " WHERE " + PoPTransactionsRepository.tableName + "." + PoPTransactionsRepository.endorsedBlockHashColumnName + " = '" + endorsedBlock.getHash() + "'" +
-                " AND " + ContainRepository.tableName + "." + ContainRepository.blockHashColumnName + " IN (");
+        // the statement text only depends on the number of containing blocks
+        // so the prepared statements can be reused for same-sized lookups
+        StringBuilder sql = new StringBuilder(altPublicationsEndorseStatement);
         for (int i = 0; i < containBlocks.size(); i++) {
             sql.append("?,");
         }
         sql.delete(sql.length() - 1, sql.length());
         sql.append(")");
 
-        try (PreparedStatement stmt = connectionResource.prepareStatement(sql.toString())) {
-            for (int i = 0; i < containBlocks.size(); i++) {
-                stmt.setString(i + 1, containBlocks.get(i).getHash());
+        return database.read((connection, statements) -> {
+            List<AltPublication> resultData = new ArrayList<AltPublication>();
+
+            PreparedStatement stmt = statements.get(sql.toString());
+            int i = 0;
+            stmt.setString(++i, endorsedBlock.getHash());
+            for (AltChainBlock containBlock : containBlocks) {
+                stmt.setString(++i, containBlock.getHash());
             }
 
             try (ResultSet resultSet = stmt.executeQuery()) {
@@ -137,32 +237,172 @@ public class PoPTransactionsDBStore implements PoPTransactionStore {
                     resultData.add(SerializeDeserializeService.parseAltPublication(resultSet.getBytes(AltPublicationRepository.altPublicationDataColumnName)));
                 }
             }
-        }
-
 
-        return resultData;
+            return resultData;
+        });
     }
 
     public List<AltPublication> getAltPublicationsFromBlock(AltChainBlock block) throws SQLException {
-        List<AltPublication> resultData = new ArrayList<AltPublication>();
+        return database.read((connection, statements) -> {
+            List<AltPublication> resultData = new ArrayList<AltPublication>();
 
-        try (PreparedStatement stmt = connectionResource.prepareStatement(" SELECT DISTINCT " + AltPublicationRepository.tableName + "." + AltPublicationRepository.altPublicationDataColumnName +
-                " FROM " + PoPTransactionsRepository.tableName + " LEFT JOIN " + AltPublicationRepository.tableName +
-                " ON " + PoPTransactionsRepository.tableName + "." + PoPTransactionsRepository.altPublicationHashColumnName +
-                " = " + AltPublicationRepository.tableName + "." + AltPublicationRepository.altPublicationHash +
-                " LEFT JOIN " + ContainRepository.tableName +
-                " ON " + PoPTransactionsRepository.tableName + "." + PoPTransactionsRepository.txHashColumnName +
-                " = " + ContainRepository.tableName + "." + ContainRepository.txHashColumnName +
-                " WHERE " + ContainRepository.tableName + "." + ContainRepository.blockHashColumnName + " = '" + block.getHash() + "'")) {
+            PreparedStatement stmt = statements.get(altPublicationsFromBlockStatement);
+            stmt.setString(1, block.getHash());
 
             try (ResultSet resultSet = stmt.executeQuery()) {
                 while (resultSet.next()) {
                     resultData.add(SerializeDeserializeService.parseAltPublication(resultSet.getBytes(AltPublicationRepository.altPublicationDataColumnName)));
                 }
             }
+
+            return resultData;
+        });
+    }
+
+    public Map<String, List<AltPublication>> getAltPublicationsEndorse(Map<AltChainBlock, List<AltChainBlock>> containingBlocksByEndorsedBlock) throws SQLException {
+        Map<String, List<AltPublication>> result = new LinkedHashMap<>();
+        // the containing blocks of each endorsed block
+        Map<String, Set<String>> containingHashes = new HashMap<>();
+        Set<String> allContainingHashes = new LinkedHashSet<>();
+
+        for (Map.Entry<AltChainBlock, List<AltChainBlock>> entry : containingBlocksByEndorsedBlock.entrySet()) {
+            String endorsedHash = entry.getKey().getHash();
+            result.put(endorsedHash, new ArrayList<>());
+
+            Set<String> hashes = containingHashes.computeIfAbsent(endorsedHash, hash -> new HashSet<>());
+            for (AltChainBlock block : entry.getValue()) {
+                hashes.add(block.getHash());
+                allContainingHashes.add(block.getHash());
+            }
+        }
+
+        if (result.isEmpty() || allContainingHashes.isEmpty()) {
+            return result;
         }
 
-        return resultData;
+        String sql = String.format(altPublicationsEndorseBatchStatement,
+                                   getPlaceholders(result.size()), getPlaceholders(allContainingHashes.size()));
+
+        return database.read((connection, statements) -> {
+            PreparedStatement stmt = statements.get(sql);
+            int i = 0;
+            for (String endorsedHash : result.keySet()) {
+                stmt.setString(++i, endorsedHash);
+            }
+            for (String containingHash : allContainingHashes) {
+                stmt.setString(++i, containingHash);
+            }
+
+            Map<Sha256Hash, AltPublication> parsed = new HashMap<>();
+            // the publications added to each endorsed block, as the single block lookup returns them once
+            Map<String, Set<Sha256Hash>> added = new HashMap<>();
+
+            try (ResultSet resultSet = stmt.executeQuery()) {
+                while (resultSet.next()) {
+                    String endorsedHash = resultSet.getString(1);
+                    String containingHash = resultSet.getString(2);
+                    Sha256Hash publicationHash = Sha256Hash.wrap(resultSet.getBytes(3));
+
+                    // the containing blocks are shared by the query, keep the ones of this endorsed block only
+                    if (!containingHashes.get(endorsedHash).contains(containingHash)) continue;
+                    if (!added.computeIfAbsent(endorsedHash, hash -> new HashSet<>()).add(publicationHash)) continue;
+
+                    AltPublication publication = parsed.get(publicationHash);
+                    if (publication == null) {
+                        publication = SerializeDeserializeService.parseAltPublication(resultSet.getBytes(4));
+                        parsed.put(publicationHash, publication);
+                    }
+                    result.get(endorsedHash).add(publication);
+                }
+            }
+
+            return result;
+        });
+    }
+
+    public Map<String, List<AltPublication>> getAltPublicationsFromBlocks(List<AltChainBlock> blocks) throws SQLException {
+        Map<String, List<AltPublication>> result = new LinkedHashMap<>();
+        for (AltChainBlock block : blocks) {
+            result.put(block.getHash(), new ArrayList<>());
+        }
+
+        if (result.isEmpty()) {
+            return result;
+        }
+
+        String sql = String.format(altPublicationsFromBlocksStatement, getPlaceholders(result.size()));
+
+        return database.read((connection, statements) -> {
+            PreparedStatement stmt = statements.get(sql);
+            int i = 0;
+            for (String hash : result.keySet()) {
+                stmt.setString(++i, hash);
+            }
+
+            Map<Sha256Hash, AltPublication> parsed = new HashMap<>();
+            try (ResultSet resultSet = stmt.executeQuery()) {
+                while (resultSet.next()) {
+                    Sha256Hash publicationHash = Sha256Hash.wrap(resultSet.getBytes(2));
+
+                    AltPublication publication = parsed.get(publicationHash);
+                    if (publication == null) {
+                        publication = SerializeDeserializeService.parseAltPublication(resultSet.getBytes(3));
+                        parsed.put(publicationHash, publication);
+                    }
+                    result.get(resultSet.getString(1)).add(publication);
+                }
+            }
+
+            return result;
+        });
+    }
+
+    public Map<String, List<VeriBlockPublication>> getVeriBlockPublicationsFromBlocks(List<AltChainBlock> blocks) throws SQLException {
+        Map<String, List<VeriBlockPublication>> result = new LinkedHashMap<>();
+        for (AltChainBlock block : blocks) {
+            result.put(block.getHash(), new ArrayList<>());
+        }
+
+        if (result.isEmpty()) {
+            return result;
+        }
+
+        String sql = String.format(veriBlockPublicationsFromBlocksStatement, getPlaceholders(result.size()));
+
+        return database.read((connection, statements) -> {
+            PreparedStatement stmt = statements.get(sql);
+            int i = 0;
+            for (String hash : result.keySet()) {
+                stmt.setString(++i, hash);
+            }
+
+            Map<Sha256Hash, VeriBlockPublication> parsed = new HashMap<>();
+            try (ResultSet resultSet = stmt.executeQuery()) {
+                while (resultSet.next()) {
+                    Sha256Hash publicationHash = Sha256Hash.wrap(resultSet.getBytes(2));
+
+                    VeriBlockPublication publication = parsed.get(publicationHash);
+                    if (publication == null) {
+                        publication = SerializeDeserializeService.parseVeriBlockPublication(resultSet.getBytes(3));
+                        parsed.put(publicationHash, publication);
+                    }
+                    result.get(resultSet.getString(1)).add(publication);
+                }
+            }
+
+            return result;
+        });
+    }
+
+    // the statement text only depends on the number of the parameters
+    // so the prepared statements can be reused for same-sized lookups
+    private static String getPlaceholders(int count) {
+        StringBuilder placeholders = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) placeholders.append(',');
+            placeholders.append('?');
+        }
+        return placeholders.toString();
     }
 
     public List<AltChainBlock> getKeyStonesFromBlockHeight(long height) throws SQLException {
@@ -170,24 +410,19 @@ public class PoPTransactionsDBStore implements PoPTransactionStore {
     }
 
     public List<VeriBlockPublication> getVeriBlockPublicationsFromBlock(AltChainBlock block) throws SQLException {
-        List<VeriBlockPublication> resultData = new ArrayList<VeriBlockPublication>();
+        return database.read((connection, statements) -> {
+            List<VeriBlockPublication> resultData = new ArrayList<VeriBlockPublication>();
 
-        try (PreparedStatement stmt = connectionResource.prepareStatement(" SELECT DISTINCT " + VeriBlockPublicationRepository.tableName + "." + VeriBlockPublicationRepository.veriBlockPublicationDataColumnName +
-                " FROM " + VeriBlockPublicationRepository.tableName + " LEFT JOIN " + PoPTransactionsVeriblockPublicationRefRepository.tableName +
-                " ON " + PoPTransactionsVeriblockPublicationRefRepository.tableName + "." + PoPTransactionsVeriblockPublicationRefRepository.veriBlockPublicationHashColumnName +
-                " = " + VeriBlockPublicationRepository.tableName + "." + VeriBlockPublicationRepository.veriBlockPublicationHashColumnName +
-                " LEFT JOIN " + ContainRepository.tableName +
-                " ON " + PoPTransactionsVeriblockPublicationRefRepository.tableName + "." + PoPTransactionsVeriblockPublicationRefRepository.txHashColumnName +
-                " = " + ContainRepository.tableName + "." + ContainRepository.txHashColumnName +
-                " WHERE " + ContainRepository.tableName + "." + ContainRepository.blockHashColumnName + " = '" + block.getHash() + "'")) {
+            PreparedStatement stmt = statements.get(veriBlockPublicationsFromBlockStatement);
+            stmt.setString(1, block.getHash());
 
             try (ResultSet resultSet = stmt.executeQuery()) {
                 while (resultSet.next()) {
                     resultData.add(SerializeDeserializeService.parseVeriBlockPublication(resultSet.getBytes(VeriBlockPublicationRepository.veriBlockPublicationDataColumnName)));
                 }
             }
-        }
 
-        return resultData;
+            return resultData;
+        });
     }
 }
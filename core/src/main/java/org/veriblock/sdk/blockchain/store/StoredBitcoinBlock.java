@@ -17,11 +17,17 @@ import org.veriblock.sdk.util.Utils;
 
 import java.math.BigInteger;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.Objects;
 
 public class StoredBitcoinBlock {
-    public static final int SIZE = 32 + 4 + 12 + 80;
-    public static final int CHAIN_WORK_BYTES = 12;
+    public static final int SIZE = 32 + 4 + 36 + 80;
+    // the chain work sums up to 2^32 targets of at most 256 bits each
+    public static final int CHAIN_WORK_BYTES = 36;
+
+    // records written before the work field was widened to hold mainnet chain work
+    public static final int LEGACY_SIZE = 32 + 4 + 12 + 80;
+    public static final int LEGACY_CHAIN_WORK_BYTES = 12;
 
     private final Sha256Hash hash;
     private final BitcoinBlock block;
@@ -60,7 +66,7 @@ public class StoredBitcoinBlock {
         buffer.put(hash.getBytes());
         buffer.putInt(height);
         buffer.put(Utils.toBytes(work, CHAIN_WORK_BYTES));
-        buffer.put(SerializeDeserializeService.getHeaderBytesBitcoinBlock(block));
+        buffer.put(block.getRaw());
     }
 
     public byte[] serialize() {
@@ -81,30 +87,45 @@ public class StoredBitcoinBlock {
         return deserialize(buffer);
     }
 
+    // reuses the stored hash instead of hashing the header again
+    public static StoredBitcoinBlock deserializeWithHash(ByteBuffer buffer) {
+        Sha256Hash hash = Sha256Hash.extract(buffer, Sha256Hash.BITCOIN_LENGTH, ByteOrder.BIG_ENDIAN);
+
+        return deserialize(buffer, hash, CHAIN_WORK_BYTES);
+    }
+
     public static StoredBitcoinBlock deserialize(ByteBuffer buffer) {
+        return deserialize(buffer, null, CHAIN_WORK_BYTES);
+    }
+
+    // the hash is null if it is not known
+    private static StoredBitcoinBlock deserialize(ByteBuffer buffer, Sha256Hash hash, int workLength) {
         int index = buffer.getInt();
 
-        byte[] workBytes = new byte[CHAIN_WORK_BYTES];
+        byte[] workBytes = new byte[workLength];
         buffer.get(workBytes);
         BigInteger work = new BigInteger(1, workBytes);
 
         byte[] blockBytes = new byte[Constants.HEADER_SIZE_BitcoinBlock];
         buffer.get(blockBytes);
-        BitcoinBlock block = SerializeDeserializeService.parseBitcoinBlock(blockBytes);
+        BitcoinBlock block = SerializeDeserializeService.parseBitcoinBlock(blockBytes, hash);
 
         return new StoredBitcoinBlock(block, work, index);
     }
 
     public static StoredBitcoinBlock deserialize(byte[] bytes) {
-        Preconditions.argument(bytes != null && bytes.length >= SIZE, "Invalid raw Bitcoin Block");
+        Preconditions.argument(bytes != null && (bytes.length >= SIZE || bytes.length == LEGACY_SIZE), "Invalid raw Bitcoin Block");
 
-        ByteBuffer local = ByteBuffer.allocateDirect(SIZE);
-        local.put(bytes, bytes.length - SIZE, SIZE);
+        int size = bytes.length == LEGACY_SIZE ? LEGACY_SIZE : SIZE;
+        int workLength = size == LEGACY_SIZE ? LEGACY_CHAIN_WORK_BYTES : CHAIN_WORK_BYTES;
+
+        ByteBuffer local = ByteBuffer.allocateDirect(size);
+        local.put(bytes, bytes.length - size, size);
 
         local.flip();
-        local.position(Sha256Hash.BITCOIN_LENGTH);
+        Sha256Hash hash = Sha256Hash.extract(local, Sha256Hash.BITCOIN_LENGTH, ByteOrder.BIG_ENDIAN);
 
-        return deserialize(local);
+        return deserialize(local, hash, workLength);
     }
 
     @Override
@@ -74,7 +74,7 @@ public class StoredVeriBlockBlock {
         buffer.put(hash.getBytes());
         buffer.put(Utils.toBytes(work, CHAIN_WORK_BYTES));
         buffer.put(blockOfProof.getBytes());
-        buffer.put(SerializeDeserializeService.serializeHeaders(block));
+        buffer.put(block.getRaw());
     }
 
     public byte[] serialize() {
@@ -99,7 +99,19 @@ public class StoredVeriBlockBlock {
         return deserialize(buffer);
     }
 
+    // reuses the stored hash instead of hashing the header again
+    public static StoredVeriBlockBlock deserializeWithHash(ByteBuffer buffer) {
+        VBlakeHash hash = VBlakeHash.extract(buffer, VBlakeHash.VERIBLOCK_LENGTH);
+
+        return deserialize(buffer, hash);
+    }
+
     public static StoredVeriBlockBlock deserialize(ByteBuffer buffer) {
+        return deserialize(buffer, null);
+    }
+
+    // the hash is null if it is not known
+    private static StoredVeriBlockBlock deserialize(ByteBuffer buffer, VBlakeHash hash) {
         byte[] workBytes = new byte[CHAIN_WORK_BYTES];
         buffer.get(workBytes);
         BigInteger work = new BigInteger(1, workBytes);
@@ -110,7 +122,7 @@ public class StoredVeriBlockBlock {
 
         byte[] blockBytes = new byte[Constants.HEADER_SIZE_VeriBlockBlock];
         buffer.get(blockBytes);
-        VeriBlockBlock block = SerializeDeserializeService.parseVeriBlockBlock(blockBytes);
+        VeriBlockBlock block = SerializeDeserializeService.parseVeriBlockBlock(blockBytes, hash);
 
         return new StoredVeriBlockBlock(block, work, blockOfProof);
     }
@@ -122,9 +134,9 @@ public class StoredVeriBlockBlock {
         local.put(bytes, bytes.length - SIZE, SIZE);
 
         local.flip();
-        local.position(VBlakeHash.VERIBLOCK_LENGTH);
+        VBlakeHash hash = VBlakeHash.extract(local, VBlakeHash.VERIBLOCK_LENGTH);
 
-        return deserialize(local);
+        return deserialize(local, hash);
     }
 
     @Override
@@ -0,0 +1,37 @@
+// VeriBlock Blockchain Project
+// Copyright 2017-2018 VeriBlock, Inc
+// Copyright 2018-2019 Xenios SEZC
+// All rights reserved.
+// https://www.veriblock.org
+// Distributed under the MIT software license, see the accompanying
+// file LICENSE or http://www.opensource.org/licenses/mit-license.php.
+
+package org.veriblock.sdk.blockchain.store;
+
+import org.veriblock.sdk.models.VBlakeHash;
+
+// the VeriBlock blocks reference their previous blocks by truncated hashes,
+// which are resolved through the hash index of the store
+public class VeriBlockAncestorIndex extends AncestorIndex<StoredVeriBlockBlock, VBlakeHash> {
+    private final VeriBlockHashIndex hashIndex;
+
+    public VeriBlockAncestorIndex(BlockStore<StoredVeriBlockBlock, VBlakeHash> store, VeriBlockHashIndex hashIndex) {
+        super(store);
+        this.hashIndex = hashIndex;
+    }
+
+    @Override
+    protected VBlakeHash getId(StoredVeriBlockBlock block) {
+        return block.getHash();
+    }
+
+    @Override
+    protected VBlakeHash getPreviousId(StoredVeriBlockBlock block) {
+        return block.getBlock().getPreviousBlock();
+    }
+
+    @Override
+    protected VBlakeHash resolve(VBlakeHash hash) {
+        return hashIndex.find(hash);
+    }
+}
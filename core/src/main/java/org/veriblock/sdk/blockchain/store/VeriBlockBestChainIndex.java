@@ -0,0 +1,52 @@
+// VeriBlock Blockchain Project
+// Copyright 2017-2018 VeriBlock, Inc
+// Copyright 2018-2019 Xenios SEZC
+// All rights reserved.
+// https://www.veriblock.org
+// Distributed under the MIT software license, see the accompanying
+// file LICENSE or http://www.opensource.org/licenses/mit-license.php.
+
+package org.veriblock.sdk.blockchain.store;
+
+import org.veriblock.sdk.models.VBlakeHash;
+
+// the VeriBlock blocks are looked up by full or truncated hashes,
+// so the index is keyed by the keystone-sized hash suffix
+public class VeriBlockBestChainIndex extends BestChainIndex<StoredVeriBlockBlock, VBlakeHash> {
+
+    public VeriBlockBestChainIndex(BlockStore<StoredVeriBlockBlock, VBlakeHash> store) {
+        super(store);
+    }
+
+    @Override
+    protected VBlakeHash getId(StoredVeriBlockBlock block) {
+        return block.getHash();
+    }
+
+    @Override
+    protected VBlakeHash getPreviousId(StoredVeriBlockBlock block) {
+        return block.getBlock().getPreviousBlock();
+    }
+
+    @Override
+    protected int getBlockHeight(StoredVeriBlockBlock block) {
+        return block.getHeight();
+    }
+
+    @Override
+    protected VBlakeHash getKey(VBlakeHash hash) {
+        return hash.trimToPreviousKeystoneSize();
+    }
+
+    @Override
+    protected boolean isIndexable(VBlakeHash hash) {
+        return hash.length >= VBlakeHash.PREVIOUS_KEYSTONE_LENGTH;
+    }
+
+    @Override
+    protected boolean matches(VBlakeHash hash, VBlakeHash query) {
+        // trim both hashes to the lowest common length
+        int commonMinLength = Math.min(hash.length, query.length);
+        return VBlakeHash.trim(hash, commonMinLength).equals(VBlakeHash.trim(query, commonMinLength));
+    }
+}
@@ -0,0 +1,111 @@
+// VeriBlock Blockchain Project
+// Copyright 2017-2018 VeriBlock, Inc
+// Copyright 2018-2019 Xenios SEZC
+// All rights reserved.
+// https://www.veriblock.org
+// Distributed under the MIT software license, see the accompanying
+// file LICENSE or http://www.opensource.org/licenses/mit-license.php.
+
+package org.veriblock.sdk.blockchain.store;
+
+import org.veriblock.sdk.models.VBlakeHash;
+import org.veriblock.sdk.util.Preconditions;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory index of the VeriBlock block hashes kept in the store.
+ *
+ * VeriBlock blocks reference their ancestors by truncated hashes
+ * (12 bytes for the previous block, 9 bytes for the keystones),
+ * so the store has to resolve hash suffixes to full block hashes.
+ * The index maps the keystone-sized suffix to the full hashes that
+ * end with it and counts the blocks that reference each previous-block
+ * sized suffix, which lets the store answer both questions without
+ * scanning the block table.
+ */
+public class VeriBlockHashIndex {
+    // keystone-sized hash suffix -> full hashes ending with it, in insertion order
+    private final Map<VBlakeHash, List<VBlakeHash>> keystoneSuffixes = new HashMap<>();
+    // previous-block-sized hash suffix -> number of blocks referencing it
+    private final Map<VBlakeHash, Integer> previousSuffixes = new HashMap<>();
+
+    public synchronized void clear() {
+        keystoneSuffixes.clear();
+        previousSuffixes.clear();
+    }
+
+    public synchronized int size() {
+        int size = 0;
+        for (List<VBlakeHash> hashes : keystoneSuffixes.values()) {
+            size += hashes.size();
+        }
+        return size;
+    }
+
+    // register a block; adding an already indexed block is a no-op
+    // returns true if the block has been added
+    public synchronized boolean add(VBlakeHash hash, VBlakeHash previousBlock) {
+        Preconditions.argument(hash != null && hash.length == VBlakeHash.VERIBLOCK_LENGTH, "Invalid block hash");
+        Preconditions.notNull(previousBlock, "Previous block hash cannot be null");
+
+        List<VBlakeHash> hashes = keystoneSuffixes.computeIfAbsent(hash.trimToPreviousKeystoneSize(), k -> new ArrayList<>(1));
+        if (hashes.contains(hash)) return false;
+        hashes.add(hash);
+
+        previousSuffixes.merge(previousBlock.trimToPreviousBlockSize(), 1, Integer::sum);
+        return true;
+    }
+
+    // unregister a block; removing a block that is not indexed is a no-op
+    // returns true if the block has been removed
+    public synchronized boolean remove(VBlakeHash hash, VBlakeHash previousBlock) {
+        VBlakeHash key = hash.trimToPreviousKeystoneSize();
+        List<VBlakeHash> hashes = keystoneSuffixes.get(key);
+        if (hashes == null || !hashes.remove(hash)) return false;
+        if (hashes.isEmpty()) keystoneSuffixes.remove(key);
+
+        previousSuffixes.computeIfPresent(previousBlock.trimToPreviousBlockSize(), (k, count) -> count > 1 ? count - 1 : null);
+        return true;
+    }
+
+    public synchronized boolean contains(VBlakeHash hash) {
+        return find(hash) != null;
+    }
+
+    /**
+     * Resolve a full or truncated block hash to the full hash of a stored block
+     * @param hash the full hash or a suffix that is at least keystone-sized
+     * @return the full hash of the first indexed block that ends with the given hash or null
+     */
+    public synchronized VBlakeHash find(VBlakeHash hash) {
+        List<VBlakeHash> hashes = keystoneSuffixes.get(hash.trimToPreviousKeystoneSize());
+        if (hashes == null) return null;
+
+        for (VBlakeHash candidate : hashes) {
+            if (endsWith(candidate, hash)) return candidate;
+        }
+        return null;
+    }
+
+    /**
+     * Check whether any indexed block references the given block as its previous block
+     * @param hash the full hash or the previous-block-sized suffix of the block
+     * @return true if the block is referenced
+     */
+    public synchronized boolean isReferenced(VBlakeHash hash) {
+        return previousSuffixes.containsKey(hash.trimToPreviousBlockSize());
+    }
+
+    private static boolean endsWith(VBlakeHash hash, VBlakeHash suffix) {
+        if (suffix.length > hash.length) return false;
+        if (suffix.length == hash.length) return hash.equals(suffix);
+
+        byte[] bytes = hash.getBytes();
+        return Arrays.equals(Arrays.copyOfRange(bytes, bytes.length - suffix.length, bytes.length), suffix.getBytes());
+    }
+}
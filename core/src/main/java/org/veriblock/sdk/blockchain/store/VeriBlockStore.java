@@ -11,7 +11,9 @@ package org.veriblock.sdk.blockchain.store;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.veriblock.sdk.models.BlockStoreException;
+import org.veriblock.sdk.models.Pair;
 import org.veriblock.sdk.models.VBlakeHash;
+import org.veriblock.sdk.sqlite.Transactions;
 import org.veriblock.sdk.sqlite.tables.KeyValueData;
 import org.veriblock.sdk.sqlite.tables.KeyValueRepository;
 import org.veriblock.sdk.sqlite.tables.VeriBlockBlockRepository;
@@ -20,7 +22,9 @@ import org.veriblock.sdk.util.Utils;
 import java.math.BigInteger;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
 
 public class VeriBlockStore implements BlockStore<StoredVeriBlockBlock, VBlakeHash> {
@@ -32,12 +36,35 @@ public class VeriBlockStore implements BlockStore<StoredVeriBlockBlock, VBlakeHa
     private final VeriBlockBlockRepository veriBlockRepository;
     private final KeyValueRepository keyValueRepository;
 
+    // write-through index that resolves hash suffixes without scanning the block table
+    private final VeriBlockHashIndex hashIndex = new VeriBlockHashIndex();
+    // index updates made by the open transaction, undone on rollback
+    private final Deque<Runnable> hashIndexUndo = new ArrayDeque<>();
+    private boolean inTransaction = false;
+    private boolean reloadHashIndexOnRollback = false;
+
+    // the blocks of the chain that ends at the chain head
+    private final VeriBlockBestChainIndex bestChain = new VeriBlockBestChainIndex(this);
+    // skip pointers for the ancestor lookups
+    private final VeriBlockAncestorIndex ancestors = new VeriBlockAncestorIndex(this, hashIndex);
+
     private final String chainHeadRepositoryName = "chainHeadVbk";
 
     public VeriBlockStore(Connection databaseConnection) throws SQLException {
         this.databaseConnection = databaseConnection;
         veriBlockRepository = new VeriBlockBlockRepository(databaseConnection);
         keyValueRepository = new KeyValueRepository(databaseConnection);
+
+        loadHashIndex();
+    }
+
+    private void loadHashIndex() throws SQLException {
+        hashIndex.clear();
+        for (Pair<byte[], byte[]> ids : veriBlockRepository.getAllIds()) {
+            hashIndex.add(VBlakeHash.wrap(ids.getFirst()),
+                          VBlakeHash.wrap(ids.getSecond(), ids.getSecond().length));
+        }
+        log.debug("Loaded {} VeriBlock block hashes into the index", hashIndex.size());
     }
 
     public void shutdown() {
@@ -51,6 +78,55 @@ public class VeriBlockStore implements BlockStore<StoredVeriBlockBlock, VBlakeHa
     public void clear() throws SQLException {
         veriBlockRepository.clear();
         keyValueRepository.clear();
+        hashIndex.clear();
+        bestChain.invalidate();
+        ancestors.clear();
+        reloadHashIndexOnRollback = inTransaction;
+    }
+
+    public void beginTransaction() throws SQLException {
+        Transactions.begin(databaseConnection);
+        inTransaction = true;
+    }
+
+    public void commitTransaction() throws SQLException {
+        Transactions.commit(databaseConnection);
+        endTransaction();
+    }
+
+    public void rollbackTransaction() throws SQLException {
+        Transactions.rollback(databaseConnection);
+        bestChain.invalidate();
+        ancestors.clear();
+
+        if (reloadHashIndexOnRollback) {
+            endTransaction();
+            loadHashIndex();
+            return;
+        }
+
+        while (!hashIndexUndo.isEmpty()) {
+            hashIndexUndo.pop().run();
+        }
+        endTransaction();
+    }
+
+    private void endTransaction() {
+        hashIndexUndo.clear();
+        inTransaction = false;
+        reloadHashIndexOnRollback = false;
+    }
+
+    private void addToHashIndex(VBlakeHash hash, VBlakeHash previousBlock) {
+        if (hashIndex.add(hash, previousBlock) && inTransaction) {
+            hashIndexUndo.push(() -> hashIndex.remove(hash, previousBlock));
+        }
+    }
+
+    private void removeFromHashIndex(VBlakeHash hash, VBlakeHash previousBlock) {
+        if (hashIndex.remove(hash, previousBlock) && inTransaction) {
+            hashIndexUndo.push(() -> hashIndex.add(hash, previousBlock));
+        }
     }
 
     public StoredVeriBlockBlock getChainHead() throws BlockStoreException, SQLException {
@@ -74,21 +150,24 @@ public class VeriBlockStore implements BlockStore<StoredVeriBlockBlock, VBlakeHa
         data.key = chainHeadRepositoryName;
         data.value = headEncoded;
         keyValueRepository.save(data.key, data.value);
+        bestChain.setChainHead(existingBlock);
 
         return previousBlock;
     }
 
     public void put(StoredVeriBlockBlock storedBlock) throws BlockStoreException, SQLException {
-        if (veriBlockRepository.get(storedBlock.getHash()) != null) {
+        if (hashIndex.contains(storedBlock.getHash())) {
             throw new BlockStoreException("A block with the same hash is already in the store");
         }
 
         veriBlockRepository.save(storedBlock);
+        addToHashIndex(storedBlock.getHash(), storedBlock.getBlock().getPreviousBlock());
+        ancestors.add(storedBlock);
     }
 
     public StoredVeriBlockBlock get(VBlakeHash hash) throws BlockStoreException, SQLException {
-        List<StoredVeriBlockBlock> blocks = veriBlockRepository.getEndsWithId(hash);
-        return blocks.isEmpty() ? null : blocks.get(0);
+        VBlakeHash fullHash = hashIndex.find(hash);
+        return fullHash == null ? null : veriBlockRepository.get(fullHash);
     }
 
     public StoredVeriBlockBlock erase(VBlakeHash hash) throws BlockStoreException, SQLException {
@@ -100,11 +179,15 @@ public class VeriBlockStore implements BlockStore<StoredVeriBlockBlock, VBlakeHa
 
         StoredVeriBlockBlock erased = get(hash);
 
-        if(erased != null && veriBlockRepository.isInUse(hash.trimToPreviousBlockSize())) {
+        if(erased != null && hashIndex.isReferenced(erased.getHash())) {
             throw new BlockStoreException("Cannot erase a block referenced by another block");
         }
 
-        veriBlockRepository.delete(hash);
+        if (erased != null) {
+            veriBlockRepository.delete(erased.getHash());
+            removeFromHashIndex(erased.getHash(), erased.getBlock().getPreviousBlock());
+            ancestors.remove(erased.getHash());
+        }
         return erased;
      }
 
@@ -114,6 +197,8 @@ public class VeriBlockStore implements BlockStore<StoredVeriBlockBlock, VBlakeHa
         }
         StoredVeriBlockBlock replaced = get(hash);
         veriBlockRepository.save(storedBlock);
+        addToHashIndex(storedBlock.getHash(), storedBlock.getBlock().getPreviousBlock());
+        ancestors.add(storedBlock);
         return replaced;
     }
 
@@ -141,36 +226,14 @@ public class VeriBlockStore implements BlockStore<StoredVeriBlockBlock, VBlakeHa
 
     // search for a block 'blocksAgo' blocks before the block with 'hash'
     public StoredVeriBlockBlock getFromChain(VBlakeHash hash, int blocksAgo) throws BlockStoreException, SQLException {
-        List<StoredVeriBlockBlock> blocks = get(hash, blocksAgo + 1);
+        VBlakeHash ancestorHash = ancestors.getAncestor(hash, blocksAgo);
         // check if the branch is long enough
-        if(blocks.size() < (blocksAgo + 1)) {
-            return null;
-        }
-        return blocks.get(blocksAgo);
+        return ancestorHash == null ? null : get(ancestorHash);
     }
 
-    // start from the chainHead and search for a block with hash
+    // search the chain that ends at the chainHead for a block with hash
     public StoredVeriBlockBlock scanBestChain(VBlakeHash hash) throws BlockStoreException, SQLException {
-        StoredVeriBlockBlock current = getChainHead();
-        if(current == null) return null;
-
-        VBlakeHash currentHash = current.getHash();
-
-        while(true) {
-            // trim both hashes to the lowest common length
-            int commonMinLength = Math.min(currentHash.length, hash.length);
-            VBlakeHash trimmedCurrentHash = VBlakeHash.trim(currentHash, commonMinLength);            
-            VBlakeHash trimmedHash = VBlakeHash.trim(hash, commonMinLength);
-            
-            if(trimmedCurrentHash.equals(trimmedHash)) return current;
-
-            // check if the block exists
-            if(current == null) return null;
-            // check if we found the Genesis block
-            if(currentHash.toBigInteger().compareTo(BigInteger.ZERO) == 0) return null;
-
-            currentHash = current.getBlock().getPreviousBlock();
-            current = get(currentHash);
-        }
+        VBlakeHash bestHash = bestChain.find(hash);
+        return bestHash == null ? null : get(bestHash);
     }
 }
@@ -9,26 +9,46 @@
 
 package org.veriblock.sdk.forkresolution;
 
+import org.veriblock.sdk.TemporaryPayloadsView;
 import org.veriblock.sdk.VeriBlockSecurity;
 import org.veriblock.sdk.blockchain.store.PoPTransactionStore;
 import org.veriblock.sdk.models.AltChainBlock;
 import org.veriblock.sdk.models.AltPublication;
+import org.veriblock.sdk.models.Sha256Hash;
+import org.veriblock.sdk.models.VBlakeHash;
 import org.veriblock.sdk.models.ValidationResult;
+import org.veriblock.sdk.models.VeriBlockBlock;
 import org.veriblock.sdk.models.VeriBlockPublication;
 
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 
 public class ForkresolutionComparator {
 
+    // evaluates the left branch while the calling thread evaluates the right one
+    private static final ExecutorService branchExecutor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "forkresolution-branch");
+        thread.setDaemon(true);
+        return thread;
+    });
+
     private static ForkresolutionConfig forkresolutionConfig = new ForkresolutionConfig();
 
     private static VeriBlockSecurity security;
 
     private static PoPTransactionStore popTxStore;
 
+    private static final KeystonePublicationCache publicationCache = new KeystonePublicationCache(KeystonePublicationCache.DEFAULT_CAPACITY);
+
     public static ForkresolutionConfig getForkresolutionConfig() { return forkresolutionConfig; }
 
     public static void setForkresolutionConfig(ForkresolutionConfig config) { ForkresolutionComparator.forkresolutionConfig = config; }
@@ -38,8 +58,11 @@ public class ForkresolutionComparator {
     public static void setSecurity(VeriBlockSecurity security) {
         ForkresolutionComparator.security = security;
         ForkresolutionComparator.popTxStore = security.getContext().getPopTxStore();
+        publicationCache.clear();
     }
 
+    public static KeystonePublicationCache getPublicationCache() { return publicationCache; }
+
     // return 1 if leftBranchScore > rightBranchScore
     // return -1 if leftBranchScore < rightBranchScore
     // return 0 if leftBranchScore == rightBranchScore
@@ -47,13 +70,33 @@ public class ForkresolutionComparator {
         Collections.sort(leftBranch);  // make the ascending order for the blocks in the collection, it needs for the fork resolution
         Collections.sort(rightBranch);
 
-        addBranchTemporarily(leftBranch);
-        List<Integer> leftReducedPublicationView = getReducedPublicationView(leftBranch);
-        security.clearTemporaryPayloads();
-
-        addBranchTemporarily(rightBranch);
-        List<Integer> rightReducedPublicationView = getReducedPublicationView(rightBranch);
-        security.clearTemporaryPayloads();
+        // the cached publication heights are only valid for the current VeriBlock best chain
+        VeriBlockBlock veriBlockTip = security.getVeriBlockBlockchain().getChainHead();
+        publicationCache.invalidate(veriBlockTip == null ? null : veriBlockTip.getHash());
+
+        // add the payloads of the common blocks once and evaluate
+        // each branch concurrently in its own fork of the resulting view
+        int commonLength = getCommonPrefixLength(leftBranch, rightBranch);
+        addBranchTemporarily(leftBranch.subList(0, commonLength));
+        TemporaryPayloadsView commonView = security.getTemporaryPayloadsView();
+        TemporaryPayloadsView leftView = commonView.fork();
+        TemporaryPayloadsView rightView = commonView.fork();
+
+        List<Integer> leftReducedPublicationView;
+        List<Integer> rightReducedPublicationView;
+        try {
+            Future<List<Integer>> leftEvaluation = branchExecutor.submit(
+                    () -> evaluateBranch(leftView, leftBranch, commonLength));
+            FutureTask<List<Integer>> rightEvaluation = new FutureTask<>(
+                    () -> evaluateBranch(rightView, rightBranch, commonLength));
+            rightEvaluation.run();
+
+            // the left branch failure comes first, as if the branches were evaluated one after another
+            leftReducedPublicationView = getEvaluationResult(leftEvaluation);
+            rightReducedPublicationView = getEvaluationResult(rightEvaluation);
+        } finally {
+            security.clearTemporaryPayloads();
+        }
 
         int lastKs = Math.max(leftReducedPublicationView.size(), rightReducedPublicationView.size());
         long leftScore = 0, rigthScore = 0;
@@ -82,14 +125,62 @@ public class ForkresolutionComparator {
         return 0;
     }
 
+    // the number of the leading blocks that are the same in both branches
+    protected static int getCommonPrefixLength(List<AltChainBlock> leftBranch, List<AltChainBlock> rightBranch)
+    {
+        int length = 0;
+        while(length < leftBranch.size() && length < rightBranch.size())
+        {
+            AltChainBlock left = leftBranch.get(length);
+            AltChainBlock right = rightBranch.get(length);
+            if(left.getHeight() != right.getHeight() || !left.getHash().equals(right.getHash()))
+                break;
+
+            length++;
+        }
+        return length;
+    }
+
+    // add the payloads of the branch suffix to the given view and compute the branch publication view;
+    // the view is attached to the current thread, so the branches can be evaluated concurrently
+    protected static List<Integer> evaluateBranch(TemporaryPayloadsView view, List<AltChainBlock> branch, int commonLength) throws SQLException
+    {
+        security.attachTemporaryPayloadsView(view);
+        try {
+            addBranchTemporarily(branch.subList(commonLength, branch.size()));
+            return getReducedPublicationView(branch);
+        } finally {
+            security.detachTemporaryPayloadsView();
+        }
+    }
+
+    // wait for the branch evaluation and rethrow its failure as is
+    private static List<Integer> getEvaluationResult(Future<List<Integer>> evaluation) throws SQLException
+    {
+        try {
+            return evaluation.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while evaluating the branch", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException) throw (SQLException) cause;
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw new IllegalStateException(cause);
+        }
+    }
+
     // execute for the PoP data from PoP txs the VeriBlockSecurity.addTemporaryPayloads method
     protected static void addBranchTemporarily(List<AltChainBlock> blocks) throws SQLException
     {
+        // fetch the publications of all the blocks at once
+        Map<String, List<AltPublication>> altPublications = popTxStore.getAltPublicationsFromBlocks(blocks);
+        Map<String, List<VeriBlockPublication>> veriBlockPublications = popTxStore.getVeriBlockPublicationsFromBlocks(blocks);
+
         for(AltChainBlock block : blocks)
         {
-            List<AltPublication> altPublications = popTxStore.getAltPublicationsFromBlock(block);
-            List<VeriBlockPublication> veriBlockPublications = popTxStore.getVeriBlockPublicationsFromBlock(block);
-            security.addTemporaryPayloads(veriBlockPublications, altPublications);
+            security.addTemporaryPayloads(veriBlockPublications.get(block.getHash()), altPublications.get(block.getHash()));
         }
     }
 
@@ -128,13 +219,32 @@ public class ForkresolutionComparator {
         if(!keystoneBlock.isKeystone(security.getAltChainParametersConfig().keystoneInterval))
             return bestPublication;
 
-        //AltChainBlock tip = blockSequence.get(blockSequence.size() - 1);
+        // the height only depends on the blocks that can contain the publications
+        // and on the VeriBlock chain the publications are checked against
+        VeriBlockBlock veriBlockTip = security.getVeriBlockBlockchain().getTemporaryChainHead();
+        VBlakeHash veriBlockTipHash = veriBlockTip == null ? null : veriBlockTip.getHash();
+        Sha256Hash fingerprint = KeystonePublicationCache.getFingerprint(blockSequence);
+
+        Integer cachedPublication = publicationCache.get(keystoneBlock, fingerprint, veriBlockTipHash);
+        if (cachedPublication != null)
+            return cachedPublication;
+
+
+        // fetch the endorsements of all the working blocks at once
+        Map<AltChainBlock, List<AltChainBlock>> endorsementQuery = new LinkedHashMap<>();
+        for(int i = blockSequence.size() - 1; i >= 0; i--) {
+            AltChainBlock workingBlock = blockSequence.get(i);
+
+            if(workingBlock.getHeight() < keystoneBlock.getHeight() + security.getAltChainParametersConfig().keystoneInterval)
+                endorsementQuery.put(workingBlock, blockSequence.subList(i, blockSequence.size()));
+        }
+        Map<String, List<AltPublication>> endorsements = popTxStore.getAltPublicationsEndorse(endorsementQuery);
 
         for(int i = blockSequence.size() - 1; i >= 0; i--) {
             AltChainBlock workingBlock = blockSequence.get(i);
 
             if(workingBlock.getHeight() < keystoneBlock.getHeight() + security.getAltChainParametersConfig().keystoneInterval) {
-                List<AltPublication> publications = popTxStore.getAltPublicationsEndorse(workingBlock, blockSequence.subList(i, blockSequence.size()));
+                List<AltPublication> publications = endorsements.get(workingBlock.getHash());
 
                 for(AltPublication publication: publications) {
                     ValidationResult fsuccess = security.checkATVAgainstView(publication);
@@ -149,6 +259,8 @@ public class ForkresolutionComparator {
             }
 
         }
+
+        publicationCache.put(keystoneBlock, fingerprint, veriBlockTipHash, bestPublication);
         return bestPublication;
     }
 
@@ -0,0 +1,151 @@
+// VeriBlock Blockchain Project
+// Copyright 2017-2018 VeriBlock, Inc
+// Copyright 2018-2019 Xenios SEZC
+// All rights reserved.
+// https://www.veriblock.org
+// Distributed under the MIT software license, see the accompanying
+// file LICENSE or http://www.opensource.org/licenses/mit-license.php.
+
+package org.veriblock.sdk.forkresolution;
+
+import org.veriblock.sdk.models.AltChainBlock;
+import org.veriblock.sdk.models.Sha256Hash;
+import org.veriblock.sdk.models.VBlakeHash;
+import org.veriblock.sdk.util.Preconditions;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The best publication heights of the keystones computed by the fork resolution.
+ *
+ * The best publication height of a keystone depends on the altchain blocks
+ * that can contain its publications and on the VeriBlock best chain the
+ * publications are checked against, so the heights are cached under the
+ * keystone, a fingerprint of the containing blocks and the VeriBlock tip.
+ * The cache holds up to the given number of heights and evicts the least
+ * recently used ones; a change of the VeriBlock best chain drops the whole cache.
+ */
+public class KeystonePublicationCache {
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    private static final class Key {
+        private final String keystoneHash;
+        private final long keystoneHeight;
+        private final Sha256Hash fingerprint;
+        private final VBlakeHash veriBlockTip;
+
+        private Key(AltChainBlock keystone, Sha256Hash fingerprint, VBlakeHash veriBlockTip) {
+            this.keystoneHash = keystone.getHash();
+            this.keystoneHeight = keystone.getHeight();
+            this.fingerprint = fingerprint;
+            this.veriBlockTip = veriBlockTip;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            Key key = (Key) o;
+            return keystoneHeight == key.keystoneHeight
+                && keystoneHash.equals(key.keystoneHash)
+                && fingerprint.equals(key.fingerprint)
+                && Objects.equals(veriBlockTip, key.veriBlockTip);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(keystoneHash, keystoneHeight, fingerprint, veriBlockTip);
+        }
+    }
+
+    private final Map<Key, Integer> cache;
+    // the VeriBlock best chain tip the cached heights were computed with
+    private VBlakeHash bestChainTip = null;
+
+    private long hitCount = 0;
+    private long missCount = 0;
+
+    public KeystonePublicationCache(int capacity) {
+        Preconditions.argument(capacity > 0, "Capacity must be positive");
+
+        this.cache = new LinkedHashMap<Key, Integer>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Integer> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    public synchronized int size() {
+        return cache.size();
+    }
+
+    public synchronized void clear() {
+        cache.clear();
+        bestChainTip = null;
+    }
+
+    /**
+     * Drop the cached heights if the VeriBlock best chain has changed
+     * @param tip the hash of the current VeriBlock best chain tip, null if the chain is empty
+     */
+    public synchronized void invalidate(VBlakeHash tip) {
+        if (!Objects.equals(bestChainTip, tip)) {
+            cache.clear();
+            bestChainTip = tip;
+        }
+    }
+
+    /**
+     * Get the best publication height of the keystone
+     * @param keystone the keystone block
+     * @param fingerprint the fingerprint of the blocks that can contain the keystone publications
+     * @param veriBlockTip the hash of the VeriBlock tip the publications are checked against
+     * @return the height or null if it is not cached
+     */
+    public synchronized Integer get(AltChainBlock keystone, Sha256Hash fingerprint, VBlakeHash veriBlockTip) {
+        Integer height = cache.get(new Key(keystone, fingerprint, veriBlockTip));
+        if (height != null) {
+            hitCount++;
+        } else {
+            missCount++;
+        }
+        return height;
+    }
+
+    public synchronized void put(AltChainBlock keystone, Sha256Hash fingerprint, VBlakeHash veriBlockTip, int height) {
+        cache.put(new Key(keystone, fingerprint, veriBlockTip), height);
+    }
+
+    // the digest of the heights and hashes of the blocks in the given order
+    public static Sha256Hash getFingerprint(List<AltChainBlock> blocks) {
+        MessageDigest digest = Sha256Hash.newDigest();
+        ByteBuffer header = ByteBuffer.allocate(12);
+
+        for (AltChainBlock block : blocks) {
+            byte[] hash = block.getHash().getBytes(StandardCharsets.UTF_8);
+
+            header.clear();
+            header.putLong(block.getHeight());
+            header.putInt(hash.length);
+            digest.update(header.array());
+            digest.update(hash);
+        }
+        return Sha256Hash.wrap(digest.digest());
+    }
+}
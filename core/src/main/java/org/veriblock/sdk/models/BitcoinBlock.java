@@ -9,37 +9,57 @@
 package org.veriblock.sdk.models;
 
 import org.veriblock.sdk.services.SerializeDeserializeService;
+import org.veriblock.sdk.util.Preconditions;
 
 import java.util.Arrays;
 
 public class BitcoinBlock {
-    private final byte[] raw;
     private final int version;
     private final Sha256Hash previousBlock;
     private final Sha256Hash merkleRoot;
     private final int timestamp;
     private final int bits;
     private final int nonce;
-    private final Sha256Hash hash;
+
+    // the serialized header and its hash are computed at most once, on the first request
+    private volatile byte[] raw;
+    private volatile Sha256Hash hash;
 
     public BitcoinBlock(int version, Sha256Hash previousBlock, Sha256Hash merkleRoot, int timestamp, int bits, int nonce) {
+        this(version, previousBlock, merkleRoot, timestamp, bits, nonce, null, null);
+    }
+
+    /**
+     * Create a block whose serialized header and hash are already known, e.g. when it is read from the storage
+     * @param raw the serialized header of the block, null if it is not known
+     * @param hash the hash of the serialized header, null if it is not known
+     */
+    public BitcoinBlock(int version, Sha256Hash previousBlock, Sha256Hash merkleRoot, int timestamp, int bits, int nonce,
+                        byte[] raw, Sha256Hash hash) {
+        Preconditions.argument(raw == null || raw.length == Constants.HEADER_SIZE_BitcoinBlock, "Invalid raw Bitcoin Block");
+        Preconditions.argument(hash == null || hash.length == Sha256Hash.BITCOIN_LENGTH, "Invalid Bitcoin block hash");
+
         this.version = version;
         this.previousBlock = previousBlock;
         this.merkleRoot = merkleRoot;
         this.timestamp = timestamp;
         this.bits = bits;
         this.nonce = nonce;
-        //TODO move it out of here.
-        this.raw = SerializeDeserializeService.getHeaderBytesBitcoinBlock(this);
-        this.hash = Sha256Hash.wrapReversed(Sha256Hash.hashTwice(this.raw));
+        this.raw = raw;
+        this.hash = hash;
     }
 
     @Override
     public boolean equals(Object o) {
-        return this == o || o != null && getClass() == o.getClass() && Arrays.equals(SerializeDeserializeService.getHeaderBytesBitcoinBlock(this), SerializeDeserializeService.getHeaderBytesBitcoinBlock((BitcoinBlock) o));
+        return this == o || o != null && getClass() == o.getClass() && Arrays.equals(getRaw(), ((BitcoinBlock) o).getRaw());
     }
 
     public byte[] getRaw() {
+        byte[] raw = this.raw;
+        if (raw == null) {
+            raw = SerializeDeserializeService.serializeHeaders(this);
+            this.raw = raw;
+        }
         return raw;
     }
 
@@ -72,6 +92,11 @@ public class BitcoinBlock {
     }
 
     public Sha256Hash getHash() {
-        return this.hash;
+        Sha256Hash hash = this.hash;
+        if (hash == null) {
+            hash = Sha256Hash.wrapReversed(Sha256Hash.hashTwice(getRaw()));
+            this.hash = hash;
+        }
+        return hash;
     }
 }
\ No newline at end of file
@@ -10,11 +10,14 @@ package org.veriblock.sdk.models;
 
 import org.veriblock.sdk.services.SerializeDeserializeService;
 import org.veriblock.sdk.util.Preconditions;
+import org.veriblock.sdk.util.VBlake;
 
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
 public class VeriBlockBlock{
-    private byte[] raw;
     private final int height;
     private final short version;
     private final VBlakeHash previousBlock;
@@ -25,7 +28,10 @@ public class VeriBlockBlock{
     private final int difficulty;
     private final int nonce;
     
-    private  VBlakeHash hash;
+    // the serialized header and its hash are computed at most once, on the first request;
+    // the hash possibly together with other blocks
+    private volatile byte[] raw;
+    private volatile VBlakeHash hash;
 
     public int getHeight() {
         return height;
@@ -64,11 +70,49 @@ public class VeriBlockBlock{
     }
 
     public byte[] getRaw() {
+        byte[] raw = this.raw;
+        if (raw == null) {
+            raw = SerializeDeserializeService.serializeHeaders(this);
+            this.raw = raw;
+        }
         return raw;
     }
 
     public VBlakeHash getHash() {
-        return this.hash;
+        VBlakeHash hash = this.hash;
+        if (hash == null) {
+            hash = VBlakeHash.hash(getRaw());
+            this.hash = hash;
+        }
+        return hash;
+    }
+
+    /**
+     * Compute the hashes of the blocks that have not been hashed yet in a single batch
+     * @param blocks the blocks
+     */
+    public static void computeHashes(List<VeriBlockBlock> blocks) {
+        List<VeriBlockBlock> pending = new ArrayList<>(blocks.size());
+        for (VeriBlockBlock block : blocks) {
+            if (block.hash == null) {
+                pending.add(block);
+            }
+        }
+        if (pending.isEmpty()) return;
+
+        ByteBuffer headers = ByteBuffer.allocate(pending.size() * Constants.HEADER_SIZE_VeriBlockBlock);
+        for (VeriBlockBlock block : pending) {
+            headers.put(block.getRaw());
+        }
+        headers.flip();
+
+        ByteBuffer hashes = ByteBuffer.allocate(pending.size() * VBlake.HASH_SIZE);
+        VBlake.hashAll(headers, hashes);
+        hashes.flip();
+
+        for (VeriBlockBlock block : pending) {
+            block.hash = VBlakeHash.extract(hashes, VBlakeHash.VERIBLOCK_LENGTH);
+        }
     }
 
     public VeriBlockBlock(int height,
@@ -80,6 +124,30 @@ public class VeriBlockBlock{
                           int timestamp,
                           int difficulty,
                           int nonce) {
+        this(height, version, previousBlock, previousKeystone, secondPreviousKeystone, merkleRoot,
+                timestamp, difficulty, nonce, null, null);
+    }
+
+    /**
+     * Create a block whose serialized header and hash are already known, e.g. when it is read from the storage
+     * @param raw the serialized header of the block, null if it is not known
+     * @param hash the hash of the serialized header, null if it is not known
+     */
+    public VeriBlockBlock(int height,
+                          short version,
+                          VBlakeHash previousBlock,
+                          VBlakeHash previousKeystone,
+                          VBlakeHash secondPreviousKeystone,
+                          Sha256Hash merkleRoot,
+                          int timestamp,
+                          int difficulty,
+                          int nonce,
+                          byte[] raw,
+                          VBlakeHash hash) {
+        Preconditions.argument(raw == null || raw.length == Constants.HEADER_SIZE_VeriBlockBlock,
+                "Invalid VeriBlock raw data");
+        Preconditions.argument(hash == null || hash.length == VBlakeHash.VERIBLOCK_LENGTH,
+                "Invalid VeriBlock hash");
         Preconditions.argument(previousBlock != null && previousBlock.length >= VBlakeHash.PREVIOUS_BLOCK_LENGTH,
                 "Invalid previous block");
         Preconditions.argument(previousKeystone != null && previousKeystone.length >= VBlakeHash.PREVIOUS_KEYSTONE_LENGTH,
@@ -98,9 +166,8 @@ public class VeriBlockBlock{
         this.timestamp = timestamp;
         this.difficulty = difficulty;
         this.nonce = nonce;
-
-        this.raw = SerializeDeserializeService.serializeHeaders(this);
-        this.hash = VBlakeHash.hash(this.raw);
+        this.raw = raw;
+        this.hash = hash;
     }
 
     public int getRoundIndex() {
@@ -119,7 +186,7 @@ public class VeriBlockBlock{
 
     @Override
     public boolean equals(Object o) {
-        return this == o || o != null && getClass() == o.getClass() && Arrays.equals(SerializeDeserializeService.serialize(this), SerializeDeserializeService.serialize((VeriBlockBlock) o));
+        return this == o || o != null && getClass() == o.getClass() && Arrays.equals(getRaw(), ((VeriBlockBlock) o).getRaw());
 
     }
 
@@ -0,0 +1,32 @@
+// VeriBlock Blockchain Project
+// Copyright 2017-2018 VeriBlock, Inc
+// Copyright 2018-2019 Xenios SEZC
+// All rights reserved.
+// https://www.veriblock.org
+// Distributed under the MIT software license, see the accompanying
+// file LICENSE or http://www.opensource.org/licenses/mit-license.php.
+
+package org.veriblock.sdk.retention;
+
+public class RetentionConfig {
+
+    public int safetyMargin;
+
+    public int batchSize;
+
+    public long batchPauseMillis;
+
+    public RetentionConfig(int safetyMargin, int batchSize, long batchPauseMillis)
+    {
+        this.safetyMargin = safetyMargin;
+        this.batchSize = batchSize;
+        this.batchPauseMillis = batchPauseMillis;
+    }
+
+    public RetentionConfig()
+    {
+        this.safetyMargin = RetentionDefaults.SAFETY_MARGIN;
+        this.batchSize = RetentionDefaults.BATCH_SIZE;
+        this.batchPauseMillis = RetentionDefaults.BATCH_PAUSE_MILLIS;
+    }
+}
@@ -0,0 +1,23 @@
+// VeriBlock Blockchain Project
+// Copyright 2017-2018 VeriBlock, Inc
+// Copyright 2018-2019 Xenios SEZC
+// All rights reserved.
+// https://www.veriblock.org
+// Distributed under the MIT software license, see the accompanying
+// file LICENSE or http://www.opensource.org/licenses/mit-license.php.
+
+package org.veriblock.sdk.retention;
+
+public class RetentionDefaults {
+
+    private RetentionDefaults() {}
+
+    // the blocks kept below the retention depth required by fork resolution and the rewards
+    static final int SAFETY_MARGIN = 100;
+
+    // the maximum number of PoP transactions or changesets deleted at a time
+    static final int BATCH_SIZE = 200;
+
+    // the pause between the batches, to leave the database to the block processing
+    static final long BATCH_PAUSE_MILLIS = 10;
+}
@@ -0,0 +1,59 @@
+// VeriBlock Blockchain Project
+// Copyright 2017-2018 VeriBlock, Inc
+// Copyright 2018-2019 Xenios SEZC
+// All rights reserved.
+// https://www.veriblock.org
+// Distributed under the MIT software license, see the accompanying
+// file LICENSE or http://www.opensource.org/licenses/mit-license.php.
+
+package org.veriblock.sdk.retention;
+
+/**
+ * A snapshot of the pruning progress.
+ */
+public class RetentionProgress {
+    private final long targetHeight;
+    private final long prunedHeight;
+    private final long prunedTransactions;
+    private final long prunedChangesets;
+    private final boolean running;
+
+    public RetentionProgress(long targetHeight, long prunedHeight, long prunedTransactions, long prunedChangesets, boolean running) {
+        this.targetHeight = targetHeight;
+        this.prunedHeight = prunedHeight;
+        this.prunedTransactions = prunedTransactions;
+        this.prunedChangesets = prunedChangesets;
+        this.running = running;
+    }
+
+    // the height the data below is being pruned
+    public long getTargetHeight() {
+        return targetHeight;
+    }
+
+    // the height the data below has been pruned completely
+    public long getPrunedHeight() {
+        return prunedHeight;
+    }
+
+    public long getPrunedTransactions() {
+        return prunedTransactions;
+    }
+
+    public long getPrunedChangesets() {
+        return prunedChangesets;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public String toString() {
+        return "RetentionProgress{targetHeight=" + targetHeight +
+                ", prunedHeight=" + prunedHeight +
+                ", prunedTransactions=" + prunedTransactions +
+                ", prunedChangesets=" + prunedChangesets +
+                ", running=" + running + "}";
+    }
+}
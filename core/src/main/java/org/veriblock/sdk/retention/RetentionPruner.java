@@ -0,0 +1,203 @@
+// VeriBlock Blockchain Project
+// Copyright 2017-2018 VeriBlock, Inc
+// Copyright 2018-2019 Xenios SEZC
+// All rights reserved.
+// https://www.veriblock.org
+// Distributed under the MIT software license, see the accompanying
+// file LICENSE or http://www.opensource.org/licenses/mit-license.php.
+
+package org.veriblock.sdk.retention;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.veriblock.sdk.VeriBlockSecurity;
+import org.veriblock.sdk.forkresolution.ForkresolutionComparator;
+import org.veriblock.sdk.forkresolution.ForkresolutionConfig;
+import org.veriblock.sdk.rewards.PopRewardCalculator;
+import org.veriblock.sdk.rewards.PopRewardCalculatorConfig;
+import org.veriblock.sdk.util.Preconditions;
+
+import java.sql.SQLException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prunes the PoP transactions and the audit changesets of the blocks
+ * that are deeper than the retention depth below the chain tip.
+ *
+ * The retention depth covers the keystones fork resolution can still
+ * reorganize and the blocks the PoP rewards are yet to be settled from.
+ * The data is deleted in small batches, either on the calling thread
+ * or on a background thread that keeps up with the scheduled chain tips.
+ * Each batch holds the write lock of the security, so it never runs
+ * inside a payload transaction.
+ */
+public class RetentionPruner {
+    private static final Logger log = LoggerFactory.getLogger(RetentionPruner.class);
+
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 10;
+
+    private final VeriBlockSecurity security;
+    private final RetentionConfig config;
+    private final ExecutorService executor;
+
+    private long targetHeight = 0;
+    private long prunedHeight = 0;
+    private long prunedTransactions = 0;
+    private long prunedChangesets = 0;
+    private boolean running = false;
+
+    public RetentionPruner(VeriBlockSecurity security) {
+        this(security, new RetentionConfig());
+    }
+
+    public RetentionPruner(VeriBlockSecurity security, RetentionConfig config) {
+        Preconditions.notNull(security, "Security cannot be null");
+        Preconditions.notNull(config, "Retention config cannot be null");
+        Preconditions.argument(config.safetyMargin >= 0, "Safety margin cannot be negative");
+        Preconditions.argument(config.batchSize > 0, "Batch size must be positive");
+
+        this.security = security;
+        this.config = config;
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "retention-pruner");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public RetentionConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * Get the number of blocks below the chain tip whose data is kept
+     * @return the retention depth
+     */
+    public long getRetentionDepth() {
+        ForkresolutionConfig forkresolutionConfig = ForkresolutionComparator.getForkresolutionConfig();
+        PopRewardCalculatorConfig rewardConfig = PopRewardCalculator.getCalculatorConfig();
+
+        // the keystones within the finality delay can still be reorganized by fork resolution
+        long finalityDepth = (long) forkresolutionConfig.keystoneFinalityDelay
+                * security.getAltChainParametersConfig().keystoneInterval;
+        // a block reward is settled from the endorsements in the following blocks
+        // and its PoP difficulty is averaged over the preceding ones
+        long settlementDepth = (long) rewardConfig.popRewardSettlementInterval
+                + rewardConfig.popDifficultyAveragingInterval;
+
+        return Math.max(finalityDepth, settlementDepth) + config.safetyMargin;
+    }
+
+    /**
+     * Get the height the data below is pruned at the given chain tip
+     * @param tipHeight the chain tip height
+     * @return the prune height
+     */
+    public long getPruneHeight(long tipHeight) {
+        return tipHeight - getRetentionDepth();
+    }
+
+    /**
+     * Prune the data out of the retention depth at the given chain tip in the background.
+     * The pruning in progress continues to the new prune height
+     * @param tipHeight the chain tip height
+     */
+    public synchronized void schedule(long tipHeight) {
+        long height = getPruneHeight(tipHeight);
+        if (height <= targetHeight || executor.isShutdown()) return;
+
+        targetHeight = height;
+        if (!running) {
+            running = true;
+            executor.execute(this::run);
+        }
+    }
+
+    /**
+     * Prune the data out of the retention depth at the given chain tip on the calling thread
+     * @param tipHeight the chain tip height
+     * @throws SQLException
+     */
+    public void prune(long tipHeight) throws SQLException {
+        long height = getPruneHeight(tipHeight);
+        if (height <= 0) return;
+
+        synchronized (this) {
+            targetHeight = Math.max(targetHeight, height);
+        }
+
+        while (!pruneBatch(height)) {
+            log.debug("Pruning below height {}: {}", height, getProgress());
+        }
+    }
+
+    public synchronized RetentionProgress getProgress() {
+        return new RetentionProgress(targetHeight, prunedHeight, prunedTransactions, prunedChangesets, running);
+    }
+
+    /**
+     * Stop the background pruning; the batch in progress is completed
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+        try {
+            if (!executor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                log.warn("The pruning did not stop in {} seconds", SHUTDOWN_TIMEOUT_SECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // delete a batch of the data below the height; returns true when nothing is left below it
+    private boolean pruneBatch(long height) throws SQLException {
+        int transactions;
+        int changesets;
+        // the deletes share the connection with the payload transactions, so run them in between
+        synchronized (security.getWriteLock()) {
+            transactions = security.getContext().getPopTxStore().prune(height, config.batchSize);
+            changesets = security.getContext().getChangeStore().prune(height, config.batchSize);
+        }
+        boolean done = transactions < config.batchSize && changesets < config.batchSize;
+
+        synchronized (this) {
+            prunedTransactions += transactions;
+            prunedChangesets += changesets;
+            if (done) {
+                prunedHeight = Math.max(prunedHeight, height);
+            }
+        }
+        return done;
+    }
+
+    private void run() {
+        long height = 0;
+        try {
+            while (true) {
+                synchronized (this) {
+                    if (prunedHeight >= targetHeight) {
+                        running = false;
+                        log.info("Pruned the PoP data below height {}: {}", prunedHeight, getProgress());
+                        return;
+                    }
+                    height = targetHeight;
+                }
+
+                if (!pruneBatch(height)) {
+                    log.debug("Pruning below height {}: {}", height, getProgress());
+                    Thread.sleep(config.batchPauseMillis);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (SQLException | RuntimeException e) {
+            log.error("Pruning below height {} failed", height, e);
+        }
+
+        synchronized (this) {
+            running = false;
+        }
+    }
+}
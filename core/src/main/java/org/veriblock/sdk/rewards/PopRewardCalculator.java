@@ -21,7 +21,9 @@ import java.math.RoundingMode;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 public class PopRewardCalculator {    
     // payout rounds methods
@@ -156,8 +158,16 @@ public class PopRewardCalculator {
 
         Collections.sort(blocksInterval);  // make the ascending order for the blocks in the collection, it needs for the correct calculation of the pop score
 
+        // fetch the endorsements of all the blocks at once
+        Map<AltChainBlock, List<AltChainBlock>> endorsementQuery = new LinkedHashMap<>();
         for(int i = 0; i < blocksInterval.size() - config.popRewardSettlementInterval; ++i)  {
-            BigDecimal score = calculatePopScoreFromEndorsements(blocksInterval.get(i), blocksInterval.subList(i + 1 , i  + 1 + config.popRewardSettlementInterval));
+            endorsementQuery.put(blocksInterval.get(i), blocksInterval.subList(i + 1 , i  + 1 + config.popRewardSettlementInterval));
+        }
+        Map<String, List<AltPublication>> endorsements = popTxStore.getAltPublicationsEndorse(endorsementQuery);
+
+        for(int i = 0; i < blocksInterval.size() - config.popRewardSettlementInterval; ++i)  {
+            List<AltPublication> blockEndorsements = endorsements.get(blocksInterval.get(i).getHash());
+            BigDecimal score = calculatePopScoreFromEndorsements(blockEndorsements, getBestPublicationHeight(blockEndorsements));
             difficulty = difficulty.add(score);
         }
 
@@ -0,0 +1,89 @@
+// VeriBlock Blockchain Project
+// Copyright 2017-2018 VeriBlock, Inc
+// Copyright 2018-2019 Xenios SEZC
+// All rights reserved.
+// https://www.veriblock.org
+// Distributed under the MIT software license, see the accompanying
+// file LICENSE or http://www.opensource.org/licenses/mit-license.php.
+
+package org.veriblock.sdk.services;
+
+import org.veriblock.sdk.models.VerificationException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.function.Consumer;
+
+/**
+ * Runs the context-free verification of publications on a worker pool.
+ *
+ * The verifications are awaited in the order of the publications, so the
+ * caller can apply each publication to the chain while the following ones
+ * are still being verified. A verification that no worker has started yet
+ * is run by the awaiting thread itself.
+ */
+public class PublicationVerifier {
+
+    private static final ExecutorService verificationExecutor = Executors.newFixedThreadPool(
+            Runtime.getRuntime().availableProcessors(), runnable -> {
+                Thread thread = new Thread(runnable, "publication-verifier");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    private PublicationVerifier() { }
+
+    /**
+     * Start the verification of each of the publications
+     * @param publications the publications to verify, can be null
+     * @param verification the context-free verification of a publication
+     * @return the pending verifications in the order of the publications
+     */
+    public static <T> List<FutureTask<Void>> verifyAll(List<T> publications, Consumer<T> verification) {
+        if (publications == null || publications.isEmpty()) return Collections.emptyList();
+
+        List<FutureTask<Void>> verifications = new ArrayList<>(publications.size());
+        for (T publication : publications) {
+            FutureTask<Void> task = new FutureTask<>(() -> verification.accept(publication), null);
+            verifications.add(task);
+        }
+        // the first one is left to the awaiting thread
+        for (int i = 1; i < verifications.size(); i++) {
+            verificationExecutor.execute(verifications.get(i));
+        }
+        return verifications;
+    }
+
+    /**
+     * Wait for the verification to complete
+     * @param verification the pending verification
+     * @throws VerificationException if the publication is invalid
+     */
+    public static void await(FutureTask<Void> verification) throws VerificationException {
+        // a no-op if a worker has already started the verification
+        verification.run();
+        try {
+            verification.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while verifying the publication", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    // skip the verifications that are no longer needed
+    public static void cancelAll(List<FutureTask<Void>> verifications) {
+        for (FutureTask<Void> verification : verifications) {
+            verification.cancel(false);
+        }
+    }
+}
@@ -362,12 +362,21 @@ public class SerializeDeserializeService {
     }
 
     public static VeriBlockBlock parseVeriBlockBlock(byte[] raw){
+        return parseVeriBlockBlock(raw, null);
+    }
+
+    /**
+     * Parse the block header whose hash may be already known, e.g. from the storage
+     * @param raw the serialized header
+     * @param hash the hash of the header or null to compute it when it is needed
+     * @return the block
+     */
+    public static VeriBlockBlock parseVeriBlockBlock(byte[] raw, VBlakeHash hash){
         Preconditions.argument(raw != null && raw.length == Constants.HEADER_SIZE_VeriBlockBlock, "Invalid VeriBlock raw data");
 
-        ByteBuffer buffer = ByteBuffer.allocateDirect(raw.length);
-
-        buffer.put(raw);
-        buffer.flip();
+        // the block keeps the header bytes
+        byte[] header = raw.clone();
+        ByteBuffer buffer = ByteBuffer.wrap(header);
 
         int height = Utils.Bytes.readBEInt32(buffer);
         short version = Utils.Bytes.readBEInt16(buffer);
@@ -381,13 +390,13 @@ public class SerializeDeserializeService {
 
         VeriBlockBlock veriBlockBlock = new VeriBlockBlock(
                 height, version, previousBlock, previousKeystone, secondPreviousKeystone, merkleRoot,
-                timestamp, difficulty, nonce);
+                timestamp, difficulty, nonce, header, hash);
 
         return veriBlockBlock;
     }
 
     public static void serialize(VeriBlockBlock veriBlockBlock, OutputStream stream) throws IOException {
-        StreamUtils.writeSingleByteLengthValueToStream(stream, serializeHeaders(veriBlockBlock));
+        StreamUtils.writeSingleByteLengthValueToStream(stream, veriBlockBlock.getRaw());
     }
 
     public static byte[] serialize(VeriBlockBlock veriBlockBlock) {
@@ -558,10 +567,11 @@ public class SerializeDeserializeService {
 // BitcoinBlock
 
     public static byte[] getHeaderBytesBitcoinBlock(BitcoinBlock bitcoinBlock) {
-        if (bitcoinBlock.getRaw() != null && bitcoinBlock.getRaw().length == Constants.HEADER_SIZE_BitcoinBlock){
-            return bitcoinBlock.getRaw();
-        }
+        // the raw header is shared by the block, so the callers get a copy
+        return bitcoinBlock.getRaw().clone();
+    }
 
+    public static byte[] serializeHeaders(BitcoinBlock bitcoinBlock) {
         ByteBuffer buffer = ByteBuffer.allocateDirect(Constants.HEADER_SIZE_BitcoinBlock);
         Utils.Bytes.putLEInt32(buffer, bitcoinBlock.getVersion());
         Utils.Bytes.putLEBytes(buffer, bitcoinBlock.getPreviousBlock().getBytes());
@@ -588,7 +598,7 @@ public class SerializeDeserializeService {
     }
 
     public static void serialize(BitcoinBlock bitcoinBlock, OutputStream stream) throws IOException {
-        StreamUtils.writeSingleByteLengthValueToStream(stream, getHeaderBytesBitcoinBlock(bitcoinBlock));
+        StreamUtils.writeSingleByteLengthValueToStream(stream, bitcoinBlock.getRaw());
     }
 
     public static BitcoinBlock parseBitcoinBlockWithLength(ByteBuffer buffer) {
@@ -597,12 +607,21 @@ public class SerializeDeserializeService {
     }
 
     public static BitcoinBlock parseBitcoinBlock(byte[] bytes) {
-        Preconditions.argument(bytes != null && bytes.length == Constants.HEADER_SIZE_BitcoinBlock, "Invalid raw Bitcoin Block");
+        return parseBitcoinBlock(bytes, null);
+    }
 
-        ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+    /**
+     * Parse the block header whose hash may be already known, e.g. from the storage
+     * @param bytes the serialized header
+     * @param hash the hash of the header or null to compute it when it is needed
+     * @return the block
+     */
+    public static BitcoinBlock parseBitcoinBlock(byte[] bytes, Sha256Hash hash) {
+        Preconditions.argument(bytes != null && bytes.length == Constants.HEADER_SIZE_BitcoinBlock, "Invalid raw Bitcoin Block");
 
-        buffer.put(bytes);
-        buffer.flip();
+        // the block keeps the header bytes
+        byte[] header = bytes.clone();
+        ByteBuffer buffer = ByteBuffer.wrap(header);
 
         Integer version = Utils.Bytes.readLEInt32(buffer);
         Sha256Hash previousBlock = Sha256Hash.extract(buffer);
@@ -611,7 +630,7 @@ public class SerializeDeserializeService {
         Integer bits = Utils.Bytes.readLEInt32(buffer);
         Integer nonce = Utils.Bytes.readLEInt32(buffer);
 
-        BitcoinBlock bitcoinBlock = new BitcoinBlock(version,previousBlock, merkleRoot, timestamp, bits, nonce);
+        BitcoinBlock bitcoinBlock = new BitcoinBlock(version,previousBlock, merkleRoot, timestamp, bits, nonce, header, hash);
 
         return bitcoinBlock;
     }
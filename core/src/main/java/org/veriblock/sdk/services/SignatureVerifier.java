@@ -0,0 +1,200 @@
+// VeriBlock Blockchain Project
+// Copyright 2017-2018 VeriBlock, Inc
+// Copyright 2018-2019 Xenios SEZC
+// All rights reserved.
+// https://www.veriblock.org
+// Distributed under the MIT software license, see the accompanying
+// file LICENSE or http://www.opensource.org/licenses/mit-license.php.
+
+package org.veriblock.sdk.services;
+
+import org.veriblock.sdk.util.Preconditions;
+
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Verifies the SHA256withECDSA signatures of the VeriBlock transactions.
+ *
+ * PoP miners sign many transactions with the same key, so the decoded public
+ * keys are cached under their X.509 encoding. The cache holds up to
+ * DEFAULT_KEY_CACHE_CAPACITY keys and evicts the least recently used ones.
+ * Each thread reuses its own KeyFactory and Signature instances.
+ * The batches run on a worker pool of their own, so they don't queue
+ * behind the publication verifications.
+ */
+public class SignatureVerifier {
+    public static final int DEFAULT_KEY_CACHE_CAPACITY = 4096;
+
+    private static final String KEY_ALGORITHM = "EC";
+    private static final String SIGNATURE_ALGORITHM = "SHA256withECDSA";
+
+    private static final ThreadLocal<KeyFactory> keyFactories = ThreadLocal.withInitial(() -> {
+        try {
+            return KeyFactory.getInstance(KEY_ALGORITHM);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private static final ThreadLocal<Signature> signatures = ThreadLocal.withInitial(() -> {
+        try {
+            return Signature.getInstance(SIGNATURE_ALGORITHM);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private static final ExecutorService verificationExecutor = Executors.newFixedThreadPool(
+            Runtime.getRuntime().availableProcessors(), runnable -> {
+                Thread thread = new Thread(runnable, "signature-verifier");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    private static final Map<ByteBuffer, PublicKey> keyCache = new LinkedHashMap<ByteBuffer, PublicKey>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<ByteBuffer, PublicKey> eldest) {
+            return size() > DEFAULT_KEY_CACHE_CAPACITY;
+        }
+    };
+
+    private static long keyCacheHitCount = 0;
+    private static long keyCacheMissCount = 0;
+
+    /**
+     * A signature to verify: the signed payload, the DER encoded signature
+     * and the X.509 encoded public key
+     */
+    public static class Request {
+        private final byte[] payload;
+        private final byte[] signature;
+        private final byte[] publicKey;
+
+        public Request(byte[] payload, byte[] signature, byte[] publicKey) {
+            this.payload = payload;
+            this.signature = signature;
+            this.publicKey = publicKey;
+        }
+
+        public byte[] getPayload() {
+            return payload;
+        }
+
+        public byte[] getSignature() {
+            return signature;
+        }
+
+        public byte[] getPublicKey() {
+            return publicKey;
+        }
+    }
+
+    private SignatureVerifier() { }
+
+    /**
+     * Verify the signature of the payload
+     * @param payload the signed payload
+     * @param signatureBytes the DER encoded signature
+     * @param publicKeyBytes the X.509 encoded public key
+     * @return false if the signature is invalid or any of the arguments is malformed
+     */
+    public static boolean verify(byte[] payload, byte[] signatureBytes, byte[] publicKeyBytes) {
+        try {
+            Signature signature = signatures.get();
+            signature.initVerify(getPublicKey(publicKeyBytes));
+            signature.update(payload);
+
+            return signature.verify(signatureBytes);
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    public static boolean verify(Request request) {
+        return verify(request.getPayload(), request.getSignature(), request.getPublicKey());
+    }
+
+    /**
+     * Verify the signatures in parallel
+     * @param requests the signatures to verify
+     * @return the result of each verification in the order of the requests
+     */
+    public static boolean[] verifyAll(List<Request> requests) {
+        Preconditions.notNull(requests, "Requests cannot be null");
+
+        List<FutureTask<Boolean>> verifications = new ArrayList<>(requests.size());
+        for (Request request : requests) {
+            verifications.add(new FutureTask<>(() -> verify(request)));
+        }
+        // the first one is left to the calling thread
+        for (int i = 1; i < verifications.size(); i++) {
+            verificationExecutor.execute(verifications.get(i));
+        }
+
+        boolean[] results = new boolean[requests.size()];
+        for (int i = 0; i < verifications.size(); i++) {
+            FutureTask<Boolean> verification = verifications.get(i);
+            // a no-op if a worker has already started the verification
+            verification.run();
+            try {
+                results[i] = verification.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while verifying the signatures", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+        return results;
+    }
+
+    public static synchronized long getKeyCacheHitCount() {
+        return keyCacheHitCount;
+    }
+
+    public static synchronized long getKeyCacheMissCount() {
+        return keyCacheMissCount;
+    }
+
+    public static synchronized int getKeyCacheSize() {
+        return keyCache.size();
+    }
+
+    public static synchronized void clearKeyCache() {
+        keyCache.clear();
+    }
+
+    private static PublicKey getPublicKey(byte[] publicKeyBytes) throws GeneralSecurityException {
+        ByteBuffer key = ByteBuffer.wrap(publicKeyBytes.clone());
+
+        synchronized (SignatureVerifier.class) {
+            PublicKey publicKey = keyCache.get(key);
+            if (publicKey != null) {
+                keyCacheHitCount++;
+                return publicKey;
+            }
+            keyCacheMissCount++;
+        }
+
+        // decode outside of the lock, a concurrent miss on the same key only costs a second decoding
+        PublicKey publicKey = keyFactories.get().generatePublic(new X509EncodedKeySpec(publicKeyBytes));
+
+        synchronized (SignatureVerifier.class) {
+            keyCache.put(key, publicKey);
+        }
+        return publicKey;
+    }
+}
@@ -24,9 +24,16 @@ import org.veriblock.sdk.util.Utils;
 
 import java.math.BigInteger;
 import java.nio.ByteBuffer;
+import java.util.List;
 import java.util.Locale;
 
 public class ValidationService {
+    private static final VerifiedPublicationCache verifiedPublications =
+            new VerifiedPublicationCache(VerifiedPublicationCache.DEFAULT_CAPACITY);
+
+    public static VerifiedPublicationCache getVerifiedPublicationCache() {
+        return verifiedPublications;
+    }
 
     public static void verify(VeriBlockPoPTransaction veriBlockPoPTransaction) throws VerificationException {
         checkSignature(veriBlockPoPTransaction);
@@ -40,14 +47,14 @@ public class ValidationService {
             throw new VerificationException("VeriBlock PoP Transaction contains an invalid public key");
         }
 
-        if (!Utils.verifySignature(SerializeDeserializeService.getHash(tx).getBytes(), tx.getSignature(), tx.getPublicKey())) {
+        if (!SignatureVerifier.verify(SerializeDeserializeService.getHash(tx).getBytes(), tx.getSignature(), tx.getPublicKey())) {
             throw new VerificationException("VeriBlock PoP Transaction is incorrectly signed");
         }
     }
 
     public static void checkBitcoinTransactionForPoPData(VeriBlockPoPTransaction tx) throws VerificationException {
         ByteBuffer buffer = ByteBuffer.allocateDirect(80);
-        buffer.put(SerializeDeserializeService.serializeHeaders(tx.getPublishedBlock()));
+        buffer.put(tx.getPublishedBlock().getRaw());
         buffer.put(tx.getAddress().getPoPBytes());
         buffer.flip();
 
@@ -88,16 +95,24 @@ public class ValidationService {
     // VeriBlockPublication
 
     public static void verify(VeriBlockPublication veriBlockPublication) throws VerificationException {
+        Sha256Hash id = VerifiedPublicationCache.getId(veriBlockPublication);
+        if (verifiedPublications.contains(id)) return;
+
         ValidationService.verify(veriBlockPublication.getTransaction());
         checkMerklePath(veriBlockPublication);
         checkBlocks(veriBlockPublication);
+
+        verifiedPublications.add(id);
     }
 
 
     public static void checkBlocks(VeriBlockPublication veriBlockPublication) throws VerificationException {
+        List<VeriBlockBlock> blocks = veriBlockPublication.getBlocks();
+        VeriBlockBlock.computeHashes(blocks);
+
         Integer lastHeight = null;
         VBlakeHash lastHash = null;
-        for (VeriBlockBlock block : veriBlockPublication.getBlocks()) {
+        for (VeriBlockBlock block : blocks) {
             ValidationService.verify(block);
 
             if (lastHeight != null && lastHash != null) {
@@ -133,7 +148,7 @@ public class ValidationService {
             throw new VerificationException("VeriBlock transaction contains an invalid public key");
         }
 
-        if (!Utils.verifySignature(SerializeDeserializeService.getId(veriBlockTransaction).getBytes(), veriBlockTransaction.getSignature(), veriBlockTransaction.getPublicKey())) {
+        if (!SignatureVerifier.verify(SerializeDeserializeService.getId(veriBlockTransaction).getBytes(), veriBlockTransaction.getSignature(), veriBlockTransaction.getPublicKey())) {
             throw new VerificationException("VeriBlock transaction is incorrectly signed");
         }
     }
@@ -194,9 +209,14 @@ public class ValidationService {
 // AltPublication
 
     public static void verify(AltPublication altPublication) throws VerificationException {
+        Sha256Hash id = VerifiedPublicationCache.getId(altPublication);
+        if (verifiedPublications.contains(id)) return;
+
         ValidationService.verify(altPublication.getTransaction());
         checkMerklePath(altPublication);
         checkBlocks(altPublication);
+
+        verifiedPublications.add(id);
     }
 
     public static void checkMerklePath(AltPublication altPublication) throws VerificationException {
@@ -210,9 +230,12 @@ public class ValidationService {
     }
 
     public static void checkBlocks(AltPublication altPublication) throws VerificationException {
+        List<VeriBlockBlock> blocks = altPublication.getBlocks();
+        VeriBlockBlock.computeHashes(blocks);
+
         Integer lastHeight = null;
         VBlakeHash lastHash = null;
-        for (VeriBlockBlock block : altPublication.getBlocks()) {
+        for (VeriBlockBlock block : blocks) {
             ValidationService.verify(block);
 
             if (lastHeight != null && lastHash != null) {
@@ -0,0 +1,88 @@
+// VeriBlock Blockchain Project
+// Copyright 2017-2018 VeriBlock, Inc
+// Copyright 2018-2019 Xenios SEZC
+// All rights reserved.
+// https://www.veriblock.org
+// Distributed under the MIT software license, see the accompanying
+// file LICENSE or http://www.opensource.org/licenses/mit-license.php.
+
+package org.veriblock.sdk.services;
+
+import org.veriblock.sdk.models.AltPublication;
+import org.veriblock.sdk.models.Sha256Hash;
+import org.veriblock.sdk.models.VeriBlockPublication;
+import org.veriblock.sdk.util.Preconditions;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The ids of the publications that passed the context-free verification.
+ *
+ * A publication is identified by the hash of its serialized form, so the
+ * signature, the merkle paths and the proof of work of the blocks only need
+ * to be checked once for the same bytes. The contextual checks against the
+ * blockchains are not covered and still run every time. Only the successful
+ * verifications are cached; the cache holds up to the given number of ids
+ * and evicts the least recently used ones.
+ */
+public class VerifiedPublicationCache {
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    // keep the ids of ATVs and VTBs with the same bytes apart
+    private static final byte[] ALT_PUBLICATION_TAG = new byte[] { 0x01 };
+    private static final byte[] VERIBLOCK_PUBLICATION_TAG = new byte[] { 0x02 };
+
+    private final Map<Sha256Hash, Boolean> verified;
+
+    private long hitCount = 0;
+    private long missCount = 0;
+
+    public VerifiedPublicationCache(int capacity) {
+        Preconditions.argument(capacity > 0, "Capacity must be positive");
+
+        this.verified = new LinkedHashMap<Sha256Hash, Boolean>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Sha256Hash, Boolean> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    public synchronized int size() {
+        return verified.size();
+    }
+
+    public synchronized void clear() {
+        verified.clear();
+    }
+
+    public synchronized boolean contains(Sha256Hash id) {
+        if (verified.get(id) != null) {
+            hitCount++;
+            return true;
+        }
+        missCount++;
+        return false;
+    }
+
+    public synchronized void add(Sha256Hash id) {
+        verified.put(id, Boolean.TRUE);
+    }
+
+    public static Sha256Hash getId(AltPublication altPublication) {
+        return Sha256Hash.of(ALT_PUBLICATION_TAG, SerializeDeserializeService.serialize(altPublication));
+    }
+
+    public static Sha256Hash getId(VeriBlockPublication veriBlockPublication) {
+        return Sha256Hash.of(VERIBLOCK_PUBLICATION_TAG, SerializeDeserializeService.serialize(veriBlockPublication));
+    }
+}
@@ -0,0 +1,232 @@
+// VeriBlock Blockchain Project
+// Copyright 2017-2018 VeriBlock, Inc
+// Copyright 2018-2019 Xenios SEZC
+// All rights reserved.
+// https://www.veriblock.org
+// Distributed under the MIT software license, see the accompanying
+// file LICENSE or http://www.opensource.org/licenses/mit-license.php.
+
+package org.veriblock.sdk.sqlite;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.veriblock.sdk.util.Preconditions;
+
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * A handle to a SQLite database.
+ *
+ * The database owns a single writer connection that is shared by all
+ * stores, so that their writes can be grouped in one transaction, and
+ * a bounded pool of read-only connections for queries that only need
+ * to see committed data. The in-memory and shared-cache databases have
+ * no pool: their connections share one cache, whose tables are locked
+ * for the other connections while the writer has uncommitted changes. The connection
+ * pragmas are applied once, when the connections are opened.
+ */
+public class Database {
+    private static final Logger log = LoggerFactory.getLogger(Database.class);
+
+    public static final int DEFAULT_READER_COUNT = 4;
+
+    // tuned for a WAL journal: the database stays consistent with synchronous=NORMAL
+    // and only the last transactions may be lost on power failure
+    private static final String[] WRITER_PRAGMAS = {
+            "PRAGMA journal_mode=WAL",
+            "PRAGMA synchronous=NORMAL",
+            "PRAGMA cache_size=-65536",
+            "PRAGMA mmap_size=268435456",
+            "PRAGMA temp_store=MEMORY"
+    };
+
+    private static final String[] READER_PRAGMAS = {
+            "PRAGMA query_only=ON",
+            "PRAGMA cache_size=-16384",
+            "PRAGMA mmap_size=268435456",
+            "PRAGMA temp_store=MEMORY"
+    };
+
+    /**
+     * A query that runs on one of the read-only connections
+     * @param <T> the query result type
+     */
+    public interface Query<T> {
+        T run(Connection connection, PreparedStatementCache statements) throws SQLException;
+    }
+
+    private static class Reader {
+        private final Connection connection;
+        private final PreparedStatementCache statements;
+
+        private Reader(Connection connection) {
+            this.connection = connection;
+            this.statements = new PreparedStatementCache(connection);
+        }
+    }
+
+    private final String databasePath;
+    private final Connection writer;
+    private final Reader writerReader;
+    private final int maxReaders;
+    private final BlockingQueue<Reader> idleReaders;
+    private final List<Reader> readers = new ArrayList<>();
+    private boolean closed = false;
+
+    /**
+     * Open the database at the given path
+     * @param databasePath the database file path or null for the in-memory database;
+     *                     the in-memory and shared-cache databases read on the writer connection
+     * @throws SQLException
+     */
+    public Database(String databasePath) throws SQLException {
+        this(databasePath, DEFAULT_READER_COUNT);
+    }
+
+    public Database(String databasePath, int maxReaders) throws SQLException {
+        this(databasePath, ConnectionSelector.setConnection(databasePath), canPoolReaders(databasePath) ? maxReaders : 0);
+    }
+
+    /**
+     * Wrap an existing connection; all queries run on this connection
+     * @param connection the connection to use for both writing and reading
+     * @throws SQLException
+     */
+    public Database(Connection connection) throws SQLException {
+        this(null, connection, 0);
+    }
+
+    private Database(String databasePath, Connection writer, int maxReaders) throws SQLException {
+        Preconditions.notNull(writer, "Connection cannot be null");
+        Preconditions.argument(maxReaders >= 0, "Reader count cannot be negative");
+
+        this.databasePath = databasePath;
+        this.writer = writer;
+        this.writerReader = new Reader(writer);
+        this.maxReaders = maxReaders;
+        this.idleReaders = new ArrayBlockingQueue<>(Math.max(maxReaders, 1));
+
+        applyPragmas(writer, WRITER_PRAGMAS);
+    }
+
+    public static Database openDefault() throws SQLException {
+        return new Database(Paths.get(FileManager.getDataDirectory(), ConnectionSelector.defaultDatabaseName).toString());
+    }
+
+    public static Database openTestnet() throws SQLException {
+        return new Database(Paths.get(FileManager.getDataDirectory(), ConnectionSelector.testDatabaseName).toString());
+    }
+
+    public static Database openInMemory() throws SQLException {
+        return new Database((String) null);
+    }
+
+    /**
+     * Get the writer connection shared by the stores;
+     * the connection is owned by the database and closed by close()
+     * @return the writer connection
+     */
+    public Connection getConnection() {
+        return writer;
+    }
+
+    /**
+     * Run the query on a read-only connection from the pool,
+     * waiting for a connection if all of them are in use.
+     * The query only sees committed data; without a pool
+     * it runs on the writer connection instead
+     * @param query the query to run
+     * @return the query result
+     * @throws SQLException
+     */
+    public <T> T read(Query<T> query) throws SQLException {
+        if (maxReaders == 0) {
+            synchronized (writerReader) {
+                return query.run(writerReader.connection, writerReader.statements);
+            }
+        }
+
+        Reader reader = acquireReader();
+        try {
+            return query.run(reader.connection, reader.statements);
+        } finally {
+            idleReaders.offer(reader);
+        }
+    }
+
+    public synchronized void close() {
+        if (closed) return;
+        closed = true;
+
+        for (Reader reader : readers) {
+            close(reader);
+        }
+        readers.clear();
+        idleReaders.clear();
+        close(writerReader);
+    }
+
+    private Reader acquireReader() throws SQLException {
+        Reader reader = idleReaders.poll();
+        if (reader != null) return reader;
+
+        synchronized (this) {
+            if (closed) throw new SQLException("The database is closed");
+
+            if (readers.size() < maxReaders) {
+                Connection connection = ConnectionSelector.setConnection(databasePath);
+                try {
+                    applyPragmas(connection, READER_PRAGMAS);
+                } catch (SQLException e) {
+                    connection.close();
+                    throw e;
+                }
+
+                reader = new Reader(connection);
+                readers.add(reader);
+                return reader;
+            }
+        }
+
+        try {
+            return idleReaders.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+    }
+
+    // the readers of a shared cache take table locks instead of WAL snapshots and fail
+    // with SQLITE_LOCKED during the writer transactions, and every connection
+    // to :memory: opens a database of its own, so the queries run on the writer
+    private static boolean canPoolReaders(String databasePath) {
+        return databasePath != null
+                && !databasePath.contains(":memory:")
+                && !databasePath.contains("mode=memory")
+                && !databasePath.contains("cache=shared");
+    }
+
+    private static void applyPragmas(Connection connection, String[] pragmas) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            for (String pragma : pragmas) {
+                stmt.execute(pragma);
+            }
+        }
+    }
+
+    private static void close(Reader reader) {
+        reader.statements.clear();
+        try {
+            reader.connection.close();
+        } catch (SQLException e) {
+            log.debug("Error closing database connection", e);
+        }
+    }
+}
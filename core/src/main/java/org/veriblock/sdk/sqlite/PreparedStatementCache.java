@@ -0,0 +1,94 @@
+// VeriBlock Blockchain Project
+// Copyright 2017-2018 VeriBlock, Inc
+// Copyright 2018-2019 Xenios SEZC
+// All rights reserved.
+// https://www.veriblock.org
+// Distributed under the MIT software license, see the accompanying
+// file LICENSE or http://www.opensource.org/licenses/mit-license.php.
+
+package org.veriblock.sdk.sqlite;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps the prepared statements of a connection for reuse.
+ *
+ * Statements are keyed by their SQL text. Once the cache grows past
+ * its capacity the least recently used statement is closed, which bounds
+ * the number of statements created by queries with dynamic IN-lists.
+ * Statements handed out by the cache are owned by it and must not be
+ * closed by the caller; the caller must also make sure a statement is
+ * not used by several threads at once.
+ */
+public class PreparedStatementCache {
+    private static final Logger log = LoggerFactory.getLogger(PreparedStatementCache.class);
+
+    public static final int DEFAULT_CAPACITY = 32;
+
+    private final Connection connection;
+    private final Map<String, PreparedStatement> statements;
+
+    public PreparedStatementCache(Connection connection) {
+        this(connection, DEFAULT_CAPACITY);
+    }
+
+    public PreparedStatementCache(Connection connection, int capacity) {
+        this.connection = connection;
+        this.statements = new LinkedHashMap<String, PreparedStatement>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                if (size() <= capacity) return false;
+
+                close(eldest.getValue());
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Get a prepared statement for the given SQL text,
+     * preparing it on the first request
+     * @param sql the SQL text
+     * @return the cached prepared statement
+     * @throws SQLException
+     */
+    public synchronized PreparedStatement get(String sql) throws SQLException {
+        PreparedStatement stmt = statements.get(sql);
+        if (stmt == null || stmt.isClosed()) {
+            stmt = connection.prepareStatement(sql);
+            statements.put(sql, stmt);
+        }
+        return stmt;
+    }
+
+    public synchronized int size() {
+        return statements.size();
+    }
+
+    /**
+     * Close all cached statements
+     */
+    public synchronized void clear() {
+        for (PreparedStatement stmt : statements.values()) {
+            close(stmt);
+        }
+        statements.clear();
+    }
+
+    private static void close(PreparedStatement stmt) {
+        try {
+            stmt.close();
+        } catch (SQLException e) {
+            log.debug("Error closing prepared statement", e);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+// VeriBlock Blockchain Project
+// Copyright 2017-2018 VeriBlock, Inc
+// Copyright 2018-2019 Xenios SEZC
+// All rights reserved.
+// https://www.veriblock.org
+// Distributed under the MIT software license, see the accompanying
+// file LICENSE or http://www.opensource.org/licenses/mit-license.php.
+
+package org.veriblock.sdk.sqlite;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Explicit transactions on top of the JDBC auto-commit mode.
+ *
+ * Several stores may share one connection, so beginning a transaction
+ * that is already open joins it, and committing or rolling back
+ * a transaction that has already been finished is a no-op.
+ */
+public class Transactions {
+
+    private Transactions() { }
+
+    public static void begin(Connection connection) throws SQLException {
+        if (connection.getAutoCommit()) {
+            connection.setAutoCommit(false);
+        }
+    }
+
+    public static void commit(Connection connection) throws SQLException {
+        if (!connection.getAutoCommit()) {
+            connection.commit();
+            connection.setAutoCommit(true);
+        }
+    }
+
+    public static void rollback(Connection connection) throws SQLException {
+        if (!connection.getAutoCommit()) {
+            connection.rollback();
+            connection.setAutoCommit(true);
+        }
+    }
+}
@@ -12,54 +12,82 @@ package org.veriblock.sdk.sqlite.tables;
 import org.veriblock.sdk.models.AltPublication;
 import org.veriblock.sdk.models.Sha256Hash;
 import org.veriblock.sdk.services.SerializeDeserializeService;
-import org.veriblock.sdk.util.Utils;
+import org.veriblock.sdk.sqlite.PreparedStatementCache;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 
 public class AltPublicationRepository {
     private Connection connectionSource;
+    private PreparedStatementCache statements;
 
     public final static String tableName = "alt_publication";
     public final static String altPublicationHash = "hash";
     public final static String altPublicationDataColumnName = "data";
 
+    // the hash is the binary SHA-256 of the data; the legacy schema stored it hex encoded as TEXT
+    private static final String schema = altPublicationHash + " BLOB PRIMARY KEY,\n "
+            + altPublicationDataColumnName + " BLOB NOT NULL\n ";
+
+    private static final String saveStatement = " REPLACE INTO " + tableName + " ('" + altPublicationHash + "' , '" + altPublicationDataColumnName + "') " +
+            "VALUES(?, ?) ";
+    // the publications of the given ones that no PoP transaction but the given ones refers to
+    private static final String deleteUnreferencedStatement = "DELETE FROM " + tableName + " WHERE " + altPublicationHash + " IN (%s)" +
+            " AND NOT EXISTS (SELECT 1 FROM " + PoPTransactionsRepository.tableName +
+            " WHERE " + PoPTransactionsRepository.tableName + "." + PoPTransactionsRepository.altPublicationHashColumnName + " = " + tableName + "." + altPublicationHash +
+            " AND " + PoPTransactionsRepository.tableName + "." + PoPTransactionsRepository.txHashColumnName + " NOT IN (%s))";
+
     public AltPublicationRepository(Connection connection) throws SQLException {
         this.connectionSource = connection;
+        this.statements = new PreparedStatementCache(connection);
+        if (TableMigration.isLegacy(connectionSource, tableName, altPublicationHash, "BLOB")) {
+            TableMigration.migrate(connectionSource, tableName, schema,
+                    Arrays.asList(altPublicationHash, altPublicationDataColumnName),
+                    Collections.singleton(altPublicationHash));
+        }
+
         try(Statement stmt = connectionSource.createStatement()){
             stmt.execute("CREATE TABLE IF NOT EXISTS " + tableName
                     + "(\n "
-                    + altPublicationHash + " TEXT PRIMARY KEY,\n "
-                    + altPublicationDataColumnName + " BLOB NOT NULL\n "
+                    + schema
                     + ");");
         }
-
-        try(Statement stmt = connectionSource.createStatement()) {
-            stmt.execute("PRAGMA journal_mode=WAL;");
-        }
     }
 
-    public void clear() throws SQLException {
+    public synchronized void clear() throws SQLException {
         try(Statement stmt = connectionSource.createStatement()){
             stmt.execute( "DELETE FROM " + tableName);
         }
     }
 
-    public String save(AltPublication publication) throws SQLException {
-        String hash;
-        String sql = " REPLACE INTO " + tableName + " ('" + altPublicationHash + "' , '" + altPublicationDataColumnName + "') " +
-                "VALUES(?, ?) ";
-        try(PreparedStatement stmt = connectionSource.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)){
-            byte[] bytes = SerializeDeserializeService.serialize(publication);
-            hash = Utils.encodeHex(Sha256Hash.hash(bytes));
-            stmt.setString(1, hash);
-            stmt.setBytes(2, bytes);
-            stmt.executeUpdate();
-        }
+    public synchronized byte[] save(AltPublication publication) throws SQLException {
+        PreparedStatement stmt = statements.get(saveStatement);
+        byte[] bytes = SerializeDeserializeService.serialize(publication);
+        byte[] hash = Sha256Hash.hash(bytes);
+        stmt.setBytes(1, hash);
+        stmt.setBytes(2, bytes);
+        stmt.executeUpdate();
         return hash;
     }
 
+    public synchronized int deleteUnreferenced(Collection<byte[]> hashes, Collection<String> txHashes) throws SQLException {
+        if (hashes.isEmpty()) return 0;
 
+        PreparedStatement stmt = statements.get(String.format(deleteUnreferencedStatement,
+                String.join(",", Collections.nCopies(hashes.size(), "?")),
+                String.join(",", Collections.nCopies(txHashes.size(), "?"))));
+        int i = 0;
+        for (byte[] hash : hashes) {
+            stmt.setBytes(++i, hash);
+        }
+        for (String txHash : txHashes) {
+            stmt.setString(++i, txHash);
+        }
+        return stmt.executeUpdate();
+    }
 }
@@ -8,6 +8,7 @@
 
 package org.veriblock.sdk.sqlite.tables;
 
+import org.veriblock.sdk.sqlite.PreparedStatementCache;
 import org.veriblock.sdk.util.Utils;
 
 import java.sql.Connection;
@@ -16,94 +17,126 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class AuditorChangesRepository {
     private Connection connectionSource;
+    private PreparedStatementCache statements;
+
+    // one row per block with the serialized changeset
+    private static final String saveStatement = "REPLACE INTO tableAuditorChangesets "
+            + "('blockId', 'blockHeight', 'data') VALUES(?, ?, ?)";
+    // keeps the height recorded for the block
+    private static final String saveDataStatement = "INSERT INTO tableAuditorChangesets ('blockId', 'data') VALUES(?, ?) "
+            + "ON CONFLICT(blockId) DO UPDATE SET data = excluded.data";
+    private static final String getStatement = "SELECT data FROM tableAuditorChangesets WHERE blockId = ?";
+    private static final String deleteStatement = "DELETE FROM tableAuditorChangesets WHERE blockId = ?";
+    private static final String saveBlockHeightStatement = "UPDATE tableAuditorChangesets SET blockHeight = ? WHERE blockId = ?";
+    private static final String getBlockIdsBelowHeightStatement = "SELECT blockId FROM tableAuditorChangesets WHERE blockHeight < ? "
+            + "ORDER BY blockHeight LIMIT ?";
+    private static final String deleteBlocksStatement = "DELETE FROM tableAuditorChangesets WHERE blockId IN (%s)";
+
+    // the legacy schema stored each change in its own row with hex encoded values
+    private static final String getLegacyChangesStatement = "SELECT * FROM tableAuditorChanges ORDER BY blockId, sequenceNum, id";
+    private static final String getLegacyBlockHeightsStatement = "SELECT blockId, blockHeight FROM tableAuditorBlocks";
 
     public AuditorChangesRepository(Connection connection) throws SQLException {
         this.connectionSource = connection;
+        this.statements = new PreparedStatementCache(connection);
         try (Statement stmt = connectionSource.createStatement()) {
-            stmt.execute("CREATE TABLE IF NOT EXISTS tableAuditorChanges (\n"
-                    + " id INTEGER PRIMARY KEY,\n"
-                    + " blockId TEXT NOT NULL,\n"
-                    + " networkId TEXT,\n"
-                    + " operation INTEGER,\n"
-                    + " sequenceNum INTEGER,\n"
-                    + " oldValue TEXT,\n"
-                    + " newValue TEXT\n"
+            stmt.execute("CREATE TABLE IF NOT EXISTS tableAuditorChangesets (\n"
+                    + " blockId BLOB PRIMARY KEY,\n"
+                    + " blockHeight INTEGER,\n"
+                    + " data BLOB NOT NULL\n"
                     + ");");
-
         }
 
-        try (Statement stmt = connectionSource.createStatement()) {
-            stmt.execute("PRAGMA journal_mode=WAL;");
-        }
+        TableMigration.createIndex(connectionSource, "tableAuditorChangesets", "blockHeight", "blockHeight");
     }
 
-    public void clear() throws SQLException {
+    public synchronized void clear() throws SQLException {
         try (Statement stmt = connectionSource.createStatement()) {
-            stmt.execute("DELETE FROM tableAuditorChanges");
+            stmt.execute("DELETE FROM tableAuditorChangesets");
         }
     }
 
-    public void save(AuditorChangeData change) throws SQLException {
-        try (PreparedStatement stmt = connectionSource.prepareStatement("REPLACE INTO tableAuditorChanges "
-                + "('id', 'blockId', 'networkId', 'operation', 'sequenceNum', 'oldValue', 'newValue') "
-                + "VALUES(?, ?, ?, ?, ?, ?, ?)")) {
-            int i = 0;
-            stmt.setObject(++i, change.id);
-            stmt.setObject(++i, change.blockId);
-            stmt.setObject(++i, change.networkId);
-            stmt.setObject(++i, change.operation);
-            stmt.setObject(++i, change.sequenceNum);
-            stmt.setObject(++i, Utils.encodeHex(change.oldValue));
-            stmt.setObject(++i, Utils.encodeHex(change.newValue));
-            stmt.execute();
+    public synchronized void save(byte[] blockId, Long blockHeight, byte[] data) throws SQLException {
+        PreparedStatement stmt = statements.get(saveStatement);
+        int i = 0;
+        stmt.setBytes(++i, blockId);
+        stmt.setObject(++i, blockHeight);
+        stmt.setBytes(++i, data);
+        stmt.execute();
+    }
+
+    public synchronized void save(byte[] blockId, byte[] data) throws SQLException {
+        PreparedStatement stmt = statements.get(saveDataStatement);
+        int i = 0;
+        stmt.setBytes(++i, blockId);
+        stmt.setBytes(++i, data);
+        stmt.execute();
+    }
+
+    public synchronized byte[] get(byte[] blockId) throws SQLException {
+        PreparedStatement stmt = statements.get(getStatement);
+        stmt.setBytes(1, blockId);
+        try (ResultSet resultSet = stmt.executeQuery()) {
+            return resultSet.next() ? resultSet.getBytes("data") : null;
         }
     }
 
-    public AuditorChangeData get(Long id) throws SQLException {
-        List<AuditorChangeData> values = new ArrayList<AuditorChangeData>();
-        try (PreparedStatement stmt = connectionSource.prepareStatement("SELECT * FROM tableAuditorChanges WHERE id = ?")) {
-            int i = 0;
-            stmt.setObject(++i, id);
-            ResultSet resultSet = stmt.executeQuery();
+    public synchronized void delete(byte[] blockId) throws SQLException {
+        PreparedStatement stmt = statements.get(deleteStatement);
+        stmt.setBytes(1, blockId);
+        stmt.execute();
+    }
 
-            while (resultSet.next()) {
-                AuditorChangeData data = new AuditorChangeData();
-                data.id = resultSet.getLong("id");
-                data.blockId = resultSet.getString("blockId");
-                data.networkId = resultSet.getString("networkId");
-                data.operation = resultSet.getShort("operation");
-                data.sequenceNum = resultSet.getInt("sequenceNum");
-                data.oldValue = Utils.decodeHex(resultSet.getString("oldValue"));
-                data.newValue = Utils.decodeHex(resultSet.getString("newValue"));
+    public synchronized void saveBlockHeight(byte[] blockId, long height) throws SQLException {
+        PreparedStatement stmt = statements.get(saveBlockHeightStatement);
+        int i = 0;
+        stmt.setLong(++i, height);
+        stmt.setBytes(++i, blockId);
+        stmt.execute();
+    }
 
-                values.add(data);
+    public synchronized List<byte[]> getBlockIdsBelowHeight(long height, int limit) throws SQLException {
+        List<byte[]> values = new ArrayList<>();
+        PreparedStatement stmt = statements.get(getBlockIdsBelowHeightStatement);
+        int i = 0;
+        stmt.setLong(++i, height);
+        stmt.setInt(++i, limit);
+        try (ResultSet resultSet = stmt.executeQuery()) {
+            while (resultSet.next()) {
+                values.add(resultSet.getBytes("blockId"));
             }
         }
-
-        if (values.size() > 1) throw new SQLException("Not an unique id: " + id);
-        if (values.size() == 0) return null;
-        return values.get(0);
+        return values;
     }
 
-    public void delete(String blockId) throws SQLException {
-        try (PreparedStatement stmt = connectionSource.prepareStatement("DELETE FROM tableAuditorChanges WHERE blockId = ?")) {
-            int i = 0;
-            stmt.setObject(++i, blockId);
-            stmt.execute();
+    public synchronized void deleteBlocks(List<byte[]> blockIds) throws SQLException {
+        if (blockIds.isEmpty()) return;
+
+        PreparedStatement stmt = statements.get(String.format(deleteBlocksStatement,
+                String.join(",", Collections.nCopies(blockIds.size(), "?"))));
+        int i = 0;
+        for (byte[] blockId : blockIds) {
+            stmt.setBytes(++i, blockId);
         }
+        stmt.execute();
     }
 
-    public List<AuditorChangeData> getWithBlockId(String blockId) throws SQLException {
-        List<AuditorChangeData> values = new ArrayList<AuditorChangeData>();
-        try (PreparedStatement stmt = connectionSource.prepareStatement("SELECT * FROM tableAuditorChanges WHERE blockId = ?")) {
-            int i = 0;
-            stmt.setObject(++i, blockId);
-            ResultSet resultSet = stmt.executeQuery();
+    public synchronized boolean hasLegacyChanges() throws SQLException {
+        return TableMigration.getColumnType(connectionSource, "tableAuditorChanges", "blockId") != null;
+    }
 
+    // the legacy changes in the order of their blocks and sequence numbers
+    public synchronized List<AuditorChangeData> getLegacyChanges() throws SQLException {
+        List<AuditorChangeData> values = new ArrayList<AuditorChangeData>();
+        try (Statement stmt = connectionSource.createStatement();
+             ResultSet resultSet = stmt.executeQuery(getLegacyChangesStatement)) {
             while (resultSet.next()) {
                 AuditorChangeData data = new AuditorChangeData();
                 data.id = resultSet.getLong("id");
@@ -119,4 +152,25 @@ public class AuditorChangesRepository {
         }
         return values;
     }
-}
\ No newline at end of file
+
+    // the block heights recorded along with the legacy changes, by the hex encoded block identifier
+    public synchronized Map<String, Long> getLegacyBlockHeights() throws SQLException {
+        Map<String, Long> values = new HashMap<>();
+        if (TableMigration.getColumnType(connectionSource, "tableAuditorBlocks", "blockId") == null) return values;
+
+        try (Statement stmt = connectionSource.createStatement();
+             ResultSet resultSet = stmt.executeQuery(getLegacyBlockHeightsStatement)) {
+            while (resultSet.next()) {
+                values.put(resultSet.getString("blockId"), resultSet.getLong("blockHeight"));
+            }
+        }
+        return values;
+    }
+
+    public synchronized void dropLegacyTables() throws SQLException {
+        try (Statement stmt = connectionSource.createStatement()) {
+            stmt.execute("DROP TABLE IF EXISTS tableAuditorChanges");
+            stmt.execute("DROP TABLE IF EXISTS tableAuditorBlocks");
+        }
+    }
+}
@@ -21,6 +21,7 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 public class BitcoinBlockRepository extends GenericBlockRepository<StoredBitcoinBlock, Sha256Hash> {
@@ -30,37 +31,55 @@ public class BitcoinBlockRepository extends GenericBlockRepository<StoredBitcoin
 
         public void toStmt(StoredBitcoinBlock block, PreparedStatement stmt) throws SQLException {
             int i = 0;
-            stmt.setObject(++i, Utils.encodeHex(block.getHash().getBytes()));
-            stmt.setObject(++i, Utils.encodeHex(block.getBlock().getPreviousBlock().getBytes()));
-            stmt.setObject(++i, block.getHeight());
-            stmt.setObject(++i, block.getWork().toString());
-            stmt.setObject(++i, Utils.encodeHex(SerializeDeserializeService.serialize(block.getBlock())));
+            stmt.setBytes(++i, block.getHash().getBytes());
+            stmt.setBytes(++i, block.getBlock().getPreviousBlock().getBytes());
+            stmt.setInt(++i, block.getHeight());
+            // the cumulative work of the Bitcoin chain does not fit in a fixed width,
+            // so it is stored as a variable-length unsigned big-endian integer
+            stmt.setBytes(++i, block.getWork().toByteArray());
+            stmt.setBytes(++i, block.getBlock().getRaw());
         }
 
         public StoredBitcoinBlock fromResult(ResultSet result) throws SQLException {
+            BigInteger work = new BigInteger(1, result.getBytes("work"));
+            int height = result.getInt("height");
+
+            BitcoinBlock block = SerializeDeserializeService.parseBitcoinBlock(
+                    result.getBytes("data"), Sha256Hash.wrap(result.getBytes("id")));
+            return new StoredBitcoinBlock(block, work, height);
+        }
+
+        public StoredBitcoinBlock fromLegacyResult(ResultSet result) throws SQLException {
             byte[] data = Utils.decodeHex(result.getString("data"));
             BigInteger work = new BigInteger(result.getString("work"));
             int height = result.getInt("height");
 
             BitcoinBlock block = SerializeDeserializeService.parseBitcoinBlockWithLength(ByteBuffer.wrap(data));
-            StoredBitcoinBlock storedBlock = new StoredBitcoinBlock(block, work, height);
-            return storedBlock;
+            return new StoredBitcoinBlock(block, work, height);
         }
 
         public String getSchema() {
-            return  " id TEXT PRIMARY KEY,"
-                  + " previousId TEXT,"
+            return  " id BLOB PRIMARY KEY,"
+                  + " previousId BLOB,"
                   + " height INTEGER,"
-                  + " work TEXT,"
-                  + " data TEXT";
+                  + " work BLOB,"
+                  + " data BLOB";
         }
 
         public List<String> getColumns() {
             return Arrays.asList("id", "previousId", "height", "work", "data");
         }
 
-        public String idToString(Sha256Hash hash) {
-            return Utils.encodeHex(hash.getBytes());
+        public List<String> getIndexedColumns() {
+            return Collections.singletonList("previousId");
+        }
+
+        public String getSuffixColumn(int length) {
+            return length == Sha256Hash.BITCOIN_LENGTH ? "id" : null;
+        }
+
+        public byte[] idToBytes(Sha256Hash hash) {
+            return hash.getBytes();
         }
     };
 
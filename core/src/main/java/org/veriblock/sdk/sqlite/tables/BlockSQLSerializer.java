@@ -21,12 +21,22 @@ public interface BlockSQLSerializer<Block, Id> {
     // convert an SQL row to a block
     Block fromResult(ResultSet result)  throws SQLException;
 
+    // convert an SQL row of the legacy hex TEXT schema to a block
+    Block fromLegacyResult(ResultSet result)  throws SQLException;
+
     // get the SQL database schema to use to store block data
     String getSchema();
 
     // get the list of column names that match the schema
     List<String> getColumns();
 
-    // convert an id to a string
-    String idToString(Id id);
+    // get the list of columns that need a secondary index
+    List<String> getIndexedColumns();
+
+    // get the indexed column that holds the id suffix of the given length
+    // or null if there is no such column
+    String getSuffixColumn(int length);
+
+    // convert an id to its binary database representation
+    byte[] idToBytes(Id id);
 }
@@ -9,6 +9,8 @@
 package org.veriblock.sdk.sqlite.tables;
 
 import org.veriblock.sdk.models.AltChainBlock;
+import org.veriblock.sdk.models.Pair;
+import org.veriblock.sdk.sqlite.PreparedStatementCache;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
@@ -16,10 +18,15 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 public class ContainRepository {
     private Connection connectionSource;
+    private PreparedStatementCache statements;
 
     public static final String tableName = "contain";
     public static final String txHashColumnName = "tx_hash";
@@ -27,8 +34,19 @@ public class ContainRepository {
     public static final String blockHeightColumnName = "block_height";
     public static final String blockTimestampColumnName = "block_timestamp";
 
+    private static final String saveStatement = String.format("REPLACE INTO %s (%s, %s, %s, %s) VALUES(?, ?, ?, ?)", tableName,
+            txHashColumnName, blockHashColumnName, blockHeightColumnName, blockTimestampColumnName);
+    private static final String getStatement = "SELECT * FROM " + tableName + " WHERE " + blockHashColumnName + "  = ?";
+    private static final String getAllFromHeightStatement = "SELECT * FROM " + tableName + " WHERE " + blockHeightColumnName + " >= ?";
+    private static final String getBelowHeightStatement = "SELECT " + txHashColumnName + ", " + blockHashColumnName + " FROM " + tableName +
+            " WHERE " + blockHeightColumnName + " < ? ORDER BY " + blockHeightColumnName + " LIMIT ?";
+    private static final String getTxHashesFromHeightStatement = "SELECT DISTINCT " + txHashColumnName + " FROM " + tableName +
+            " WHERE " + txHashColumnName + " IN (%s) AND " + blockHeightColumnName + " >= ?";
+    private static final String deleteStatement = "DELETE FROM " + tableName + " WHERE " + txHashColumnName + " = ? AND " + blockHashColumnName + " = ?";
+
     public ContainRepository(Connection connection) throws SQLException {
         this.connectionSource = connection;
+        this.statements = new PreparedStatementCache(connection);
 
         try(Statement stmt = connectionSource.createStatement()) {
             stmt.execute("CREATE TABLE IF NOT EXISTS " + tableName
@@ -43,68 +61,115 @@ public class ContainRepository {
                     + ");");
         }
 
-        try(Statement stmt = connectionSource.createStatement()) {
-            stmt.execute("PRAGMA journal_mode=WAL;");
-        }
+        // cover the publication lookups by the containing block and the keystone lookups by height
+        TableMigration.createIndex(connectionSource, tableName, blockHashColumnName, blockHashColumnName, txHashColumnName);
+        TableMigration.createIndex(connectionSource, tableName, blockHeightColumnName, blockHeightColumnName);
     }
 
-    public void clear() throws SQLException {
+    public synchronized void clear() throws SQLException {
         try(Statement stmt = connectionSource.createStatement()){
             stmt.execute( "DELETE FROM " + tableName);
         }
     }
 
-    public void save(String txHash, AltChainBlock containingBlock) throws SQLException {
-        String sql = String.format("REPLACE INTO %s (%s, %s, %s, %s) VALUES(?, ?, ?, ?)", tableName,
-                txHashColumnName, blockHashColumnName, blockHeightColumnName, blockTimestampColumnName);
-        try(PreparedStatement stmt = connectionSource.prepareStatement(sql)) {
-            int i = 0;
-            stmt.setObject(++i, txHash);
-            stmt.setObject(++i, containingBlock.getHash());
-            stmt.setLong(++i, containingBlock.getHeight());
-            stmt.setInt(++i, containingBlock.getTimestamp());
-            stmt.execute();
-        }
+    public synchronized void save(String txHash, AltChainBlock containingBlock) throws SQLException {
+        PreparedStatement stmt = statements.get(saveStatement);
+        int i = 0;
+        stmt.setObject(++i, txHash);
+        stmt.setObject(++i, containingBlock.getHash());
+        stmt.setLong(++i, containingBlock.getHeight());
+        stmt.setInt(++i, containingBlock.getTimestamp());
+        stmt.execute();
     }
 
     public boolean isExist(AltChainBlock altChainBlock) throws SQLException {
         return get(altChainBlock.getHash()) != null;
     }
 
-    public AltChainBlock get(String hash) throws SQLException {
+    public synchronized AltChainBlock get(String hash) throws SQLException {
         AltChainBlock altChainBlock = null;
 
-        String sql = "SELECT * FROM " + tableName + " WHERE " + blockHashColumnName + "  = ?";
-        try (PreparedStatement stmt = connectionSource.prepareStatement(sql)) {
-            int i = 0;
-            stmt.setObject(++i, hash);
+        PreparedStatement stmt = statements.get(getStatement);
+        int i = 0;
+        stmt.setObject(++i, hash);
 
-            try (ResultSet resultSet = stmt.executeQuery()) {
-                if (!resultSet.isClosed()) {
-                    altChainBlock = mapper(resultSet);
-                }
+        try (ResultSet resultSet = stmt.executeQuery()) {
+            if (!resultSet.isClosed()) {
+                altChainBlock = mapper(resultSet);
             }
         }
         return altChainBlock;
     }
 
-    public List<AltChainBlock> getAllFromHeight(Long height) throws SQLException {
+    public synchronized List<AltChainBlock> getAllFromHeight(Long height) throws SQLException {
         List<AltChainBlock> altChainBlock = new ArrayList<>();
 
-        String sql = "SELECT * FROM " + tableName + " WHERE " + blockHeightColumnName + " >= ?";
-        try (PreparedStatement stmt = connectionSource.prepareStatement(sql)) {
-            int i = 0;
-            stmt.setLong(++i, height);
+        PreparedStatement stmt = statements.get(getAllFromHeightStatement);
+        int i = 0;
+        stmt.setLong(++i, height);
 
-            try (ResultSet resultSet = stmt.executeQuery()) {
-                while (resultSet.next()) {
-                    altChainBlock.add(mapper(resultSet));
-                }
+        try (ResultSet resultSet = stmt.executeQuery()) {
+            while (resultSet.next()) {
+                altChainBlock.add(mapper(resultSet));
             }
         }
         return altChainBlock;
     }
 
+    /**
+     * Get the PoP transactions contained in the blocks below the given height, lowest blocks first
+     * @param height the block height
+     * @param limit the maximum number of rows to return
+     * @return the pairs of the transaction hash and the containing block hash
+     * @throws SQLException
+     */
+    public synchronized List<Pair<String, String>> getBelowHeight(long height, int limit) throws SQLException {
+        List<Pair<String, String>> rows = new ArrayList<>();
+
+        PreparedStatement stmt = statements.get(getBelowHeightStatement);
+        int i = 0;
+        stmt.setLong(++i, height);
+        stmt.setInt(++i, limit);
+
+        try (ResultSet resultSet = stmt.executeQuery()) {
+            while (resultSet.next()) {
+                rows.add(new Pair<>(resultSet.getString(txHashColumnName), resultSet.getString(blockHashColumnName)));
+            }
+        }
+        return rows;
+    }
+
+    // the transactions of the given ones that are also contained in a block at or above the height
+    public synchronized Set<String> getTxHashesFromHeight(Collection<String> txHashes, long height) throws SQLException {
+        Set<String> result = new HashSet<>();
+        if (txHashes.isEmpty()) return result;
+
+        PreparedStatement stmt = statements.get(String.format(getTxHashesFromHeightStatement,
+                String.join(",", Collections.nCopies(txHashes.size(), "?"))));
+        int i = 0;
+        for (String txHash : txHashes) {
+            stmt.setString(++i, txHash);
+        }
+        stmt.setLong(++i, height);
+
+        try (ResultSet resultSet = stmt.executeQuery()) {
+            while (resultSet.next()) {
+                result.add(resultSet.getString(txHashColumnName));
+            }
+        }
+        return result;
+    }
+
+    public synchronized void delete(List<Pair<String, String>> rows) throws SQLException {
+        PreparedStatement stmt = statements.get(deleteStatement);
+        for (Pair<String, String> row : rows) {
+            stmt.setString(1, row.getFirst());
+            stmt.setString(2, row.getSecond());
+            stmt.addBatch();
+        }
+        stmt.executeBatch();
+    }
+
     private AltChainBlock mapper(ResultSet resultSet) throws SQLException {
         return new AltChainBlock(resultSet.getString(blockHashColumnName), resultSet.getLong(blockHeightColumnName), resultSet.getInt(blockTimestampColumnName));
     }
@@ -8,6 +8,11 @@
 
 package org.veriblock.sdk.sqlite.tables;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.veriblock.sdk.models.Pair;
+import org.veriblock.sdk.sqlite.PreparedStatementCache;
+
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -17,14 +22,41 @@ import java.util.ArrayList;
 import java.util.List;
 
 public class GenericBlockRepository<Block, Id> {
+    private static final Logger log = LoggerFactory.getLogger(GenericBlockRepository.class);
+
+    // the declared type of the id column in the current schema;
+    // the legacy schema stored hex encoded ids as TEXT
+    private static final String ID_COLUMN_TYPE = "BLOB";
+    private static final int MIGRATION_BATCH_SIZE = 1000;
+
     protected Connection connectionSource;
     protected String tableBlocks;
     protected BlockSQLSerializer<Block, Id> serializer;
+    protected PreparedStatementCache statements;
+
+    private final String saveStatement;
+    private final String getStatement;
+    private final String isInUseStatement;
+    private final String deleteStatement;
 
     public GenericBlockRepository(Connection connection, String tableName, BlockSQLSerializer<Block, Id> serializer) throws SQLException {
         this.connectionSource = connection;
         this.tableBlocks = tableName;
         this.serializer = serializer;
+        this.statements = new PreparedStatementCache(connection);
+
+        saveStatement = "REPLACE INTO "
+                + tableBlocks
+                + " (" + getColumnsString() + ") "
+                + "VALUES(" + getValuesString() + ")";
+        getStatement = "SELECT * FROM " + tableBlocks + " WHERE id = ?";
+        isInUseStatement = "SELECT id FROM " + tableBlocks + " WHERE previousId = ? LIMIT 1";
+        deleteStatement = "DELETE FROM " + tableBlocks + " WHERE id = ?";
+
+        // migrate the legacy TEXT schema in place
+        if (TableMigration.isLegacy(connectionSource, tableBlocks, "id", ID_COLUMN_TYPE)) {
+            migrate(tableBlocks);
+        }
 
         try (Statement stmt = connectionSource.createStatement()) {
             stmt.execute("CREATE TABLE IF NOT EXISTS "
@@ -34,12 +66,87 @@ public class GenericBlockRepository<Block, Id> {
                     + ");");
         }
 
-        try (Statement stmt = connectionSource.createStatement()) {
-            stmt.execute("PRAGMA journal_mode=WAL;");
+        // earlier versions renamed the legacy table before the copy,
+        // so a failed copy left the legacy rows next to the new table
+        String legacyTable = tableBlocks + "_legacy";
+        if (TableMigration.getColumnType(connectionSource, legacyTable, "id") != null) {
+            migrate(legacyTable);
+        }
+
+        for (String column : serializer.getIndexedColumns()) {
+            try (Statement stmt = connectionSource.createStatement()) {
+                stmt.execute("CREATE INDEX IF NOT EXISTS "
+                        + tableBlocks + "_" + column
+                        + " ON " + tableBlocks + " (" + column + ")");
+            }
         }
     }
 
-    public void clear() throws SQLException {
+    /**
+     * Copy all blocks of the legacy table into the current schema and drop the legacy table
+     * in a single transaction, so a failed migration leaves the legacy table untouched.
+     * The blocks of the table itself are copied into a new table that replaces it;
+     * the blocks of a leftover legacy table are added to the current table,
+     * keeping the blocks it already has
+     * @param legacyTable the table with the legacy schema
+     * @throws SQLException
+     */
+    private void migrate(String legacyTable) throws SQLException {
+        boolean inPlace = legacyTable.equals(tableBlocks);
+        String targetTable = inPlace ? tableBlocks + "_migration" : tableBlocks;
+        String insertStatement = "INSERT OR IGNORE INTO "
+                + targetTable
+                + " (" + getColumnsString() + ") "
+                + "VALUES(" + getValuesString() + ")";
+
+        log.info("Table {} uses the legacy schema and will be migrated", legacyTable);
+
+        boolean autoCommit = connectionSource.getAutoCommit();
+        connectionSource.setAutoCommit(false);
+
+        int count = 0;
+        try {
+            if (inPlace) {
+                try (Statement stmt = connectionSource.createStatement()) {
+                    stmt.execute("DROP TABLE IF EXISTS " + targetTable);
+                    stmt.execute("CREATE TABLE " + targetTable + " (\n" + serializer.getSchema() + ");");
+                }
+            }
+
+            try (Statement select = connectionSource.createStatement();
+                 ResultSet resultSet = select.executeQuery("SELECT * FROM " + legacyTable);
+                 PreparedStatement insert = connectionSource.prepareStatement(insertStatement)) {
+                while (resultSet.next()) {
+                    serializer.toStmt(serializer.fromLegacyResult(resultSet), insert);
+                    insert.addBatch();
+
+                    if (++count % MIGRATION_BATCH_SIZE == 0) {
+                        insert.executeBatch();
+                        log.info("Migrated {} blocks into {}", count, tableBlocks);
+                    }
+                }
+                insert.executeBatch();
+            }
+
+            try (Statement stmt = connectionSource.createStatement()) {
+                stmt.execute("DROP TABLE " + legacyTable);
+                if (inPlace) {
+                    stmt.execute("ALTER TABLE " + targetTable + " RENAME TO " + tableBlocks);
+                }
+            }
+
+            connectionSource.commit();
+        } catch (SQLException | RuntimeException e) {
+            connectionSource.rollback();
+            throw e;
+        } finally {
+            connectionSource.setAutoCommit(autoCommit);
+        }
+
+        log.info("Migrated {} blocks into {}", count, tableBlocks);
+    }
+
+    public synchronized void clear() throws SQLException {
         try (Statement stmt = connectionSource.createStatement()) {
             stmt.execute("DELETE FROM " + tableBlocks);
         }
@@ -64,64 +171,62 @@ public class GenericBlockRepository<Block, Id> {
         return values;
     }
 
-    public void save(Block block) throws SQLException {
-        String statement = "REPLACE INTO "
-                + tableBlocks
-                + " (" + getColumnsString() + ") "
-                + "VALUES(" + getValuesString() + ")";
-        try (PreparedStatement stmt = connectionSource.prepareStatement(statement)) {
-            serializer.toStmt(block, stmt);
-            stmt.execute();
-        }
+    public synchronized void save(Block block) throws SQLException {
+        PreparedStatement stmt = statements.get(saveStatement);
+        serializer.toStmt(block, stmt);
+        stmt.execute();
     }
 
-    public Block get(Id id) throws SQLException {
-        String statement = "SELECT * FROM " + tableBlocks + " WHERE id = ?";
-        try (PreparedStatement stmt = connectionSource.prepareStatement(statement)) {
-            int i = 0;
-            stmt.setObject(++i, serializer.idToString(id));
+    public synchronized Block get(Id id) throws SQLException {
+        PreparedStatement stmt = statements.get(getStatement);
+        int i = 0;
+        stmt.setBytes(++i, serializer.idToBytes(id));
 
-            List<Block> values = new ArrayList<Block>();
-            try (ResultSet resultSet = stmt.executeQuery()) {
-                while (resultSet.next())
-                    values.add(serializer.fromResult(resultSet));
-            }
+        List<Block> values = new ArrayList<Block>();
+        try (ResultSet resultSet = stmt.executeQuery()) {
+            while (resultSet.next())
+                values.add(serializer.fromResult(resultSet));
+        }
 
-            if (values.size() > 1) throw new SQLException("Not an unique id: " + id);
+        if (values.size() > 1) throw new SQLException("Not an unique id: " + id);
 
-            return values.size() == 0 ? null : values.get(0);
-        }
+        return values.size() == 0 ? null : values.get(0);
     }
 
-    public List<Block> getEndsWithId(Id id) throws SQLException {
-        String statement = "SELECT * FROM " + tableBlocks + " WHERE id LIKE ?";
-        try (PreparedStatement stmt = connectionSource.prepareStatement(statement)) {
-            int i = 0;
-            stmt.setObject(++i, "%" + serializer.idToString(id));
+    public synchronized List<Block> getEndsWithId(Id id) throws SQLException {
+        byte[] idBytes = serializer.idToBytes(id);
 
-            List<Block> values = new ArrayList<Block>();
-            try (ResultSet resultSet = stmt.executeQuery()) {
-                while (resultSet.next())
-                    values.add(serializer.fromResult(resultSet));
-            }
+        // the suffix columns turn the lookup into an index seek,
+        // other suffix lengths fall back to a table scan
+        String column = serializer.getSuffixColumn(idBytes.length);
+        String statement = column != null
+                ? "SELECT * FROM " + tableBlocks + " WHERE " + column + " = ?"
+                : "SELECT * FROM " + tableBlocks + " WHERE substr(id, -" + idBytes.length + ") = ?";
 
-            return values;
+        PreparedStatement stmt = statements.get(statement);
+        int i = 0;
+        stmt.setBytes(++i, idBytes);
+
+        List<Block> values = new ArrayList<Block>();
+        try (ResultSet resultSet = stmt.executeQuery()) {
+            while (resultSet.next())
+                values.add(serializer.fromResult(resultSet));
         }
+
+        return values;
     }
 
-    public boolean isInUse(Id id) throws SQLException {
-        String statement = "SELECT * FROM " + tableBlocks + " WHERE previousId = ?";
-        try (PreparedStatement stmt = connectionSource.prepareStatement(statement)) {
-            int i = 0;
-            stmt.setObject(++i, serializer.idToString(id));
+    public synchronized boolean isInUse(Id id) throws SQLException {
+        PreparedStatement stmt = statements.get(isInUseStatement);
+        int i = 0;
+        stmt.setBytes(++i, serializer.idToBytes(id));
 
-            try (ResultSet result = stmt.executeQuery()) {
-                return result.next();
-            }
+        try (ResultSet result = stmt.executeQuery()) {
+            return result.next();
         }
     }
 
-    public List<Block> getAll() throws SQLException {
+    public synchronized List<Block> getAll() throws SQLException {
         try (Statement stmt = connectionSource.createStatement()) {
             List<Block> values = new ArrayList<Block>();
             try (ResultSet resultSet = stmt.executeQuery("SELECT * FROM " + tableBlocks)) {
@@ -133,12 +238,22 @@ public class GenericBlockRepository<Block, Id> {
         }
     }
 
-    public void delete(Id id) throws SQLException {
-        String statement = "DELETE FROM " + tableBlocks + " WHERE id = ?";
-        try (PreparedStatement stmt = connectionSource.prepareStatement(statement)) {
-            int i = 0;
-            stmt.setObject(++i, serializer.idToString(id));
-            stmt.execute();
+    // get the (id, previousId) pairs of all blocks without deserializing them
+    public synchronized List<Pair<byte[], byte[]>> getAllIds() throws SQLException {
+        try (Statement stmt = connectionSource.createStatement()) {
+            List<Pair<byte[], byte[]>> values = new ArrayList<Pair<byte[], byte[]>>();
+            try (ResultSet resultSet = stmt.executeQuery("SELECT id, previousId FROM " + tableBlocks)) {
+                while (resultSet.next())
+                    values.add(new Pair<byte[], byte[]>(resultSet.getBytes("id"), resultSet.getBytes("previousId")));
+            }
+            return values;
         }
     }
+
+    public synchronized void delete(Id id) throws SQLException {
+        PreparedStatement stmt = statements.get(deleteStatement);
+        int i = 0;
+        stmt.setBytes(++i, serializer.idToBytes(id));
+        stmt.execute();
+    }
 }
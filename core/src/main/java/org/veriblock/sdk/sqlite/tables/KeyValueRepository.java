@@ -8,6 +8,8 @@
 
 package org.veriblock.sdk.sqlite.tables;
 
+import org.veriblock.sdk.sqlite.PreparedStatementCache;
+
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -17,9 +19,14 @@ import java.sql.Statement;
 public class KeyValueRepository {
 
     private Connection connectionSource;
+    private PreparedStatementCache statements;
+
+    private static final String saveStatement = "REPLACE INTO genericCache ('key', 'value') VALUES(?, ?)";
+    private static final String getValueStatement = "SELECT key, value FROM genericCache WHERE key = ?";
 
     public KeyValueRepository(Connection connection) throws SQLException {
         this.connectionSource = connection;
+        this.statements = new PreparedStatementCache(connection);
 
         try (Statement stmt = connectionSource.createStatement()) {
             stmt.execute("CREATE TABLE IF NOT EXISTS genericCache (\n"
@@ -27,42 +34,34 @@ public class KeyValueRepository {
                     + " value TEXT\n"
                     + ");");
         }
-
-        try (Statement stmt = connectionSource.createStatement()) {
-            stmt.execute("PRAGMA journal_mode=WAL;");
-        }
     }
 
-    public void clear() throws SQLException {
+    public synchronized void clear() throws SQLException {
         try (Statement stmt = connectionSource.createStatement()) {
             stmt.execute("DELETE FROM genericCache");
         }
     }
 
-    public void save(String key, String value) throws SQLException {
-        String statement = "REPLACE INTO genericCache ('key', 'value') VALUES(?, ?)";
-        try (PreparedStatement stmt = connectionSource.prepareStatement(statement)) {
-            int i = 0;
-            stmt.setObject(++i, key);
-            stmt.setObject(++i, value);
-            stmt.execute();
-        }
+    public synchronized void save(String key, String value) throws SQLException {
+        PreparedStatement stmt = statements.get(saveStatement);
+        int i = 0;
+        stmt.setObject(++i, key);
+        stmt.setObject(++i, value);
+        stmt.execute();
     }
 
-    public String getValue(String key) throws SQLException {
-        String statement = "SELECT key, value FROM genericCache WHERE key = ?";
-        try (PreparedStatement stmt = connectionSource.prepareStatement(statement)) {
-            int i = 0;
-            stmt.setObject(++i, key);
-            try (ResultSet resultSet = stmt.executeQuery()) {
-                if (!resultSet.next()) return null;
+    public synchronized String getValue(String key) throws SQLException {
+        PreparedStatement stmt = statements.get(getValueStatement);
+        int i = 0;
+        stmt.setObject(++i, key);
+        try (ResultSet resultSet = stmt.executeQuery()) {
+            if (!resultSet.next()) return null;
 
-                String value = resultSet.getString("value");
+            String value = resultSet.getString("value");
 
-                if (!resultSet.next()) return value;
+            if (!resultSet.next()) return value;
 
-                throw new SQLException("Not an unique id: " + key);
-            }
+            throw new SQLException("Not an unique id: " + key);
         }
     }
 }
@@ -8,34 +8,59 @@
 
 package org.veriblock.sdk.sqlite.tables;
 
+import org.veriblock.sdk.sqlite.PreparedStatementCache;
+
 import java.sql.Connection;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 
 public class PoPTransactionsRepository {
 
     private Connection connectionSource;
+    private PreparedStatementCache statements;
 
     public static final String tableName = "PoPTransactions";
     public static final String txHashColumnName = "txHash";
     public static final String endorsedBlockHashColumnName = "endorsedBlockHash";
     public static final String altPublicationHashColumnName = "AltPublicationHash";
 
+    // the publication hash is binary; the legacy schema stored it hex encoded as TEXT
+    private static final String schema = txHashColumnName + " TEXT PRIMARY KEY,\n "
+            + endorsedBlockHashColumnName + " TEXT NOT NULL,\n "
+            + altPublicationHashColumnName + " BLOB NOT NULL,\n "
+            + " FOREIGN KEY (" + altPublicationHashColumnName + ")\n "
+            + " REFERENCES " + AltPublicationRepository.tableName + " (" + AltPublicationRepository.altPublicationHash + ")\n ";
+
+    private static final String saveStatement = "REPLACE INTO " + tableName + " ('" + txHashColumnName + "', '" + endorsedBlockHashColumnName + "', '" + altPublicationHashColumnName + "') " +
+            "VALUES(?, ?, ?)";
+    private static final String getAltPublicationHashesStatement = "SELECT DISTINCT " + altPublicationHashColumnName + " FROM " + tableName +
+            " WHERE " + txHashColumnName + " IN (%s)";
+    private static final String deleteStatement = "DELETE FROM " + tableName + " WHERE " + txHashColumnName + " IN (%s)";
+
     public PoPTransactionsRepository(Connection connection) throws SQLException
     {
         this.connectionSource = connection;
+        this.statements = new PreparedStatementCache(connection);
+
+        if (TableMigration.isLegacy(connectionSource, tableName, altPublicationHashColumnName, "BLOB")) {
+            TableMigration.migrate(connectionSource, tableName, schema,
+                    Arrays.asList(txHashColumnName, endorsedBlockHashColumnName, altPublicationHashColumnName),
+                    Collections.singleton(altPublicationHashColumnName));
+        }
 
         Statement stmt = null;
         try{
             stmt = connectionSource.createStatement();
             stmt.execute("CREATE TABLE IF NOT EXISTS " + tableName
                     + "(\n "
-                    + txHashColumnName + " TEXT PRIMARY KEY,\n "
-                    + endorsedBlockHashColumnName + " TEXT NOT NULL,\n "
-                    + altPublicationHashColumnName + " TEXT NOT NULL,\n "
-                    + " FOREIGN KEY (" + altPublicationHashColumnName + ")\n "
-                    + " REFERENCES " + AltPublicationRepository.tableName + " (" + AltPublicationRepository.altPublicationHash + ")\n "
+                    + schema
                     + ");");
         }
         finally{
@@ -43,15 +68,14 @@ public class PoPTransactionsRepository {
             stmt = null;
         }
 
-        try {
-            stmt = connectionSource.createStatement();
-            stmt.execute("PRAGMA journal_mode=WAL;");
-        } finally {
-            if(stmt != null) stmt.close();
-        }
+        // covers the endorsement lookups by the endorsed block
+        TableMigration.createIndex(connectionSource, tableName, endorsedBlockHashColumnName,
+                endorsedBlockHashColumnName, txHashColumnName, altPublicationHashColumnName);
+        // the pruning looks up the remaining references to a publication
+        TableMigration.createIndex(connectionSource, tableName, altPublicationHashColumnName, altPublicationHashColumnName);
     }
 
-    public void clear() throws SQLException
+    public synchronized void clear() throws SQLException
     {
         Statement stmt = null;
         try{
@@ -63,19 +87,46 @@ public class PoPTransactionsRepository {
         }
     }
 
-    public void save(String txHash, String endoresedBlockHash, String altPublicationIndex) throws SQLException
+    public synchronized void save(String txHash, String endoresedBlockHash, byte[] altPublicationHash) throws SQLException
     {
-        PreparedStatement stmt = null;
-        try {
-            stmt = connectionSource.prepareStatement("REPLACE INTO " + tableName + " ('" + txHashColumnName + "', '" + endorsedBlockHashColumnName + "', '" + altPublicationHashColumnName + "') " +
-                    "VALUES(?, ?, ?)");
-            int i = 0;
-            stmt.setObject(++i, txHash);
-            stmt.setObject(++i, endoresedBlockHash);
-            stmt.setObject(++i, altPublicationIndex);
-            stmt.execute();
-        } finally {
-            if(stmt != null) stmt.close();
+        PreparedStatement stmt = statements.get(saveStatement);
+        int i = 0;
+        stmt.setObject(++i, txHash);
+        stmt.setObject(++i, endoresedBlockHash);
+        stmt.setBytes(++i, altPublicationHash);
+        stmt.execute();
+    }
+
+    public synchronized List<byte[]> getAltPublicationHashes(Collection<String> txHashes) throws SQLException
+    {
+        List<byte[]> hashes = new ArrayList<>();
+        if (txHashes.isEmpty()) return hashes;
+
+        PreparedStatement stmt = statements.get(String.format(getAltPublicationHashesStatement,
+                String.join(",", Collections.nCopies(txHashes.size(), "?"))));
+        int i = 0;
+        for (String txHash : txHashes) {
+            stmt.setString(++i, txHash);
+        }
+
+        try (ResultSet resultSet = stmt.executeQuery()) {
+            while (resultSet.next()) {
+                hashes.add(resultSet.getBytes(altPublicationHashColumnName));
+            }
+        }
+        return hashes;
+    }
+
+    public synchronized void delete(Collection<String> txHashes) throws SQLException
+    {
+        if (txHashes.isEmpty()) return;
+
+        PreparedStatement stmt = statements.get(String.format(deleteStatement,
+                String.join(",", Collections.nCopies(txHashes.size(), "?"))));
+        int i = 0;
+        for (String txHash : txHashes) {
+            stmt.setString(++i, txHash);
         }
+        stmt.execute();
     }
 }
@@ -8,35 +8,60 @@
 
 package org.veriblock.sdk.sqlite.tables;
 
+import org.veriblock.sdk.sqlite.PreparedStatementCache;
+
 import java.sql.Connection;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 
 public class PoPTransactionsVeriblockPublicationRefRepository {
 
     private Connection connectionSource;
+    private PreparedStatementCache statements;
 
     public static final String tableName = "PoPTransactionsVeriblockPublicationRef";
     public static final String txHashColumnName = "txHash";
     public static final String veriBlockPublicationHashColumnName = "veriBlockPublicationHash";
 
+    // the publication hash is binary; the legacy schema stored it hex encoded as TEXT
+    private static final String schema = txHashColumnName + " TEXT NOT NULL,\n "
+            + veriBlockPublicationHashColumnName + " BLOB NOT NULL,\n "
+            + " PRIMARY KEY (" + txHashColumnName + "," + veriBlockPublicationHashColumnName + ")\n "
+            + " FOREIGN KEY (" + txHashColumnName + ")\n "
+            + " REFERENCES " + PoPTransactionsRepository.tableName + " (" + PoPTransactionsRepository.txHashColumnName + ")\n "
+            + " FOREIGN KEY (" + veriBlockPublicationHashColumnName + ")\n "
+            + " REFERENCES " + VeriBlockPublicationRepository.tableName + " (" + VeriBlockPublicationRepository.veriBlockPublicationHashColumnName + ")\n ";
+
+    private static final String saveStatement = "REPLACE INTO " + tableName + " ('" + txHashColumnName + "', '" + veriBlockPublicationHashColumnName + "') " +
+            "VALUES(?, ?)";
+    private static final String getVeriBlockPublicationHashesStatement = "SELECT DISTINCT " + veriBlockPublicationHashColumnName + " FROM " + tableName +
+            " WHERE " + txHashColumnName + " IN (%s)";
+    private static final String deleteStatement = "DELETE FROM " + tableName + " WHERE " + txHashColumnName + " IN (%s)";
+
     public PoPTransactionsVeriblockPublicationRefRepository(Connection connection) throws SQLException
     {
         this.connectionSource = connection;
+        this.statements = new PreparedStatementCache(connection);
+
+        if (TableMigration.isLegacy(connectionSource, tableName, veriBlockPublicationHashColumnName, "BLOB")) {
+            TableMigration.migrate(connectionSource, tableName, schema,
+                    Arrays.asList(txHashColumnName, veriBlockPublicationHashColumnName),
+                    Collections.singleton(veriBlockPublicationHashColumnName));
+        }
 
         Statement stmt = null;
         try{
             stmt = connectionSource.createStatement();
             stmt.execute("CREATE TABLE IF NOT EXISTS " + tableName
                     + "(\n "
-                    + txHashColumnName + " TEXT NOT NULL,\n "
-                    + veriBlockPublicationHashColumnName + " TEXT NOT NULL,\n "
-                    + " PRIMARY KEY (" + txHashColumnName + "," + veriBlockPublicationHashColumnName + ")\n "
-                    + " FOREIGN KEY (" + txHashColumnName + ")\n "
-                    + " REFERENCES " + PoPTransactionsRepository.tableName + " (" + PoPTransactionsRepository.txHashColumnName + ")\n "
-                    + " FOREIGN KEY (" + veriBlockPublicationHashColumnName + ")\n "
-                    + " REFERENCES " + VeriBlockPublicationRepository.tableName + " (" + VeriBlockPublicationRepository.veriBlockPublicationHashColumnName + ")\n "
+                    + schema
                     + ");");
         }
         finally{
@@ -44,17 +69,11 @@ public class PoPTransactionsVeriblockPublicationRefRepository {
             stmt = null;
         }
 
-        try {
-            stmt = connectionSource.createStatement();
-            stmt.execute("PRAGMA journal_mode=WAL;");
-        } finally {
-            if(stmt != null) stmt.close();
-            stmt = null;
-        }
-
+        // the pruning looks up the remaining references to a publication
+        TableMigration.createIndex(connectionSource, tableName, veriBlockPublicationHashColumnName, veriBlockPublicationHashColumnName);
     }
 
-    public void clear() throws SQLException
+    public synchronized void clear() throws SQLException
     {
         Statement stmt = null;
         try{
@@ -67,19 +86,45 @@ public class PoPTransactionsVeriblockPublicationRefRepository {
         }
     }
 
-    public void save(String txHash, String veriBlockPublicationId) throws SQLException
+    public synchronized void save(String txHash, byte[] veriBlockPublicationHash) throws SQLException
     {
-        PreparedStatement stmt = null;
-        try {
-            stmt = connectionSource.prepareStatement("REPLACE INTO " + tableName + " ('" + txHashColumnName + "', '" + veriBlockPublicationHashColumnName + "') " +
-                    "VALUES(?, ?)");
-            int i = 0;
-            stmt.setObject(++i, txHash);
-            stmt.setObject(++i, veriBlockPublicationId);
-            stmt.execute();
-        } finally {
-            if(stmt != null) stmt.close();
-            stmt = null;
+        PreparedStatement stmt = statements.get(saveStatement);
+        int i = 0;
+        stmt.setObject(++i, txHash);
+        stmt.setBytes(++i, veriBlockPublicationHash);
+        stmt.execute();
+    }
+
+    public synchronized List<byte[]> getVeriBlockPublicationHashes(Collection<String> txHashes) throws SQLException
+    {
+        List<byte[]> hashes = new ArrayList<>();
+        if (txHashes.isEmpty()) return hashes;
+
+        PreparedStatement stmt = statements.get(String.format(getVeriBlockPublicationHashesStatement,
+                String.join(",", Collections.nCopies(txHashes.size(), "?"))));
+        int i = 0;
+        for (String txHash : txHashes) {
+            stmt.setString(++i, txHash);
+        }
+
+        try (ResultSet resultSet = stmt.executeQuery()) {
+            while (resultSet.next()) {
+                hashes.add(resultSet.getBytes(veriBlockPublicationHashColumnName));
+            }
+        }
+        return hashes;
+    }
+
+    public synchronized void delete(Collection<String> txHashes) throws SQLException
+    {
+        if (txHashes.isEmpty()) return;
+
+        PreparedStatement stmt = statements.get(String.format(deleteStatement,
+                String.join(",", Collections.nCopies(txHashes.size(), "?"))));
+        int i = 0;
+        for (String txHash : txHashes) {
+            stmt.setString(++i, txHash);
         }
+        stmt.execute();
     }
 }
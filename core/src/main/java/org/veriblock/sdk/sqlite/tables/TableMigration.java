@@ -0,0 +1,126 @@
+// VeriBlock Blockchain Project
+// Copyright 2017-2018 VeriBlock, Inc
+// Copyright 2018-2019 Xenios SEZC
+// All rights reserved.
+// https://www.veriblock.org
+// Distributed under the MIT software license, see the accompanying
+// file LICENSE or http://www.opensource.org/licenses/mit-license.php.
+
+package org.veriblock.sdk.sqlite.tables;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.veriblock.sdk.util.Utils;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+// schema upgrades of the tables that stored hex encoded hashes as TEXT
+final class TableMigration {
+    private static final Logger log = LoggerFactory.getLogger(TableMigration.class);
+
+    private static final int MIGRATION_BATCH_SIZE = 1000;
+
+    private TableMigration() {
+    }
+
+    // the declared type of the column or null if the table does not exist
+    static String getColumnType(Connection connection, String table, String column) throws SQLException {
+        try (Statement stmt = connection.createStatement();
+             ResultSet resultSet = stmt.executeQuery("PRAGMA table_info(" + table + ")")) {
+            while (resultSet.next()) {
+                if (column.equals(resultSet.getString("name"))) {
+                    return resultSet.getString("type");
+                }
+            }
+        }
+        return null;
+    }
+
+    // check whether the table exists and declares the column with a type other than the given one
+    static boolean isLegacy(Connection connection, String table, String column, String type) throws SQLException {
+        String declaredType = getColumnType(connection, table, column);
+        return declaredType != null && !type.equalsIgnoreCase(declaredType);
+    }
+
+    /**
+     * Recreate the table with the given schema and copy all rows into it in a single transaction.
+     * The new table is built under a temporary name and renamed at the end, so the references
+     * of the other tables to this table stay valid.
+     * @param connection the connection
+     * @param table the table name
+     * @param schema the column and constraint definitions of the new table
+     * @param columns the columns to copy
+     * @param hexColumns the columns to decode from hex TEXT to BLOB
+     * @throws SQLException
+     */
+    static void migrate(Connection connection, String table, String schema,
+                        List<String> columns, Set<String> hexColumns) throws SQLException {
+        String newTable = table + "_migration";
+        String columnList = String.join(", ", columns);
+        String insertStatement = "INSERT INTO " + newTable + " (" + columnList + ") VALUES ("
+                + String.join(", ", Collections.nCopies(columns.size(), "?")) + ")";
+
+        log.info("Table {} uses the legacy schema and will be migrated", table);
+
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+
+        int count = 0;
+        try {
+            try (Statement stmt = connection.createStatement()) {
+                stmt.execute("DROP TABLE IF EXISTS " + newTable);
+                stmt.execute("CREATE TABLE " + newTable + " (\n" + schema + ");");
+            }
+
+            try (Statement select = connection.createStatement();
+                 ResultSet resultSet = select.executeQuery("SELECT " + columnList + " FROM " + table);
+                 PreparedStatement insert = connection.prepareStatement(insertStatement)) {
+                while (resultSet.next()) {
+                    int i = 0;
+                    for (String column : columns) {
+                        if (hexColumns.contains(column)) {
+                            insert.setBytes(++i, Utils.decodeHex(resultSet.getString(column)));
+                        } else {
+                            insert.setObject(++i, resultSet.getObject(column));
+                        }
+                    }
+                    insert.addBatch();
+
+                    if (++count % MIGRATION_BATCH_SIZE == 0) {
+                        insert.executeBatch();
+                        log.info("Migrated {} rows into {}", count, table);
+                    }
+                }
+                insert.executeBatch();
+            }
+
+            try (Statement stmt = connection.createStatement()) {
+                stmt.execute("DROP TABLE " + table);
+                stmt.execute("ALTER TABLE " + newTable + " RENAME TO " + table);
+            }
+
+            connection.commit();
+        } catch (SQLException | RuntimeException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+
+        log.info("Migrated {} rows into {}", count, table);
+    }
+
+    static void createIndex(Connection connection, String table, String name, String... columns) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("CREATE INDEX IF NOT EXISTS " + table + "_" + name
+                    + " ON " + table + " (" + String.join(", ", columns) + ")");
+        }
+    }
+}
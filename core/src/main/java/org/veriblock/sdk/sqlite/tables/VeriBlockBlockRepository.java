@@ -30,40 +30,71 @@ public class VeriBlockBlockRepository extends GenericBlockRepository<StoredVeriB
                      new BlockSQLSerializer<StoredVeriBlockBlock, VBlakeHash>() {
 
         public void toStmt(StoredVeriBlockBlock block, PreparedStatement stmt) throws SQLException {
+            VBlakeHash hash = block.getHash();
+
             int i = 0;
-            stmt.setObject(++i, Utils.encodeHex(block.getHash().getBytes()));
-            stmt.setObject(++i, Utils.encodeHex(block.getBlock().getPreviousBlock().getBytes()));
-            stmt.setObject(++i, block.getHeight());
-            stmt.setObject(++i, block.getWork().toString());
-            stmt.setObject(++i, Utils.encodeHex(block.getBlockOfProof().getBytes()));
-            stmt.setObject(++i, Utils.encodeHex(SerializeDeserializeService.serialize(block.getBlock())));
+            stmt.setBytes(++i, hash.getBytes());
+            stmt.setBytes(++i, block.getBlock().getPreviousBlock().getBytes());
+            stmt.setBytes(++i, hash.trimToPreviousKeystoneSize().getBytes());
+            stmt.setBytes(++i, hash.trimToPreviousBlockSize().getBytes());
+            stmt.setInt(++i, block.getHeight());
+            stmt.setBytes(++i, Utils.toBytes(block.getWork(), StoredVeriBlockBlock.CHAIN_WORK_BYTES));
+            stmt.setBytes(++i, block.getBlockOfProof().getBytes());
+            stmt.setBytes(++i, block.getBlock().getRaw());
         }
 
         public StoredVeriBlockBlock fromResult(ResultSet result) throws SQLException {
+            BigInteger work = new BigInteger(1, result.getBytes("work"));
+            Sha256Hash blockOfProof = Sha256Hash.wrap(result.getBytes("blockOfProof"));
+
+            VeriBlockBlock block = SerializeDeserializeService.parseVeriBlockBlock(
+                    result.getBytes("data"), VBlakeHash.wrap(result.getBytes("id")));
+            return new StoredVeriBlockBlock(block, work, blockOfProof);
+        }
+
+        public StoredVeriBlockBlock fromLegacyResult(ResultSet result) throws SQLException {
             byte[] data = Utils.decodeHex(result.getString("data"));
             BigInteger work = new BigInteger(result.getString("work"));
             Sha256Hash blockOfProof = Sha256Hash.wrap(Utils.decodeHex(result.getString("blockOfProof")));
 
             VeriBlockBlock block = SerializeDeserializeService.parseVeriBlockBlock(ByteBuffer.wrap(data));
-            StoredVeriBlockBlock storedBlock = new StoredVeriBlockBlock(block, work, blockOfProof);
-            return storedBlock;
+            return new StoredVeriBlockBlock(block, work, blockOfProof);
         }
 
         public String getSchema() {
-            return  " id TEXT PRIMARY KEY,"
-                  + " previousId TEXT,"
+            return  " id BLOB PRIMARY KEY,"
+                  + " previousId BLOB,"
+                  + " keystone_suffix BLOB,"
+                  + " prev_suffix BLOB,"
                   + " height INTEGER,"
-                  + " work TEXT,"
-                  + " blockOfProof TEXT,"
-                  + " data TEXT";
+                  + " work BLOB,"
+                  + " blockOfProof BLOB,"
+                  + " data BLOB";
         }
 
         public List<String> getColumns() {
-            return Arrays.asList("id", "previousId", "height", "work", "blockOfProof", "data");
+            return Arrays.asList("id", "previousId", "keystone_suffix", "prev_suffix", "height", "work", "blockOfProof", "data");
+        }
+
+        public List<String> getIndexedColumns() {
+            return Arrays.asList("previousId", "keystone_suffix", "prev_suffix");
+        }
+
+        public String getSuffixColumn(int length) {
+            switch (length) {
+                case VBlakeHash.VERIBLOCK_LENGTH:
+                    return "id";
+                case VBlakeHash.PREVIOUS_BLOCK_LENGTH:
+                    return "prev_suffix";
+                case VBlakeHash.PREVIOUS_KEYSTONE_LENGTH:
+                    return "keystone_suffix";
+                default:
+                    return null;
+            }
         }
 
-        public String idToString(VBlakeHash hash) {
-            return Utils.encodeHex(hash.getBytes());
+        public byte[] idToBytes(VBlakeHash hash) {
+            return hash.getBytes();
         }
     };
 
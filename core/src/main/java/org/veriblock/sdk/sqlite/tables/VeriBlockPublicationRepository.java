@@ -11,48 +11,63 @@ package org.veriblock.sdk.sqlite.tables;
 import org.veriblock.sdk.models.Sha256Hash;
 import org.veriblock.sdk.models.VeriBlockPublication;
 import org.veriblock.sdk.services.SerializeDeserializeService;
-import org.veriblock.sdk.util.Utils;
+import org.veriblock.sdk.sqlite.PreparedStatementCache;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 
 public class VeriBlockPublicationRepository {
 
 
     private Connection connectionSource;
+    private PreparedStatementCache statements;
 
     public final static String tableName = "VeriBlockPublication";
     public final static String veriBlockPublicationHashColumnName = "veriBlockPublicationHash";
     public final static String veriBlockPublicationDataColumnName = "veriBlockPublicationData";
 
+    // the hash is the binary SHA-256 of the data; the legacy schema stored it hex encoded as TEXT
+    private static final String schema = veriBlockPublicationHashColumnName + " BLOB PRIMARY KEY,\n "
+            + veriBlockPublicationDataColumnName + " BLOB NOT NULL\n ";
+
+    private static final String saveStatement = " REPLACE INTO " + tableName + " ('" + veriBlockPublicationHashColumnName + "', '" + veriBlockPublicationDataColumnName + "') " +
+            "VALUES(?, ?) ";
+    // the publications of the given ones that no PoP transaction but the given ones refers to
+    private static final String deleteUnreferencedStatement = "DELETE FROM " + tableName + " WHERE " + veriBlockPublicationHashColumnName + " IN (%s)" +
+            " AND NOT EXISTS (SELECT 1 FROM " + PoPTransactionsVeriblockPublicationRefRepository.tableName +
+            " WHERE " + PoPTransactionsVeriblockPublicationRefRepository.tableName + "." + PoPTransactionsVeriblockPublicationRefRepository.veriBlockPublicationHashColumnName + " = " + tableName + "." + veriBlockPublicationHashColumnName +
+            " AND " + PoPTransactionsVeriblockPublicationRefRepository.tableName + "." + PoPTransactionsVeriblockPublicationRefRepository.txHashColumnName + " NOT IN (%s))";
+
     public VeriBlockPublicationRepository(Connection connection) throws SQLException
     {
         this.connectionSource = connection;
+        this.statements = new PreparedStatementCache(connection);
+        if (TableMigration.isLegacy(connectionSource, tableName, veriBlockPublicationHashColumnName, "BLOB")) {
+            TableMigration.migrate(connectionSource, tableName, schema,
+                    Arrays.asList(veriBlockPublicationHashColumnName, veriBlockPublicationDataColumnName),
+                    Collections.singleton(veriBlockPublicationHashColumnName));
+        }
+
         Statement stmt = null;
         try{
             stmt = connectionSource.createStatement();
             stmt.execute("CREATE TABLE IF NOT EXISTS " + tableName
                     + "(\n "
-                    + veriBlockPublicationHashColumnName + " TEXT PRIMARY KEY,\n "
-                    + veriBlockPublicationDataColumnName + " BLOB NOT NULL\n "
+                    + schema
                     + ");");
         }
         finally{
             if(stmt != null) stmt.close();
             stmt = null;
         }
-
-        try {
-            stmt = connectionSource.createStatement();
-            stmt.execute("PRAGMA journal_mode=WAL;");
-        } finally {
-            if(stmt != null) stmt.close();
-        }
     }
 
-    public void clear() throws SQLException
+    public synchronized void clear() throws SQLException
     {
         Statement stmt = null;
         try{
@@ -64,23 +79,32 @@ public class VeriBlockPublicationRepository {
         }
     }
 
-    public String save(VeriBlockPublication publication) throws SQLException
+    public synchronized byte[] save(VeriBlockPublication publication) throws SQLException
     {
-        String hash = "";
-        PreparedStatement stmt = null;
-        try{
-            stmt = connectionSource.prepareStatement(" REPLACE INTO " + tableName + " ('" + veriBlockPublicationHashColumnName + "', '" + veriBlockPublicationDataColumnName + "') " +
-                    "VALUES(?, ?) ", Statement.RETURN_GENERATED_KEYS);
-            byte[] bytes = SerializeDeserializeService.serialize(publication);
-            hash = Utils.encodeHex(Sha256Hash.hash(bytes));
-            stmt.setString(1, hash);
-            stmt.setBytes(2, bytes);
-            stmt.executeUpdate();
-        }
-        finally {
-            if(stmt != null) stmt.close();
-        }
+        PreparedStatement stmt = statements.get(saveStatement);
+        byte[] bytes = SerializeDeserializeService.serialize(publication);
+        byte[] hash = Sha256Hash.hash(bytes);
+        stmt.setBytes(1, hash);
+        stmt.setBytes(2, bytes);
+        stmt.executeUpdate();
 
         return hash;
     }
+
+    public synchronized int deleteUnreferenced(Collection<byte[]> hashes, Collection<String> txHashes) throws SQLException
+    {
+        if (hashes.isEmpty()) return 0;
+
+        PreparedStatement stmt = statements.get(String.format(deleteUnreferencedStatement,
+                String.join(",", Collections.nCopies(hashes.size(), "?")),
+                String.join(",", Collections.nCopies(txHashes.size(), "?"))));
+        int i = 0;
+        for (byte[] hash : hashes) {
+            stmt.setBytes(++i, hash);
+        }
+        for (String txHash : txHashes) {
+            stmt.setString(++i, txHash);
+        }
+        return stmt.executeUpdate();
+    }
 }
@@ -12,7 +12,6 @@ import org.veriblock.sdk.models.Address;
 import org.veriblock.sdk.models.BitcoinTransaction;
 import org.veriblock.sdk.models.Sha256Hash;
 import org.veriblock.sdk.models.VeriBlockBlock;
-import org.veriblock.sdk.services.SerializeDeserializeService;
 import org.veriblock.sdk.util.Utils;
 
 import java.nio.ByteBuffer;
@@ -31,7 +30,7 @@ public class VeriBlockBitcoinTransactions {
     
     public static byte[] publicationDataToBitcoinHeader(VeriBlockBlock publishedBlock, Address sender) {
         ByteBuffer buffer = ByteBuffer.allocateDirect(80);
-        buffer.put(SerializeDeserializeService.serializeHeaders(publishedBlock));
+        buffer.put(publishedBlock.getRaw());
         // PoPBytes is storing the first 16 bytes of the BASE58 decoded address
         buffer.put(sender.getPoPBytes());
         buffer.flip();
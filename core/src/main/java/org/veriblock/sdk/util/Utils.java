@@ -70,12 +70,17 @@ public class Utils {
     }
 
     public static byte[] toBytes(BigInteger value, int size) {
+        Preconditions.argument(value.signum() >= 0, "Value cannot be negative");
+
         byte[] dest = new byte[size];
         byte[] src = value.toByteArray();
 
-        int length = Math.min(src.length, size);
-        int destPos = Math.max(size - src.length, 0);
-        System.arraycopy(src, 0, dest, destPos, length);
+        // skip the sign byte of a value whose top bit is set
+        int srcPos = src.length > 1 && src[0] == 0 ? 1 : 0;
+        int length = src.length - srcPos;
+        Preconditions.argument(length <= size, "Value does not fit in " + size + " bytes");
+
+        System.arraycopy(src, srcPos, dest, size - length, length);
 
         return dest;
     }
@@ -107,6 +112,11 @@ public class Utils {
         return (int) Instant.now().getEpochSecond();
     }
 
+    /**
+     * @deprecated decodes the public key and creates the Signature on every call;
+     * use {@link org.veriblock.sdk.services.SignatureVerifier#verify(byte[], byte[], byte[])}
+     */
+    @Deprecated
     public static boolean verifySignature(byte[] payload, byte[] signatureBytes, byte[] publicKeyBytes) {
         try {
             X509EncodedKeySpec publicKeySpec = new X509EncodedKeySpec(publicKeyBytes);
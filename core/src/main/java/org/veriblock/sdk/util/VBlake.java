@@ -8,6 +8,12 @@
 
 package org.veriblock.sdk.util;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
 /**
  *
  * This class is a modified implementation of BLAKE2b-512, designed to use
@@ -63,39 +69,286 @@ public class VBlake {
             0xD859E6F081AAE000L, 0x63D980597B560E6BL
     };
 
-    public static byte[] hash(byte[] input)	{
-        // BEGIN INIT
-        long[] h = new long[8];
+    public static final int INPUT_SIZE = 64;
+    public static final int HASH_SIZE = 24;
+
+    // the batches of up to this many inputs are hashed on the calling thread
+    private static final int BATCH_THRESHOLD = 64;
+
+    // the message words of the hash in progress, reused by each thread
+    private static final ThreadLocal<long[]> messageWords = ThreadLocal.withInitial(() -> new long[16]);
+
+    public static byte[] hash(byte[] input) {
+        return hash(input, 0, input.length);
+    }
+
+    /**
+     * Hash the bytes of the array; an input shorter than INPUT_SIZE is padded with zeros
+     * @param input the array
+     * @param offset the offset of the first byte
+     * @param length the number of bytes, at most INPUT_SIZE
+     * @return the 24-byte hash
+     */
+    public static byte[] hash(byte[] input, int offset, int length) {
+        Preconditions.argument(length >= 0 && length <= INPUT_SIZE, "Input cannot be longer than " + INPUT_SIZE + " bytes");
+        Preconditions.argument(offset >= 0 && offset <= input.length - length, "Input is out of the array bounds");
+
+        long[] m = messageWords.get();
+        for (int i = 0; i < 8; i++) {
+            int start = i * 8;
+            if (start + 8 <= length) {
+                m[i] = readLongLE(input, offset + start);
+            } else {
+                long word = 0;
+                for (int j = Math.min(length, start + 8) - 1; j >= start; j--) {
+                    word = (word << 8) | (input[offset + j] & 0xFFL);
+                }
+                m[i] = word;
+            }
+        }
+        return hash(m);
+    }
+
+    /**
+     * Hash the remaining bytes of the buffer without changing its position;
+     * an input shorter than INPUT_SIZE is padded with zeros
+     * @param input the buffer with at most INPUT_SIZE remaining bytes
+     * @return the 24-byte hash
+     */
+    public static byte[] hash(ByteBuffer input) {
+        if (input.hasArray()) {
+            return hash(input.array(), input.arrayOffset() + input.position(), input.remaining());
+        }
+
+        int length = input.remaining();
+        Preconditions.argument(length <= INPUT_SIZE, "Input cannot be longer than " + INPUT_SIZE + " bytes");
+
+        long[] m = messageWords.get();
+        Arrays.fill(m, 0, 8, 0L);
+        for (int i = 0; i < length; i++) {
+            m[i / 8] |= (input.get(input.position() + i) & 0xFFL) << (8 * (i % 8));
+        }
+        return hash(m);
+    }
 
-        byte[] b = new byte[64];
+    private static byte[] hash(long[] m) {
+        hashWords(m);
 
-        h[0] = vBlake_iv[0];
-        h[1] = vBlake_iv[1];
-        h[2] = vBlake_iv[2];
-        h[3] = vBlake_iv[3];
-        h[4] = vBlake_iv[4];
-        h[5] = vBlake_iv[5];
-        h[6] = vBlake_iv[6];
-        h[7] = vBlake_iv[7];
+        byte[] output = new byte[HASH_SIZE];
+        writeLongLE(output, 0, m[0]);
+        writeLongLE(output, 8, m[1]);
+        writeLongLE(output, 16, m[2]);
+        return output;
+    }
+
+    // hash the little-endian message words m[0 .. 7] and leave the hash words in m[0 .. 2]
+    private static void hashWords(long[] m) {
+        // fold the constants into the message words, m[8 .. 15] of the 64-byte input are zero
+        for (int i = 0; i < 8; i++) {
+            m[i] ^= vBlake_c[i];
+            m[i + 8] = vBlake_c[i + 8];
+        }
 
         // outlen = 24, as VeriBlock uses a 192-bit hash
-        h[0] ^= (long)(0x01010000 ^ 0x18);
+        long h0 = vBlake_iv[0] ^ (long)(0x01010000 ^ 0x18);
+
+        long v0 = h0, v1 = vBlake_iv[1], v2 = vBlake_iv[2], v3 = vBlake_iv[3];
+        long v4 = vBlake_iv[4], v5 = vBlake_iv[5], v6 = vBlake_iv[6], v7 = vBlake_iv[7];
+        long v8 = vBlake_iv[0], v9 = vBlake_iv[1], v10 = vBlake_iv[2], v11 = vBlake_iv[3];
+        long v12 = vBlake_iv[4] ^ 64, v13 = vBlake_iv[5], v14 = ~vBlake_iv[6], v15 = vBlake_iv[7];
+
+        // The two LUT steps of B2B_G xor v[d] with a function of v[a], v[b], v[c]
+        // and with its complement, which together is a bitwise not of v[d]
+        for (int i = 0; i < 16; i++) {
+            byte[] s = sigma[i];
+
+            v0 = v0 + v4 + m[s[1]];
+            v12 = Long.rotateRight(v12 ^ v0, 60);
+            v8 = v8 + v12;
+            v4 = Long.rotateRight(v4 ^ v8, 43);
+            v0 = v0 + v4 + m[s[0]];
+            v12 = Long.rotateRight(v12 ^ v0, 5);
+            v8 = v8 + v12;
+            v4 = Long.rotateRight(v4 ^ v8, 18);
+            v12 = ~v12;
+
+            v1 = v1 + v5 + m[s[3]];
+            v13 = Long.rotateRight(v13 ^ v1, 60);
+            v9 = v9 + v13;
+            v5 = Long.rotateRight(v5 ^ v9, 43);
+            v1 = v1 + v5 + m[s[2]];
+            v13 = Long.rotateRight(v13 ^ v1, 5);
+            v9 = v9 + v13;
+            v5 = Long.rotateRight(v5 ^ v9, 18);
+            v13 = ~v13;
+
+            v2 = v2 + v6 + m[s[5]];
+            v14 = Long.rotateRight(v14 ^ v2, 60);
+            v10 = v10 + v14;
+            v6 = Long.rotateRight(v6 ^ v10, 43);
+            v2 = v2 + v6 + m[s[4]];
+            v14 = Long.rotateRight(v14 ^ v2, 5);
+            v10 = v10 + v14;
+            v6 = Long.rotateRight(v6 ^ v10, 18);
+            v14 = ~v14;
+
+            v3 = v3 + v7 + m[s[7]];
+            v15 = Long.rotateRight(v15 ^ v3, 60);
+            v11 = v11 + v15;
+            v7 = Long.rotateRight(v7 ^ v11, 43);
+            v3 = v3 + v7 + m[s[6]];
+            v15 = Long.rotateRight(v15 ^ v3, 5);
+            v11 = v11 + v15;
+            v7 = Long.rotateRight(v7 ^ v11, 18);
+            v15 = ~v15;
+
+            v0 = v0 + v5 + m[s[9]];
+            v15 = Long.rotateRight(v15 ^ v0, 60);
+            v10 = v10 + v15;
+            v5 = Long.rotateRight(v5 ^ v10, 43);
+            v0 = v0 + v5 + m[s[8]];
+            v15 = Long.rotateRight(v15 ^ v0, 5);
+            v10 = v10 + v15;
+            v5 = Long.rotateRight(v5 ^ v10, 18);
+            v15 = ~v15;
+
+            v1 = v1 + v6 + m[s[11]];
+            v12 = Long.rotateRight(v12 ^ v1, 60);
+            v11 = v11 + v12;
+            v6 = Long.rotateRight(v6 ^ v11, 43);
+            v1 = v1 + v6 + m[s[10]];
+            v12 = Long.rotateRight(v12 ^ v1, 5);
+            v11 = v11 + v12;
+            v6 = Long.rotateRight(v6 ^ v11, 18);
+            v12 = ~v12;
+
+            v2 = v2 + v7 + m[s[13]];
+            v13 = Long.rotateRight(v13 ^ v2, 60);
+            v8 = v8 + v13;
+            v7 = Long.rotateRight(v7 ^ v8, 43);
+            v2 = v2 + v7 + m[s[12]];
+            v13 = Long.rotateRight(v13 ^ v2, 5);
+            v8 = v8 + v13;
+            v7 = Long.rotateRight(v7 ^ v8, 18);
+            v13 = ~v13;
+
+            v3 = v3 + v4 + m[s[15]];
+            v14 = Long.rotateRight(v14 ^ v3, 60);
+            v9 = v9 + v14;
+            v4 = Long.rotateRight(v4 ^ v9, 43);
+            v3 = v3 + v4 + m[s[14]];
+            v14 = Long.rotateRight(v14 ^ v3, 5);
+            v9 = v9 + v14;
+            v4 = Long.rotateRight(v4 ^ v9, 18);
+            v14 = ~v14;
+        }
+
+        h0 ^= v0 ^ v8;
+        long h1 = vBlake_iv[1] ^ v1 ^ v9;
+        long h2 = vBlake_iv[2] ^ v2 ^ v10;
+        long h3 = vBlake_iv[3] ^ v3 ^ v11;
+        long h4 = vBlake_iv[4] ^ v4 ^ v12;
+        long h5 = vBlake_iv[5] ^ v5 ^ v13;
+        long h6 = vBlake_iv[6] ^ v6 ^ v14;
+        long h7 = vBlake_iv[7] ^ v7 ^ v15;
+
+        m[0] = h0 ^ h3 ^ h6;
+        m[1] = h1 ^ h4 ^ h7;
+        m[2] = h2 ^ h5;
+    }
 
-        // END INIT
+    /**
+     * Hash a batch of INPUT_SIZE-byte inputs, such as the VeriBlock block headers.
+     * The hashes of large batches are computed in parallel on the common fork-join pool.
+     * @param inputs the buffer with the inputs laid out one after another;
+     *               its position is advanced past the inputs
+     * @param hashes the buffer to write the HASH_SIZE-byte hashes to, in the order of the inputs;
+     *               its position is advanced past the hashes
+     */
+    public static void hashAll(ByteBuffer inputs, ByteBuffer hashes) {
+        Preconditions.argument(inputs.remaining() % INPUT_SIZE == 0,
+                "Inputs must be a multiple of " + INPUT_SIZE + " bytes");
+        int count = inputs.remaining() / INPUT_SIZE;
+        Preconditions.argument(hashes.remaining() >= count * HASH_SIZE, "Not enough space for the hashes");
+
+        // absolute little-endian access leaves the positions and the byte order of the buffers alone
+        ByteBuffer in = inputs.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        ByteBuffer out = hashes.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+
+        if (count <= BATCH_THRESHOLD) {
+            hashRange(in, out, 0, count);
+        } else {
+            ForkJoinPool.commonPool().invoke(new HashTask(in, out, 0, count));
+        }
 
-        // BEGIN UPDATE
+        inputs.position(inputs.position() + count * INPUT_SIZE);
+        hashes.position(hashes.position() + count * HASH_SIZE);
+    }
 
-        for (int i = 0; i < input.length; i++) {
-            b[i] = input[i];
+    // hash the inputs [from, to) of the batch
+    private static void hashRange(ByteBuffer in, ByteBuffer out, int from, int to) {
+        long[] m = messageWords.get();
+        for (int i = from; i < to; i++) {
+            int inputOffset = in.position() + i * INPUT_SIZE;
+            for (int j = 0; j < 8; j++) {
+                m[j] = in.getLong(inputOffset + j * 8);
+            }
+
+            hashWords(m);
+
+            int hashOffset = out.position() + i * HASH_SIZE;
+            out.putLong(hashOffset, m[0]);
+            out.putLong(hashOffset + 8, m[1]);
+            out.putLong(hashOffset + 16, m[2]);
         }
+    }
 
-        compress(h, b);
+    private static class HashTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
 
-        // END UPDATE
+        private final ByteBuffer in;
+        private final ByteBuffer out;
+        private final int from;
+        private final int to;
 
-        return recombineB2Bh(h);
+        HashTask(ByteBuffer in, ByteBuffer out, int from, int to) {
+            this.in = in;
+            this.out = out;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= BATCH_THRESHOLD) {
+                hashRange(in, out, from, to);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new HashTask(in, out, from, middle), new HashTask(in, out, middle, to));
+        }
     }
 
+    private static long readLongLE(byte[] bytes, int offset) {
+        return (bytes[offset] & 0xFFL)
+                | (bytes[offset + 1] & 0xFFL) << 8
+                | (bytes[offset + 2] & 0xFFL) << 16
+                | (bytes[offset + 3] & 0xFFL) << 24
+                | (bytes[offset + 4] & 0xFFL) << 32
+                | (bytes[offset + 5] & 0xFFL) << 40
+                | (bytes[offset + 6] & 0xFFL) << 48
+                | (bytes[offset + 7] & 0xFFL) << 56;
+    }
+
+    private static void writeLongLE(byte[] bytes, int offset, long value) {
+        for (int i = 0; i < 8; i++) {
+            bytes[offset + i] = (byte)(value >> (8 * i));
+        }
+    }
+
+    /**
+     * The reference compression function, operating on the state h and the 64-byte block b.
+     */
     public static void compress(long[] h, byte[] b) {
         long[] v = new long[16];
         long[] m = new long[16];
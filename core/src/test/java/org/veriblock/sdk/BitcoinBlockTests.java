@@ -43,6 +43,19 @@ public class BitcoinBlockTests {
         Assert.assertTrue("000000000000000246200f09b513e517a3bd8c591a3b692d9852ddf1ee0f8b3a".equalsIgnoreCase(block.getHash().toString()));
     }
 
+    @Test
+    public void memoizedHash() {
+        byte[] raw = Base64.getDecoder().decode("AAAAIPfeKZWJiACrEJr5Z3m5eaYHFdqb8ru3RbMAAAAAAAAA+FSGAmv06tijekKSUzLsi1U/jjEJdP6h66I4987mFl4iE7dchBoBGi4A8po=");
+
+        BitcoinBlock block = SerializeDeserializeService.parseBitcoinBlock(raw);
+        Assert.assertSame(block.getHash(), block.getHash());
+        Assert.assertSame(block.getRaw(), block.getRaw());
+
+        // the supplied hash is used as is
+        Sha256Hash hash = Sha256Hash.wrap("000000000000000246200f09b513e517a3bd8c591a3b692d9852ddf1ee0f8b3a");
+        Assert.assertSame(hash, SerializeDeserializeService.parseBitcoinBlock(raw, hash).getHash());
+    }
+
     @Test
     public void equals() {
         BitcoinBlock block = new BitcoinBlock(
@@ -121,6 +134,10 @@ public class BitcoinBlockTests {
         byte[] serialized = SerializeDeserializeService.getHeaderBytesBitcoinBlock(block);
 
         Assert.assertArrayEquals(raw, serialized);
+
+        // the returned header is a copy of the one the block keeps
+        serialized[0] ^= 1;
+        Assert.assertArrayEquals(raw, SerializeDeserializeService.getHeaderBytesBitcoinBlock(block));
     }
 
     @Test
@@ -18,6 +18,7 @@ import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
+import org.veriblock.sdk.auditor.BlockIdentifier;
 import org.veriblock.sdk.conf.BitcoinTestNetParameters;
 import org.veriblock.sdk.conf.TestNetParameters;
 import org.veriblock.sdk.models.AltPublication;
@@ -91,6 +92,53 @@ public class ServiceSecurityPayloadTests {
         AltPublication altPublication = SerializeDeserializeService.parseAltPublication(Utils.decodeHex(atvHexStr));
         altPublications.add(altPublication);
 
+        vtbPublications.addAll(getVeriBlockPublications());
+
+        security.getBitcoinBlockchain().setSkipValidateBlocksDifficulty(false);
+        security.getVeriBlockBlockchain().setSkipValidateBlocksDifficulty(false);
+
+        // assume no error is thrown
+        security.addPayloads(blockIndex, vtbPublications, altPublications);
+
+        security.removePayloads(blockIndex);
+    }
+
+    @Test
+    public void rollbackAddPayloadTest() throws BlockStoreException, SQLException, SignatureException {
+        long blockHeight = 1L;
+        String blockHash = "03";
+        BlockIndex blockIndex = new BlockIndex(blockHeight, blockHash);
+
+        List<AltPublication> altPublications = new ArrayList<>();
+        List<VeriBlockPublication> vtbPublications = getVeriBlockPublications();
+
+        // the VTBs are valid but the ATV does not connect to any block
+        altPublications.add(VeriBlockTransactionsAtv.createAtvPublicationNotAttached());
+
+        VeriBlockBlock vbkChainHead = security.getVeriBlockBlockchain().getChainHead();
+        BitcoinBlock btcChainHead = security.getBitcoinBlockchain().getChainHead();
+        VeriBlockBlock vtbBlock = vtbPublications.get(0).getTransaction().getPublishedBlock();
+        Assert.assertNull(security.getVeriBlockBlockchain().get(vtbBlock.getHash()));
+
+        try {
+            security.addPayloads(blockIndex, vtbPublications, altPublications);
+            Assert.fail();
+        } catch (VerificationException e) {
+            Assert.assertEquals("Publication does not connect to VeriBlock blockchain", e.getMessage());
+        }
+
+        // nothing written by the VTBs survives the failed call
+        Assert.assertEquals(vbkChainHead, security.getVeriBlockBlockchain().getChainHead());
+        Assert.assertEquals(btcChainHead, security.getBitcoinBlockchain().getChainHead());
+        Assert.assertNull(security.getVeriBlockBlockchain().get(vtbBlock.getHash()));
+        Assert.assertTrue(security.getContext().getChangeStore().get(BlockIdentifier.wrap(Utils.decodeHex(blockHash))).isEmpty());
+
+        // and the same payloads without the bad ATV are accepted
+        security.addPayloads(blockIndex, vtbPublications, new ArrayList<>());
+        Assert.assertNotNull(security.getVeriBlockBlockchain().get(vtbBlock.getHash()));
+    }
+
+    private List<VeriBlockPublication> getVeriBlockPublications() {
         String[] vtbsHex = {
                 "02033CAA02011667D91FE4AC6B62BFD3DE8A036B659472D302F63776A34000019CA8000297ADEAAA2D8C7DDE09F8293F9AFD32E075F6BEC5BADF97549B10936A846829F2AF13B674D13ADA4AFA5AA256CB365DE541C30405F5E176B55CBD02011C010000000148BE7436A06D63723ABF5312748EE728901DAF630234F72F241EC5A3C0207E89000000006B483045022100BD3E4400656F97192D13B2FA920F6C4B889DD047F5F28BF2AFB2B082658A7E6902201365481A0F9FD9DCC47EBF174DEEC8F776BDC9FB3879657254565705A45CED56012103E470C57B0447BD75B6D8A27398D6C6CB8D4C6931CCD570E11A4F4E3B8E6D3026FFFFFFFF021CA51800000000001976A914893262D93DD3D5414AA6A9C3EFC6E1791335678C88AC0000000000000000536A4C5000019CA8000297ADEAAA2D8C7DDE09F8293F9AFD32E075F6BEC5BADF97549B10936A846829F2AF13B674D13ADA4AFA5AA256CB365DE541C30405F5E176B55CBDAEFE9F1DEF97E3B8B2FD70AC171C8EC80000000002011B040000003D04000000080400000004000000202076A8DDA483B4B4938DAF78B1E366F887CDC1880F28E2BE3C4913EF939C74EEF520B0E8AD571F4F208A1827537B6DD1AF432E2340FD603C69882AD4336910F2086D20B89D18CC62DF62485C7009A9721ED8DAB5D68E109578ABBECDC439EFCFCFF8AC20549A1973051CBDFAE8C9438EE95699D3BCA30B505C3263B7505113C11C28D71A206597CCB73AA44E171FB7039EF2FF4CE79E206DF200DD5C6E61F110997702002C204C53174A41AF7A054EB1EB8D34A2CB9538BE807CEAF706AE7BA723FBAC6BF7F020C44945D7176D94B79ABACCF70DC8CDBB3A9AFA315C513EA123B589B0BDE92337201DC124AA0E278C294D941305D796F3BE3AB0BC81C7F02E0E43DEB45008DFDD6D50000000207A36FAF1CEBE2035B8B6E6DF5CDF0C80479CF7F651ABB68433020000000000009425B972CF9B86FACD5754DE5FD68C4384AA378F5AD5773C11D28B155B0BC177DC41E55DECAE031A3C982C700101500000C0206EBE339E088A8CB63E85610140C36F015D184FDA6C5E54693554020000000000E543DF668EC0330BAA0AFEC12AF752506BECF1FB8F6D8A2E51D3565395ACEE0F3C3FE55DECAE031AD8575B84463044022051A8CE546C2EAE8C8C30F3C4EBB6F21573D0534FC21CC71A3A53162BF75E830402202C1BE3860FF073D7EABF7F8E0EEBBA7B1C153A6D77CEBD4BF8922C3E2E71E156583056301006072A8648CE3D020106052B8104000A034200047D07B2D6151BD800A330FF5971AD101984EFBCE8A327A912DB63E795B5F08DBFC920D6653BE0CD414B476A4912549FED5C8241D60164541CB64655612D65753D04000000000400000000206D13E63FDD8B5A1B8E9C4F27E59BBEEFEBB906E57BF06918143DC7FBD45C60430400000003202F86AFDCF49B69FE053DC579F4275313DB894A5DA21570A2443CEE36CAE679132013A17890EBE9C760357AC3D11E3F638AE96BC3C1F1B129C04789B1C653160129200D11B86F31624455141A6B4461C122DAE92A197B814E20FCC04CAB56DF7F7D854000019CAD000210130BACB5954F8F31F32D22D6F6EE30587D5B07A49AFD32E075F6BEC5BAF292B9D1B683D5D0801B13542572295B5DE5420104061889787038AC01134000019C9A00026713D7DDB273B344AADD06BF9AFD32E075F6BEC5BADF97549B10936A8468C8CF8CE7253035B52DDE7A1B1CEDD3BC5DE540480405F5E10E87A0F14000019C9B0002C381C575F093C4018922F13E9AFD32E075F6BEC5BADF97549B10936A8468A635AAA122BAD3E50AB1F6512DB00FB65DE540560405F5E14CC81E5B4000019C9C00025D27A5FF9BB9C866A6D0D5819AFD32E075F6BEC5BADF97549B10936A84683FCFFF9E70C93546414FC465687303BC5DE540620405F5E14D1F8D5A4000019C9D0002BC32CDC481CDCE60E0E7981B9AFD32E075F6BEC5BADF97549B10936A8468301643C5FBB9A8AD9895AEEBCFE7064E5DE540830405F5E171522DA54000019C9E000252710D601BF5966C8A9B283E9AFD32E075F6BEC5BADF97549B10936A84687846B4011205383AEC78CFF1424E2E115DE5409F0405F5E173B145B34000019C9F000233D3AE16ED8A4934B5968F7A9AFD32E075F6BEC5BADF97549B10936A8468BDA2D6BA26DC73475B740DC8ACBE21BE5DE540E20405F5E17B60FF364000019CA00002D5B195962F6EB449B17DC62B9AFD32E075F6BEC5BADF97549B10936A84689B394977179D8BB7AC8A1CBA1B3D3D595DE540E60405F5E1709639094000019CA100021830575B2D70D09807A99B149AFD32E075F6BEC5BADF97549B10936A846863167E6F94BDBCE073182D1C9E54E6ED5DE540E90405F5E17B2301EB4000019CA20002EAC490EA1FB9B1C58641F66C9AFD32E075F6BEC5BADF97549B10936A8468188FF5C438763462996C182122D165685DE5413F0405F5E1730FE1154000019CA30002CE581583EEAC0CB7C5DA2BED9AFD32E075F6BEC5BADF97549B10936A8468328EE61CBEEBD6F22BB1F7F03F7D8C885DE541430405F5E1020A8AEF4000019CA40002B06E12D71E5469767566C0539AFD32E075F6BEC5BADF97549B10936A8468E11B61CD3318261A925AABFC866979305DE5414C0405F5E1044659F04000019CA5000284ED69E31F82E983B171A4569AFD32E075F6BEC5BADF97549B10936A8468A778C7E3643CEDCDA49E111C541B7C4E5DE541A20405F5E175C923274000019CA60002214625460214D184BF16F8BF9AFD32E075F6BEC5BADF97549B10936A8468123C3ECC2E096BACA188263108DB39725DE541B70405F5E11716F7AE4000019CA70002A6568D71DE35A8E5C811F8FF9AFD32E075F6BEC5BADF97549B10936A84684906EAF57096FC972EA4712132F4DF765DE541BA0405F5E156D570334000019CA8000297ADEAAA2D8C7DDE09F8293F9AFD32E075F6BEC5BADF97549B10936A846829F2AF13B674D13ADA4AFA5AA256CB365DE541C30405F5E176B55CBD4000019CA90002A55067D6F6EE30587D5B07A49AFD32E075F6BEC5BADF97549B10936A846870CD9DFEF6E7A9449514FA281987BB0B5DE541D00405F5E1577280C14000019CAA00029EF8F2AE9B513A82050545E3D6F6EE30587D5B07A49AFD32E075F6BEC5BA49257785F6F3D2C250DCEC01332CCDDC5DE541D10405F5E117B457994000019CAB0002A5424E9716058292FBCAF295D6F6EE30587D5B07A49AFD32E075F6BEC5BAD769C50C2A1E8E232D5B0468C78376A15DE541D20405F5E10D453C824000019CAC00027185EE1CE115C44FA88AA8ADD6F6EE30587D5B07A49AFD32E075F6BEC5BAD6E0AFF1DF588D29DE62F62A8B2306E25DE541D70405FF2757AB33AD",
                 "02033CAA02011667D91FE4AC6B62BFD3DE8A036B659472D302F63776A34000019CA8000297ADEAAA2D8C7DDE09F8293F9AFD32E075F6BEC5BADF97549B10936A846829F2AF13B674D13ADA4AFA5AA256CB365DE541C30405F5E176B55CBD02011C010000000148BE7436A06D63723ABF5312748EE728901DAF630234F72F241EC5A3C0207E89000000006B483045022100BD3E4400656F97192D13B2FA920F6C4B889DD047F5F28BF2AFB2B082658A7E6902201365481A0F9FD9DCC47EBF174DEEC8F776BDC9FB3879657254565705A45CED56012103E470C57B0447BD75B6D8A27398D6C6CB8D4C6931CCD570E11A4F4E3B8E6D3026FFFFFFFF021CA51800000000001976A914893262D93DD3D5414AA6A9C3EFC6E1791335678C88AC0000000000000000536A4C5000019CA8000297ADEAAA2D8C7DDE09F8293F9AFD32E075F6BEC5BADF97549B10936A846829F2AF13B674D13ADA4AFA5AA256CB365DE541C30405F5E176B55CBDAEFE9F1DEF97E3B8B2FD70AC171C8EC80000000002011B040000003D04000000080400000004000000202076A8DDA483B4B4938DAF78B1E366F887CDC1880F28E2BE3C4913EF939C74EEF520B0E8AD571F4F208A1827537B6DD1AF432E2340FD603C69882AD4336910F2086D20B89D18CC62DF62485C7009A9721ED8DAB5D68E109578ABBECDC439EFCFCFF8AC20549A1973051CBDFAE8C9438EE95699D3BCA30B505C3263B7505113C11C28D71A206597CCB73AA44E171FB7039EF2FF4CE79E206DF200DD5C6E61F110997702002C204C53174A41AF7A054EB1EB8D34A2CB9538BE807CEAF706AE7BA723FBAC6BF7F020C44945D7176D94B79ABACCF70DC8CDBB3A9AFA315C513EA123B589B0BDE92337201DC124AA0E278C294D941305D796F3BE3AB0BC81C7F02E0E43DEB45008DFDD6D50000000207A36FAF1CEBE2035B8B6E6DF5CDF0C80479CF7F651ABB68433020000000000009425B972CF9B86FACD5754DE5FD68C4384AA378F5AD5773C11D28B155B0BC177DC41E55DECAE031A3C982C700101500000C0206EBE339E088A8CB63E85610140C36F015D184FDA6C5E54693554020000000000E543DF668EC0330BAA0AFEC12AF752506BECF1FB8F6D8A2E51D3565395ACEE0F3C3FE55DECAE031AD8575B84463044022051A8CE546C2EAE8C8C30F3C4EBB6F21573D0534FC21CC71A3A53162BF75E830402202C1BE3860FF073D7EABF7F8E0EEBBA7B1C153A6D77CEBD4BF8922C3E2E71E156583056301006072A8648CE3D020106052B8104000A034200047D07B2D6151BD800A330FF5971AD101984EFBCE8A327A912DB63E795B5F08DBFC920D6653BE0CD414B476A4912549FED5C8241D60164541CB64655612D65753D04000000000400000000206D13E63FDD8B5A1B8E9C4F27E59BBEEFEBB906E57BF06918143DC7FBD45C60430400000003202F86AFDCF49B69FE053DC579F4275313DB894A5DA21570A2443CEE36CAE679132013A17890EBE9C760357AC3D11E3F638AE96BC3C1F1B129C04789B1C653160129200D11B86F31624455141A6B4461C122DAE92A197B814E20FCC04CAB56DF7F7D854000019CAD000210130BACB5954F8F31F32D22D6F6EE30587D5B07A49AFD32E075F6BEC5BAF292B9D1B683D5D0801B13542572295B5DE5420104061889787038AC01134000019C9A00026713D7DDB273B344AADD06BF9AFD32E075F6BEC5BADF97549B10936A8468C8CF8CE7253035B52DDE7A1B1CEDD3BC5DE540480405F5E10E87A0F14000019C9B0002C381C575F093C4018922F13E9AFD32E075F6BEC5BADF97549B10936A8468A635AAA122BAD3E50AB1F6512DB00FB65DE540560405F5E14CC81E5B4000019C9C00025D27A5FF9BB9C866A6D0D5819AFD32E075F6BEC5BADF97549B10936A84683FCFFF9E70C93546414FC465687303BC5DE540620405F5E14D1F8D5A4000019C9D0002BC32CDC481CDCE60E0E7981B9AFD32E075F6BEC5BADF97549B10936A8468301643C5FBB9A8AD9895AEEBCFE7064E5DE540830405F5E171522DA54000019C9E000252710D601BF5966C8A9B283E9AFD32E075F6BEC5BADF97549B10936A84687846B4011205383AEC78CFF1424E2E115DE5409F0405F5E173B145B34000019C9F000233D3AE16ED8A4934B5968F7A9AFD32E075F6BEC5BADF97549B10936A8468BDA2D6BA26DC73475B740DC8ACBE21BE5DE540E20405F5E17B60FF364000019CA00002D5B195962F6EB449B17DC62B9AFD32E075F6BEC5BADF97549B10936A84689B394977179D8BB7AC8A1CBA1B3D3D595DE540E60405F5E1709639094000019CA100021830575B2D70D09807A99B149AFD32E075F6BEC5BADF97549B10936A846863167E6F94BDBCE073182D1C9E54E6ED5DE540E90405F5E17B2301EB4000019CA20002EAC490EA1FB9B1C58641F66C9AFD32E075F6BEC5BADF97549B10936A8468188FF5C438763462996C182122D165685DE5413F0405F5E1730FE1154000019CA30002CE581583EEAC0CB7C5DA2BED9AFD32E075F6BEC5BADF97549B10936A8468328EE61CBEEBD6F22BB1F7F03F7D8C885DE541430405F5E1020A8AEF4000019CA40002B06E12D71E5469767566C0539AFD32E075F6BEC5BADF97549B10936A8468E11B61CD3318261A925AABFC866979305DE5414C0405F5E1044659F04000019CA5000284ED69E31F82E983B171A4569AFD32E075F6BEC5BADF97549B10936A8468A778C7E3643CEDCDA49E111C541B7C4E5DE541A20405F5E175C923274000019CA60002214625460214D184BF16F8BF9AFD32E075F6BEC5BADF97549B10936A8468123C3ECC2E096BACA188263108DB39725DE541B70405F5E11716F7AE4000019CA70002A6568D71DE35A8E5C811F8FF9AFD32E075F6BEC5BADF97549B10936A84684906EAF57096FC972EA4712132F4DF765DE541BA0405F5E156D570334000019CA8000297ADEAAA2D8C7DDE09F8293F9AFD32E075F6BEC5BADF97549B10936A846829F2AF13B674D13ADA4AFA5AA256CB365DE541C30405F5E176B55CBD4000019CA90002A55067D6F6EE30587D5B07A49AFD32E075F6BEC5BADF97549B10936A846870CD9DFEF6E7A9449514FA281987BB0B5DE541D00405F5E1577280C14000019CAA00029EF8F2AE9B513A82050545E3D6F6EE30587D5B07A49AFD32E075F6BEC5BA49257785F6F3D2C250DCEC01332CCDDC5DE541D10405F5E117B457994000019CAB0002A5424E9716058292FBCAF295D6F6EE30587D5B07A49AFD32E075F6BEC5BAD769C50C2A1E8E232D5B0468C78376A15DE541D20405F5E10D453C824000019CAC00027185EE1CE115C44FA88AA8ADD6F6EE30587D5B07A49AFD32E075F6BEC5BAD6E0AFF1DF588D29DE62F62A8B2306E25DE541D70405FF2757AB33AD",
@@ -100,17 +148,11 @@ public class ServiceSecurityPayloadTests {
                 "0203DEAA02011667D91FE4AC6B62BFD3DE8A036B659472D302F63776A34000019CF800022B70950EA4B6E8D4B676EC15453C80EBA154978C13B8C044B3173EBCC7CFAAEEED02D52C8BB59BCE6C7B37119E185DE550290405F5E142F69A7602011C010000000104CD9E06E97C58E67E59DC1E54B3B6ACB4F6CCFA89C0838152CCED66DC9691AD000000006B483045022100D3CEA6FEE31FBF290E4A284FA2ADE988259BE7E2AC9AC2D26747B4A430B57D4302206E012880900B56B6E2AA11EE264F8F7BFBB06D5648C2FF72E890D5A6B340F23D012103E470C57B0447BD75B6D8A27398D6C6CB8D4C6931CCD570E11A4F4E3B8E6D3026FFFFFFFF020000000000000000536A4C5000019CF800022B70950EA4B6E8D4B676EC15453C80EBA154978C13B8C044B3173EBCC7CFAAEEED02D52C8BB59BCE6C7B37119E185DE550290405F5E142F69A76AEFE9F1DEF97E3B8B2FD70AC171C8EC81BAB3600000000001976A914893262D93DD3D5414AA6A9C3EFC6E1791335678C88AC0000000002011B040000005404000000080400000004000000202067D485EF499AE12EE367AE5E57B7C50F9CC4874BD353EED8D8FDABA2F757372920080DD81CCEEC499B5736AA840DA5B50912050D9C1B02427CE87D35F1C530856E208C541AFED4EA8987828520EFF9DB514FCDCB48AD8B4AA492AB484298F4F3EB4C206C409EE8411E319421FB3FA657F635FBA9DCB23AA983EBF883D9524E808F5A70202119E7F9BF70E3C0B07DBD54EE34D7008046AB3EDB54A0071810AA02FBA2B142206AE31D5E03A20A1B44A04E81F275372FA4E329B959C8074A6E34686671C7138120CC92CC174B469AAE1528A529592360326A619A877990A15D170E4DA460A2FFCE202F0E4706F40104410B6418F48E62088126D719D4AA8E1F1BBA0B22D2E97737135000008020120B6F631C024B68E2D70B632FC75A0039E7049086E1D9E86901000000000000A8B4482E4A4B9731690C69DCBFD0840C85CED52A9BC481368A6D013DC446CEFC0953E55DECAE031A347DA2E901035000000020B41C6E34FDAF481EB0A1BDCC1FC2FC97BA3C5032D69A0B484000000000000000C771EA3D8A7057780DB3213C6F6BB802D6F0943539BA7A01A5A9A8A236380FF0804DE55DECAE031A4F78AB4150000000208C1A7DA8FB267F506E0C362B0B7118B61E4D618DBD13501C6F010000000000002CBBE8C12B0E7ADD07B57D1FB9CC83D9A55FDE8A9671604EF86D3E22C288BF222E4FE55DECAE031A830FCDF2500000002012E6F4D055529ED6E7578A865A18E94E3692BB01B361053B3E010000000000001EE64960909A0EFE314E3B45BD8FCF84475BC148484140D3CAF15CBE4CBB32806A4FE55DECAE031A8D15B90447304502202AF55493A323D039BC486421007A47CD37D60C55B967B45995E0A7691FF916B8022100F2B7C3695358E88095F4D298421118B86AC39CB5E231A89556190F2DFFAD6E50583056301006072A8648CE3D020106052B8104000A034200047D07B2D6151BD800A330FF5971AD101984EFBCE8A327A912DB63E795B5F08DBFC920D6653BE0CD414B476A4912549FED5C8241D60164541CB64655612D65753D040000000004000000162061C63C08253BDF8E3A47DB991CC25E14946D9D5E78ED1A33AF0A6C4C9F85224E04000000072061C63C08253BDF8E3A47DB991CC25E14946D9D5E78ED1A33AF0A6C4C9F85224E20FF3055C56E1F06EA1D00C03E26849B5C13DDE026E50E6DF951E63D9436F02A7720159A2C2D85E4BBE4A7B12CE6DF489C64193418BCA3806D98500476FF75F4CFF020CF83BEBA87098F0CB482531B1B1E6B109D4C5616B7C399D3460CC5DD521854B12090EB5BC8AB7B3C10C7DA098AA797C8BD7AA3157D2B90A687A5565DEFF029FF0E20DD74CE74D3212C8A2FFAF1D73C058E6B11FA917B9580A2F160C5BB93FB96EE542087F9B1EAC67E05CCEE87ED33A7D263451B97A5D0588490C70E6DE48338BFB6294000019D090002F455160F3CF6A63F80E91E6A8794EF2C1E68521DD5453C80EBA154978C1342F01927578F0B06EE3BE2CA57398DC65DE5532B0405F5E15522ACF0016F4000019C9A00026713D7DDB273B344AADD06BF9AFD32E075F6BEC5BADF97549B10936A8468C8CF8CE7253035B52DDE7A1B1CEDD3BC5DE540480405F5E10E87A0F14000019C9B0002C381C575F093C4018922F13E9AFD32E075F6BEC5BADF97549B10936A8468A635AAA122BAD3E50AB1F6512DB00FB65DE540560405F5E14CC81E5B4000019C9C00025D27A5FF9BB9C866A6D0D5819AFD32E075F6BEC5BADF97549B10936A84683FCFFF9E70C93546414FC465687303BC5DE540620405F5E14D1F8D5A4000019C9D0002BC32CDC481CDCE60E0E7981B9AFD32E075F6BEC5BADF97549B10936A8468301643C5FBB9A8AD9895AEEBCFE7064E5DE540830405F5E171522DA54000019C9E000252710D601BF5966C8A9B283E9AFD32E075F6BEC5BADF97549B10936A84687846B4011205383AEC78CFF1424E2E115DE5409F0405F5E173B145B34000019C9F000233D3AE16ED8A4934B5968F7A9AFD32E075F6BEC5BADF97549B10936A8468BDA2D6BA26DC73475B740DC8ACBE21BE5DE540E20405F5E17B60FF364000019CA00002D5B195962F6EB449B17DC62B9AFD32E075F6BEC5BADF97549B10936A84689B394977179D8BB7AC8A1CBA1B3D3D595DE540E60405F5E1709639094000019CA100021830575B2D70D09807A99B149AFD32E075F6BEC5BADF97549B10936A846863167E6F94BDBCE073182D1C9E54E6ED5DE540E90405F5E17B2301EB4000019CA20002EAC490EA1FB9B1C58641F66C9AFD32E075F6BEC5BADF97549B10936A8468188FF5C438763462996C182122D165685DE5413F0405F5E1730FE1154000019CA30002CE581583EEAC0CB7C5DA2BED9AFD32E075F6BEC5BADF97549B10936A8468328EE61CBEEBD6F22BB1F7F03F7D8C885DE541430405F5E1020A8AEF4000019CA40002B06E12D71E5469767566C0539AFD32E075F6BEC5BADF97549B10936A8468E11B61CD3318261A925AABFC866979305DE5414C0405F5E1044659F04000019CA5000284ED69E31F82E983B171A4569AFD32E075F6BEC5BADF97549B10936A8468A778C7E3643CEDCDA49E111C541B7C4E5DE541A20405F5E175C923274000019CA60002214625460214D184BF16F8BF9AFD32E075F6BEC5BADF97549B10936A8468123C3ECC2E096BACA188263108DB39725DE541B70405F5E11716F7AE4000019CA70002A6568D71DE35A8E5C811F8FF9AFD32E075F6BEC5BADF97549B10936A84684906EAF57096FC972EA4712132F4DF765DE541BA0405F5E156D570334000019CA8000297ADEAAA2D8C7DDE09F8293F9AFD32E075F6BEC5BADF97549B10936A846829F2AF13B674D13ADA4AFA5AA256CB365DE541C30405F5E176B55CBD4000019CA90002A55067D6F6EE30587D5B07A49AFD32E075F6BEC5BADF97549B10936A846870CD9DFEF6E7A9449514FA281987BB0B5DE541D00405F5E1577280C14000019CAA00029EF8F2AE9B513A82050545E3D6F6EE30587D5B07A49AFD32E075F6BEC5BA49257785F6F3D2C250DCEC01332CCDDC5DE541D10405F5E117B457994000019CAB0002A5424E9716058292FBCAF295D6F6EE30587D5B07A49AFD32E075F6BEC5BAD769C50C2A1E8E232D5B0468C78376A15DE541D20405F5E10D453C824000019CAC00027185EE1CE115C44FA88AA8ADD6F6EE30587D5B07A49AFD32E075F6BEC5BAD6E0AFF1DF588D29DE62F62A8B2306E25DE541D70405FF2757AB33AD4000019CAD000210130BACB5954F8F31F32D22D6F6EE30587D5B07A49AFD32E075F6BEC5BAF292B9D1B683D5D0801B13542572295B5DE5420104061889787038AC4000019CAE0002995248233EB8AB181F84C7FDD6F6EE30587D5B07A49AFD32E075F6BEC5BABFC3509EA3CEF5B4166BB7C6F6B5F8D15DE5425604060B627AD6166F4000019CAF000287578A18AD7526F66A7239DED6F6EE30587D5B07A49AFD32E075F6BEC5BA80D68B0E6CAEC22C229DC8BF3BBAC8E35DE542730405F5E11C9F2A814000019CB00002039C976D178ABD9F3D89335DD6F6EE30587D5B07A49AFD32E075F6BEC5BA89474865C855D179A661F40CE9020FE65DE542800405F5E11BD032F64000019CB1000227233C329A401B03688C6517D6F6EE30587D5B07A49AFD32E075F6BEC5BA0406873CAFEF42BA4F001A9AB7FBF9F55DE5429F0405F5E17CDD62744000019CB2000283B04AB9393D8766B1AD4387D6F6EE30587D5B07A49AFD32E075F6BEC5BA372422E0AA2D1767BD4DAEFE188835945DE542A70405F5E11F4527B94000019CB300022441C827C6C4F1CEAF8EB212D6F6EE30587D5B07A49AFD32E075F6BEC5BA2E0240C5D8C2DF39B19F9F25A1623C455DE543030405FD951EE534394000019CB400022C046308583829F929D14AA5D6F6EE30587D5B07A49AFD32E075F6BEC5BAF016492028122946D61FD136ADC807035DE543390405F5E161A9EF074000019CB50002360E902F7B052F24937D8006D6F6EE30587D5B07A49AFD32E075F6BEC5BAF0F3EA92E88103A7F6B38935D88DF3EC5DE543700405F5E13039A07D4000019CB60002522CEB5507C666B82F44EF54D6F6EE30587D5B07A49AFD32E075F6BEC5BA9B3AF812D53C34D27318F5ABA05AACB55DE543700405F5E131EB22FD4000019CB70002AF4F371A944AFB325622A130D6F6EE30587D5B07A49AFD32E075F6BEC5BA1B5DBC35E693B01903358CF36109F93A5DE543760405F5E132F77C304000019CB80002C83B9FA6BF49D6EA825FF4EAD6F6EE30587D5B07A49AFD32E075F6BEC5BA8CB803EB34250206552A93AB08F524965DE543770405F5E130E2DC674000019CB90002D9EEAE26932DB218CF170F54D6F6EE30587D5B07A49AFD32E075F6BEC5BA45786C1B710ABD28F23164776C1861B75DE543B00405F5E122F2F7124000019CBA0002637B043572EF4A3582E0A9B9D6F6EE30587D5B07A49AFD32E075F6BEC5BA5A38CC8C6101C40B24D9E18808A3C8005DE543B40405F5E1373160814000019CBB00023230F20BB503247008C97287D6F6EE30587D5B07A49AFD32E075F6BEC5BA764338D7C92CD731DE5048288F6105F65DE544380405F5E142CFF5954000019CBC00020E90C65763BE16D9B644C063D6F6EE30587D5B07A49AFD32E075F6BEC5BAFD10C13AEF01C73DB29076CFFC3AE9CC5DE5443F0405F5E142E3918F4000019CBD0002A7F59DD8B346DE6C59A44894D6F6EE30587D5B07A49AFD32E075F6BEC5BAD85D24489D1CFFC6EB8706A47DCFE5FF5DE544550405F5E169B439EF4000019CBE0002C131C02A8B7CA1FC1A0B0A98D8B346DE6C59A44894D6F6EE30587D5B07A4CBAC2A819E19E1E57BB3745183E316FF5DE544580405F5E143ADA7904000019CBF0002CF1C5627FB5D4BC86332CD4CD8B346DE6C59A44894D6F6EE30587D5B07A4CD9ABC429C7FC2D48F85AAD529E1AA715DE544780405F5E1481F80434000019CC000025EB308502530767DADF1B3D7D8B346DE6C59A44894D6F6EE30587D5B07A41E45A6969F05F2EE599EB98A745BE03B5DE544790405F5E1479588214000019CC100023C72D9C7924DC0D2DB1B08DCD8B346DE6C59A44894D6F6EE30587D5B07A4AD90E80272E5CBD19EE4900B0E0CF0E35DE5447B0405F5E16AC50AC44000019CC20002B4CFD1DD7429A85DD6E89919D8B346DE6C59A44894D6F6EE30587D5B07A4A87C13114E6ABB1B4DFBCF1B2293F0DC5DE544FC0405F5E12ABAB9F54000019CC30002FBCA7E3E14EB1F6653B862A5D8B346DE6C59A44894D6F6EE30587D5B07A4CD53F2CFBA92626CF91573ACB996D1485DE545520405F5E170DA1C924000019CC400027B00DA233EC37F82517230ABD8B346DE6C59A44894D6F6EE30587D5B07A4F912696763345DD03FAA45F4D31214265DE5457F0405F5E111667E094000019CC50002221F6484C0E44AB36D3A30A6D8B346DE6C59A44894D6F6EE30587D5B07A41CB743A440342AEF027249DCC32EFBF85DE5458E0405F5E1611433184000019CC60002591D9BFAF3C90EC555F6E97CD8B346DE6C59A44894D6F6EE30587D5B07A4D54C7B30314A5D03459D23DC47CB1C215DE545920405F5E1607C05464000019CC70002D995162FE1F929691927FD4CD8B346DE6C59A44894D6F6EE30587D5B07A4876C859A55C4C0C206EEE208934A71AB5DE545A90405F5E12EC980334000019CC80002EA996665FA661AB2542A7453D8B346DE6C59A44894D6F6EE30587D5B07A446B9F5D525220B546394C9F10AF860585DE5464B0405F5E177E502444000019CC90002ECB71C1BF1842672C24F15E5D8B346DE6C59A44894D6F6EE30587D5B07A41D0EF4F66B271494883DC800CB0735D75DE546570405F5E1709DF3FB4000019CCA0002E86EC91A9286CEE66C3A44D5D8B346DE6C59A44894D6F6EE30587D5B07A4AD6D407B554ED974A630931285BDBF205DE546680405F5E1728B723C4000019CCB0002C4E0203DAA29DFDA69894DEED8B346DE6C59A44894D6F6EE30587D5B07A4706DEBB8FD3F5789690F933051006AA05DE546720405F5E1722E57434000019CCC0002538D1E2994846A77B98875F2D8B346DE6C59A44894D6F6EE30587D5B07A45EB2C1B61E53946267AEC56772167F635DE5467A0405F5E17939A7E54000019CCD00024CE1B9E8D7410CEEF04EE782D8B346DE6C59A44894D6F6EE30587D5B07A48515ADCD6F607E8459313A22D485CD9F5DE546B10405F5E119E9CB5C4000019CCE0002B01F753985765C2FA4C51F72D8B346DE6C59A44894D6F6EE30587D5B07A446F008DC679B9F8DC7CB5FCEE3E858E75DE546E80405F5E17E611F8E4000019CCF00021A4A7648B6253793DADA86C9D8B346DE6C59A44894D6F6EE30587D5B07A42CA75F2E3A74202E430F983C94A556965DE546EB0405F5E17C693BB74000019CD00002A3A7B308EF2779742405BD6CD8B346DE6C59A44894D6F6EE30587D5B07A4C637B8F271F334AD7E4C6B249ABB92065DE547160405F5E11CB4380D4000019CD10002D170DCB8C044B3173EBCC7CFD8B346DE6C59A44894D6F6EE30587D5B07A499ABB0FD1E554BE850296592FC04381F5DE547440405F5E17EEF42484000019CD20002716A567E0FEE4E0ED6A83D02B8C044B3173EBCC7CFD8B346DE6C59A44894F3E13B5D924A8E6911618E7F5227347C5DE547D10405F5E13BAF520A4000019CD30002E178A0A6A3954E52B2B905E8B8C044B3173EBCC7CFD8B346DE6C59A448946237AE792BBB8F2080B22C8E94E757815DE547E10405F5E110FE54D74000019CD40002B5686AB58290BDF78891AD4DB8C044B3173EBCC7CFD8B346DE6C59A448940DD65CEE17FE727C40867368DA276C525DE547F00405F5E13C6B84504000019CD500020B0905FA005F9FAF2051D8E9B8C044B3173EBCC7CFD8B346DE6C59A44894BA253B1621DCB3BF375C9CAECDB143745DE5482C0405F5E1166378944000019CD600023322D807CE25DCDFB47DCA6CB8C044B3173EBCC7CFD8B346DE6C59A44894A428D34171C5385F81DB094DCB4E30AF5DE5482E0405F5E116873E634000019CD7000253332B5C39C88F1AEB3C9543B8C044B3173EBCC7CFD8B346DE6C59A44894B35430D2433F73B85DBDCE78182DA6785DE5486A0405F5E1262B85554000019CD800023E022FC71240DFB70A180065B8C044B3173EBCC7CFD8B346DE6C59A448946791534B5A094803E6B8ACD277B459F55DE548980405F5E122EFDA9A4000019CD90002BD1E75B997E3E81D4133730CB8C044B3173EBCC7CFD8B346DE6C59A448940DC67AB4463AE5CC2BF172CAE5339EE45DE548AE0405F5E10930360F4000019CDA0002ED291B9537AF2DC6F409B15CB8C044B3173EBCC7CFD8B346DE6C59A44894129DA9A10E12054811674B1465FE0FFF5DE548B90405F5E125BBA73E4000019CDB00022ABA6848B74D6B912495F900B8C044B3173EBCC7CFD8B346DE6C59A448948A2A7CF4A8B384EC77496F4A3869D2BA5DE5490D0405F5E1295B05C04000019CDC0002DEA30430554F1B1B777FEBC6B8C044B3173EBCC7CFD8B346DE6C59A44894C22372892DF663EB8BC7AE953DF568DA5DE549850405F5E12E09FA3D4000019CDD0002DDBAA94FC68B3BF7F0C3C6D5B8C044B3173EBCC7CFD8B346DE6C59A4489416FF2A3FFE5561B3D278B19A1B7F7CD65DE5498B0405F5E1460C8FF84000019CDE0002F79C2E53ABEE64444115625BB8C044B3173EBCC7CFD8B346DE6C59A448942D97C56A068B36386CEA4CDBA0F2D1AD5DE5499C0405F5E10FE7F2724000019CDF0002E195A99911568405BB38FA44B8C044B3173EBCC7CFD8B346DE6C59A448948561B42A78E9BCC33A33234A7CD963005DE54A2D0405F5E149DBEC2F4000019CE000028B4D485146F4C81E6C5A34BDB8C044B3173EBCC7CFD8B346DE6C59A44894BBB1A2EDB7F26931492C81D5BCBF297C5DE54A460405F5E143EA5E494000019CE10002418B53CD808D1DCCCDCDC18CB8C044B3173EBCC7CFD8B346DE6C59A44894D20E8FD4148C721A75D6A61610A7D7A15DE54AB80405F5E14D1C5ADD4000019CE20002793B8AB2DCF53F5327869F41B8C044B3173EBCC7CFD8B346DE6C59A4489468F160DD48B72FAAB107F3A111CDD8125DE54B030405F5E154F077934000019CE300023CBAA41FF8F9C075EEC94FAAB8C044B3173EBCC7CFD8B346DE6C59A448941620F988476A36813FB17DD975101E1F5DE54B230405F5E15A0298144000019CE40002B5AB985E1B46440F0CEC57AAB8C044B3173EBCC7CFD8B346DE6C59A448943A05A7A699ED7356AE9E240E7D7B0D815DE54B460405F5E15B36DE424000019CE5000262AA23453C80EBA154978C13B8C044B3173EBCC7CFD8B346DE6C59A448949150A3C3E6313C2E47B36C4FA9E617875DE54BCF0405F5E164F538974000019CE60002ACC08C934DCDE66730B919F6453C80EBA154978C13B8C044B3173EBCC7CF16142FE0180AA77E08B52483D8E5879B5DE54C4E0405F5E141F005364000019CE7000285ADBE6E86A97DB0B2329A52453C80EBA154978C13B8C044B3173EBCC7CFF8E4064EDA8B11B6BCCC97686A7EBCD15DE54C4F0405F5E17170B8BD4000019CE8000263AF0957BABBB5DBC010963A453C80EBA154978C13B8C044B3173EBCC7CF71EEBA40FE79E3CE8B5E064D32238A705DE54C510405F5E1717EB34F4000019CE90002486750A9CAD9BB94F7FAFFE4453C80EBA154978C13B8C044B3173EBCC7CF5BD5A8779F1F28CEB857D05C8DED843D5DE54CCF0405F5E159A9F3FF4000019CEA0002372484B65E4D76004BE70F59453C80EBA154978C13B8C044B3173EBCC7CF961EBDAF088E1E4B68D905089BDE81F55DE54CD60405F5E17ED14C004000019CEB000268EE42008FE514406BD61D5A453C80EBA154978C13B8C044B3173EBCC7CF5F226C7B6FDC16DE014D2E5C922295DA5DE54D550405F5E105924A214000019CEC000201DDD3BBCAD76B681BC2A1E8453C80EBA154978C13B8C044B3173EBCC7CF27C871A3EF32596E74CF1718893EE6A65DE54D7E0405F5E10B3020194000019CED00020F344EB4782ACECF6EF1AB67453C80EBA154978C13B8C044B3173EBCC7CFADFAA159D73F0128BEC9A0BA09BCC67F5DE54D990405F5E10F18FA024000019CEE0002031A7EE5B9CDCF040DCEC2EF453C80EBA154978C13B8C044B3173EBCC7CFA9CB475021388EBB8F304F33852BBB285DE54DBC0405F5E11026120A4000019CEF000200C0161E988A0F30ACEBDE0B453C80EBA154978C13B8C044B3173EBCC7CF320F4D720587FC39A299D00476B078CD5DE54EB30405F5E124F064604000019CF00002B0E52A13C61B5D2BC95030AF453C80EBA154978C13B8C044B3173EBCC7CF5D83E7B7D30DA514FA580D91563E591B5DE54ECB0405F5E1537CE4A94000019CF100023C7C7D26528E6A9E75947316453C80EBA154978C13B8C044B3173EBCC7CFBCAA574FCCA4DDECF22928931E98E4B55DE54EE80405F5E1276AB8854000019CF200021F059032E4E3DB3C9542859F453C80EBA154978C13B8C044B3173EBCC7CF0FAD624290F7D0883AC85DD417CB89DA5DE54F380405F5E1388BF5004000019CF30002342586773CC168F894BB8630453C80EBA154978C13B8C044B3173EBCC7CF6C9A115D7355B6F38A014585A9633A9C5DE54F9E0405F5E13767E2804000019CF40002C8640A0753B18CB2AD86F746453C80EBA154978C13B8C044B3173EBCC7CF89AA14DBF6D21C2CD6CE8F8AD85DD45F5DE54FCC0405F5E13CD6E2744000019CF50002DBBD55AE2BB18CB5217BE6E5453C80EBA154978C13B8C044B3173EBCC7CFD083813EF03C4AB3880C11BE95CD96F35DE54FE80405F5E15B6CD9C64000019CF60002B3DC0EB3C94F3050DEB93F16453C80EBA154978C13B8C044B3173EBCC7CFB8669C5E5E9DE76B4D9D2E1F2E9FB6555DE54FEC0405F5E16C318D984000019CF7000271F95C7880936D051FA296D3453C80EBA154978C13B8C044B3173EBCC7CFF0E3080862D4141BFBD9EB9B99C173A45DE54FEE0405F5E15B9979224000019CF800022B70950EA4B6E8D4B676EC15453C80EBA154978C13B8C044B3173EBCC7CFAAEEED02D52C8BB59BCE6C7B37119E185DE550290405F5E142F69A764000019CF90002B73E718794EF2C1E68521DD5453C80EBA154978C13B8C044B3173EBCC7CFA3167DB6E1A769D830A9235D21BA26005DE550390405F5E14628D4784000019CFA000206858199A924E1D36C4944DC8794EF2C1E68521DD5453C80EBA154978C1378BC18F33F8CBA050E702679C262933E5DE550680405F5E16F1E0EF84000019CFB0002D6430D9178602E01EDF23EE98794EF2C1E68521DD5453C80EBA154978C13DE0FE17045F731C89E2638EDFB78FAEA5DE5506B0405F5E1481401874000019CFC000276A23C23101483D07F48F9698794EF2C1E68521DD5453C80EBA154978C1309F46AD1A3B1BB3744A42D51E1223EEA5DE5508F0405F5E14D9677694000019CFD00024CB1C41A8D3F4F7E0E1B31078794EF2C1E68521DD5453C80EBA154978C13B7ACFEDD932FE5CED648E499CCA677FC5DE550B20405F5E1500EE7124000019CFE0002757B8A109664157E114240C98794EF2C1E68521DD5453C80EBA154978C13909D499D118C2E9F1A03B6D9544C6DAB5DE5511F0405F5E1593787524000019CFF0002F4716F5C0568030D71DF18DA8794EF2C1E68521DD5453C80EBA154978C13BF5EE440FF7CEA8FB573DABB1D7824CB5DE551210405F5E17374567F4000019D00000234577545AD00964A5B378C108794EF2C1E68521DD5453C80EBA154978C139F195C20192AE39FA6440C60170F69335DE5512D0405F5E15A74AF164000019D0100021CDC30F308997F8F913CE58D8794EF2C1E68521DD5453C80EBA154978C137DAF73EB6B9633BD582C9EB407C468835DE551330405F5E15D06A48E4000019D020002234F3E9AFC51170F613D79618794EF2C1E68521DD5453C80EBA154978C13ED574B7F6AE74C055317EF788987D2BE5DE551B60405F5E14A98C9FF4000019D0300024B453BFDAB46D213462D2C6A8794EF2C1E68521DD5453C80EBA154978C13B380DAD10FDDB5E7FDA5399FF2AEC6555DE551DA0405F5E177D07C1E4000019D040002255316EEF75A664DCA2983028794EF2C1E68521DD5453C80EBA154978C133CE5D8E73DD80080E5075D1D2D04EA8B5DE552620405F5E174DC0D974000019D0500029DE578C54B92F59587A77FC78794EF2C1E68521DD5453C80EBA154978C137CFB43E1366CC7BFDB04327A025CEAAA5DE552620405F5E17334E1124000019D060002F35C1D375716EC8EA01438F98794EF2C1E68521DD5453C80EBA154978C13BCB4771221DF420FF3D655BCCDCB37705DE552A20405F5E17C8A79674000019D0700020A4273E2399A066A0FB06F798794EF2C1E68521DD5453C80EBA154978C1311D1616904184448B2FE5AB471227C2E5DE553110405F5E10595CA7C4000019D080002CB6252AC38A0A883FD563C598794EF2C1E68521DD5453C80EBA154978C1309503F666E59BD526E89FE86EA9EA1715DE553170405F5E101FC9A0C"
         };
 
+        List<VeriBlockPublication> vtbPublications = new ArrayList<>();
         for (String v : vtbsHex) {
             VeriBlockPublication pub = SerializeDeserializeService.parseVeriBlockPublication(Utils.decodeHex(v));
             vtbPublications.add(pub);
         }
-
-        security.getBitcoinBlockchain().setSkipValidateBlocksDifficulty(false);
-        security.getVeriBlockBlockchain().setSkipValidateBlocksDifficulty(false);
-
-        // assume no error is thrown
-        security.addPayloads(blockIndex, vtbPublications, altPublications);
-
-        security.removePayloads(blockIndex);
+        return vtbPublications;
     }
 }
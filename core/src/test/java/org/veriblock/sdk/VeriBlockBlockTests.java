@@ -20,6 +20,7 @@ import org.veriblock.sdk.services.ValidationService;
 import org.veriblock.sdk.util.Utils;
 
 import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.Base64;
 
 public class VeriBlockBlockTests {
@@ -68,6 +69,33 @@ public class VeriBlockBlockTests {
         Assert.assertTrue(block.equals(compareTo));
     }
 
+    @Test
+    public void memoizedHash() {
+        byte[] raw = Base64.getDecoder().decode("AAATiAAClOfcPjviGpbszw+99fYqMzHcmVw2sJNWN4YGed3V2w8TUxKywnhnyag+8bmbmFyblJMHAjrWcrr9dw==");
+
+        VeriBlockBlock block = SerializeDeserializeService.parseVeriBlockBlock(raw);
+        Assert.assertSame(block.getHash(), block.getHash());
+        Assert.assertSame(block.getRaw(), block.getRaw());
+
+        // the supplied hash is used as is
+        VBlakeHash hash = VBlakeHash.wrap("000000000000480D8196D5B0B41861D032377F5165BB4452");
+        Assert.assertSame(hash, SerializeDeserializeService.parseVeriBlockBlock(raw, hash).getHash());
+    }
+
+    @Test
+    public void computeHashes() {
+        byte[] raw = Base64.getDecoder().decode("AAATiAAClOfcPjviGpbszw+99fYqMzHcmVw2sJNWN4YGed3V2w8TUxKywnhnyag+8bmbmFyblJMHAjrWcrr9dw==");
+        VeriBlockBlock first = SerializeDeserializeService.parseVeriBlockBlock(raw);
+        VeriBlockBlock second = SerializeDeserializeService.parseVeriBlockBlock(raw);
+        VBlakeHash hash = second.getHash();
+
+        VeriBlockBlock.computeHashes(Arrays.asList(first, second));
+
+        Assert.assertTrue("000000000000480D8196D5B0B41861D032377F5165BB4452".equalsIgnoreCase(first.getHash().toString()));
+        // the hash that is already known is kept
+        Assert.assertSame(hash, second.getHash());
+    }
+
     @Test
     public void verify_WhenValid() {
         VeriBlockBlock block = new VeriBlockBlock(
@@ -14,13 +14,15 @@ import java.sql.SQLException;
 
 import org.veriblock.sdk.auditor.store.AuditorChangesStore;
 import org.veriblock.sdk.blockchain.store.BitcoinStore;
+import org.veriblock.sdk.blockchain.store.CachingBitcoinStore;
+import org.veriblock.sdk.blockchain.store.CachingVeriBlockStore;
 import org.veriblock.sdk.blockchain.store.PoPTransactionsDBStore;
 import org.veriblock.sdk.blockchain.store.VeriBlockStore;
 import org.veriblock.sdk.conf.BitcoinMainNetParameters;
 import org.veriblock.sdk.conf.BitcoinNetworkParameters;
 import org.veriblock.sdk.conf.MainNetParameters;
 import org.veriblock.sdk.conf.VeriBlockNetworkParameters;
-import org.veriblock.sdk.sqlite.ConnectionSelector;
+import org.veriblock.sdk.sqlite.Database;
 
 ///TODO: this is not a test - move to helpers package
 //TODO: refactoring is overdue
@@ -65,10 +67,11 @@ public class VeriBlockIntegrationLibraryManager {
     }
     
     private Context initContext(String path) throws SQLException {
-        VeriBlockStore veriBlockStore = new VeriBlockStore(ConnectionSelector.setConnection(path));
-        BitcoinStore bitcoinStore = new BitcoinStore(ConnectionSelector.setConnection(path));
-        AuditorChangesStore changeStore = new AuditorChangesStore(ConnectionSelector.setConnection(path));
-        PoPTransactionsDBStore popTxDBStore = new PoPTransactionsDBStore(ConnectionSelector.setConnection(path));
+        Database database = new Database(path);
+        CachingVeriBlockStore veriBlockStore = new CachingVeriBlockStore(new VeriBlockStore(database.getConnection()));
+        CachingBitcoinStore bitcoinStore = new CachingBitcoinStore(new BitcoinStore(database.getConnection()));
+        AuditorChangesStore changeStore = new AuditorChangesStore(database.getConnection());
+        PoPTransactionsDBStore popTxDBStore = new PoPTransactionsDBStore(database);
 
         return new Context(getVeriblockNetworkParameters(), getBitcoinNetworkParameters(),
                            veriBlockStore, bitcoinStore, changeStore, popTxDBStore);
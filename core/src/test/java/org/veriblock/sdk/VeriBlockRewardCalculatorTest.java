@@ -47,6 +47,7 @@ import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -623,6 +624,33 @@ public class VeriBlockRewardCalculatorTest {
             return containingVeriBlockPublication.get(block.getHash());
         }
 
+        @Override
+        public Map<String, List<AltPublication>> getAltPublicationsEndorse(Map<AltChainBlock, List<AltChainBlock>> containingBlocksByEndorsedBlock) throws SQLException {
+            Map<String, List<AltPublication>> result = new LinkedHashMap<>();
+            for (Map.Entry<AltChainBlock, List<AltChainBlock>> entry : containingBlocksByEndorsedBlock.entrySet()) {
+                result.put(entry.getKey().getHash(), getAltPublicationsEndorse(entry.getKey(), entry.getValue()));
+            }
+            return result;
+        }
+
+        @Override
+        public Map<String, List<AltPublication>> getAltPublicationsFromBlocks(List<AltChainBlock> blocks) throws SQLException {
+            Map<String, List<AltPublication>> result = new LinkedHashMap<>();
+            for (AltChainBlock block : blocks) {
+                result.put(block.getHash(), getAltPublicationsFromBlock(block));
+            }
+            return result;
+        }
+
+        @Override
+        public Map<String, List<VeriBlockPublication>> getVeriBlockPublicationsFromBlocks(List<AltChainBlock> blocks) throws SQLException {
+            Map<String, List<VeriBlockPublication>> result = new LinkedHashMap<>();
+            for (AltChainBlock block : blocks) {
+                result.put(block.getHash(), getVeriBlockPublicationsFromBlock(block));
+            }
+            return result;
+        }
+
         @Override
         public void clear() throws SQLException {
             this.containingAltPublication = new TreeMap<String, List<AltPublication>>();
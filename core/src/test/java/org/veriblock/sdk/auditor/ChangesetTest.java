@@ -0,0 +1,104 @@
+// VeriBlock Blockchain Project
+// Copyright 2017-2018 VeriBlock, Inc
+// Copyright 2018-2019 Xenios SEZC
+// All rights reserved.
+// https://www.veriblock.org
+// Distributed under the MIT software license, see the accompanying
+// file LICENSE or http://www.opensource.org/licenses/mit-license.php.
+
+package org.veriblock.sdk.auditor;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.veriblock.sdk.blockchain.changes.AddBitcoinBlockChange;
+import org.veriblock.sdk.blockchain.changes.AddVeriBlockBlockChange;
+import org.veriblock.sdk.blockchain.changes.SetVeriBlockHeadChange;
+import org.veriblock.sdk.blockchain.changes.SetVeriBlockProofChange;
+import org.veriblock.sdk.blockchain.store.StoredBitcoinBlock;
+import org.veriblock.sdk.blockchain.store.StoredVeriBlockBlock;
+import org.veriblock.sdk.models.Sha256Hash;
+import org.veriblock.sdk.services.SerializeDeserializeService;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+public class ChangesetTest {
+
+    private static final BlockIdentifier blockIdentifier = BlockIdentifier.wrap("block".getBytes());
+
+    private static StoredVeriBlockBlock veriBlockBlock(String raw, Sha256Hash blockOfProof) {
+        return new StoredVeriBlockBlock(SerializeDeserializeService.parseVeriBlockBlock(Base64.getDecoder().decode(raw)),
+                BigInteger.TEN, blockOfProof);
+    }
+
+    @Test
+    public void roundTripTest() {
+        StoredVeriBlockBlock first = veriBlockBlock("AAATiAAClOfcPjviGpbszw+99fYqMzHcmVw2sJNWN4YGed3V2w8TUxKywnhnyag+8bmbmFyblJMHAjrWcrr9dw==", Sha256Hash.ZERO_HASH);
+        StoredVeriBlockBlock second = veriBlockBlock("AAATcAACRJxgYZKUVGrYJa8DsJNWN4YGed3VXuT9IQguGGhutTwfTiWeag3yNyGgs7S3q1ybkhEHAhHK8Bw/AQ==", Sha256Hash.ZERO_HASH);
+        StoredVeriBlockBlock proven = veriBlockBlock("AAATiAAClOfcPjviGpbszw+99fYqMzHcmVw2sJNWN4YGed3V2w8TUxKywnhnyag+8bmbmFyblJMHAjrWcrr9dw==",
+                Sha256Hash.of("proof".getBytes()));
+        StoredBitcoinBlock bitcoinBlock = new StoredBitcoinBlock(SerializeDeserializeService.parseBitcoinBlock(
+                Base64.getDecoder().decode("AAAAIPfeKZWJiACrEJr5Z3m5eaYHFdqb8ru3RbMAAAAAAAAA+FSGAmv06tijekKSUzLsi1U/jjEJdP6h66I4987mFl4iE7dchBoBGi4A8po=")),
+                BigInteger.ONE, 0);
+
+        List<Change> changes = Arrays.asList(
+                new AddVeriBlockBlockChange(null, first),
+                new SetVeriBlockHeadChange(second, first),
+                new SetVeriBlockProofChange(first, proven),
+                new AddBitcoinBlockChange(null, bitcoinBlock));
+
+        Changeset changeset = new Changeset(blockIdentifier);
+        changeset.addChanges(changes);
+
+        Changeset deserialized = Changeset.deserialize(blockIdentifier, changeset.serialize());
+        Assert.assertEquals(blockIdentifier, deserialized.getBlockIdentifier());
+        Assert.assertEquals(changes.size(), deserialized.getChanges().size());
+        for (int i = 0; i < changes.size(); i++) {
+            Change expected = changes.get(i);
+            Change actual = deserialized.getChanges().get(i);
+            Assert.assertEquals(expected, actual);
+            Assert.assertEquals(expected.getChainIdentifier(), actual.getChainIdentifier());
+            Assert.assertEquals(expected.getOperation(), actual.getOperation());
+        }
+    }
+
+    @Test
+    public void setProofDeltaTest() {
+        StoredVeriBlockBlock block = veriBlockBlock("AAATiAAClOfcPjviGpbszw+99fYqMzHcmVw2sJNWN4YGed3V2w8TUxKywnhnyag+8bmbmFyblJMHAjrWcrr9dw==", Sha256Hash.ZERO_HASH);
+        StoredVeriBlockBlock proven = veriBlockBlock("AAATiAAClOfcPjviGpbszw+99fYqMzHcmVw2sJNWN4YGed3V2w8TUxKywnhnyag+8bmbmFyblJMHAjrWcrr9dw==",
+                Sha256Hash.of("proof".getBytes()));
+
+        Changeset changeset = new Changeset(blockIdentifier);
+        changeset.addChanges(Arrays.asList(new SetVeriBlockProofChange(block, proven)));
+
+        // the new value only stores the proof hash instead of the whole block
+        byte[] serialized = changeset.serialize();
+        Assert.assertTrue(serialized.length <= 5 + 4 + 1 + 1 + StoredVeriBlockBlock.SIZE + 3 + Sha256Hash.BITCOIN_LENGTH);
+        Assert.assertEquals(changeset.getChanges(), Changeset.deserialize(blockIdentifier, serialized).getChanges());
+    }
+
+    @Test
+    public void emptyChangesetTest() {
+        Changeset changeset = new Changeset(blockIdentifier);
+        Assert.assertTrue(Changeset.deserialize(blockIdentifier, changeset.serialize()).getChanges().isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void truncatedDataTest() {
+        Changeset changeset = new Changeset(blockIdentifier);
+        changeset.addChanges(Arrays.asList(new AddVeriBlockBlockChange(null,
+                veriBlockBlock("AAATiAAClOfcPjviGpbszw+99fYqMzHcmVw2sJNWN4YGed3V2w8TUxKywnhnyag+8bmbmFyblJMHAjrWcrr9dw==", Sha256Hash.ZERO_HASH))));
+
+        byte[] serialized = changeset.serialize();
+        Changeset.deserialize(blockIdentifier, Arrays.copyOf(serialized, serialized.length - 1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unsupportedVersionTest() {
+        byte[] serialized = new Changeset(blockIdentifier).serialize();
+        serialized[0] = 2;
+        Changeset.deserialize(blockIdentifier, serialized);
+    }
+}
@@ -16,15 +16,23 @@ import org.veriblock.sdk.Context;
 import org.veriblock.sdk.VeriBlockIntegrationLibraryManager;
 import org.veriblock.sdk.VeriBlockSecurity;
 import org.veriblock.sdk.auditor.BlockIdentifier;
+import org.veriblock.sdk.auditor.Change;
+import org.veriblock.sdk.auditor.Changeset;
 import org.veriblock.sdk.blockchain.changes.AddBitcoinBlockChange;
 import org.veriblock.sdk.blockchain.changes.AddVeriBlockBlockChange;
 import org.veriblock.sdk.blockchain.store.StoredBitcoinBlock;
 import org.veriblock.sdk.blockchain.store.StoredVeriBlockBlock;
 import org.veriblock.sdk.services.SerializeDeserializeService;
+import org.veriblock.sdk.sqlite.ConnectionSelector;
+import org.veriblock.sdk.util.Utils;
 
 import java.io.IOException;
 import java.math.BigInteger;
+import java.sql.Connection;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
 import java.util.Base64;
 import java.util.List;
 import java.util.Random;
@@ -86,6 +94,89 @@ public class ChangeStoreTest {
         Assert.assertEquals(storedChange, storedChanges.get(0));
     }
 
+    @Test
+    public void pruneTest() throws SQLException, IOException {
+        changeStore.clear();
+
+        byte[] raw = Base64.getDecoder().decode("AAATiAAClOfcPjviGpbszw+99fYqMzHcmVw2sJNWN4YGed3V2w8TUxKywnhnyag+8bmbmFyblJMHAjrWcrr9dw==");
+        StoredVeriBlockBlock value = new StoredVeriBlockBlock(SerializeDeserializeService.parseVeriBlockBlock(raw), BigInteger.ONE);
+
+        Random random = new Random(100L);
+        BlockIdentifier[] blockIdentifiers = new BlockIdentifier[3];
+        for (int i = 0; i < blockIdentifiers.length; i++) {
+            byte[] scratch = new byte[BlockIdentifier.LENGTH];
+            random.nextBytes(scratch);
+            blockIdentifiers[i] = BlockIdentifier.wrap(scratch);
+
+            changeStore.put(new StoredChange(blockIdentifiers[i], 0, new AddVeriBlockBlockChange(null, value)));
+            changeStore.putBlockHeight(blockIdentifiers[i], 10 * (i + 1));
+        }
+
+        // the changes of the blocks at heights 10 and 20, one block at a time
+        Assert.assertEquals(1, changeStore.prune(30, 1));
+        Assert.assertEquals(1, changeStore.prune(30, 1));
+        Assert.assertEquals(0, changeStore.prune(30, 1));
+
+        Assert.assertTrue(changeStore.get(blockIdentifiers[0]).isEmpty());
+        Assert.assertTrue(changeStore.get(blockIdentifiers[1]).isEmpty());
+        Assert.assertEquals(1, changeStore.get(blockIdentifiers[2]).size());
+    }
+
+    @Test
+    public void changesetTest() throws SQLException {
+        byte[] raw = Base64.getDecoder().decode("AAATiAAClOfcPjviGpbszw+99fYqMzHcmVw2sJNWN4YGed3V2w8TUxKywnhnyag+8bmbmFyblJMHAjrWcrr9dw==");
+        StoredVeriBlockBlock oldValue = new StoredVeriBlockBlock(SerializeDeserializeService.parseVeriBlockBlock(raw), BigInteger.ONE);
+        StoredVeriBlockBlock newValue = new StoredVeriBlockBlock(SerializeDeserializeService.parseVeriBlockBlock(raw), BigInteger.TEN);
+
+        BlockIdentifier blockIdentifier = BlockIdentifier.wrap("changeset".getBytes());
+        List<Change> changes = Arrays.asList(new AddVeriBlockBlockChange(null, oldValue), new AddVeriBlockBlockChange(oldValue, newValue));
+        Changeset changeset = new Changeset(blockIdentifier);
+        changeset.addChanges(changes);
+
+        changeStore.put(changeset, 10);
+        Assert.assertEquals(changes, changeStore.getChangeset(blockIdentifier).getChanges());
+        Assert.assertEquals(new StoredChange(blockIdentifier, 1, changes.get(1)), changeStore.get(blockIdentifier).get(1));
+
+        // the recorded height is kept when the changeset is replaced without one
+        changeStore.put(changeset);
+        Assert.assertEquals(1, changeStore.prune(20, 10));
+        Assert.assertTrue(changeStore.getChangeset(blockIdentifier).getChanges().isEmpty());
+    }
+
+    @Test
+    public void migrateLegacyChangesTest() throws SQLException {
+        byte[] raw = Base64.getDecoder().decode("AAATiAAClOfcPjviGpbszw+99fYqMzHcmVw2sJNWN4YGed3V2w8TUxKywnhnyag+8bmbmFyblJMHAjrWcrr9dw==");
+        StoredVeriBlockBlock value = new StoredVeriBlockBlock(SerializeDeserializeService.parseVeriBlockBlock(raw), BigInteger.ONE);
+        Change first = new AddVeriBlockBlockChange(null, value);
+        Change second = new AddVeriBlockBlockChange(value, value);
+        BlockIdentifier blockIdentifier = BlockIdentifier.wrap("legacy".getBytes());
+        String blockId = Utils.encodeHex(blockIdentifier.getBytes());
+
+        try (Connection connection = ConnectionSelector.setConnectionInMemory()) {
+            try (Statement stmt = connection.createStatement()) {
+                stmt.execute("CREATE TABLE tableAuditorChanges (id INTEGER PRIMARY KEY, blockId TEXT NOT NULL, networkId TEXT,"
+                           + " operation INTEGER, sequenceNum INTEGER, oldValue TEXT, newValue TEXT)");
+                stmt.execute("INSERT INTO tableAuditorChanges VALUES (NULL, '" + blockId + "', 'VSPV', 1, 1, '"
+                           + Utils.encodeHex(second.getOldValue()) + "', '" + Utils.encodeHex(second.getNewValue()) + "')");
+                stmt.execute("INSERT INTO tableAuditorChanges VALUES (NULL, '" + blockId + "', 'VSPV', 1, 0, '', '"
+                           + Utils.encodeHex(first.getNewValue()) + "')");
+                stmt.execute("CREATE TABLE tableAuditorBlocks (blockId TEXT PRIMARY KEY, blockHeight INTEGER NOT NULL)");
+                stmt.execute("INSERT INTO tableAuditorBlocks VALUES ('" + blockId + "', 10)");
+            }
+
+            ChangeStore migratedStore = new AuditorChangesStore(ConnectionSelector.setConnectionInMemory());
+            Assert.assertEquals(Arrays.asList(first, second), migratedStore.getChangeset(blockIdentifier).getChanges());
+
+            try (Statement stmt = connection.createStatement();
+                 ResultSet resultSet = stmt.executeQuery("SELECT name FROM sqlite_master WHERE name IN ('tableAuditorChanges', 'tableAuditorBlocks')")) {
+                Assert.assertFalse(resultSet.next());
+            }
+
+            // the height recorded by the legacy journal is kept
+            Assert.assertEquals(1, migratedStore.prune(20, 10));
+        }
+    }
+
     @Test
     public void nonexistingChangeStoreTest() throws SQLException, IOException {
         BlockIdentifier blockIdentifier = BlockIdentifier.wrap("123".getBytes());
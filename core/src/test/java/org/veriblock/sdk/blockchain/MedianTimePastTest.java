@@ -0,0 +1,100 @@
+// VeriBlock Blockchain Project
+// Copyright 2017-2018 VeriBlock, Inc
+// Copyright 2018-2019 Xenios SEZC
+// All rights reserved.
+// https://www.veriblock.org
+// Distributed under the MIT software license, see the accompanying
+// file LICENSE or http://www.opensource.org/licenses/mit-license.php.
+
+package org.veriblock.sdk.blockchain;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+public class MedianTimePastTest {
+
+    // the median as computed by the block validation before, from the sorted context
+    private static int expectedMedian(List<Integer> chain, int end, int count) {
+        List<Integer> context = new ArrayList<>(chain.subList(end - count + 1, end + 1));
+        Collections.sort(context);
+        return context.get((count - 1) / 2);
+    }
+
+    private static List<Integer> getContext(List<Integer> chain, int end, int count) {
+        List<Integer> context = new ArrayList<>(chain.subList(Math.max(0, end - count + 1), end + 1));
+        Collections.reverse(context);
+        return context;
+    }
+
+    private void assertSlidingMedian(int capacity) {
+        Random random = new Random(capacity);
+        List<Integer> chain = new ArrayList<>();
+        int timestamp = 1553699987;
+        for (int i = 0; i < 1000; i++) {
+            // duplicates and timestamps going back in time included
+            timestamp += random.nextInt(120) - 40;
+            chain.add(timestamp);
+        }
+
+        MedianTimePast<Integer> medianTimePast = new MedianTimePast<>(capacity);
+        medianTimePast.reset(0, getContext(chain, 0, capacity));
+
+        for (int i = 1; i < chain.size(); i++) {
+            Assert.assertTrue(medianTimePast.advance(i - 1, i, chain.get(i)));
+            Assert.assertEquals(Integer.valueOf(i), medianTimePast.getTip());
+            Assert.assertEquals(Math.min(i + 1, capacity), medianTimePast.size());
+
+            if (medianTimePast.isFull()) {
+                Assert.assertEquals(expectedMedian(chain, i, capacity), medianTimePast.getMedian());
+            }
+        }
+    }
+
+    @Test
+    public void bitcoinWindowTest() {
+        assertSlidingMedian(11);
+    }
+
+    @Test
+    public void veriBlockWindowTest() {
+        assertSlidingMedian(20);
+    }
+
+    @Test
+    public void resetTest() {
+        List<Integer> chain = Arrays.asList(10, 50, 20, 40, 30, 60, 5);
+        MedianTimePast<Integer> medianTimePast = new MedianTimePast<>(5);
+
+        medianTimePast.reset(6, getContext(chain, 6, 5));
+        Assert.assertTrue(medianTimePast.isFull());
+        Assert.assertEquals(30, medianTimePast.getMedian());
+
+        medianTimePast.reset(2, getContext(chain, 2, 5));
+        Assert.assertFalse(medianTimePast.isFull());
+        Assert.assertEquals(20, medianTimePast.getMedian());
+    }
+
+    @Test
+    public void advanceRequiresResetTest() {
+        MedianTimePast<Integer> medianTimePast = new MedianTimePast<>(3);
+
+        // empty tracker
+        Assert.assertFalse(medianTimePast.advance(0, 1, 100));
+
+        medianTimePast.reset(1, Arrays.asList(100, 90, 80));
+        Assert.assertTrue(medianTimePast.advance(0, 1, 100));
+        Assert.assertFalse(medianTimePast.advance(5, 6, 110));
+        Assert.assertEquals(Integer.valueOf(1), medianTimePast.getTip());
+        Assert.assertEquals(90, medianTimePast.getMedian());
+
+        medianTimePast.clear();
+        Assert.assertNull(medianTimePast.getTip());
+        Assert.assertEquals(0, medianTimePast.size());
+    }
+}
@@ -0,0 +1,103 @@
+// VeriBlock Blockchain Project
+// Copyright 2017-2018 VeriBlock, Inc
+// Copyright 2018-2019 Xenios SEZC
+// All rights reserved.
+// https://www.veriblock.org
+// Distributed under the MIT software license, see the accompanying
+// file LICENSE or http://www.opensource.org/licenses/mit-license.php.
+
+package org.veriblock.sdk.blockchain;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TemporalViewTest {
+
+    @Test
+    public void putAndGetTest() {
+        TemporalView<String, Integer> view = new TemporalView<>();
+        Assert.assertTrue(view.isEmpty());
+
+        view.put(1, "a");
+        view.put(1, "b");
+        Assert.assertFalse(view.isEmpty());
+        Assert.assertEquals("b", view.get(1));
+        Assert.assertTrue(view.contains(1));
+        Assert.assertNull(view.get(2));
+        Assert.assertFalse(view.contains(2));
+    }
+
+    @Test
+    public void chainHeadTest() {
+        TemporalView<String, Integer> view = new TemporalView<>();
+        Assert.assertNull(view.getChainHead());
+
+        view.setChainHead("a");
+        Assert.assertFalse(view.isEmpty());
+        Assert.assertEquals("a", view.getChainHead());
+    }
+
+    @Test
+    public void forkTest() {
+        TemporalView<String, Integer> view = new TemporalView<>();
+        view.put(1, "a");
+        view.setChainHead("a");
+
+        TemporalView<String, Integer> fork = view.fork();
+        Assert.assertEquals("a", fork.get(1));
+        Assert.assertEquals("a", fork.getChainHead());
+        Assert.assertFalse(fork.isEmpty());
+
+        // the changes made after the fork stay in their view
+        view.put(2, "b");
+        view.setChainHead("b");
+        fork.put(1, "c");
+        fork.put(3, "d");
+
+        Assert.assertEquals("a", view.get(1));
+        Assert.assertEquals("b", view.get(2));
+        Assert.assertNull(view.get(3));
+        Assert.assertEquals("b", view.getChainHead());
+
+        Assert.assertEquals("c", fork.get(1));
+        Assert.assertNull(fork.get(2));
+        Assert.assertEquals("d", fork.get(3));
+        Assert.assertEquals("a", fork.getChainHead());
+    }
+
+    @Test
+    public void nestedForkTest() {
+        TemporalView<String, Integer> view = new TemporalView<>();
+        view.put(1, "a");
+
+        TemporalView<String, Integer> first = view.fork();
+        first.put(2, "b");
+
+        TemporalView<String, Integer> second = first.fork();
+        second.put(3, "c");
+        first.put(3, "d");
+
+        Assert.assertNull(view.get(2));
+        Assert.assertNull(view.get(3));
+
+        Assert.assertEquals("a", first.get(1));
+        Assert.assertEquals("b", first.get(2));
+        Assert.assertEquals("d", first.get(3));
+
+        Assert.assertEquals("a", second.get(1));
+        Assert.assertEquals("b", second.get(2));
+        Assert.assertEquals("c", second.get(3));
+    }
+
+    @Test
+    public void forkEmptyViewTest() {
+        TemporalView<String, Integer> view = new TemporalView<>();
+        TemporalView<String, Integer> fork = view.fork();
+        Assert.assertTrue(view.isEmpty());
+        Assert.assertTrue(fork.isEmpty());
+
+        fork.put(1, "a");
+        Assert.assertTrue(view.isEmpty());
+        Assert.assertNull(view.get(1));
+    }
+}
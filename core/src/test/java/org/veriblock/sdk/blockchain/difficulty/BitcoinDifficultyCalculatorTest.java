@@ -71,6 +71,28 @@ public class BitcoinDifficultyCalculatorTest {
         }
     }
 
+    // add the blocks one by one and then in bulk and compare the resulting stores
+    private void assertBulkAddMatches(List<String> headers, int firstBlockHeight,
+                                      BitcoinBlockchain blockchain) throws SQLException {
+        List<BitcoinBlock> blocks = toBlocks(headers);
+
+        addBlockDataToBlockchain(headers, firstBlockHeight, blockchain);
+        List<StoredBitcoinBlock> expected = new ArrayList<>();
+        for (BitcoinBlock block : blocks) {
+            expected.add(store.get(block.getHash()));
+        }
+        StoredBitcoinBlock expectedHead = store.getChainHead();
+
+        store.clear();
+        blockchain.bootstrap(Arrays.asList(blocks.get(0)), firstBlockHeight);
+        blockchain.bulkAdd(blocks);
+
+        for (int i = 0; i < blocks.size(); i++) {
+            Assert.assertEquals(expected.get(i), store.get(blocks.get(i).getHash()));
+        }
+        Assert.assertEquals(expectedHead, store.getChainHead());
+    }
+
     private void assertDifficultyValidationFailure(VerificationException e) {
         Assert.assertTrue(e.getMessage().equals("Block does not match difficulty of previous block")
                        || e.getMessage().equals("Block does not match computed difficulty adjustment"));
@@ -175,4 +197,72 @@ public class BitcoinDifficultyCalculatorTest {
                                     blockchain);
     }
 
+    @Test
+    public void mainnetBulkTest() throws SQLException, IOException {
+        BitcoinBlockchain blockchain = new BitcoinBlockchain(new BitcoinMainNetParameters(), store);
+        assertBulkAddMatches(BitcoinMainnetBlockData.headers,
+                             BitcoinMainnetBlockData.firstBlockHeight,
+                             blockchain);
+    }
+
+    @Test
+    public void testnetBulkTest() throws SQLException, IOException {
+        BitcoinBlockchain blockchain = new BitcoinBlockchain(new BitcoinTestNetParameters(), store);
+        assertBulkAddMatches(BitcoinTestnetBlockData.headers,
+                             BitcoinTestnetBlockData.firstBlockHeight,
+                             blockchain);
+    }
+
+    @Test
+    public void regtestBulkTest() throws SQLException, IOException {
+        BitcoinBlockchain blockchain = new BitcoinBlockchain(new BitcoinRegTestParameters(), store);
+        assertBulkAddMatches(BitcoinRegtestBlockData.headers,
+                             BitcoinRegtestBlockData.firstBlockHeight,
+                             blockchain);
+    }
+
+    @Test
+    public void regtestBulkFailsOnMainnetTest() throws SQLException, IOException {
+        BitcoinBlockchain blockchain = new BitcoinBlockchain(new BitcoinRegTestParameters(), store);
+        List<BitcoinBlock> blocks = toBlocks(BitcoinMainnetBlockData.headers);
+        blockchain.bootstrap(Arrays.asList(blocks.get(0)), BitcoinMainnetBlockData.firstBlockHeight);
+
+        try {
+            blockchain.bulkAdd(blocks);
+            Assert.fail();
+        } catch (VerificationException e) {
+            assertDifficultyValidationFailure(e);
+        }
+
+        // none of the blocks are added
+        Assert.assertEquals(blocks.get(0), blockchain.getChainHead());
+        for (BitcoinBlock block : blocks.subList(1, blocks.size())) {
+            Assert.assertNull(store.get(block.getHash()));
+        }
+    }
+
+    @Test
+    public void regtestBulkRollsBackOnRuntimeExceptionTest() throws SQLException, IOException {
+        BitcoinBlockchain blockchain = new BitcoinBlockchain(new BitcoinRegTestParameters(), store);
+        List<BitcoinBlock> blocks = toBlocks(BitcoinRegtestBlockData.headers);
+        blockchain.bootstrap(Arrays.asList(blocks.get(0)), BitcoinRegtestBlockData.firstBlockHeight);
+
+        // a malformed entry after the valid blocks fails outside of the validation
+        List<BitcoinBlock> malformed = new ArrayList<>(blocks);
+        malformed.add(null);
+
+        try {
+            blockchain.bulkAdd(malformed);
+            Assert.fail();
+        } catch (NullPointerException e) {
+        }
+
+        // none of the blocks are added and the transaction is closed
+        Assert.assertEquals(blocks.get(0), blockchain.getChainHead());
+        for (BitcoinBlock block : blocks.subList(1, blocks.size())) {
+            Assert.assertNull(store.get(block.getHash()));
+        }
+        blockchain.bulkAdd(blocks);
+        Assert.assertEquals(blocks.get(blocks.size() - 1), blockchain.getChainHead());
+    }
 }
@@ -0,0 +1,184 @@
+// VeriBlock Blockchain Project
+// Copyright 2017-2018 VeriBlock, Inc
+// Copyright 2018-2019 Xenios SEZC
+// All rights reserved.
+// https://www.veriblock.org
+// Distributed under the MIT software license, see the accompanying
+// file LICENSE or http://www.opensource.org/licenses/mit-license.php.
+
+package org.veriblock.sdk.blockchain.difficulty;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.veriblock.sdk.blockchain.IncrementalVeriBlockDifficultyCalculator;
+import org.veriblock.sdk.blockchain.VeriBlockDifficultyCalculator;
+import org.veriblock.sdk.conf.MainNetParameters;
+import org.veriblock.sdk.conf.VeriBlockNetworkParameters;
+import org.veriblock.sdk.models.Sha256Hash;
+import org.veriblock.sdk.models.VBlakeHash;
+import org.veriblock.sdk.models.VeriBlockBlock;
+import org.veriblock.sdk.util.BitcoinUtils;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+public class VeriBlockDifficultyCalculatorTest {
+    private static final int N = VeriBlockDifficultyCalculator.RETARGET_PERIOD;
+
+    private final VeriBlockNetworkParameters networkParameters = new MainNetParameters();
+    private IncrementalVeriBlockDifficultyCalculator calculator;
+    private Random random;
+
+    @Before
+    public void setUp() {
+        calculator = new IncrementalVeriBlockDifficultyCalculator(networkParameters);
+        random = new Random(1234);
+    }
+
+    private VeriBlockBlock nextBlock(VeriBlockBlock previous) {
+        int solveTime;
+        switch (random.nextInt(4)) {
+            case 0:
+                // far outside the clamping range in both directions
+                solveTime = random.nextInt(2000) - 1000;
+                break;
+            case 1:
+                solveTime = -random.nextInt(60);
+                break;
+            default:
+                solveTime = random.nextInt(90);
+        }
+
+        // targets from below the minimum difficulty up to a few orders above it
+        BigInteger target = networkParameters.getMinimumDifficulty()
+                .multiply(BigInteger.valueOf(random.nextInt(5000) + 1))
+                .divide(BigInteger.valueOf(10));
+
+        return new VeriBlockBlock(previous.getHeight() + 1,
+                                  previous.getVersion(),
+                                  previous.getHash().trimToPreviousBlockSize(),
+                                  previous.getPreviousKeystone(),
+                                  previous.getSecondPreviousKeystone(),
+                                  Sha256Hash.ZERO_HASH,
+                                  previous.getTimestamp() + solveTime,
+                                  (int) BitcoinUtils.encodeCompactBits(target),
+                                  random.nextInt());
+    }
+
+    private List<VeriBlockBlock> generateChain(VeriBlockBlock first, int count) {
+        List<VeriBlockBlock> chain = new ArrayList<>();
+        chain.add(first);
+        while (chain.size() < count) {
+            chain.add(nextBlock(chain.get(chain.size() - 1)));
+        }
+        return chain;
+    }
+
+    private VeriBlockBlock genesis() {
+        return new VeriBlockBlock(0, (short) 2,
+                                  VBlakeHash.EMPTY_HASH.trimToPreviousBlockSize(),
+                                  VBlakeHash.EMPTY_HASH.trimToPreviousKeystoneSize(),
+                                  VBlakeHash.EMPTY_HASH.trimToPreviousKeystoneSize(),
+                                  Sha256Hash.ZERO_HASH,
+                                  1553699987,
+                                  (int) BitcoinUtils.encodeCompactBits(networkParameters.getMinimumDifficulty()),
+                                  0);
+    }
+
+    // the context of the given block as passed by VeriBlockBlockchain, the newest first
+    private static List<VeriBlockBlock> getContext(List<VeriBlockBlock> chain, int index) {
+        List<VeriBlockBlock> context = new ArrayList<>(chain.subList(Math.max(0, index - N + 1), index + 1));
+        Collections.reverse(context);
+        return context;
+    }
+
+    private void assertMatches(List<VeriBlockBlock> chain, int index) {
+        BigInteger expected = VeriBlockDifficultyCalculator.calculate(networkParameters, chain.get(index), getContext(chain, index));
+        Assert.assertEquals("Difficulty mismatch at height " + chain.get(index).getHeight(),
+                            expected, calculator.calculate());
+    }
+
+    @Test
+    public void slidingWindowTest() {
+        List<VeriBlockBlock> chain = generateChain(genesis(), 4 * N);
+
+        calculator.reset(getContext(chain, N - 1));
+        Assert.assertTrue(calculator.isFull());
+        assertMatches(chain, N - 1);
+
+        for (int i = N; i < chain.size(); i++) {
+            Assert.assertTrue(calculator.advance(chain.get(i)));
+            Assert.assertEquals(chain.get(i), calculator.getTip());
+            assertMatches(chain, i);
+        }
+    }
+
+    @Test
+    public void advanceToTipTest() {
+        List<VeriBlockBlock> chain = generateChain(genesis(), 2 * N);
+
+        calculator.reset(getContext(chain, chain.size() - 1));
+        Assert.assertTrue(calculator.advance(chain.get(chain.size() - 1)));
+        assertMatches(chain, chain.size() - 1);
+    }
+
+    @Test
+    public void advanceRequiresResetTest() {
+        List<VeriBlockBlock> chain = generateChain(genesis(), 2 * N);
+
+        // empty window
+        Assert.assertFalse(calculator.advance(chain.get(N)));
+
+        // incomplete window
+        calculator.reset(getContext(chain, N / 2));
+        Assert.assertFalse(calculator.isFull());
+        Assert.assertFalse(calculator.advance(chain.get(N / 2 + 1)));
+
+        // a block that does not extend the tip
+        calculator.reset(getContext(chain, N));
+        Assert.assertFalse(calculator.advance(chain.get(N + 2)));
+        Assert.assertFalse(calculator.advance(chain.get(N - 1)));
+        Assert.assertEquals(chain.get(N), calculator.getTip());
+        assertMatches(chain, N);
+    }
+
+    @Test
+    public void reorganizationTest() {
+        List<VeriBlockBlock> chain = generateChain(genesis(), 3 * N);
+        calculator.reset(getContext(chain, chain.size() - 1));
+
+        // switch to a fork a random number of blocks below the tip and follow it
+        for (int round = 0; round < 10; round++) {
+            // the fork is longer than the abandoned branch
+            int depth = random.nextInt(N + N / 2);
+            int forkIndex = chain.size() - 1 - depth;
+            List<VeriBlockBlock> fork = new ArrayList<>(chain.subList(0, forkIndex + 1));
+            fork.addAll(generateChain(nextBlock(chain.get(forkIndex)), depth + 1 + random.nextInt(N)));
+
+            int index = forkIndex + 1;
+            if (!calculator.advance(fork.get(index))) {
+                calculator.reset(getContext(fork, index));
+            }
+            assertMatches(fork, index);
+
+            for (index++; index < fork.size(); index++) {
+                Assert.assertTrue(calculator.advance(fork.get(index)));
+                assertMatches(fork, index);
+            }
+            chain = fork;
+        }
+    }
+
+    @Test
+    public void shortChainTest() {
+        List<VeriBlockBlock> chain = generateChain(genesis(), N / 2);
+
+        calculator.reset(getContext(chain, chain.size() - 1));
+        Assert.assertEquals(BitcoinUtils.decodeCompactBits(chain.get(chain.size() - 1).getDifficulty()),
+                            calculator.calculate());
+    }
+}
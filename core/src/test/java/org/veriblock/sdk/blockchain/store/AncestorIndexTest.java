@@ -0,0 +1,99 @@
+// VeriBlock Blockchain Project
+// Copyright 2017-2018 VeriBlock, Inc
+// Copyright 2018-2019 Xenios SEZC
+// All rights reserved.
+// https://www.veriblock.org
+// Distributed under the MIT software license, see the accompanying
+// file LICENSE or http://www.opensource.org/licenses/mit-license.php.
+
+package org.veriblock.sdk.blockchain.store;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.veriblock.sdk.models.BitcoinBlock;
+import org.veriblock.sdk.models.Sha256Hash;
+import org.veriblock.sdk.sqlite.Database;
+
+import java.math.BigInteger;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+public class AncestorIndexTest {
+
+    private Database database;
+    private BitcoinStore store;
+
+    @Before
+    public void setUp() throws SQLException {
+        database = Database.openInMemory();
+        store = new BitcoinStore(database.getConnection());
+        store.clear();
+    }
+
+    @After
+    public void tearDown() {
+        database.close();
+    }
+
+    @Test
+    public void ancestorTest() throws SQLException {
+        List<StoredBitcoinBlock> chain = generateChain(null, 300, 0);
+        BitcoinAncestorIndex index = new BitcoinAncestorIndex(store);
+
+        StoredBitcoinBlock tip = chain.get(chain.size() - 1);
+        for (int blocksAgo = 0; blocksAgo < chain.size(); blocksAgo++) {
+            Assert.assertEquals(chain.get(chain.size() - 1 - blocksAgo).getHash(), index.getAncestor(tip.getHash(), blocksAgo));
+        }
+        Assert.assertNull(index.getAncestor(tip.getHash(), chain.size()));
+        Assert.assertNull(index.getAncestor(Sha256Hash.ZERO_HASH, 0));
+    }
+
+    @Test
+    public void forkTest() throws SQLException {
+        List<StoredBitcoinBlock> chain = generateChain(null, 100, 0);
+        List<StoredBitcoinBlock> fork = generateChain(chain.get(49), 70, 1);
+
+        Assert.assertEquals(chain.get(49), store.getFromChain(fork.get(69).getHash(), 70));
+        Assert.assertEquals(chain.get(0), store.getFromChain(fork.get(69).getHash(), 119));
+        Assert.assertEquals(fork.get(0), store.getFromChain(fork.get(69).getHash(), 69));
+        Assert.assertEquals(chain.get(50), store.getFromChain(chain.get(99).getHash(), 49));
+        Assert.assertNull(store.getFromChain(fork.get(69).getHash(), 120));
+    }
+
+    @Test
+    public void previousBlockAddedLaterTest() throws SQLException {
+        List<StoredBitcoinBlock> chain = generateChain(null, 20, 0);
+        List<StoredBitcoinBlock> tail = new ArrayList<>(chain.subList(10, 20));
+
+        store.clear();
+        for (StoredBitcoinBlock block : tail) {
+            store.put(block);
+        }
+        Assert.assertNull(store.getFromChain(chain.get(19).getHash(), 10));
+
+        // the start of the chain is put after the tail has been indexed
+        for (StoredBitcoinBlock block : chain.subList(0, 10)) {
+            store.put(block);
+        }
+        Assert.assertEquals(chain.get(9), store.getFromChain(chain.get(19).getHash(), 10));
+        Assert.assertEquals(chain.get(0), store.getFromChain(chain.get(19).getHash(), 19));
+    }
+
+    private List<StoredBitcoinBlock> generateChain(StoredBitcoinBlock parent, int count, int nonce) throws SQLException {
+        List<StoredBitcoinBlock> chain = new ArrayList<>();
+        Sha256Hash previous = parent == null ? Sha256Hash.ZERO_HASH : parent.getHash();
+        int height = parent == null ? 0 : parent.getHeight() + 1;
+
+        for (int i = 0; i < count; i++, height++) {
+            BitcoinBlock block = new BitcoinBlock(1, previous, Sha256Hash.ZERO_HASH, height, 0x207fffff, nonce);
+            StoredBitcoinBlock storedBlock = new StoredBitcoinBlock(block, BigInteger.valueOf(height), height);
+            store.put(storedBlock);
+            chain.add(storedBlock);
+            previous = block.getHash();
+        }
+        return chain;
+    }
+}
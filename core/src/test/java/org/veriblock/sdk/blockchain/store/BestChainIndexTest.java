@@ -0,0 +1,132 @@
+// VeriBlock Blockchain Project
+// Copyright 2017-2018 VeriBlock, Inc
+// Copyright 2018-2019 Xenios SEZC
+// All rights reserved.
+// https://www.veriblock.org
+// Distributed under the MIT software license, see the accompanying
+// file LICENSE or http://www.opensource.org/licenses/mit-license.php.
+
+package org.veriblock.sdk.blockchain.store;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.veriblock.sdk.models.BitcoinBlock;
+import org.veriblock.sdk.models.Sha256Hash;
+import org.veriblock.sdk.sqlite.Database;
+
+import java.math.BigInteger;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+public class BestChainIndexTest {
+
+    private Database database;
+    private BitcoinStore store;
+    private BitcoinBestChainIndex index;
+
+    @Before
+    public void setUp() throws SQLException {
+        database = Database.openInMemory();
+        store = new BitcoinStore(database.getConnection());
+        store.clear();
+        index = new BitcoinBestChainIndex(store);
+    }
+
+    @After
+    public void tearDown() {
+        database.close();
+    }
+
+    @Test
+    public void loadTest() throws SQLException {
+        List<StoredBitcoinBlock> chain = generateChain(null, 10, 0);
+        store.setChainHead(chain.get(9));
+
+        Assert.assertFalse(index.isLoaded());
+        Assert.assertEquals(Integer.valueOf(4), index.getHeight(chain.get(4).getHash()));
+        Assert.assertTrue(index.isLoaded());
+
+        Assert.assertEquals(chain.get(0).getHash(), index.get(0));
+        Assert.assertEquals(chain.get(9).getHash(), index.get(9));
+        Assert.assertNull(index.get(10));
+        Assert.assertNull(index.find(Sha256Hash.ZERO_HASH));
+    }
+
+    @Test
+    public void extendTest() throws SQLException {
+        List<StoredBitcoinBlock> chain = generateChain(null, 10, 0);
+        store.setChainHead(chain.get(4));
+        Assert.assertNull(index.find(chain.get(5).getHash()));
+
+        for (int i = 5; i < 10; i++) {
+            index.setChainHead(chain.get(i));
+        }
+
+        Assert.assertEquals(Integer.valueOf(9), index.getHeight(chain.get(9).getHash()));
+        Assert.assertEquals(chain.get(7).getHash(), index.find(chain.get(7).getHash()));
+    }
+
+    @Test
+    public void forkTest() throws SQLException {
+        List<StoredBitcoinBlock> chain = generateChain(null, 10, 0);
+        List<StoredBitcoinBlock> fork = generateChain(chain.get(5), 6, 1);
+        store.setChainHead(chain.get(9));
+        index.find(chain.get(0).getHash());
+
+        // switch to the longer fork that starts after block 5
+        index.setChainHead(fork.get(5));
+
+        Assert.assertEquals(Integer.valueOf(5), index.getHeight(chain.get(5).getHash()));
+        Assert.assertNull(index.getHeight(chain.get(6).getHash()));
+        Assert.assertNull(index.getHeight(chain.get(9).getHash()));
+        Assert.assertEquals(Integer.valueOf(6), index.getHeight(fork.get(0).getHash()));
+        Assert.assertEquals(Integer.valueOf(11), index.getHeight(fork.get(5).getHash()));
+
+        // and back to an ancestor of the original chain
+        index.setChainHead(chain.get(3));
+
+        Assert.assertEquals(chain.get(3).getHash(), index.get(3));
+        Assert.assertNull(index.get(4));
+        Assert.assertNull(index.find(fork.get(0).getHash()));
+    }
+
+    @Test
+    public void storeScanBestChainTest() throws SQLException {
+        List<StoredBitcoinBlock> chain = generateChain(null, 10, 0);
+        List<StoredBitcoinBlock> fork = generateChain(chain.get(5), 6, 1);
+
+        store.setChainHead(chain.get(9));
+        Assert.assertEquals(chain.get(2), store.scanBestChain(chain.get(2).getHash()));
+        Assert.assertNull(store.scanBestChain(fork.get(0).getHash()));
+
+        store.setChainHead(fork.get(5));
+        Assert.assertEquals(chain.get(2), store.scanBestChain(chain.get(2).getHash()));
+        Assert.assertEquals(fork.get(0), store.scanBestChain(fork.get(0).getHash()));
+        Assert.assertNull(store.scanBestChain(chain.get(9).getHash()));
+
+        // a rolled back chain head change is not visible
+        store.beginTransaction();
+        store.setChainHead(chain.get(9));
+        store.rollbackTransaction();
+        Assert.assertEquals(fork.get(0), store.scanBestChain(fork.get(0).getHash()));
+        Assert.assertNull(store.scanBestChain(chain.get(9).getHash()));
+    }
+
+    private List<StoredBitcoinBlock> generateChain(StoredBitcoinBlock parent, int count, int nonce) throws SQLException {
+        List<StoredBitcoinBlock> chain = new ArrayList<>();
+        Sha256Hash previous = parent == null ? Sha256Hash.ZERO_HASH : parent.getHash();
+        int height = parent == null ? 0 : parent.getHeight() + 1;
+
+        for (int i = 0; i < count; i++, height++) {
+            BitcoinBlock block = new BitcoinBlock(1, previous, Sha256Hash.ZERO_HASH, height, 0x207fffff, nonce);
+            StoredBitcoinBlock storedBlock = new StoredBitcoinBlock(block, BigInteger.valueOf(height), height);
+            store.put(storedBlock);
+            chain.add(storedBlock);
+            previous = block.getHash();
+        }
+        return chain;
+    }
+}
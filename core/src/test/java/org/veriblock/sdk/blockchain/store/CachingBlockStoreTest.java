@@ -0,0 +1,139 @@
+// VeriBlock Blockchain Project
+// Copyright 2017-2018 VeriBlock, Inc
+// Copyright 2018-2019 Xenios SEZC
+// All rights reserved.
+// https://www.veriblock.org
+// Distributed under the MIT software license, see the accompanying
+// file LICENSE or http://www.opensource.org/licenses/mit-license.php.
+
+package org.veriblock.sdk.blockchain.store;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.veriblock.sdk.models.Sha256Hash;
+import org.veriblock.sdk.models.VeriBlockBlock;
+import org.veriblock.sdk.services.SerializeDeserializeService;
+import org.veriblock.sdk.sqlite.Database;
+import org.veriblock.sdk.util.Utils;
+
+import java.math.BigInteger;
+import java.sql.SQLException;
+
+public class CachingBlockStoreTest {
+
+    private Database database;
+    private CachingVeriBlockStore store;
+
+    private final byte[] raw1 =  Utils.decodeHex("0001998300029690ACA425987B8B529BEC04654A16FCCE708F3F0DEED25E1D2513D05A3B17C49D8B3BCFEFC10CB2E9C4D473B2E25DB7F1BD040098960DE0E313");
+    private final VeriBlockBlock block1 = SerializeDeserializeService.parseVeriBlockBlock(raw1);
+    private final StoredVeriBlockBlock storedBlock1 = new StoredVeriBlockBlock(block1, BigInteger.TEN);
+
+    private final byte[] raw2 = Utils.decodeHex("000199840002A69BF9FE9B06E641B61699A9654A16FCCE708F3F0DEED25E1D2513D05A3B7D7F80EB5E94D01C6B3796DDE5647F135DB7F1DD040098960EA12045");
+    private final VeriBlockBlock block2 = SerializeDeserializeService.parseVeriBlockBlock(raw2);
+    private final StoredVeriBlockBlock storedBlock2 = new StoredVeriBlockBlock(block2, BigInteger.ONE);
+
+    private final Sha256Hash blockOfProof = Sha256Hash.wrap("00000000000000000004dc9c42c22f489ade54a9349e3a47aee5b55069062afd");
+
+    @Before
+    public void setUp() throws SQLException {
+        database = Database.openInMemory();
+        VeriBlockStore veriBlockStore = new VeriBlockStore(database.getConnection());
+        veriBlockStore.clear();
+        store = new CachingVeriBlockStore(veriBlockStore, 2);
+    }
+
+    @After
+    public void tearDown() {
+        database.close();
+    }
+
+    @Test
+    public void hitMissTest() throws SQLException {
+        store.put(storedBlock1);
+        store.put(storedBlock2);
+
+        Assert.assertEquals(storedBlock1, store.get(block1.getHash()));
+        Assert.assertEquals(1, store.getHitCount());
+        Assert.assertEquals(0, store.getMissCount());
+
+        // the previous block references are cached under the truncated hash
+        Assert.assertEquals(storedBlock1, store.get(block2.getPreviousBlock()));
+        Assert.assertEquals(storedBlock1, store.get(block2.getPreviousBlock()));
+        Assert.assertEquals(2, store.getHitCount());
+        Assert.assertEquals(1, store.getMissCount());
+        Assert.assertEquals(2, store.size());
+    }
+
+    @Test
+    public void copyTest() throws SQLException {
+        store.put(storedBlock1);
+
+        StoredVeriBlockBlock block = store.get(block1.getHash());
+        block.setBlockOfProof(blockOfProof);
+        Assert.assertEquals(Sha256Hash.ZERO_HASH, store.get(block1.getHash()).getBlockOfProof());
+
+        StoredVeriBlockBlock replaced = store.replace(block1.getHash(), block);
+        Assert.assertEquals(Sha256Hash.ZERO_HASH, replaced.getBlockOfProof());
+        Assert.assertEquals(blockOfProof, store.get(block1.getHash()).getBlockOfProof());
+    }
+
+    @Test
+    public void eraseTest() throws SQLException {
+        store.put(storedBlock1);
+        store.put(storedBlock2);
+        store.setChainHead(storedBlock1);
+        Assert.assertEquals(storedBlock2, store.get(block2.getHash().trimToPreviousBlockSize()));
+
+        Assert.assertEquals(storedBlock2, store.erase(block2.getHash()));
+        Assert.assertNull(store.get(block2.getHash()));
+        Assert.assertNull(store.get(block2.getHash().trimToPreviousBlockSize()));
+    }
+
+    @Test
+    public void evictedEntriesTest() throws SQLException {
+        store.put(storedBlock1);
+        Assert.assertEquals(storedBlock1, store.get(block2.getPreviousBlock()));
+
+        // evicts the full id entry of the first block
+        store.put(storedBlock2);
+        Assert.assertEquals(2, store.size());
+
+        // drops the remaining partial id entry of the first block
+        StoredVeriBlockBlock block = store.get(block1.getHash());
+        block.setBlockOfProof(blockOfProof);
+        store.replace(block1.getHash(), block);
+        Assert.assertEquals(blockOfProof, store.get(block2.getPreviousBlock()).getBlockOfProof());
+        Assert.assertEquals(blockOfProof, store.get(block1.getHash()).getBlockOfProof());
+        Assert.assertEquals(2, store.size());
+    }
+
+    @Test
+    public void rollbackTest() throws SQLException {
+        store.put(storedBlock1);
+
+        store.beginTransaction();
+        StoredVeriBlockBlock block = store.get(block1.getHash());
+        block.setBlockOfProof(blockOfProof);
+        store.replace(block1.getHash(), block);
+        store.put(storedBlock2);
+        store.setChainHead(storedBlock2);
+        store.rollbackTransaction();
+
+        Assert.assertEquals(Sha256Hash.ZERO_HASH, store.get(block1.getHash()).getBlockOfProof());
+        Assert.assertNull(store.get(block2.getHash()));
+        Assert.assertNull(store.getChainHead());
+    }
+
+    @Test
+    public void chainTest() throws SQLException {
+        store.put(storedBlock1);
+        store.put(storedBlock2);
+        store.setChainHead(storedBlock2);
+
+        Assert.assertEquals(storedBlock2, store.getChainHead());
+        Assert.assertEquals(2, store.get(block2.getHash(), 5).size());
+        Assert.assertEquals(storedBlock1, store.get(block2.getHash(), 5).get(1));
+    }
+}
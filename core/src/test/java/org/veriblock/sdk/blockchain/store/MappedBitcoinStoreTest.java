@@ -0,0 +1,135 @@
+// VeriBlock Blockchain Project
+// Copyright 2017-2018 VeriBlock, Inc
+// Copyright 2018-2019 Xenios SEZC
+// All rights reserved.
+// https://www.veriblock.org
+// Distributed under the MIT software license, see the accompanying
+// file LICENSE or http://www.opensource.org/licenses/mit-license.php.
+
+package org.veriblock.sdk.blockchain.store;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.veriblock.sdk.models.BitcoinBlock;
+import org.veriblock.sdk.models.BlockStoreException;
+import org.veriblock.sdk.models.Sha256Hash;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.util.List;
+
+public class MappedBitcoinStoreTest {
+
+    private File directory;
+    private MappedBitcoinStore store;
+
+    private final BitcoinBlock block1 = new BitcoinBlock(766099456,
+            Sha256Hash.wrap("00000000000000000004dc9c42c22f489ade54a9349e3a47aee5b55069062afd"),
+            Sha256Hash.wrap("87839c0e4c6771557ef02a5076c8b46a7157e5532eff7153293791ca852d2e58"),
+            1572336145, 0x17148edf, 790109764);
+    private final StoredBitcoinBlock storedBlock1 = new StoredBitcoinBlock(block1, BigInteger.TEN, 1);
+
+    private final BitcoinBlock block2 = new BitcoinBlock(1073733632,
+            Sha256Hash.wrap("0000000000000000000faad7ae177b313ee4e3f1da519dbbf5b3ab58ccff6338"),
+            Sha256Hash.wrap("902e5a70c8fa99fb9ba6d0f855f5e84b8ffc3fe56b694889d07031d8adb6a0f8"),
+            1572336708, 0x17148edf, 344118374);
+    private final StoredBitcoinBlock storedBlock2 = new StoredBitcoinBlock(block2, BigInteger.ONE, 2);
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("mapped-store-test").toFile();
+        store = new MappedBitcoinStore(directory);
+    }
+
+    @After
+    public void tearDown() {
+        store.shutdown();
+        for (File file : directory.listFiles()) {
+            file.delete();
+        }
+        directory.delete();
+    }
+
+    @Test
+    public void chainTest() {
+        store.put(storedBlock1);
+        store.put(storedBlock2);
+        store.setChainHead(storedBlock2);
+
+        Assert.assertEquals(storedBlock1, store.get(block1.getHash()));
+
+        List<StoredBitcoinBlock> blocks = store.get(block2.getHash(), 5);
+        Assert.assertEquals(2, blocks.size());
+        Assert.assertEquals(storedBlock2, blocks.get(0));
+        Assert.assertEquals(storedBlock1, blocks.get(1));
+
+        Assert.assertEquals(storedBlock1, store.getFromChain(block2.getHash(), 1));
+        Assert.assertEquals(storedBlock1, store.scanBestChain(block1.getHash()));
+        Assert.assertNull(store.scanBestChain(Sha256Hash.ZERO_HASH));
+    }
+
+    @Test
+    public void eraseCantSplitBlockchainTest() {
+        store.put(storedBlock2);
+        store.put(storedBlock1);
+
+        try {
+            store.erase(block1.getHash());
+            Assert.fail("Expected BlockStoreException");
+        } catch (BlockStoreException e) {
+            Assert.assertEquals("Cannot erase a block referenced by another block", e.getMessage());
+        }
+
+        Assert.assertEquals(storedBlock2, store.erase(block2.getHash()));
+        Assert.assertEquals(storedBlock1, store.erase(block1.getHash()));
+    }
+
+    @Test
+    public void reopenTest() throws IOException {
+        store.put(storedBlock1);
+        store.put(storedBlock2);
+        store.setChainHead(storedBlock2);
+        store.shutdown();
+
+        store = new MappedBitcoinStore(directory);
+
+        Assert.assertEquals(storedBlock2, store.getChainHead());
+        Assert.assertEquals(storedBlock1, store.get(block1.getHash()));
+    }
+
+    @Test
+    public void mainnetWorkTest() throws IOException {
+        BigInteger work = new BigInteger("936218949352891107663343855935225590712334859907366912");
+        StoredBitcoinBlock mainnetBlock1 = new StoredBitcoinBlock(block1, work, 601000);
+        StoredBitcoinBlock mainnetBlock2 = new StoredBitcoinBlock(block2, work.add(BigInteger.ONE), 601001);
+
+        store.put(mainnetBlock1);
+        store.put(mainnetBlock2);
+        store.setChainHead(mainnetBlock2);
+        store.shutdown();
+
+        store = new MappedBitcoinStore(directory);
+
+        Assert.assertEquals(mainnetBlock2, store.getChainHead());
+        Assert.assertEquals(work, store.get(block1.getHash()).getWork());
+        Assert.assertEquals(mainnetBlock1, store.getFromChain(block2.getHash(), 1));
+    }
+
+    @Test
+    public void rollbackTest() {
+        store.put(storedBlock1);
+
+        store.beginTransaction();
+        store.put(storedBlock2);
+        store.erase(block2.getHash());
+        store.erase(block1.getHash());
+        store.rollbackTransaction();
+
+        Assert.assertEquals(storedBlock1, store.get(block1.getHash()));
+        Assert.assertNull(store.get(block2.getHash()));
+    }
+}
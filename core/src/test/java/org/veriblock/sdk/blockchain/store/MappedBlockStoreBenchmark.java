@@ -0,0 +1,113 @@
+// VeriBlock Blockchain Project
+// Copyright 2017-2018 VeriBlock, Inc
+// Copyright 2018-2019 Xenios SEZC
+// All rights reserved.
+// https://www.veriblock.org
+// Distributed under the MIT software license, see the accompanying
+// file LICENSE or http://www.opensource.org/licenses/mit-license.php.
+
+package org.veriblock.sdk.blockchain.store;
+
+import org.veriblock.sdk.models.Sha256Hash;
+import org.veriblock.sdk.models.VBlakeHash;
+import org.veriblock.sdk.models.VeriBlockBlock;
+import org.veriblock.sdk.sqlite.Database;
+
+import java.io.File;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares the memory-mapped VeriBlock store with the SQLite one
+ * on a synthetic chain. Not a unit test; run it manually:
+ *   java MappedBlockStoreBenchmark [blocks] [lookups]
+ */
+public class MappedBlockStoreBenchmark {
+    private static final int CHAIN_WINDOW = 100;
+
+    public static void main(String[] args) throws Exception {
+        int blockCount = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        int lookupCount = args.length > 1 ? Integer.parseInt(args[1]) : 20000;
+
+        List<StoredVeriBlockBlock> chain = generateChain(blockCount);
+
+        File directory = Files.createTempDirectory("mapped-store-benchmark").toFile();
+        File databaseFile = new File(directory, "benchmark.sqlite");
+
+        Database database = new Database(databaseFile.getPath());
+        try {
+            run("sqlite", new VeriBlockStore(database.getConnection()), chain, lookupCount);
+        } finally {
+            database.close();
+        }
+
+        MappedVeriBlockStore mappedStore = new MappedVeriBlockStore(directory);
+        try {
+            run("mapped", mappedStore, chain, lookupCount);
+        } finally {
+            mappedStore.shutdown();
+        }
+
+        for (File file : directory.listFiles()) {
+            file.delete();
+        }
+        directory.delete();
+    }
+
+    private static void run(String name, BlockStore<StoredVeriBlockBlock, VBlakeHash> store,
+                            List<StoredVeriBlockBlock> chain, int lookupCount) throws SQLException {
+        long start = System.nanoTime();
+        store.beginTransaction();
+        for (StoredVeriBlockBlock block : chain) {
+            store.put(block);
+        }
+        store.setChainHead(chain.get(chain.size() - 1));
+        store.commitTransaction();
+        report(name, "put", chain.size(), start);
+
+        start = System.nanoTime();
+        for (int i = 0; i < lookupCount; i++) {
+            store.get(chain.get((i * 7919) % chain.size()).getHash());
+        }
+        report(name, "get", lookupCount, start);
+
+        int windows = Math.max(lookupCount / CHAIN_WINDOW, 1);
+        start = System.nanoTime();
+        for (int i = 0; i < windows; i++) {
+            store.get(chain.get(chain.size() - 1 - (i % (chain.size() - CHAIN_WINDOW))).getHash(), CHAIN_WINDOW);
+        }
+        report(name, "get(hash, " + CHAIN_WINDOW + ")", windows, start);
+
+        start = System.nanoTime();
+        for (int i = 0; i < windows; i++) {
+            store.scanBestChain(chain.get(chain.size() - CHAIN_WINDOW).getHash());
+        }
+        report(name, "scanBestChain", windows, start);
+    }
+
+    private static void report(String store, String operation, int count, long start) {
+        long elapsed = System.nanoTime() - start;
+        System.out.println(String.format("%-7s %-16s %8d ops %10.2f us/op",
+                store, operation, count, elapsed / 1000.0 / count));
+    }
+
+    private static List<StoredVeriBlockBlock> generateChain(int blockCount) {
+        List<StoredVeriBlockBlock> chain = new ArrayList<>(blockCount);
+        VBlakeHash previous = VBlakeHash.EMPTY_HASH;
+
+        for (int height = 0; height < blockCount; height++) {
+            VeriBlockBlock block = new VeriBlockBlock(height, (short) 2,
+                    previous.trimToPreviousBlockSize(),
+                    VBlakeHash.EMPTY_HASH.trimToPreviousKeystoneSize(),
+                    VBlakeHash.EMPTY_HASH.trimToPreviousKeystoneSize(),
+                    Sha256Hash.ZERO_HASH.trim(Sha256Hash.VERIBLOCK_MERKLE_ROOT_LENGTH),
+                    height, 1, height);
+            chain.add(new StoredVeriBlockBlock(block, BigInteger.valueOf(height)));
+            previous = block.getHash();
+        }
+        return chain;
+    }
+}
@@ -0,0 +1,168 @@
+// VeriBlock Blockchain Project
+// Copyright 2017-2018 VeriBlock, Inc
+// Copyright 2018-2019 Xenios SEZC
+// All rights reserved.
+// https://www.veriblock.org
+// Distributed under the MIT software license, see the accompanying
+// file LICENSE or http://www.opensource.org/licenses/mit-license.php.
+
+package org.veriblock.sdk.blockchain.store;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.veriblock.sdk.models.BlockStoreException;
+import org.veriblock.sdk.models.VBlakeHash;
+import org.veriblock.sdk.models.VeriBlockBlock;
+import org.veriblock.sdk.services.SerializeDeserializeService;
+import org.veriblock.sdk.util.Utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.util.List;
+
+public class MappedVeriBlockStoreTest {
+
+    private File directory;
+    private MappedVeriBlockStore store;
+
+    private final byte[] raw1 =  Utils.decodeHex("0001998300029690ACA425987B8B529BEC04654A16FCCE708F3F0DEED25E1D2513D05A3B17C49D8B3BCFEFC10CB2E9C4D473B2E25DB7F1BD040098960DE0E313");
+    private final VeriBlockBlock block1 = SerializeDeserializeService.parseVeriBlockBlock(raw1);
+    private final StoredVeriBlockBlock storedBlock1 = new StoredVeriBlockBlock(block1, BigInteger.TEN);
+
+    private final byte[] raw2 = Utils.decodeHex("000199840002A69BF9FE9B06E641B61699A9654A16FCCE708F3F0DEED25E1D2513D05A3B7D7F80EB5E94D01C6B3796DDE5647F135DB7F1DD040098960EA12045");
+    private final VeriBlockBlock block2 = SerializeDeserializeService.parseVeriBlockBlock(raw2);
+    private final StoredVeriBlockBlock storedBlock2 = new StoredVeriBlockBlock(block2, BigInteger.ONE);
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("mapped-store-test").toFile();
+        store = new MappedVeriBlockStore(directory);
+    }
+
+    @After
+    public void tearDown() {
+        store.shutdown();
+        for (File file : directory.listFiles()) {
+            file.delete();
+        }
+        directory.delete();
+    }
+
+    @Test
+    public void putGetTest() {
+        store.put(storedBlock1);
+
+        Assert.assertEquals(storedBlock1, store.get(block1.getHash()));
+        Assert.assertEquals(storedBlock1, store.get(block1.getHash().trimToPreviousBlockSize()));
+        Assert.assertEquals(storedBlock1, store.get(block1.getHash().trimToPreviousKeystoneSize()));
+        Assert.assertNull(store.get(VBlakeHash.hash("123".getBytes())));
+    }
+
+    @Test
+    public void putDoesNotUpdateTest() {
+        store.put(storedBlock1);
+
+        try {
+            store.put(new StoredVeriBlockBlock(block1, BigInteger.ONE));
+            Assert.fail("Should throw BlockStoreException");
+        } catch (BlockStoreException e) {
+            Assert.assertEquals("A block with the same hash is already in the store", e.getMessage());
+        }
+    }
+
+    @Test
+    public void chainTest() {
+        store.put(storedBlock1);
+        store.put(storedBlock2);
+        Assert.assertNull(store.setChainHead(storedBlock2));
+
+        List<StoredVeriBlockBlock> blocks = store.get(block2.getHash(), 5);
+        Assert.assertEquals(2, blocks.size());
+        Assert.assertEquals(storedBlock2, blocks.get(0));
+        Assert.assertEquals(storedBlock1, blocks.get(1));
+
+        Assert.assertEquals(storedBlock1, store.getFromChain(block2.getHash(), 1));
+        Assert.assertNull(store.getFromChain(block2.getHash(), 2));
+        Assert.assertEquals(storedBlock1, store.scanBestChain(block1.getHash().trimToPreviousKeystoneSize()));
+    }
+
+    @Test
+    public void eraseTest() {
+        store.put(storedBlock1);
+        store.put(storedBlock2);
+        store.setChainHead(storedBlock1);
+
+        try {
+            store.erase(block1.getHash());
+            Assert.fail("Expected BlockStoreException");
+        } catch (BlockStoreException e) {
+            Assert.assertEquals("Cannot erase the chain head block", e.getMessage());
+        }
+
+        store.setChainHead(storedBlock2);
+        try {
+            store.erase(block1.getHash());
+            Assert.fail("Expected BlockStoreException");
+        } catch (BlockStoreException e) {
+            Assert.assertEquals("Cannot erase a block referenced by another block", e.getMessage());
+        }
+
+        Assert.assertNull(store.erase(VBlakeHash.hash("123".getBytes())));
+    }
+
+    @Test
+    public void replaceTest() {
+        store.put(storedBlock1);
+
+        StoredVeriBlockBlock updatedBlock1 = new StoredVeriBlockBlock(block1, BigInteger.ONE);
+        Assert.assertEquals(storedBlock1, store.replace(block1.getHash(), updatedBlock1));
+        Assert.assertEquals(updatedBlock1, store.get(block1.getHash()));
+
+        try {
+            store.replace(block1.getHash(), storedBlock2);
+            Assert.fail("Expected BlockStoreException");
+        } catch (BlockStoreException e) {
+            Assert.assertEquals("The original and replacement block hashes must match", e.getMessage());
+        }
+    }
+
+    @Test
+    public void reopenTest() throws IOException {
+        store.put(storedBlock1);
+        store.put(storedBlock2);
+        store.setChainHead(storedBlock1);
+        store.erase(block2.getHash().trimToPreviousKeystoneSize());
+        store.shutdown();
+
+        store = new MappedVeriBlockStore(directory);
+
+        Assert.assertEquals(storedBlock1, store.get(block1.getHash()));
+        Assert.assertEquals(storedBlock1, store.getChainHead());
+        // the erased block is not loaded back
+        Assert.assertNull(store.get(block2.getHash()));
+    }
+
+    @Test
+    public void rollbackTest() {
+        store.put(storedBlock1);
+        store.setChainHead(storedBlock1);
+
+        store.beginTransaction();
+        store.put(storedBlock2);
+        store.setChainHead(storedBlock2);
+        store.replace(block1.getHash(), new StoredVeriBlockBlock(block1, BigInteger.ONE));
+        store.rollbackTransaction();
+
+        Assert.assertNull(store.get(block2.getHash()));
+        Assert.assertEquals(storedBlock1, store.get(block1.getHash()));
+        Assert.assertEquals(storedBlock1, store.getChainHead());
+
+        // the rolled back slot is reused
+        store.put(storedBlock2);
+        Assert.assertEquals(storedBlock2, store.get(block2.getHash()));
+    }
+}
@@ -31,12 +31,18 @@ import org.veriblock.sdk.sqlite.ConnectionSelector;
 import org.veriblock.sdk.sqlite.tables.PoPTransactionData;
 import org.veriblock.sdk.util.Utils;
 
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Base64;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 public class PoPTransactionsDBStoreTest {
 
@@ -139,6 +145,27 @@ public class PoPTransactionsDBStoreTest {
         Assert.assertEquals(altPublication, altPublications.get(0));
     }
 
+    @Test
+    public void addPoPTransactionRollsBackTest() throws SQLException
+    {
+        int timestamp = 1200000000;
+        AltChainBlock containBlock = new AltChainBlock("rolledBackContainBlockHash", 50, timestamp);
+        AltChainBlock endorsedBlock = new AltChainBlock("rolledBackEndorsedBlockHash", 45, timestamp);
+
+        // the malformed VeriBlock publication fails after the ATV and the transaction are written
+        List<VeriBlockPublication> veriBlockPublications = new ArrayList<VeriBlockPublication>();
+        veriBlockPublications.add(null);
+        PoPTransactionData popTxData = new PoPTransactionData("rolledBackTxHash", generateATV(), veriBlockPublications);
+
+        try {
+            popTxDBStore.addPoPTransaction(popTxData, containBlock, endorsedBlock);
+            Assert.fail();
+        } catch (NullPointerException e) {
+        }
+
+        Assert.assertTrue(popTxDBStore.getAltPublicationsFromBlock(containBlock).isEmpty());
+    }
+
     @Test
     public void getAltPublicationsFromBlockTest() throws SQLException
     {
@@ -180,4 +207,212 @@ public class PoPTransactionsDBStoreTest {
 
         Assert.assertEquals(altPublicationList.get(0), veriBlockPublication);
     }
+
+    @Test
+    public void getAltPublicationsEndorseBatchTest() throws SQLException
+    {
+        popTxDBStore.clear();
+
+        int timestamp = 1200000000;
+        AltChainBlock endorsedBlock1 = new AltChainBlock("endorsedBlockHash1", 45, timestamp);
+        AltChainBlock endorsedBlock2 = new AltChainBlock("endorsedBlockHash2", 46, timestamp);
+        AltChainBlock endorsedBlock3 = new AltChainBlock("endorsedBlockHash3", 47, timestamp);
+        AltChainBlock containBlock1 = new AltChainBlock("containBlockHash1", 50, timestamp);
+        AltChainBlock containBlock2 = new AltChainBlock("containBlockHash2", 51, timestamp);
+
+        AltPublication altPublication = generateATV();
+
+        popTxDBStore.addPoPTransaction(new PoPTransactionData("txHash1", altPublication, new ArrayList<>()), containBlock1, endorsedBlock1);
+        popTxDBStore.addPoPTransaction(new PoPTransactionData("txHash2", altPublication, new ArrayList<>()), containBlock2, endorsedBlock1);
+        popTxDBStore.addPoPTransaction(new PoPTransactionData("txHash3", altPublication, new ArrayList<>()), containBlock2, endorsedBlock2);
+
+        Map<AltChainBlock, List<AltChainBlock>> query = new LinkedHashMap<>();
+        query.put(endorsedBlock1, Arrays.asList(containBlock1, containBlock2));
+        query.put(endorsedBlock2, Collections.singletonList(containBlock1));
+        query.put(endorsedBlock3, Arrays.asList(containBlock1, containBlock2));
+
+        Map<String, List<AltPublication>> altPublications = popTxDBStore.getAltPublicationsEndorse(query);
+
+        Assert.assertEquals(Arrays.asList("endorsedBlockHash1", "endorsedBlockHash2", "endorsedBlockHash3"), new ArrayList<>(altPublications.keySet()));
+        // the same publication in two containing blocks is returned once
+        Assert.assertEquals(Collections.singletonList(altPublication), altPublications.get("endorsedBlockHash1"));
+        // the containing block of the second endorsement is not searched for this endorsed block
+        Assert.assertTrue(altPublications.get("endorsedBlockHash2").isEmpty());
+        Assert.assertTrue(altPublications.get("endorsedBlockHash3").isEmpty());
+
+        for (Map.Entry<AltChainBlock, List<AltChainBlock>> entry : query.entrySet()) {
+            Assert.assertEquals(popTxDBStore.getAltPublicationsEndorse(entry.getKey(), entry.getValue()),
+                                altPublications.get(entry.getKey().getHash()));
+        }
+    }
+
+    @Test
+    public void getPublicationsFromBlocksTest() throws SQLException
+    {
+        popTxDBStore.clear();
+
+        int timestamp = 1200000000;
+        AltChainBlock endorsedBlock = new AltChainBlock("endorsedBlockHash", 45, timestamp);
+        AltChainBlock containBlock1 = new AltChainBlock("containBlockHash1", 50, timestamp);
+        AltChainBlock containBlock2 = new AltChainBlock("containBlockHash2", 51, timestamp);
+        AltChainBlock containBlock3 = new AltChainBlock("containBlockHash3", 52, timestamp);
+
+        VeriBlockPublication veriBlockPublication = generateVTB();
+        AltPublication altPublication = generateATV();
+
+        PoPTransactionData popTxData1 = new PoPTransactionData("txHash1", altPublication, new ArrayList<>());
+        popTxData1.veriBlockPublications.add(veriBlockPublication);
+        popTxDBStore.addPoPTransaction(popTxData1, containBlock1, endorsedBlock);
+
+        PoPTransactionData popTxData3 = new PoPTransactionData("txHash3", altPublication, new ArrayList<>());
+        popTxDBStore.addPoPTransaction(popTxData3, containBlock3, endorsedBlock);
+
+        List<AltChainBlock> blocks = Arrays.asList(containBlock3, containBlock2, containBlock1);
+
+        Map<String, List<AltPublication>> altPublications = popTxDBStore.getAltPublicationsFromBlocks(blocks);
+        Assert.assertEquals(Arrays.asList("containBlockHash3", "containBlockHash2", "containBlockHash1"), new ArrayList<>(altPublications.keySet()));
+
+        Map<String, List<VeriBlockPublication>> veriBlockPublications = popTxDBStore.getVeriBlockPublicationsFromBlocks(blocks);
+        Assert.assertEquals(Arrays.asList("containBlockHash3", "containBlockHash2", "containBlockHash1"), new ArrayList<>(veriBlockPublications.keySet()));
+
+        for (AltChainBlock block : blocks) {
+            Assert.assertEquals(popTxDBStore.getAltPublicationsFromBlock(block), altPublications.get(block.getHash()));
+            Assert.assertEquals(popTxDBStore.getVeriBlockPublicationsFromBlock(block), veriBlockPublications.get(block.getHash()));
+        }
+        Assert.assertEquals(Collections.singletonList(veriBlockPublication), veriBlockPublications.get("containBlockHash1"));
+        Assert.assertTrue(veriBlockPublications.get("containBlockHash3").isEmpty());
+
+        Assert.assertTrue(popTxDBStore.getAltPublicationsFromBlocks(Collections.emptyList()).isEmpty());
+    }
+
+    @Test
+    public void pruneTest() throws SQLException
+    {
+        popTxDBStore.clear();
+
+        int timestamp = 1200000000;
+        AltChainBlock endorsedBlock = new AltChainBlock("endorsedBlockHash", 5, timestamp);
+        AltChainBlock oldBlock = new AltChainBlock("oldBlockHash", 10, timestamp);
+        AltChainBlock newBlock = new AltChainBlock("newBlockHash", 100, timestamp);
+
+        AltPublication altPublication = generateATV();
+        VeriBlockPublication veriBlockPublication = generateVTB();
+
+        PoPTransactionData oldTx = new PoPTransactionData("oldTxHash", altPublication, new ArrayList<>());
+        oldTx.veriBlockPublications.add(veriBlockPublication);
+        popTxDBStore.addPoPTransaction(oldTx, oldBlock, endorsedBlock);
+        popTxDBStore.addPoPTransaction(new PoPTransactionData("newTxHash", altPublication, new ArrayList<>()), newBlock, endorsedBlock);
+        // contained in both blocks
+        PoPTransactionData sharedTx = new PoPTransactionData("sharedTxHash", altPublication, new ArrayList<>());
+        popTxDBStore.addPoPTransaction(sharedTx, oldBlock, endorsedBlock);
+        popTxDBStore.addPoPTransaction(sharedTx, newBlock, endorsedBlock);
+
+        Assert.assertEquals(2, popTxDBStore.prune(50, 10));
+        Assert.assertEquals(0, popTxDBStore.prune(50, 10));
+
+        Assert.assertTrue(popTxDBStore.getAltPublicationsFromBlock(oldBlock).isEmpty());
+        Assert.assertTrue(popTxDBStore.getVeriBlockPublicationsFromBlock(oldBlock).isEmpty());
+        Assert.assertEquals(Collections.singletonList(altPublication), popTxDBStore.getAltPublicationsFromBlock(newBlock));
+        // the ATV is still referenced by the kept transactions, the VTB is not
+        Assert.assertEquals(2, countRows("PoPTransactions"));
+        Assert.assertEquals(1, countRows("alt_publication"));
+        Assert.assertEquals(0, countRows("PoPTransactionsVeriblockPublicationRef"));
+        Assert.assertEquals(0, countRows("VeriBlockPublication"));
+
+        // the batches are bounded by the limit
+        Assert.assertEquals(1, popTxDBStore.prune(200, 1));
+        Assert.assertEquals(1, popTxDBStore.prune(200, 1));
+        Assert.assertEquals(0, popTxDBStore.prune(200, 1));
+
+        Assert.assertEquals(0, countRows("contain"));
+        Assert.assertEquals(0, countRows("PoPTransactions"));
+        Assert.assertEquals(0, countRows("alt_publication"));
+    }
+
+    private static int countRows(String table) throws SQLException
+    {
+        try (Connection connection = ConnectionSelector.setConnectionInMemory();
+             Statement stmt = connection.createStatement();
+             ResultSet resultSet = stmt.executeQuery("SELECT COUNT(*) FROM " + table)) {
+            return resultSet.getInt(1);
+        }
+    }
+
+    @Test
+    public void migrateLegacySchemaTest() throws SQLException
+    {
+        int timestamp = 1200000000;
+        AltChainBlock containBlock = new AltChainBlock("containBlockHash", 50, timestamp);
+        AltChainBlock endorsedBlock = new AltChainBlock("endorsedBlockHash", 45, timestamp);
+
+        AltPublication altPublication = generateATV();
+        VeriBlockPublication veriBlockPublication = generateVTB();
+        byte[] altPublicationBytes = SerializeDeserializeService.serialize(altPublication);
+        byte[] veriBlockPublicationBytes = SerializeDeserializeService.serialize(veriBlockPublication);
+        String altPublicationHash = Utils.encodeHex(Sha256Hash.hash(altPublicationBytes));
+        String veriBlockPublicationHash = Utils.encodeHex(Sha256Hash.hash(veriBlockPublicationBytes));
+
+        try (Connection connection = ConnectionSelector.setConnectionInMemory()) {
+            try (Statement stmt = connection.createStatement()) {
+                stmt.execute("DROP TABLE PoPTransactions");
+                stmt.execute("DROP TABLE alt_publication");
+                stmt.execute("DROP TABLE VeriBlockPublication");
+                stmt.execute("DROP TABLE PoPTransactionsVeriblockPublicationRef");
+                stmt.execute("DELETE FROM contain");
+
+                stmt.execute("CREATE TABLE PoPTransactions (txHash TEXT PRIMARY KEY, endorsedBlockHash TEXT NOT NULL, AltPublicationHash TEXT NOT NULL,"
+                           + " FOREIGN KEY (AltPublicationHash) REFERENCES alt_publication (hash))");
+                stmt.execute("CREATE TABLE alt_publication (hash TEXT PRIMARY KEY, data BLOB NOT NULL)");
+                stmt.execute("CREATE TABLE VeriBlockPublication (veriBlockPublicationHash TEXT PRIMARY KEY, veriBlockPublicationData BLOB NOT NULL)");
+                stmt.execute("CREATE TABLE PoPTransactionsVeriblockPublicationRef (txHash TEXT NOT NULL, veriBlockPublicationHash TEXT NOT NULL,"
+                           + " PRIMARY KEY (txHash, veriBlockPublicationHash))");
+
+                stmt.execute("INSERT INTO PoPTransactions VALUES ('txHash', 'endorsedBlockHash', '" + altPublicationHash + "')");
+                stmt.execute("INSERT INTO PoPTransactionsVeriblockPublicationRef VALUES ('txHash', '" + veriBlockPublicationHash + "')");
+                stmt.execute("INSERT INTO contain VALUES ('txHash', 'containBlockHash', 50, " + timestamp + ")");
+            }
+
+            try (PreparedStatement stmt = connection.prepareStatement("INSERT INTO alt_publication VALUES (?, ?)")) {
+                stmt.setString(1, altPublicationHash);
+                stmt.setBytes(2, altPublicationBytes);
+                stmt.execute();
+            }
+            try (PreparedStatement stmt = connection.prepareStatement("INSERT INTO VeriBlockPublication VALUES (?, ?)")) {
+                stmt.setString(1, veriBlockPublicationHash);
+                stmt.setBytes(2, veriBlockPublicationBytes);
+                stmt.execute();
+            }
+
+            popTxDBStore = new PoPTransactionsDBStore(ConnectionSelector.setConnectionInMemory());
+
+            Assert.assertEquals(Collections.singletonList(altPublication), popTxDBStore.getAltPublicationsFromBlock(containBlock));
+            Assert.assertEquals(Collections.singletonList(veriBlockPublication), popTxDBStore.getVeriBlockPublicationsFromBlock(containBlock));
+            Assert.assertEquals(Collections.singletonList(altPublication),
+                                popTxDBStore.getAltPublicationsEndorse(endorsedBlock, Collections.singletonList(containBlock)));
+
+            try (Statement stmt = connection.createStatement();
+                 ResultSet resultSet = stmt.executeQuery("SELECT name FROM sqlite_master WHERE name LIKE '%_migration'")) {
+                Assert.assertFalse(resultSet.next());
+            }
+        }
+    }
+
+    @Test
+    public void indexesTest() throws SQLException
+    {
+        try (Connection connection = ConnectionSelector.setConnectionInMemory();
+             Statement stmt = connection.createStatement();
+             ResultSet resultSet = stmt.executeQuery("SELECT name FROM sqlite_master WHERE type = 'index' AND sql IS NOT NULL")) {
+            List<String> indexes = new ArrayList<>();
+            while (resultSet.next()) {
+                indexes.add(resultSet.getString(1));
+            }
+
+            Assert.assertTrue(indexes.contains("contain_block_hash"));
+            Assert.assertTrue(indexes.contains("contain_block_height"));
+            Assert.assertTrue(indexes.contains("PoPTransactions_endorsedBlockHash"));
+            Assert.assertTrue(indexes.contains("PoPTransactions_AltPublicationHash"));
+            Assert.assertTrue(indexes.contains("PoPTransactionsVeriblockPublicationRef_veriBlockPublicationHash"));
+        }
+    }
 }
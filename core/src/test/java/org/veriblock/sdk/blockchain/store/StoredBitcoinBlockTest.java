@@ -13,6 +13,7 @@ import org.junit.Before;
 import org.junit.Test;
 import org.veriblock.sdk.models.Sha256Hash;
 import org.veriblock.sdk.services.SerializeDeserializeService;
+import org.veriblock.sdk.util.Utils;
 
 import java.math.BigInteger;
 import java.nio.ByteBuffer;
@@ -58,4 +59,37 @@ public class StoredBitcoinBlockTest {
         Assert.assertEquals(storedBitcoinBlockExpected, storedBitcoinBlockActual);
     }
 
-}
\ No newline at end of file
+    @Test
+    public void serializeAndDeserializeMainnetWork() {
+        BigInteger work = new BigInteger("936218949352891107663343855935225590712334859907366912");
+        StoredBitcoinBlock expected = new StoredBitcoinBlock(storedBitcoinBlockExpected.getBlock(), work, 601000);
+
+        StoredBitcoinBlock actual = StoredBitcoinBlock.deserialize(expected.serialize());
+        Assert.assertEquals(expected, actual);
+        Assert.assertEquals(work, actual.getWork());
+    }
+
+    @Test
+    public void deserializeLegacy() {
+        // hash | height | 12-byte work | header
+        ByteBuffer buffer = ByteBuffer.allocate(StoredBitcoinBlock.LEGACY_SIZE);
+        buffer.put(storedBitcoinBlockExpected.getHash().getBytes());
+        buffer.putInt(storedBitcoinBlockExpected.getHeight());
+        buffer.put(Utils.toBytes(storedBitcoinBlockExpected.getWork(), StoredBitcoinBlock.LEGACY_CHAIN_WORK_BYTES));
+        buffer.put(raw);
+
+        StoredBitcoinBlock actual = StoredBitcoinBlock.deserialize(buffer.array());
+        Assert.assertEquals(storedBitcoinBlockExpected, actual);
+    }
+
+    @Test
+    public void serializeAndDeserializeWithBufferWithHash() {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(StoredBitcoinBlock.SIZE);
+        storedBitcoinBlockExpected.serialize(buffer);
+        buffer.flip();
+
+        StoredBitcoinBlock storedBitcoinBlockActual = StoredBitcoinBlock.deserializeWithHash(buffer);
+        Assert.assertEquals(storedBitcoinBlockExpected, storedBitcoinBlockActual);
+        Assert.assertEquals(storedBitcoinBlockExpected.getHash(), storedBitcoinBlockActual.getBlock().getHash());
+    }
+}
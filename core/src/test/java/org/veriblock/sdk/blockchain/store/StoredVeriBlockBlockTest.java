@@ -58,4 +58,14 @@ public class StoredVeriBlockBlockTest {
         Assert.assertEquals(storedVeriBlockBlockExpected, storedVeriBlockBlockActual);
     }
 
-}
\ No newline at end of file
+    @Test
+    public void serializeAndDeserializeWithBufferWithHash() {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(StoredVeriBlockBlock.SIZE);
+        storedVeriBlockBlockExpected.serialize(buffer);
+        buffer.flip();
+
+        StoredVeriBlockBlock storedVeriBlockBlockActual = StoredVeriBlockBlock.deserializeWithHash(buffer);
+        Assert.assertEquals(storedVeriBlockBlockExpected, storedVeriBlockBlockActual);
+        Assert.assertEquals(storedVeriBlockBlockExpected.getHash(), storedVeriBlockBlockActual.getBlock().getHash());
+    }
+}
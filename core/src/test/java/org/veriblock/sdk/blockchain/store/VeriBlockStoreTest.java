@@ -20,6 +20,7 @@ import org.veriblock.sdk.models.Sha256Hash;
 import org.veriblock.sdk.models.VBlakeHash;
 import org.veriblock.sdk.models.VeriBlockBlock;
 import org.veriblock.sdk.services.SerializeDeserializeService;
+import org.veriblock.sdk.sqlite.ConnectionSelector;
 import org.veriblock.sdk.util.Utils;
 
 import java.io.IOException;
@@ -326,4 +327,45 @@ public class VeriBlockStoreTest {
         storedBlock = store.get(storedBlock2.getHash());
         Assert.assertEquals(storedBlock, null);
     }
+
+    @Test
+    public void getByTruncatedHashTest() throws SQLException, IOException {
+        store.put(storedBlock1);
+
+        Assert.assertEquals(storedBlock1, store.get(block1.getHash().trimToPreviousBlockSize()));
+        Assert.assertEquals(storedBlock1, store.get(block1.getHash().trimToPreviousKeystoneSize()));
+        Assert.assertEquals(storedBlock1, store.get(block2.getPreviousBlock()));
+
+        store.erase(block1.getHash());
+        Assert.assertNull(store.get(block1.getHash().trimToPreviousKeystoneSize()));
+    }
+
+    @Test
+    public void hashIndexIsLoadedOnStartupTest() throws SQLException, IOException {
+        store.put(storedBlock1);
+        store.put(storedBlock2);
+
+        // a new store over the same database must see the existing blocks
+        VeriBlockStore reopened = new VeriBlockStore(ConnectionSelector.setConnectionInMemory());
+        try {
+            Assert.assertEquals(storedBlock1, reopened.get(block2.getPreviousBlock()));
+            Assert.assertEquals(storedBlock2, reopened.get(block2.getHash().trimToPreviousKeystoneSize()));
+
+            try {
+                reopened.put(storedBlock1);
+                Assert.fail("Expected BlockStoreException");
+            } catch (BlockStoreException e) {
+                Assert.assertEquals("A block with the same hash is already in the store", e.getMessage());
+            }
+
+            try {
+                reopened.erase(block1.getHash());
+                Assert.fail("Expected BlockStoreException");
+            } catch (BlockStoreException e) {
+                Assert.assertTrue(e.getMessage().startsWith("Cannot erase a block"));
+            }
+        } finally {
+            reopened.shutdown();
+        }
+    }
 }
@@ -43,6 +43,7 @@ import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -610,6 +611,41 @@ public class ForkresolutionComparatorTests {
         Assert.assertEquals(0, ForkresolutionComparator.compareTwoBranches(leftFork, rigthFork));
     }
 
+    @Test
+    public void repeatedCompareTwoBranchesUsesCacheTest() throws SQLException
+    {
+        PoPTransactionStore popTxStore = veriBlockSecuritySpy.getContext().getPopTxStore();
+        int timestamp = 100;
+
+        AltChainBlock block1 = new AltChainBlock("blockHash1", 50, timestamp);
+        AltChainBlock block2 = new AltChainBlock("blockHash2", 51, timestamp);
+        AltChainBlock block3 = new AltChainBlock("blockHash3", 51, timestamp);
+
+        popTxStore.addPoPTransaction(new PoPTransactionData("popTxHash1", generateATV(170, timestamp * 2), new ArrayList<>()), block1, block1);
+        popTxStore.addPoPTransaction(new PoPTransactionData("popTxHash2", generateATV(110, timestamp * 2), new ArrayList<>()), block2, block2);
+        popTxStore.addPoPTransaction(new PoPTransactionData("popTxHash3", generateATV(140, timestamp * 2), new ArrayList<>()), block3, block3);
+
+        List<AltChainBlock> leftFork = new ArrayList<>();
+        leftFork.add(block1);
+        leftFork.add(block2);
+
+        List<AltChainBlock> rigthFork = new ArrayList<>();
+        rigthFork.add(block1);
+        rigthFork.add(block3);
+
+        KeystonePublicationCache cache = ForkresolutionComparator.getPublicationCache();
+
+        Assert.assertEquals(1, ForkresolutionComparator.compareTwoBranches(leftFork, rigthFork));
+        Assert.assertEquals(0, cache.getHitCount());
+        Assert.assertEquals(2, cache.size());
+
+        // the second comparison does not evaluate the publications again
+        Assert.assertEquals(1, ForkresolutionComparator.compareTwoBranches(leftFork, rigthFork));
+        Assert.assertEquals(2, cache.getHitCount());
+        Assert.assertEquals(2, cache.size());
+        Mockito.verify(veriBlockSecuritySpy, Mockito.times(4)).checkATVAgainstView(any());
+    }
+
 
     private AltPublication generateATV(int containingBlockHeight, int containingBlockTimestamp) {
         PublicationData publicationData = new PublicationData(0,  "header bytes".getBytes(), "payout info bytes".getBytes(), "context info bytes".getBytes());
@@ -703,6 +739,33 @@ public class ForkresolutionComparatorTests {
             return containingVeriBlockPublication.get(block.getHash());
         }
 
+        @Override
+        public Map<String, List<AltPublication>> getAltPublicationsEndorse(Map<AltChainBlock, List<AltChainBlock>> containingBlocksByEndorsedBlock) throws SQLException {
+            Map<String, List<AltPublication>> result = new LinkedHashMap<>();
+            for (Map.Entry<AltChainBlock, List<AltChainBlock>> entry : containingBlocksByEndorsedBlock.entrySet()) {
+                result.put(entry.getKey().getHash(), getAltPublicationsEndorse(entry.getKey(), entry.getValue()));
+            }
+            return result;
+        }
+
+        @Override
+        public Map<String, List<AltPublication>> getAltPublicationsFromBlocks(List<AltChainBlock> blocks) throws SQLException {
+            Map<String, List<AltPublication>> result = new LinkedHashMap<>();
+            for (AltChainBlock block : blocks) {
+                result.put(block.getHash(), getAltPublicationsFromBlock(block));
+            }
+            return result;
+        }
+
+        @Override
+        public Map<String, List<VeriBlockPublication>> getVeriBlockPublicationsFromBlocks(List<AltChainBlock> blocks) throws SQLException {
+            Map<String, List<VeriBlockPublication>> result = new LinkedHashMap<>();
+            for (AltChainBlock block : blocks) {
+                result.put(block.getHash(), getVeriBlockPublicationsFromBlock(block));
+            }
+            return result;
+        }
+
         @Override
         public void clear() {
             this.containingAltPublication = new TreeMap<String, List<AltPublication>>();
@@ -0,0 +1,93 @@
+// VeriBlock Blockchain Project
+// Copyright 2017-2018 VeriBlock, Inc
+// Copyright 2018-2019 Xenios SEZC
+// All rights reserved.
+// https://www.veriblock.org
+// Distributed under the MIT software license, see the accompanying
+// file LICENSE or http://www.opensource.org/licenses/mit-license.php.
+
+package org.veriblock.sdk.forkresolution;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.veriblock.sdk.models.AltChainBlock;
+import org.veriblock.sdk.models.Sha256Hash;
+import org.veriblock.sdk.models.VBlakeHash;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class KeystonePublicationCacheTest {
+    private static final VBlakeHash TIP = VBlakeHash.wrap("000000000000069B7E7B7245449C60619294546AD825AF03");
+    private static final VBlakeHash OTHER_TIP = VBlakeHash.wrap("00000000000023A90C8B0DFE7C55C1B0935637860679DDD5");
+
+    private final AltChainBlock keystone = new AltChainBlock("blockHash1", 50, 100);
+    private final AltChainBlock block2 = new AltChainBlock("blockHash2", 51, 100);
+    private final AltChainBlock block3 = new AltChainBlock("blockHash3", 52, 100);
+
+    @Test
+    public void getAndPutTest() {
+        KeystonePublicationCache cache = new KeystonePublicationCache(16);
+        Sha256Hash fingerprint = KeystonePublicationCache.getFingerprint(Arrays.asList(keystone, block2));
+
+        Assert.assertNull(cache.get(keystone, fingerprint, TIP));
+        cache.put(keystone, fingerprint, TIP, 114);
+
+        Assert.assertEquals(Integer.valueOf(114), cache.get(keystone, fingerprint, TIP));
+        Assert.assertNull(cache.get(keystone, fingerprint, OTHER_TIP));
+        Assert.assertNull(cache.get(block2, fingerprint, TIP));
+        Assert.assertEquals(1, cache.getHitCount());
+        Assert.assertEquals(3, cache.getMissCount());
+    }
+
+    @Test
+    public void fingerprintTest() {
+        List<AltChainBlock> blocks = Arrays.asList(keystone, block2, block3);
+
+        Assert.assertEquals(KeystonePublicationCache.getFingerprint(blocks),
+                            KeystonePublicationCache.getFingerprint(Arrays.asList(
+                                    new AltChainBlock("blockHash1", 50, 200),
+                                    new AltChainBlock("blockHash2", 51, 200),
+                                    new AltChainBlock("blockHash3", 52, 200))));
+        Assert.assertNotEquals(KeystonePublicationCache.getFingerprint(blocks),
+                               KeystonePublicationCache.getFingerprint(Arrays.asList(keystone, block2)));
+        Assert.assertNotEquals(KeystonePublicationCache.getFingerprint(blocks),
+                               KeystonePublicationCache.getFingerprint(Arrays.asList(keystone, block2,
+                                       new AltChainBlock("blockHash3", 53, 100))));
+    }
+
+    @Test
+    public void invalidateTest() {
+        KeystonePublicationCache cache = new KeystonePublicationCache(16);
+        Sha256Hash fingerprint = KeystonePublicationCache.getFingerprint(Arrays.asList(keystone, block2));
+
+        cache.invalidate(TIP);
+        cache.put(keystone, fingerprint, TIP, 114);
+
+        // the same best chain keeps the heights
+        cache.invalidate(TIP);
+        Assert.assertEquals(1, cache.size());
+
+        cache.invalidate(OTHER_TIP);
+        Assert.assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void evictionTest() {
+        KeystonePublicationCache cache = new KeystonePublicationCache(2);
+        Sha256Hash first = KeystonePublicationCache.getFingerprint(Arrays.asList(keystone));
+        Sha256Hash second = KeystonePublicationCache.getFingerprint(Arrays.asList(keystone, block2));
+        Sha256Hash third = KeystonePublicationCache.getFingerprint(Arrays.asList(keystone, block2, block3));
+
+        cache.put(keystone, first, TIP, 1);
+        cache.put(keystone, second, TIP, 2);
+        // make the first one the most recently used
+        Assert.assertEquals(Integer.valueOf(1), cache.get(keystone, first, TIP));
+        cache.put(keystone, third, TIP, 3);
+
+        Assert.assertEquals(2, cache.size());
+        Assert.assertEquals(Integer.valueOf(1), cache.get(keystone, first, TIP));
+        Assert.assertNull(cache.get(keystone, second, TIP));
+        Assert.assertEquals(Integer.valueOf(3), cache.get(keystone, third, TIP));
+    }
+}
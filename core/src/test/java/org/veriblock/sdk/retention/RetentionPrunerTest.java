@@ -0,0 +1,128 @@
+// VeriBlock Blockchain Project
+// Copyright 2017-2018 VeriBlock, Inc
+// Copyright 2018-2019 Xenios SEZC
+// All rights reserved.
+// https://www.veriblock.org
+// Distributed under the MIT software license, see the accompanying
+// file LICENSE or http://www.opensource.org/licenses/mit-license.php.
+
+package org.veriblock.sdk.retention;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.veriblock.sdk.VeriBlockIntegrationLibraryManager;
+import org.veriblock.sdk.VeriBlockSecurity;
+import org.veriblock.sdk.auditor.BlockIdentifier;
+import org.veriblock.sdk.auditor.store.StoredChange;
+import org.veriblock.sdk.blockchain.changes.AddVeriBlockBlockChange;
+import org.veriblock.sdk.blockchain.store.StoredVeriBlockBlock;
+import org.veriblock.sdk.forkresolution.ForkresolutionComparator;
+import org.veriblock.sdk.forkresolution.ForkresolutionConfig;
+import org.veriblock.sdk.models.AltChainBlock;
+import org.veriblock.sdk.models.AltPublication;
+import org.veriblock.sdk.rewards.PopRewardCalculator;
+import org.veriblock.sdk.rewards.PopRewardCalculatorConfig;
+import org.veriblock.sdk.services.SerializeDeserializeService;
+import org.veriblock.sdk.sqlite.tables.PoPTransactionData;
+import org.veriblock.sdk.util.Utils;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Base64;
+
+public class RetentionPrunerTest {
+
+    private VeriBlockSecurity security;
+    private ForkresolutionConfig savedForkresolutionConfig;
+    private PopRewardCalculatorConfig savedCalculatorConfig;
+
+    @Before
+    public void setUp() throws Exception {
+        security = new VeriBlockIntegrationLibraryManager().init();
+
+        // the retention depth is derived from the global configs other tests change
+        savedForkresolutionConfig = ForkresolutionComparator.getForkresolutionConfig();
+        savedCalculatorConfig = PopRewardCalculator.getCalculatorConfig();
+        ForkresolutionComparator.setForkresolutionConfig(new ForkresolutionConfig());
+        PopRewardCalculator.setCalculatorConfig(new PopRewardCalculatorConfig());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        ForkresolutionComparator.setForkresolutionConfig(savedForkresolutionConfig);
+        PopRewardCalculator.setCalculatorConfig(savedCalculatorConfig);
+        security.shutdown();
+    }
+
+    private void addBlockData(String hash, long height) throws Exception {
+        AltPublication publication = SerializeDeserializeService.parseAltPublication(Utils.decodeHex("01580101166772F51AB208D32771AB1506970EEB664462730B838E0203E800010701370100010C6865616465722062797465730112636F6E7465787420696E666F20627974657301117061796F757420696E666F2062797465734630440220398B74708DC8F8AEE68FCE0C47B8959E6FCE6354665DA3ED87A83F708E62AA6B02202E6C00C00487763C55E92C7B8E1DD538B7375D8DF2B2117E75ACBB9DB7DEB3C7583056301006072A8648CE3D020106052B8104000A03420004DE4EE8300C3CD99E913536CF53C4ADD179F048F8FE90E5ADF3ED19668DD1DBF6C2D8E692B1D36EAC7187950620A28838DA60A8C9DD60190C14C59B82CB90319E04000000010400000000201FEC8AA4983D69395010E4D18CD8B943749D5B4F575E88A375DEBDC5ED22531C040000000220000000000000000000000000000000000000000000000000000000000000000020000000000000000000000000000000000000000000000000000000000000000040000013880002449C60619294546AD825AF03B0935637860679DDD55EE4FD21082E18686E26BBFDA7D5E4462EF24AE02D67E47D785C9B90F301010000000000010100"));
+        AltChainBlock block = new AltChainBlock(hash, height, 1200000000);
+        security.getContext().getPopTxStore().addPoPTransaction(new PoPTransactionData("tx" + hash, publication, new ArrayList<>()), block, block);
+
+        byte[] raw = Base64.getDecoder().decode("AAATiAAClOfcPjviGpbszw+99fYqMzHcmVw2sJNWN4YGed3V2w8TUxKywnhnyag+8bmbmFyblJMHAjrWcrr9dw==");
+        StoredVeriBlockBlock value = new StoredVeriBlockBlock(SerializeDeserializeService.parseVeriBlockBlock(raw), BigInteger.ONE);
+        BlockIdentifier blockIdentifier = BlockIdentifier.wrap(Utils.decodeHex(hash));
+        security.getContext().getChangeStore().put(new StoredChange(blockIdentifier, 0, new AddVeriBlockBlockChange(null, value)));
+        security.getContext().getChangeStore().putBlockHeight(blockIdentifier, height);
+    }
+
+    @Test
+    public void retentionDepthTest() {
+        // the finality delay of 60 keystones of 10 blocks is deeper than the 400 + 50 blocks of the rewards
+        RetentionPruner pruner = new RetentionPruner(security, new RetentionConfig(100, 10, 0));
+        Assert.assertEquals(700, pruner.getRetentionDepth());
+        Assert.assertEquals(300, pruner.getPruneHeight(1000));
+
+        ForkresolutionComparator.setForkresolutionConfig(new ForkresolutionConfig(10, 2));
+        Assert.assertEquals(550, pruner.getRetentionDepth());
+    }
+
+    @Test
+    public void pruneTest() throws Exception {
+        addBlockData("01", 10);
+        addBlockData("02", 20);
+        addBlockData("03", 1000);
+
+        RetentionPruner pruner = new RetentionPruner(security, new RetentionConfig(0, 1, 0));
+        pruner.prune(1200);
+
+        RetentionProgress progress = pruner.getProgress();
+        Assert.assertEquals(600, progress.getPrunedHeight());
+        Assert.assertEquals(2, progress.getPrunedTransactions());
+        Assert.assertEquals(2, progress.getPrunedChangesets());
+        Assert.assertFalse(progress.isRunning());
+
+        Assert.assertTrue(security.getContext().getPopTxStore().getAltPublicationsFromBlock(new AltChainBlock("01", 10, 1200000000)).isEmpty());
+        Assert.assertEquals(1, security.getContext().getPopTxStore().getAltPublicationsFromBlock(new AltChainBlock("03", 1000, 1200000000)).size());
+        Assert.assertTrue(security.getContext().getChangeStore().get(BlockIdentifier.wrap(Utils.decodeHex("02"))).isEmpty());
+        Assert.assertEquals(1, security.getContext().getChangeStore().get(BlockIdentifier.wrap(Utils.decodeHex("03"))).size());
+    }
+
+    @Test
+    public void scheduleTest() throws Exception {
+        addBlockData("01", 10);
+        addBlockData("03", 1000);
+
+        RetentionPruner pruner = new RetentionPruner(security, new RetentionConfig(0, 1, 0));
+        security.setRetentionPruner(pruner);
+
+        // the tip is too low to prune anything
+        pruner.schedule(500);
+        Assert.assertEquals(0, pruner.getProgress().getTargetHeight());
+
+        pruner.schedule(1200);
+        long deadline = System.currentTimeMillis() + 10000;
+        while (pruner.getProgress().getPrunedHeight() < 600 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        RetentionProgress progress = pruner.getProgress();
+        Assert.assertEquals(600, progress.getTargetHeight());
+        Assert.assertEquals(600, progress.getPrunedHeight());
+        Assert.assertEquals(1, progress.getPrunedTransactions());
+        Assert.assertEquals(1, progress.getPrunedChangesets());
+        Assert.assertEquals(1, security.getContext().getChangeStore().get(BlockIdentifier.wrap(Utils.decodeHex("03"))).size());
+    }
+}
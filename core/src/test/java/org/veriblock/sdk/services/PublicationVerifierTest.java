@@ -0,0 +1,74 @@
+// VeriBlock Blockchain Project
+// Copyright 2017-2018 VeriBlock, Inc
+// Copyright 2018-2019 Xenios SEZC
+// All rights reserved.
+// https://www.veriblock.org
+// Distributed under the MIT software license, see the accompanying
+// file LICENSE or http://www.opensource.org/licenses/mit-license.php.
+
+package org.veriblock.sdk.services;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.veriblock.sdk.models.VerificationException;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class PublicationVerifierTest {
+
+    private static void verifyPositive(Integer value) {
+        if (value <= 0) {
+            throw new VerificationException("Value is not positive");
+        }
+    }
+
+    @Test
+    public void verifyAllTest() {
+        AtomicInteger verified = new AtomicInteger();
+        List<FutureTask<Void>> verifications = PublicationVerifier.verifyAll(Arrays.asList(1, 2, 3, 4), value -> {
+            verifyPositive(value);
+            verified.incrementAndGet();
+        });
+        Assert.assertEquals(4, verifications.size());
+
+        for (FutureTask<Void> verification : verifications) {
+            PublicationVerifier.await(verification);
+        }
+        Assert.assertEquals(4, verified.get());
+    }
+
+    @Test
+    public void verifyAllEmptyTest() {
+        Assert.assertTrue(PublicationVerifier.verifyAll(null, PublicationVerifierTest::verifyPositive).isEmpty());
+        Assert.assertTrue(PublicationVerifier.verifyAll(Collections.<Integer>emptyList(), PublicationVerifierTest::verifyPositive).isEmpty());
+    }
+
+    @Test
+    public void awaitInvalidTest() {
+        List<FutureTask<Void>> verifications = PublicationVerifier.verifyAll(Arrays.asList(1, -1, 2), PublicationVerifierTest::verifyPositive);
+
+        PublicationVerifier.await(verifications.get(0));
+        try {
+            PublicationVerifier.await(verifications.get(1));
+            Assert.fail("Expected VerificationException");
+        } catch (VerificationException e) {
+            Assert.assertEquals("Value is not positive", e.getMessage());
+        }
+        PublicationVerifier.await(verifications.get(2));
+    }
+
+    @Test
+    public void cancelAllTest() {
+        AtomicInteger verified = new AtomicInteger();
+        List<FutureTask<Void>> verifications = PublicationVerifier.verifyAll(Collections.singletonList(1), value -> verified.incrementAndGet());
+
+        // the first verification is left to the awaiting thread
+        PublicationVerifier.cancelAll(verifications);
+        Assert.assertTrue(verifications.get(0).isCancelled());
+        Assert.assertEquals(0, verified.get());
+    }
+}
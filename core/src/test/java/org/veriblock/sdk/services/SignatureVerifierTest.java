@@ -0,0 +1,60 @@
+// VeriBlock Blockchain Project
+// Copyright 2017-2018 VeriBlock, Inc
+// Copyright 2018-2019 Xenios SEZC
+// All rights reserved.
+// https://www.veriblock.org
+// Distributed under the MIT software license, see the accompanying
+// file LICENSE or http://www.opensource.org/licenses/mit-license.php.
+
+package org.veriblock.sdk.services;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.veriblock.sdk.util.Utils;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+public class SignatureVerifierTest {
+    private final byte[] message = Utils.decodeHex("0123456789ABCDEF");
+    private final byte[] publicKey = Utils.decodeHex("3056301006072A8648CE3D020106052B8104000A03420004CB427E41A0114874080A4B1E2AB7920E22CD2D188C87140DEFA447EE5FC44BB848E1C0DB5EF206DE2E7002F6C86952BE4823A4C08E65E4CDBEB904A8B95763AA");
+    private final byte[] signature = Utils.decodeHex("304402202F2B136EB22EDDACA3E9EA9C43A06478FF095108A19F433C358CE2C84461DE800220617E54A3FBC8B61B22D29772D58B27F47395915515F040E170BB50D951646C57");
+
+    @Before
+    public void setUp() {
+        SignatureVerifier.clearKeyCache();
+    }
+
+    @Test
+    public void verifyTest() {
+        Assert.assertTrue(SignatureVerifier.verify(message, signature, publicKey));
+        Assert.assertFalse(SignatureVerifier.verify(Utils.decodeHex("0123456789ABCDEE"), signature, publicKey));
+        Assert.assertFalse(SignatureVerifier.verify(message, Utils.decodeHex("3044"), publicKey));
+        Assert.assertFalse(SignatureVerifier.verify(message, signature, Utils.decodeHex("3056")));
+    }
+
+    @Test
+    public void keyCacheTest() {
+        long missCount = SignatureVerifier.getKeyCacheMissCount();
+        long hitCount = SignatureVerifier.getKeyCacheHitCount();
+
+        Assert.assertTrue(SignatureVerifier.verify(message, signature, publicKey));
+        Assert.assertTrue(SignatureVerifier.verify(message, signature, publicKey.clone()));
+
+        Assert.assertEquals(1, SignatureVerifier.getKeyCacheSize());
+        Assert.assertEquals(missCount + 1, SignatureVerifier.getKeyCacheMissCount());
+        Assert.assertEquals(hitCount + 1, SignatureVerifier.getKeyCacheHitCount());
+    }
+
+    @Test
+    public void verifyAllTest() {
+        SignatureVerifier.Request valid = new SignatureVerifier.Request(message, signature, publicKey);
+        SignatureVerifier.Request invalid = new SignatureVerifier.Request(Utils.decodeHex("0123456789ABCDEE"), signature, publicKey);
+
+        boolean[] results = SignatureVerifier.verifyAll(Arrays.asList(valid, invalid, valid, invalid, valid));
+        Assert.assertArrayEquals(new boolean[] { true, false, true, false, true }, results);
+
+        Assert.assertEquals(0, SignatureVerifier.verifyAll(Collections.emptyList()).length);
+    }
+}
@@ -0,0 +1,84 @@
+// VeriBlock Blockchain Project
+// Copyright 2017-2018 VeriBlock, Inc
+// Copyright 2018-2019 Xenios SEZC
+// All rights reserved.
+// https://www.veriblock.org
+// Distributed under the MIT software license, see the accompanying
+// file LICENSE or http://www.opensource.org/licenses/mit-license.php.
+
+package org.veriblock.sdk.services;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.veriblock.sdk.models.AltPublication;
+import org.veriblock.sdk.models.Sha256Hash;
+import org.veriblock.sdk.models.VerificationException;
+import org.veriblock.sdk.util.Utils;
+
+import java.util.Collections;
+
+public class VerifiedPublicationCacheTest {
+    private static final String ATV = "01580101166772F51AB208D32771AB1506970EEB664462730B838E0203E800010701370100010C6865616465722062797465730112636F6E7465787420696E666F20627974657301117061796F757420696E666F2062797465734630440220398B74708DC8F8AEE68FCE0C47B8959E6FCE6354665DA3ED87A83F708E62AA6B02202E6C00C00487763C55E92C7B8E1DD538B7375D8DF2B2117E75ACBB9DB7DEB3C7583056301006072A8648CE3D020106052B8104000A03420004DE4EE8300C3CD99E913536CF53C4ADD179F048F8FE90E5ADF3ED19668DD1DBF6C2D8E692B1D36EAC7187950620A28838DA60A8C9DD60190C14C59B82CB90319E04000000010400000000201FEC8AA4983D69395010E4D18CD8B943749D5B4F575E88A375DEBDC5ED22531C040000000220000000000000000000000000000000000000000000000000000000000000000020000000000000000000000000000000000000000000000000000000000000000040000013880002449C60619294546AD825AF03B0935637860679DDD55EE4FD21082E18686E26BBFDA7D5E4462EF24AE02D67E47D785C9B90F301010000000000010100";
+
+    private final VerifiedPublicationCache cache = ValidationService.getVerifiedPublicationCache();
+
+    @Before
+    public void setUp() {
+        cache.clear();
+    }
+
+    @Test
+    public void verifyTest() {
+        AltPublication publication = SerializeDeserializeService.parseAltPublication(Utils.decodeHex(ATV));
+        long hitCount = cache.getHitCount();
+
+        ValidationService.verify(publication);
+        Assert.assertEquals(1, cache.size());
+        Assert.assertEquals(hitCount, cache.getHitCount());
+
+        // the same bytes are not verified again
+        ValidationService.verify(SerializeDeserializeService.parseAltPublication(Utils.decodeHex(ATV)));
+        Assert.assertEquals(1, cache.size());
+        Assert.assertEquals(hitCount + 1, cache.getHitCount());
+    }
+
+    @Test
+    public void invalidPublicationTest() {
+        AltPublication valid = SerializeDeserializeService.parseAltPublication(Utils.decodeHex(ATV));
+        // the containing block repeated as the context is not contiguous
+        AltPublication publication = new AltPublication(valid.getTransaction(), valid.getMerklePath(),
+                valid.getContainingBlock(), Collections.singletonList(valid.getContainingBlock()));
+
+        try {
+            ValidationService.verify(publication);
+            Assert.fail("Expected VerificationException");
+        } catch (VerificationException e) {
+            Assert.assertEquals(0, cache.size());
+        }
+    }
+
+    @Test
+    public void evictionTest() {
+        VerifiedPublicationCache cache = new VerifiedPublicationCache(2);
+        Sha256Hash first = Sha256Hash.of(new byte[] { 1 });
+        Sha256Hash second = Sha256Hash.of(new byte[] { 2 });
+        Sha256Hash third = Sha256Hash.of(new byte[] { 3 });
+
+        cache.add(first);
+        cache.add(second);
+        Assert.assertTrue(cache.contains(first));
+
+        // the least recently used id is evicted
+        cache.add(third);
+        Assert.assertEquals(2, cache.size());
+        Assert.assertTrue(cache.contains(first));
+        Assert.assertFalse(cache.contains(second));
+        Assert.assertTrue(cache.contains(third));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidCapacityTest() {
+        new VerifiedPublicationCache(0);
+    }
+}
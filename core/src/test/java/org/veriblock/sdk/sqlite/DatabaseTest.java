@@ -0,0 +1,148 @@
+// VeriBlock Blockchain Project
+// Copyright 2017-2018 VeriBlock, Inc
+// Copyright 2018-2019 Xenios SEZC
+// All rights reserved.
+// https://www.veriblock.org
+// Distributed under the MIT software license, see the accompanying
+// file LICENSE or http://www.opensource.org/licenses/mit-license.php.
+
+package org.veriblock.sdk.sqlite;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+public class DatabaseTest {
+    private File databaseFile;
+    private Database database;
+
+    @Before
+    public void setUp() throws IOException, SQLException {
+        databaseFile = File.createTempFile("database-test", ".sqlite");
+        database = new Database(databaseFile.getPath(), 2);
+
+        try (Statement stmt = database.getConnection().createStatement()) {
+            stmt.execute("CREATE TABLE test (id INTEGER PRIMARY KEY, value TEXT)");
+        }
+    }
+
+    @After
+    public void tearDown() {
+        database.close();
+        new File(databaseFile.getPath() + "-wal").delete();
+        new File(databaseFile.getPath() + "-shm").delete();
+        databaseFile.delete();
+    }
+
+    @Test
+    public void pragmasTest() throws SQLException {
+        try (Statement stmt = database.getConnection().createStatement();
+             ResultSet resultSet = stmt.executeQuery("PRAGMA journal_mode")) {
+            Assert.assertTrue(resultSet.next());
+            Assert.assertEquals("wal", resultSet.getString(1));
+        }
+    }
+
+    @Test
+    public void readCommittedTest() throws SQLException {
+        Connection writer = database.getConnection();
+        try (Statement stmt = writer.createStatement()) {
+            stmt.execute("INSERT INTO test VALUES (1, 'committed')");
+        }
+
+        writer.setAutoCommit(false);
+        try (Statement stmt = writer.createStatement()) {
+            stmt.execute("INSERT INTO test VALUES (2, 'pending')");
+        }
+
+        // the readers do not see the open write transaction
+        Assert.assertEquals("committed", readValue(1));
+        Assert.assertNull(readValue(2));
+
+        writer.commit();
+        writer.setAutoCommit(true);
+
+        Assert.assertEquals("pending", readValue(2));
+    }
+
+    @Test(expected = SQLException.class)
+    public void readersAreReadOnlyTest() throws SQLException {
+        database.read((connection, statements) -> {
+            try (Statement stmt = connection.createStatement()) {
+                return stmt.execute("INSERT INTO test VALUES (1, 'value')");
+            }
+        });
+    }
+
+    @Test
+    public void wrappedConnectionTest() throws SQLException {
+        Connection connection = ConnectionSelector.setConnectionInMemory();
+        Database wrapped = new Database(connection);
+
+        Connection used = wrapped.read((readerConnection, statements) -> readerConnection);
+        Assert.assertSame(connection, used);
+
+        wrapped.close();
+        Assert.assertTrue(connection.isClosed());
+    }
+
+    // reads through database.read while a write transaction is open
+    private void assertReadsUncommitted(Database shared) throws SQLException {
+        Connection writer = shared.getConnection();
+        try (Statement stmt = writer.createStatement()) {
+            stmt.execute("CREATE TABLE IF NOT EXISTS sharedTest (id INTEGER PRIMARY KEY, value TEXT)");
+        }
+
+        writer.setAutoCommit(false);
+        try {
+            try (Statement stmt = writer.createStatement()) {
+                stmt.execute("INSERT INTO sharedTest (id, value) VALUES (1, 'uncommitted')");
+            }
+
+            // the pooled readers of the shared cache would be locked out by the open transaction
+            String value = shared.read((connection, statements) -> {
+                try (Statement stmt = connection.createStatement();
+                     ResultSet resultSet = stmt.executeQuery("SELECT value FROM sharedTest WHERE id = 1")) {
+                    return resultSet.next() ? resultSet.getString(1) : null;
+                }
+            });
+            Assert.assertEquals("uncommitted", value);
+        } finally {
+            writer.rollback();
+            writer.setAutoCommit(true);
+            try (Statement stmt = writer.createStatement()) {
+                stmt.execute("DROP TABLE sharedTest");
+            }
+            shared.close();
+        }
+    }
+
+    @Test
+    public void inMemoryReadsUncommittedTest() throws SQLException {
+        assertReadsUncommitted(Database.openInMemory());
+    }
+
+    @Test
+    public void sharedCacheUriReadsUncommittedTest() throws SQLException {
+        assertReadsUncommitted(new Database("file:databasetest?mode=memory&cache=shared", 2));
+    }
+
+    private String readValue(int id) throws SQLException {
+        return database.read((connection, statements) -> {
+            PreparedStatement stmt = statements.get("SELECT value FROM test WHERE id = ?");
+            stmt.setInt(1, id);
+            try (ResultSet resultSet = stmt.executeQuery()) {
+                return resultSet.next() ? resultSet.getString(1) : null;
+            }
+        });
+    }
+}
@@ -0,0 +1,71 @@
+// VeriBlock Blockchain Project
+// Copyright 2017-2018 VeriBlock, Inc
+// Copyright 2018-2019 Xenios SEZC
+// All rights reserved.
+// https://www.veriblock.org
+// Distributed under the MIT software license, see the accompanying
+// file LICENSE or http://www.opensource.org/licenses/mit-license.php.
+
+package org.veriblock.sdk.sqlite;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+public class PreparedStatementCacheTest {
+    private Connection connection;
+
+    @Before
+    public void setUp() throws IOException, SQLException {
+        connection = ConnectionSelector.setConnectionInMemory();
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    public void reuseStatementTest() throws SQLException {
+        PreparedStatementCache cache = new PreparedStatementCache(connection);
+
+        PreparedStatement stmt = cache.get("SELECT 1");
+        Assert.assertSame(stmt, cache.get("SELECT 1"));
+        Assert.assertNotSame(stmt, cache.get("SELECT 2"));
+        Assert.assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void evictLeastRecentlyUsedTest() throws SQLException {
+        PreparedStatementCache cache = new PreparedStatementCache(connection, 2);
+
+        PreparedStatement first = cache.get("SELECT 1");
+        PreparedStatement second = cache.get("SELECT 2");
+        // touch the first statement so that the second one is evicted
+        cache.get("SELECT 1");
+        cache.get("SELECT 3");
+
+        Assert.assertEquals(2, cache.size());
+        Assert.assertFalse(first.isClosed());
+        Assert.assertTrue(second.isClosed());
+        Assert.assertSame(first, cache.get("SELECT 1"));
+    }
+
+    @Test
+    public void clearClosesStatementsTest() throws SQLException {
+        PreparedStatementCache cache = new PreparedStatementCache(connection);
+
+        PreparedStatement stmt = cache.get("SELECT 1");
+        cache.clear();
+
+        Assert.assertEquals(0, cache.size());
+        Assert.assertTrue(stmt.isClosed());
+        Assert.assertNotSame(stmt, cache.get("SELECT 1"));
+    }
+}
@@ -15,12 +15,17 @@ import org.junit.Test;
 import org.veriblock.sdk.blockchain.store.StoredBitcoinBlock;
 import org.veriblock.sdk.models.BitcoinBlock;
 import org.veriblock.sdk.models.Sha256Hash;
+import org.veriblock.sdk.services.SerializeDeserializeService;
 import org.veriblock.sdk.sqlite.ConnectionSelector;
+import org.veriblock.sdk.util.Utils;
 
 import java.io.IOException;
 import java.math.BigInteger;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
@@ -143,6 +148,97 @@ public class BitcoinBlockRepositoryTest {
         Assert.assertEquals(blocks, expectedBlocks);
     }
 
+    @Test
+    public void mainnetWorkTest() throws SQLException, IOException {
+        BigInteger work = new BigInteger("936218949352891107663343855935225590712334859907366912");
+        StoredBitcoinBlock block = new StoredBitcoinBlock(newBlock.getBlock(), work, 601000);
+
+        repo.save(block);
+        Assert.assertEquals(work, repo.get(block.getHash()).getWork());
+    }
+
+    private void createLegacyTable(String table, BigInteger work, String data) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("DROP TABLE IF EXISTS " + table);
+            stmt.execute("CREATE TABLE " + table + " (id TEXT PRIMARY KEY, previousId TEXT, height INTEGER,"
+                       + " work TEXT, data TEXT)");
+        }
+
+        try (PreparedStatement stmt = connection.prepareStatement("INSERT INTO " + table + " VALUES(?, ?, ?, ?, ?)")) {
+            int i = 0;
+            stmt.setString(++i, Utils.encodeHex(newBlock.getHash().getBytes()));
+            stmt.setString(++i, Utils.encodeHex(newBlock.getBlock().getPreviousBlock().getBytes()));
+            stmt.setInt(++i, 601000);
+            stmt.setString(++i, work.toString());
+            stmt.setString(++i, data);
+            stmt.execute();
+        }
+    }
+
+    private String getColumnType(String table, String column) throws SQLException {
+        try (Statement stmt = connection.createStatement();
+             ResultSet resultSet = stmt.executeQuery("PRAGMA table_info(" + table + ")")) {
+            while (resultSet.next()) {
+                if (column.equals(resultSet.getString("name"))) {
+                    return resultSet.getString("type");
+                }
+            }
+        }
+        return null;
+    }
+
+    @Test
+    public void migrateLegacySchemaTest() throws SQLException, IOException {
+        BigInteger work = new BigInteger("936218949352891107663343855935225590712334859907366912");
+        createLegacyTable("bitcoinBlocks", work, Utils.encodeHex(SerializeDeserializeService.serialize(newBlock.getBlock())));
+
+        repo = new BitcoinBlockRepository(connection);
+
+        StoredBitcoinBlock block = repo.get(newBlock.getHash());
+        Assert.assertEquals(newBlock.getBlock(), block.getBlock());
+        Assert.assertEquals(601000, block.getHeight());
+        Assert.assertEquals(work, block.getWork());
+    }
+
+    @Test
+    public void failedMigrationKeepsLegacyTableTest() throws SQLException, IOException {
+        createLegacyTable("bitcoinBlocks", BigInteger.TEN, "not hex");
+
+        try {
+            new BitcoinBlockRepository(connection);
+            Assert.fail();
+        } catch (RuntimeException e) {
+        }
+
+        // the legacy table is left as it was, to be migrated on the next start
+        Assert.assertEquals("TEXT", getColumnType("bitcoinBlocks", "id"));
+        Assert.assertNull(getColumnType("bitcoinBlocks_migration", "id"));
+        try (Statement stmt = connection.createStatement();
+             ResultSet resultSet = stmt.executeQuery("SELECT COUNT(*) FROM bitcoinBlocks")) {
+            Assert.assertEquals(1, resultSet.getInt(1));
+        }
+
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("DROP TABLE bitcoinBlocks");
+        }
+        repo = new BitcoinBlockRepository(connection);
+    }
+
+    @Test
+    public void resumeLegacyMigrationTest() throws SQLException, IOException {
+        // the state an interrupted migration of the earlier versions left behind
+        createLegacyTable("bitcoinBlocks_legacy", BigInteger.TEN, Utils.encodeHex(SerializeDeserializeService.serialize(newBlock.getBlock())));
+        repo.clear();
+        repo.save(newBlock2);
+
+        repo = new BitcoinBlockRepository(connection);
+
+        Assert.assertEquals(newBlock.getBlock(), repo.get(newBlock.getHash()).getBlock());
+        Assert.assertEquals(BigInteger.TEN, repo.get(newBlock.getHash()).getWork());
+        Assert.assertEquals(newBlock2, repo.get(newBlock2.getHash()));
+        Assert.assertNull(getColumnType("bitcoinBlocks_legacy", "id"));
+    }
+
     @Test
     public void isInUseTest() throws SQLException, IOException {
         repo.save(newBlock2);
@@ -21,7 +21,10 @@ import org.veriblock.sdk.util.Utils;
 import java.io.IOException;
 import java.math.BigInteger;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
@@ -158,5 +161,43 @@ public class VeriBlockBlockRepositoryTest {
         Assert.assertEquals(blocks.get(0), newBlock);
     }
 
-    //FIXME: fix and test IsInUse()
+    @Test
+    public void migrateLegacySchemaTest() throws SQLException, IOException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("DROP TABLE veriBlockBlocks");
+            stmt.execute("CREATE TABLE veriBlockBlocks (id TEXT PRIMARY KEY, previousId TEXT, height INTEGER,"
+                       + " work TEXT, blockOfProof TEXT, data TEXT)");
+        }
+
+        try (PreparedStatement stmt = connection.prepareStatement("INSERT INTO veriBlockBlocks VALUES(?, ?, ?, ?, ?, ?)")) {
+            int i = 0;
+            stmt.setString(++i, Utils.encodeHex(newBlock.getHash().getBytes()));
+            stmt.setString(++i, Utils.encodeHex(newBlock.getBlock().getPreviousBlock().getBytes()));
+            stmt.setInt(++i, newBlock.getHeight());
+            stmt.setString(++i, newBlock.getWork().toString());
+            stmt.setString(++i, Utils.encodeHex(newBlock.getBlockOfProof().getBytes()));
+            stmt.setString(++i, Utils.encodeHex(SerializeDeserializeService.serialize(newBlock.getBlock())));
+            stmt.execute();
+        }
+
+        repo = new VeriBlockBlockRepository(connection);
+
+        Assert.assertEquals(newBlock, repo.get(newBlock.getHash()));
+        Assert.assertEquals(newBlock, repo.getEndsWithId(newBlock.getHash().trimToPreviousKeystoneSize()).get(0));
+
+        try (Statement stmt = connection.createStatement();
+             ResultSet resultSet = stmt.executeQuery("SELECT name FROM sqlite_master WHERE name = 'veriBlockBlocks_legacy'")) {
+            Assert.assertFalse(resultSet.next());
+        }
+    }
+
+    @Test
+    public void isInUseTest() throws SQLException, IOException {
+        repo.save(newBlock2);
+        repo.save(newBlock3);
+
+        Assert.assertFalse(repo.isInUse(newBlock3.getHash().trimToPreviousBlockSize()));
+        Assert.assertTrue(repo.isInUse(newBlock.getHash().trimToPreviousBlockSize()));
+        Assert.assertTrue(repo.isInUse(newBlock2.getHash().trimToPreviousBlockSize()));
+    }
 }
@@ -34,6 +34,18 @@ public class UtilsTests {
         Assert.assertArrayEquals(expected, result);
     }
 
+    @Test
+    public void toBytes_WhenTopBitSet() {
+        BigInteger value = new BigInteger(1, new byte[] {-1, 0, 0, 1});
+
+        Assert.assertArrayEquals(new byte[] {-1, 0, 0, 1}, Utils.toBytes(value, 4));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void toBytes_WhenLargerThanSize() {
+        Utils.toBytes(BigInteger.ONE.shiftLeft(96), 12);
+    }
+
     @Test
     public void verifySignature_WhenValid() {
         byte[] message = Utils.decodeHex("0123456789ABCDEF");
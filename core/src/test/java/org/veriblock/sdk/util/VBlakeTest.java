@@ -0,0 +1,126 @@
+// VeriBlock Blockchain Project
+// Copyright 2017-2018 VeriBlock, Inc
+// Copyright 2018-2019 Xenios SEZC
+// All rights reserved.
+// https://www.veriblock.org
+// Distributed under the MIT software license, see the accompanying
+// file LICENSE or http://www.opensource.org/licenses/mit-license.php.
+
+package org.veriblock.sdk.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+import java.util.Random;
+
+public class VBlakeTest {
+
+    // the hash computed with the reference compression function
+    private static byte[] referenceHash(byte[] input) {
+        long[] h = new long[] {
+                0x4BBF42C1F006AD9DL ^ (0x01010000 ^ 0x18), 0x5D11A8C3B5AEB12EL,
+                0xA64AB78DC2774652L, 0xC67595724658F253L,
+                0xB8864E79CB891E56L, 0x12ED593E29FB41A1L,
+                0xB1DA3AB63C60BAA8L, 0x6D20E50C1F954DEDL
+        };
+        byte[] b = new byte[VBlake.INPUT_SIZE];
+        System.arraycopy(input, 0, b, 0, input.length);
+
+        VBlake.compress(h, b);
+        return VBlake.recombineB2Bh(h);
+    }
+
+    @Test
+    public void blockHeaderTest() {
+        byte[] header = Base64.getDecoder().decode("AAATiAAClOfcPjviGpbszw+99fYqMzHcmVw2sJNWN4YGed3V2w8TUxKywnhnyag+8bmbmFyblJMHAjrWcrr9dw==");
+
+        Assert.assertEquals("000000000000480D8196D5B0B41861D032377F5165BB4452", Utils.encodeHex(VBlake.hash(header)));
+        Assert.assertArrayEquals(referenceHash(header), VBlake.hash(header));
+    }
+
+    @Test
+    public void referenceTest() {
+        Random random = new Random(1);
+        for (int length = 0; length <= VBlake.INPUT_SIZE; length++) {
+            byte[] input = new byte[length];
+            random.nextBytes(input);
+
+            Assert.assertArrayEquals(referenceHash(input), VBlake.hash(input));
+        }
+    }
+
+    @Test
+    public void offsetTest() {
+        byte[] input = new byte[VBlake.INPUT_SIZE + 10];
+        new Random(2).nextBytes(input);
+
+        byte[] expected = new byte[VBlake.INPUT_SIZE];
+        System.arraycopy(input, 5, expected, 0, VBlake.INPUT_SIZE);
+
+        Assert.assertArrayEquals(VBlake.hash(expected), VBlake.hash(input, 5, VBlake.INPUT_SIZE));
+    }
+
+    @Test
+    public void byteBufferTest() {
+        byte[] input = new byte[VBlake.INPUT_SIZE];
+        new Random(3).nextBytes(input);
+        byte[] expected = VBlake.hash(input);
+
+        ByteBuffer heap = ByteBuffer.allocate(VBlake.INPUT_SIZE + 4);
+        heap.putInt(0).put(input).flip().position(4);
+        Assert.assertArrayEquals(expected, VBlake.hash(heap));
+        Assert.assertEquals(4, heap.position());
+
+        ByteBuffer direct = ByteBuffer.allocateDirect(VBlake.INPUT_SIZE);
+        direct.put(input).flip();
+        Assert.assertArrayEquals(expected, VBlake.hash(direct));
+        Assert.assertEquals(0, direct.position());
+
+        direct.limit(10);
+        byte[] shortInput = new byte[10];
+        System.arraycopy(input, 0, shortInput, 0, 10);
+        Assert.assertArrayEquals(VBlake.hash(shortInput), VBlake.hash(direct));
+    }
+
+    private static void hashAllTest(int count, boolean direct) {
+        byte[] inputs = new byte[count * VBlake.INPUT_SIZE];
+        new Random(count).nextBytes(inputs);
+
+        ByteBuffer in = direct ? ByteBuffer.allocateDirect(inputs.length) : ByteBuffer.allocate(inputs.length);
+        in.put(inputs).flip();
+        ByteBuffer out = direct ? ByteBuffer.allocateDirect(count * VBlake.HASH_SIZE) : ByteBuffer.allocate(count * VBlake.HASH_SIZE);
+
+        VBlake.hashAll(in, out);
+        Assert.assertFalse(in.hasRemaining());
+        Assert.assertFalse(out.hasRemaining());
+
+        out.flip();
+        byte[] hash = new byte[VBlake.HASH_SIZE];
+        for (int i = 0; i < count; i++) {
+            out.get(hash);
+            Assert.assertArrayEquals(VBlake.hash(inputs, i * VBlake.INPUT_SIZE, VBlake.INPUT_SIZE), hash);
+        }
+    }
+
+    @Test
+    public void hashAllTest() {
+        hashAllTest(0, false);
+        hashAllTest(3, false);
+        hashAllTest(3, true);
+        // split across the fork-join pool
+        hashAllTest(1000, false);
+        hashAllTest(1000, true);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void hashAllPartialInputTest() {
+        VBlake.hashAll(ByteBuffer.allocate(VBlake.INPUT_SIZE + 1), ByteBuffer.allocate(2 * VBlake.HASH_SIZE));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void inputTooLongTest() {
+        VBlake.hash(new byte[VBlake.INPUT_SIZE + 1]);
+    }
+}
@@ -22,7 +22,6 @@ import org.veriblock.sdk.util.Utils;
 
 import java.sql.SQLException;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 import java.math.BigInteger;
 
@@ -50,9 +49,9 @@ public class VeriBlockBlockchain extends org.veriblock.sdk.blockchain.VeriBlockB
                 keystoneBlocksAgo = 21;
         }
 
-        List<StoredVeriBlockBlock> context = store.get(chainHead.getHash(), keystoneBlocksAgo);
-        return context.size() == keystoneBlocksAgo
-             ? context.get(keystoneBlocksAgo - 1).getBlock().getHash().trimToPreviousKeystoneSize()
+        StoredVeriBlockBlock keystone = store.getFromChain(chainHead.getHash(), keystoneBlocksAgo - 1);
+        return keystone != null
+             ? keystone.getBlock().getHash().trimToPreviousKeystoneSize()
              : VBlakeHash.EMPTY_HASH.trimToPreviousKeystoneSize();
     }
 
@@ -71,9 +70,9 @@ public class VeriBlockBlockchain extends org.veriblock.sdk.blockchain.VeriBlockB
 
         keystoneBlocksAgo += 20;
 
-        List<StoredVeriBlockBlock> context = store.get(chainHead.getHash(), keystoneBlocksAgo);
-        return context.size() == keystoneBlocksAgo
-             ? context.get(keystoneBlocksAgo - 1).getBlock().getHash().trimToPreviousKeystoneSize()
+        StoredVeriBlockBlock keystone = store.getFromChain(chainHead.getHash(), keystoneBlocksAgo - 1);
+        return keystone != null
+             ? keystone.getBlock().getHash().trimToPreviousKeystoneSize()
              : VBlakeHash.EMPTY_HASH.trimToPreviousKeystoneSize();
     }
 
@@ -21,7 +21,7 @@ import org.veriblock.sdk.conf.BitcoinMainNetParameters;
 import org.veriblock.sdk.conf.BitcoinNetworkParameters;
 import org.veriblock.sdk.conf.MainNetParameters;
 import org.veriblock.sdk.conf.VeriBlockNetworkParameters;
-import org.veriblock.sdk.sqlite.ConnectionSelector;
+import org.veriblock.sdk.sqlite.Database;
 
 public class SecurityFactory {
     private final VeriBlockNetworkParameters veriblockNetworkParameters;
@@ -57,10 +57,11 @@ public class SecurityFactory {
         // to avoid conflicts with mock blockchain stores created using
         // ConnectionSelector.setConnectionInMemory()
         String dbPath = "file:memdb2?mode=memory&cache=shared";
-        VeriBlockStore veriBlockStore = new VeriBlockStore(ConnectionSelector.setConnection(dbPath));
-        BitcoinStore bitcoinStore = new BitcoinStore(ConnectionSelector.setConnection(dbPath));
-        AuditorChangesStore changeStore = new AuditorChangesStore(ConnectionSelector.setConnection(dbPath));
-        PoPTransactionsDBStore popTxDBStore = new PoPTransactionsDBStore(ConnectionSelector.setConnection(dbPath));
+        Database database = new Database(dbPath);
+        VeriBlockStore veriBlockStore = new VeriBlockStore(database.getConnection());
+        BitcoinStore bitcoinStore = new BitcoinStore(database.getConnection());
+        AuditorChangesStore changeStore = new AuditorChangesStore(database.getConnection());
+        PoPTransactionsDBStore popTxDBStore = new PoPTransactionsDBStore(database);
 
         return new Context(getVeriblockNetworkParameters(), getBitcoinNetworkParameters(),
                            veriBlockStore, bitcoinStore, changeStore, popTxDBStore);